@@ -0,0 +1,75 @@
+package org.openpnp;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openpnp.benchmark.BenchmarkConfigurations;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Configuration.MachineConfigurationHolder;
+import org.openpnp.model.Configuration.PackagesConfigurationHolder;
+import org.openpnp.model.Configuration.PartsConfigurationHolder;
+import org.openpnp.util.OpenCvUtils;
+import org.simpleframework.xml.Serializer;
+
+/**
+ * The non-GUI part of startup, as done by Main before the MainFrame is built, with a large
+ * generated configuration. startup() loads OpenCV and preloads and loads the configuration.
+ * parseSequential() and preload() compare parsing the three configuration files one after another,
+ * as startup used to, with parsing them concurrently.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBenchmark {
+    @Param({"1000", "12000"})
+    public int partCount;
+
+    private File configurationDirectory;
+
+    @Setup
+    public void setup() throws Exception {
+        configurationDirectory = BenchmarkConfigurations.loadTestMachine();
+        BenchmarkConfigurations.addGeneratedParts(partCount);
+        BenchmarkConfigurations.addGeneratedFeeders(partCount / 10);
+        Configuration.get().save();
+    }
+
+    @Benchmark
+    public Configuration startup() throws Exception {
+        OpenCvUtils.loadNativeLibrary();
+        Configuration.initialize(configurationDirectory);
+        Configuration configuration = Configuration.get();
+        configuration.preload();
+        configuration.load();
+        return configuration;
+    }
+
+    @Benchmark
+    public Object[] parseSequential() throws Exception {
+        Configuration.initialize(configurationDirectory);
+        Serializer serializer = Configuration.createSerializer();
+        return new Object[] {
+                serializer.read(PackagesConfigurationHolder.class,
+                        new File(configurationDirectory, "packages.xml")),
+                serializer.read(PartsConfigurationHolder.class,
+                        new File(configurationDirectory, "parts.xml")),
+                serializer.read(MachineConfigurationHolder.class,
+                        new File(configurationDirectory, "machine.xml"))};
+    }
+
+    @Benchmark
+    public Configuration preload() throws Exception {
+        Configuration.initialize(configurationDirectory);
+        Configuration configuration = Configuration.get();
+        configuration.preload();
+        return configuration;
+    }
+}
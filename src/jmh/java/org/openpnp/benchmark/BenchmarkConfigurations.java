@@ -0,0 +1,78 @@
+package org.openpnp.benchmark;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.openpnp.machine.reference.feeder.ReferenceTrayFeeder;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Length;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Package;
+import org.openpnp.model.Part;
+
+import com.google.common.io.Files;
+
+/**
+ * Helpers for setting up the Configuration used by benchmarks.
+ */
+public class BenchmarkConfigurations {
+    /**
+     * Copy the BasicJobTest machine, packages and parts into a new temporary configuration
+     * directory, then initialize and load the Configuration from it. The machine uses TestDriver,
+     * so no hardware is needed.
+     * 
+     * @return The configuration directory.
+     * @throws Exception
+     */
+    public static File loadTestMachine() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        for (String name : new String[] {"machine.xml", "packages.xml", "parts.xml"}) {
+            FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/BasicJobTest/" + name),
+                    new File(workingDirectory, name));
+        }
+        Configuration.initialize(workingDirectory);
+        Configuration.get().load();
+        return workingDirectory;
+    }
+
+    /**
+     * Add count generated packages and parts, one part per package, to the loaded Configuration.
+     * 
+     * @param count
+     */
+    public static void addGeneratedParts(int count) {
+        Configuration configuration = Configuration.get();
+        for (int i = 0; i < count; i++) {
+            Package pkg = new Package(String.format("PKG-%05d", i));
+            pkg.setDescription("Generated package " + i);
+            configuration.addPackage(pkg);
+
+            Part part = new Part(String.format("PART-%05d", i));
+            part.setName("Generated part " + i);
+            part.setPackage(pkg);
+            part.setHeight(new Length(0.5 + (i % 10) * 0.1, LengthUnit.Millimeters));
+            configuration.addPart(part);
+        }
+    }
+
+    /**
+     * Add count tray feeders to the loaded Configuration's machine, each feeding one of the
+     * generated parts added by addGeneratedParts().
+     * 
+     * @param count
+     * @throws Exception
+     */
+    public static void addGeneratedFeeders(int count) throws Exception {
+        Configuration configuration = Configuration.get();
+        for (int i = 0; i < count; i++) {
+            ReferenceTrayFeeder feeder = new ReferenceTrayFeeder();
+            feeder.setName(String.format("FEEDER-%05d", i));
+            feeder.setPart(configuration.getPart(String.format("PART-%05d", i)));
+            feeder.setLocation(new Location(LengthUnit.Millimeters, i % 100, i / 100, 0, 0));
+            feeder.setTrayCountX(10);
+            feeder.setTrayCountY(10);
+            configuration.getMachine().addFeeder(feeder);
+        }
+    }
+}
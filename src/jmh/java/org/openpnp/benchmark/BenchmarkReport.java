@@ -0,0 +1,157 @@
+package org.openpnp.benchmark;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Runs the JMH benchmarks and compares the results against a baseline result file so that
+ * regressions are visible. Invoked by the benchmark Maven profile, see pom.xml.
+ *
+ * Arguments: include regex, result file, baseline file, regression threshold in percent.
+ *
+ * For time based modes a score higher than the baseline by more than the threshold is reported as
+ * a regression. For throughput the reverse applies. If the system property
+ * benchmark.failOnRegression is true the process exits with status 1 when any regression is found.
+ *
+ * If the system property benchmark.gcProfile is true the JMH GC profiler is enabled and the
+ * normalized allocation rate, bytes per operation, of each benchmark is reported and compared
+ * alongside its score.
+ */
+public class BenchmarkReport {
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        File resultFile = new File(args.length > 1 ? args[1] : "target/jmh-result.json");
+        File baselineFile = new File(args.length > 2 ? args[2] : "src/jmh/baseline.json");
+        double threshold = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+
+        resultFile.getParentFile().mkdirs();
+        ChainedOptionsBuilder options = new OptionsBuilder().include(include).forks(1)
+                .warmupIterations(3).measurementIterations(5).resultFormat(ResultFormatType.JSON)
+                .result(resultFile.getAbsolutePath());
+        if (Boolean.getBoolean("benchmark.gcProfile")) {
+            options = options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+
+        Map<String, Score> results = read(resultFile);
+        StringBuilder sb = new StringBuilder();
+        int regressions = 0;
+        if (!baselineFile.exists()) {
+            sb.append(String.format(
+                    "No baseline found at %s. Copy %s there to use these results as the baseline.\n",
+                    baselineFile, resultFile));
+            for (Entry<String, Score> entry : results.entrySet()) {
+                sb.append(String.format("%-80s %14.3f %s\n", entry.getKey(),
+                        entry.getValue().score, entry.getValue().unit));
+            }
+        }
+        else {
+            Map<String, Score> baseline = read(baselineFile);
+            sb.append(String.format("%-80s %14s %14s %9s\n", "Benchmark", "Baseline", "Current",
+                    "Change"));
+            for (Entry<String, Score> entry : results.entrySet()) {
+                Score current = entry.getValue();
+                Score base = baseline.get(entry.getKey());
+                if (base == null || base.score == 0 || !base.unit.equals(current.unit)) {
+                    sb.append(String.format("%-80s %14s %14.3f %9s  %s\n", entry.getKey(), "-",
+                            current.score, "-", current.unit));
+                    continue;
+                }
+                double change = (current.score - base.score) / base.score * 100.;
+                // For throughput higher is better, for everything else lower is better.
+                double worse = current.mode.equals("thrpt") ? -change : change;
+                String verdict = "";
+                if (worse > threshold) {
+                    verdict = "REGRESSION";
+                    regressions++;
+                }
+                else if (worse < -threshold) {
+                    verdict = "improved";
+                }
+                sb.append(String.format("%-80s %14.3f %14.3f %+8.1f%%  %s %s\n", entry.getKey(),
+                        base.score, current.score, change, current.unit, verdict));
+            }
+            sb.append(String.format("%d regression(s) beyond %.1f%%.\n", regressions, threshold));
+        }
+
+        System.out.println();
+        System.out.print(sb);
+        try (Writer writer =
+                new FileWriter(new File(resultFile.getParentFile(), "jmh-report.txt"))) {
+            writer.write(sb.toString());
+        }
+
+        if (regressions > 0 && Boolean.getBoolean("benchmark.failOnRegression")) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Read a JMH JSON result file into a map of benchmark name, including parameters, to score.
+     */
+    static Map<String, Score> read(File file) throws Exception {
+        Map<String, Score> scores = new TreeMap<>();
+        try (Reader reader = new FileReader(file)) {
+            JsonArray array = new JsonParser().parse(reader).getAsJsonArray();
+            for (JsonElement element : array) {
+                JsonObject o = element.getAsJsonObject();
+                String name = o.get("benchmark").getAsString();
+                if (o.has("params")) {
+                    Map<String, String> params = new LinkedHashMap<>();
+                    for (Entry<String, JsonElement> param : o.getAsJsonObject("params")
+                            .entrySet()) {
+                        params.put(param.getKey(), param.getValue().getAsString());
+                    }
+                    name += params;
+                }
+                JsonObject metric = o.getAsJsonObject("primaryMetric");
+                scores.put(name, new Score(o.get("mode").getAsString(),
+                        metric.get("score").getAsDouble(), metric.get("scoreUnit").getAsString()));
+                // Allocation per operation from the GC profiler, where lower is better.
+                if (o.has("secondaryMetrics")) {
+                    for (Entry<String, JsonElement> secondary : o
+                            .getAsJsonObject("secondaryMetrics").entrySet()) {
+                        if (!secondary.getKey().endsWith("gc.alloc.rate.norm")) {
+                            continue;
+                        }
+                        JsonObject alloc = secondary.getValue().getAsJsonObject();
+                        scores.put(name + ":gc.alloc.rate.norm",
+                                new Score("avgt", alloc.get("score").getAsDouble(),
+                                        alloc.get("scoreUnit").getAsString()));
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    static class Score {
+        final String mode;
+        final double score;
+        final String unit;
+
+        Score(String mode, double score, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+    }
+}
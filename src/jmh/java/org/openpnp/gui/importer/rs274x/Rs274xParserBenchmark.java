@@ -0,0 +1,88 @@
+package org.openpnp.gui.importer.rs274x;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parses generated paste layers of increasing size. Each file is a panel of flashes of
+ * rectangle, circle and obround apertures, one flash per line, written with CRLF line endings as
+ * most CAD tools do. 100000 pads is a little over 2 MB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class Rs274xParserBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int padCount;
+
+    private File file;
+
+    @Setup
+    public void setup() throws Exception {
+        file = File.createTempFile("paste", ".gtp");
+        try (Writer writer = new FileWriter(file)) {
+            generate(writer, padCount, new Random(0));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Parse into a List, as the importer did before pads were streamed.
+     */
+    @Benchmark
+    public Object parseToList() throws Exception {
+        return new Rs274xParser().parseSolderPastePads(file);
+    }
+
+    /**
+     * Parse with a listener that consumes each pad as it is produced.
+     */
+    @Benchmark
+    public void parseStreaming(Blackhole blackhole) throws Exception {
+        new Rs274xParser().parseSolderPastePads(file, pad -> blackhole.consume(pad));
+    }
+
+    /**
+     * Write a paste layer with padCount flashes to writer.
+     */
+    static void generate(Writer writer, int padCount, Random random) throws IOException {
+        writer.write("G04 Generated paste layer*\r\n");
+        writer.write("%FSLAX24Y24*%\r\n");
+        writer.write("%MOIN*%\r\n");
+        writer.write("%ADD10R,0.0500X0.0250*%\r\n");
+        writer.write("%ADD11C,0.0300*%\r\n");
+        writer.write("%ADD12O,0.0600X0.0200*%\r\n");
+        writer.write("G01*\r\n");
+        int aperture = -1;
+        for (int i = 0; i < padCount; i++) {
+            int next = 10 + random.nextInt(3);
+            if (next != aperture) {
+                aperture = next;
+                writer.write("D" + aperture + "*\r\n");
+            }
+            int x = random.nextInt(200000) - 10000;
+            int y = random.nextInt(200000) - 10000;
+            writer.write("X" + x + "Y" + y + "D03*\r\n");
+        }
+        writer.write("M02*\r\n");
+    }
+}
@@ -0,0 +1,52 @@
+package org.openpnp.machine.reference;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openpnp.benchmark.BenchmarkConfigurations;
+import org.openpnp.machine.reference.driver.NullDriver;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.spi.Nozzle;
+import org.openpnp.util.MovableUtils;
+
+/**
+ * The motion of a simulated pick and place cycle: safe Z, move to the feeder, pick height, safe
+ * Z, move to the placement and place height, through ReferenceNozzle and a NullDriver that does
+ * not simulate movement time. Run with -Dbenchmark.gcProfile=true for the allocation profile of
+ * the cycle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NozzleMoveBenchmark {
+    private Nozzle nozzle;
+
+    private Location feederLocation = new Location(LengthUnit.Millimeters, 120, 35, -20, 0);
+
+    private Location placementLocation = new Location(LengthUnit.Inches, 3.5, 2.75, -0.7, 270);
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkConfigurations.loadTestMachine();
+        ReferenceMachine machine = (ReferenceMachine) Configuration.get().getMachine();
+        NullDriver driver = new NullDriver();
+        driver.setFeedRateMmPerMinute(0);
+        machine.setDriver(driver);
+        driver.setEnabled(true);
+        nozzle = machine.getDefaultHead().getDefaultNozzle();
+    }
+
+    @Benchmark
+    public void pickAndPlaceMoves() throws Exception {
+        MovableUtils.moveToLocationAtSafeZ(nozzle, feederLocation, 1.0);
+        MovableUtils.moveToLocationAtSafeZ(nozzle, placementLocation, 1.0);
+    }
+}
@@ -0,0 +1,83 @@
+package org.openpnp.machine.reference;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openpnp.benchmark.BenchmarkConfigurations;
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Part;
+import org.openpnp.model.Placement;
+import org.openpnp.spi.base.CompatibilityMatrix;
+
+/**
+ * Plans one cycle of a synthetic job on the two nozzle BasicJobTest machine. The job's placements
+ * use the parts from the BasicJobTest configuration, chosen at random.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReferencePnpJobProcessorBenchmark {
+    @Param({"10", "50", "200"})
+    public int placementCount;
+
+    private PlanningJobProcessor jobProcessor;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkConfigurations.loadTestMachine();
+
+        List<Part> parts = Configuration.get().getParts();
+        Random random = new Random(0);
+        Board board = new Board();
+        board.setName("benchmark");
+        BoardLocation boardLocation = new BoardLocation(board);
+        boardLocation.setLocation(new Location(LengthUnit.Millimeters));
+        boardLocation.setSide(Side.Top);
+
+        jobProcessor = new PlanningJobProcessor();
+        jobProcessor.machine = Configuration.get().getMachine();
+        jobProcessor.head = jobProcessor.machine.getDefaultHead();
+        jobProcessor.compatibility = new CompatibilityMatrix(jobProcessor.head);
+        for (int i = 0; i < placementCount; i++) {
+            Placement placement = new Placement("P" + i);
+            placement.setPart(parts.get(random.nextInt(parts.size())));
+            placement.setLocation(new Location(LengthUnit.Millimeters, random.nextDouble() * 100,
+                    random.nextDouble() * 100, 0, random.nextInt(4) * 90));
+            placement.setSide(Side.Top);
+            board.addPlacement(placement);
+            jobProcessor.jobPlacements
+                    .add(new ReferencePnpJobProcessor.JobPlacement(boardLocation, placement));
+        }
+    }
+
+    @Benchmark
+    public Object doPlan() throws Exception {
+        return jobProcessor.plan();
+    }
+
+    static class PlanningJobProcessor extends ReferencePnpJobProcessor {
+        List<PlannedPlacement> plan() throws Exception {
+            doPlan();
+            // Return the planned placements to the pending pool so every invocation plans
+            // against the same job.
+            for (PlannedPlacement plannedPlacement : plannedPlacements) {
+                plannedPlacement.jobPlacement.status = JobPlacement.Status.Pending;
+            }
+            return plannedPlacements;
+        }
+    }
+}
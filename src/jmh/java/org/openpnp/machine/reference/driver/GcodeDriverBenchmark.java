@@ -0,0 +1,35 @@
+package org.openpnp.machine.reference.driver;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Variable substitution for a typical move command, performed in the same order GcodeDriver.moveTo
+ * applies it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GcodeDriverBenchmark {
+    private String moveToCommand =
+            "G0 {X:X%.4f} {Y:Y%.4f} {Z:Z%.4f} {Rotation:E%.4f} F{FeedRate:%.0f} ; Move {Name} {Id}";
+
+    @Benchmark
+    public String substituteMoveTo() {
+        String command = moveToCommand;
+        command = GcodeDriver.substituteVariable(command, "Id", "N1");
+        command = GcodeDriver.substituteVariable(command, "Name", "Nozzle 1");
+        command = GcodeDriver.substituteVariable(command, "FeedRate", 15000.0);
+        command = GcodeDriver.substituteVariable(command, "X", 123.4567);
+        command = GcodeDriver.substituteVariable(command, "Y", 89.0123);
+        command = GcodeDriver.substituteVariable(command, "Z", -12.5);
+        command = GcodeDriver.substituteVariable(command, "Rotation", 90.0);
+        return command;
+    }
+}
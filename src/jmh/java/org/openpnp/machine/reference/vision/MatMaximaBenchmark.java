@@ -0,0 +1,68 @@
+package org.openpnp.machine.reference.vision;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Local maxima search over a template match result sized Mat filled with smooth random peaks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MatMaximaBenchmark {
+    static {
+        nu.pattern.OpenCV.loadShared();
+        System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+    }
+
+    @Param({"160", "640"})
+    public int size;
+
+    private Mat mat;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        mat = new Mat(size, size, CvType.CV_32F);
+        float[] data = new float[size * size];
+        double[][] peaks = new double[20][];
+        for (int i = 0; i < peaks.length; i++) {
+            peaks[i] = new double[] {random.nextInt(size), random.nextInt(size),
+                    0.5 + random.nextDouble() / 2};
+        }
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                double v = 0;
+                for (double[] peak : peaks) {
+                    double dx = x - peak[0], dy = y - peak[1];
+                    v = Math.max(v, peak[2] * Math.exp(-(dx * dx + dy * dy) / 50.));
+                }
+                data[y * size + x] = (float) v;
+            }
+        }
+        mat.put(0, 0, data);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mat.release();
+    }
+
+    @Benchmark
+    public List<?> matMaxima() {
+        return OpenCvVisionProvider.matMaxima(mat, 0.7, 1.0);
+    }
+}
@@ -0,0 +1,47 @@
+package org.openpnp.model;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openpnp.benchmark.BenchmarkConfigurations;
+
+/**
+ * Loading and saving a configuration with a large generated parts and packages library.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConfigurationBenchmark {
+    @Param({"1000", "12000"})
+    public int partCount;
+
+    private File configurationDirectory;
+
+    @Setup
+    public void setup() throws Exception {
+        configurationDirectory = BenchmarkConfigurations.loadTestMachine();
+        BenchmarkConfigurations.addGeneratedParts(partCount);
+        Configuration.get().save();
+    }
+
+    @Benchmark
+    public Configuration load() throws Exception {
+        Configuration.initialize(configurationDirectory);
+        Configuration.get().load();
+        return Configuration.get();
+    }
+
+    @Benchmark
+    public Configuration save() throws Exception {
+        Configuration.get().save();
+        return Configuration.get();
+    }
+}
@@ -0,0 +1,77 @@
+package org.openpnp.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The arithmetic a nozzle move goes through between ReferenceNozzle.moveTo and the driver
+ * coordinates: NaN substitution, rotation limiting, the nozzle tip calibration offset, the head
+ * offsets and the conversion to driver units. Performed once with immutable Locations and once
+ * with a MutableLocation. Run with -Dbenchmark.gcProfile=true to compare allocation per move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LocationBenchmark {
+    private Location target = new Location(LengthUnit.Inches, 4.5, 2.25, Double.NaN, 270);
+
+    private Location current = new Location(LengthUnit.Millimeters, 10, 20, -5, 0);
+
+    private Location calibrationOffset = new Location(LengthUnit.Millimeters, 0.05, -0.03, 0, 0);
+
+    private Location headOffsets = new Location(LengthUnit.Millimeters, 10, 0, 0, 0);
+
+    private LengthUnit driverUnits = LengthUnit.Millimeters;
+
+    @Benchmark
+    public void location(Blackhole blackhole) {
+        Location location = target;
+        Location currentLocation = current.convertToUnits(location.getUnits());
+        if (Double.isNaN(location.getX())) {
+            location = location.derive(currentLocation.getX(), null, null, null);
+        }
+        if (Double.isNaN(location.getY())) {
+            location = location.derive(null, currentLocation.getY(), null, null);
+        }
+        if (Double.isNaN(location.getZ())) {
+            location = location.derive(null, null, currentLocation.getZ(), null);
+        }
+        if (Double.isNaN(location.getRotation())) {
+            location = location.derive(null, null, null, currentLocation.getRotation());
+        }
+        if (Math.abs(location.getRotation()) > 180) {
+            location = location.derive(null, null, null, location.getRotation() - 360);
+        }
+        location = location.subtract(calibrationOffset);
+        location = location.convertToUnits(driverUnits);
+        location = location.subtract(headOffsets);
+        blackhole.consume(location.getX());
+        blackhole.consume(location.getY());
+        blackhole.consume(location.getZ());
+        blackhole.consume(location.getRotation());
+    }
+
+    @Benchmark
+    public void mutableLocation(Blackhole blackhole) {
+        MutableLocation location = new MutableLocation(target);
+        if (location.hasNaN()) {
+            location.replaceNaN(current);
+        }
+        if (Math.abs(location.getRotation()) > 180) {
+            location.setRotation(location.getRotation() - 360);
+        }
+        location.subtract(calibrationOffset);
+        location.subtract(headOffsets);
+        blackhole.consume(location.getX(driverUnits));
+        blackhole.consume(location.getY(driverUnits));
+        blackhole.consume(location.getZ(driverUnits));
+        blackhole.consume(location.getRotation());
+    }
+}
@@ -0,0 +1,59 @@
+package org.openpnp.util;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Conversions between BufferedImage and Mat for the image types cameras commonly produce.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OpenCvUtilsBenchmark {
+    @Param({"TYPE_INT_ARGB", "TYPE_3BYTE_BGR", "TYPE_BYTE_GRAY"})
+    public String imageType;
+
+    private BufferedImage image;
+
+    private Mat mat;
+
+    @Setup
+    public void setup() throws Exception {
+        BufferedImage source = ImageIO.read(getClass().getClassLoader()
+                .getResourceAsStream("samples/pnp-test/pnp-test.png"));
+        int type = BufferedImage.class.getField(imageType).getInt(null);
+        image = new BufferedImage(1280, 960, type);
+        image.getGraphics().drawImage(source, 0, 0, 1280, 960, null);
+        mat = OpenCvUtils.toMat(image);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mat.release();
+    }
+
+    @Benchmark
+    public Mat toMat() {
+        Mat m = OpenCvUtils.toMat(image);
+        m.release();
+        return m;
+    }
+
+    @Benchmark
+    public BufferedImage toBufferedImage() {
+        return OpenCvUtils.toBufferedImage(mat);
+    }
+}
@@ -0,0 +1,75 @@
+package org.openpnp.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+/**
+ * Projects 1000 placement locations, given in inches, through a rotated bottom side board in
+ * millimeters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class Utils2DBenchmark {
+    private BoardLocation boardLocation;
+
+    private Location[] placementLocations;
+
+    private List<Location> placementLocationList;
+
+    @Setup
+    public void setup() {
+        boardLocation = new BoardLocation(new Board());
+        boardLocation.setLocation(new Location(LengthUnit.Millimeters, 100, 50, -1.6, 33));
+        boardLocation.setSide(Side.Bottom);
+        Random random = new Random(0);
+        placementLocations = new Location[1000];
+        for (int i = 0; i < placementLocations.length; i++) {
+            placementLocations[i] = new Location(LengthUnit.Inches, random.nextDouble() * 4,
+                    random.nextDouble() * 4, 0, random.nextInt(360));
+        }
+        placementLocationList = Arrays.asList(placementLocations);
+    }
+
+    /**
+     * The per placement calculation, without the cached BoardTransform.
+     */
+    @Benchmark
+    public void calculateBoardPlacementLocationUncached(Blackhole blackhole) {
+        double offset = boardLocation.getBoard().getDimensions().getX();
+        for (Location location : placementLocations) {
+            blackhole.consume(Utils2D.calculateBoardPlacementLocation(boardLocation.getLocation(),
+                    boardLocation.getSide(), offset, location));
+        }
+    }
+
+    @Benchmark
+    public void calculateBoardPlacementLocation(Blackhole blackhole) {
+        for (Location location : placementLocations) {
+            blackhole.consume(Utils2D.calculateBoardPlacementLocation(boardLocation, location));
+        }
+    }
+
+    @Benchmark
+    public Location[] calculateBoardPlacementLocations() {
+        return Utils2D.calculateBoardPlacementLocations(boardLocation.getPlacementTransform(),
+                placementLocationList);
+    }
+}
@@ -0,0 +1,63 @@
+package org.openpnp.vision.pipeline;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openpnp.machine.reference.ReferenceNozzleTip;
+import org.openpnp.machine.reference.camera.ImageCamera;
+import org.openpnp.machine.reference.vision.ReferenceBottomVision;
+import org.openpnp.model.Configuration;
+
+import com.google.common.io.Files;
+
+/**
+ * Runs the default bottom vision and nozzle tip calibration pipelines against the pnp-test sample
+ * image served by an ImageCamera with no settle time, so the measurement is capture plus the
+ * pipeline stages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CvPipelineBenchmark {
+    @Param({"bottomVision", "nozzleTipCalibration"})
+    public String pipelineName;
+
+    private CvPipeline pipeline;
+
+    private ImageCamera camera;
+
+    @Setup
+    public void setup() throws Exception {
+        Configuration.initialize(Files.createTempDir());
+        camera = new ImageCamera();
+        camera.setSourceUri("classpath://samples/pnp-test/pnp-test.png");
+        camera.setSettleTimeMs(0);
+        if (pipelineName.equals("bottomVision")) {
+            pipeline = ReferenceBottomVision.createDefaultPipeline();
+        }
+        else {
+            pipeline = ReferenceNozzleTip.Calibration.createDefaultPipeline();
+        }
+        pipeline.setCamera(camera);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pipeline.release();
+        camera.close();
+    }
+
+    @Benchmark
+    public Object process() {
+        pipeline.process();
+        return pipeline.getResult("result");
+    }
+}
@@ -26,7 +26,9 @@ import javax.swing.UIManager;
 
 import org.apache.commons.io.FileUtils;
 import org.openpnp.gui.MainFrame;
+import org.openpnp.gui.SplashWindow;
 import org.openpnp.model.Configuration;
+import org.openpnp.util.OpenCvUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -90,6 +92,23 @@ public class Main {
 
         Configuration.initialize(configurationDirectory);
         final Configuration configuration = Configuration.get();
+
+        // Startup runs on this thread while the splash window is shown. Loading OpenCV and
+        // parsing the configuration files take most of the startup time and neither needs the
+        // event dispatch thread, so only building the MainFrame is done there.
+        long startTime = System.currentTimeMillis();
+        final SplashWindow splash = showSplash();
+        splash.setProgress(0, "Loading OpenCV");
+        OpenCvUtils.loadNativeLibrary();
+        splash.setProgress(1, "Reading configuration");
+        try {
+            configuration.preload();
+        }
+        catch (Exception e) {
+            // MainFrame loads the configuration again and reports the error.
+            logger.debug("Configuration preload failed", e);
+        }
+        splash.setProgress(2, "Starting user interface");
         EventQueue.invokeLater(new Runnable() {
             public void run() {
                 try {
@@ -99,7 +118,25 @@ public class Main {
                 catch (Exception e) {
                     e.printStackTrace();
                 }
+                finally {
+                    splash.dispose();
+                }
+                logger.debug("Startup took {} ms", System.currentTimeMillis() - startTime);
             }
         });
     }
+
+    private static SplashWindow showSplash() {
+        final SplashWindow[] splash = new SplashWindow[1];
+        try {
+            EventQueue.invokeAndWait(() -> {
+                splash[0] = new SplashWindow(3);
+                splash[0].setVisible(true);
+            });
+        }
+        catch (Exception e) {
+            throw new Error(e);
+        }
+        return splash[0];
+    }
 }
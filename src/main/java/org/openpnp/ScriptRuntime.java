@@ -0,0 +1,393 @@
+package org.openpnp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+
+import org.apache.commons.io.FileUtils;
+import org.openpnp.model.Configuration;
+import org.openpnp.util.Profiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.Files;
+
+/**
+ * Runs scripts from the scripts directory. Each script is read and, if its engine supports it,
+ * compiled once and then reused until the file changes. Engines are kept in a pool per filename
+ * extension so a script run doesn't pay for creating an engine, and a script that is run again
+ * on the same engine keeps its global variables.
+ *
+ * Scripts in the Events directory are run when the event they are named after happens, for
+ * instance Events/Job.Placement.Finished.js. Firing an event that has no scripts costs a map
+ * lookup, so events can be fired on every placement.
+ */
+public class ScriptRuntime {
+    private static final Logger logger = LoggerFactory.getLogger(ScriptRuntime.class);
+
+    /**
+     * How many idle engines to keep for each extension.
+     */
+    private static final int MAX_POOLED_ENGINES = 4;
+
+    private final File scriptsDirectory;
+    private final File eventsDirectory;
+    private ScriptEngineManager manager;
+    private String[] extensions;
+
+    private final Map<String, Deque<PooledEngine>> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Each file's version is incremented when the file changes, and the generation when any file
+     * may have changed, so cached scripts from older versions are recompiled.
+     */
+    private final Map<File, Integer> versions = new ConcurrentHashMap<>();
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * The scripts for each event, or null if they need to be listed again.
+     */
+    private volatile Map<String, List<File>> eventScripts;
+
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private WatchService watcher;
+
+    private final AtomicLong eventCount = new AtomicLong();
+    private final AtomicLong eventTimeNs = new AtomicLong();
+
+    public ScriptRuntime(File scriptsDirectory) {
+        this.scriptsDirectory = scriptsDirectory;
+        this.eventsDirectory = new File(scriptsDirectory, "Events");
+        scriptsDirectory.mkdirs();
+        watch();
+    }
+
+    public File getScriptsDirectory() {
+        return scriptsDirectory;
+    }
+
+    public File getEventsDirectory() {
+        return eventsDirectory;
+    }
+
+    /**
+     * Get the ScriptEngineManager, creating it and collecting all the script filename extensions
+     * we know how to handle from the list of available scripting engines the first time.
+     */
+    public synchronized ScriptEngineManager getEngineManager() {
+        if (manager == null) {
+            ScriptEngineManager manager = new ScriptEngineManager();
+            List<ScriptEngineFactory> factories = manager.getEngineFactories();
+            Set<String> extensions = new HashSet<>();
+            for (ScriptEngineFactory factory : factories) {
+                for (String ext : factory.getExtensions()) {
+                    extensions.add(ext.toLowerCase());
+                }
+            }
+            this.extensions = extensions.toArray(new String[] {});
+            this.manager = manager;
+        }
+        return manager;
+    }
+
+    /**
+     * Get the filename extensions of the available script engines.
+     */
+    public String[] getExtensions() {
+        getEngineManager();
+        return extensions;
+    }
+
+    /**
+     * Run the script with the given variables set, along with config and machine.
+     *
+     * @param script
+     * @param globals May be null.
+     * @return The value of the script.
+     * @throws Exception
+     */
+    public Object execute(File script, Map<String, Object> globals) throws Exception {
+        File file = script.getAbsoluteFile();
+        String extension = Files.getFileExtension(file.getName());
+        PooledEngine pooledEngine = acquire(extension);
+        try {
+            ScriptEngine engine = pooledEngine.engine;
+            engine.put("config", Configuration.get());
+            engine.put("machine", Configuration.get().getMachine());
+            if (globals != null) {
+                for (Map.Entry<String, Object> entry : globals.entrySet()) {
+                    engine.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return pooledEngine.getScript(file).eval();
+        }
+        finally {
+            release(extension, pooledEngine);
+        }
+    }
+
+    /**
+     * Returns true if there are scripts for the given event.
+     *
+     * @param event
+     * @return
+     */
+    public boolean hasScripts(String event) {
+        return getEventScripts().containsKey(event);
+    }
+
+    /**
+     * Run the scripts for the given event, if there are any, in filename order. The time they
+     * take is added to the event statistics and recorded by the Profiler as script.<event>.
+     *
+     * @param event
+     * @param globals May be null.
+     * @throws Exception if a script fails. The remaining scripts for the event are not run.
+     */
+    public void on(String event, Map<String, Object> globals) throws Exception {
+        List<File> scripts = getEventScripts().get(event);
+        if (scripts == null) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            for (File script : scripts) {
+                execute(script, globals);
+            }
+        }
+        finally {
+            long nanos = System.nanoTime() - startNanos;
+            eventCount.incrementAndGet();
+            eventTimeNs.addAndGet(nanos);
+            if (Profiler.get().isEnabled()) {
+                Profiler.get().record("script." + event, nanos);
+            }
+        }
+    }
+
+    /**
+     * Get the number of times event scripts have been run.
+     */
+    public long getEventCount() {
+        return eventCount.get();
+    }
+
+    /**
+     * Get the total time spent running event scripts.
+     */
+    public long getEventTimeNs() {
+        return eventTimeNs.get();
+    }
+
+    /**
+     * Forget the cached copy of the given script, or of every script if file is null, so that it
+     * is read again the next time it is run. This is done automatically when the scripts
+     * directory changes.
+     *
+     * @param file
+     */
+    public void invalidate(File file) {
+        if (file == null) {
+            generation.incrementAndGet();
+        }
+        else {
+            versions.merge(file.getAbsoluteFile(), 1, Integer::sum);
+        }
+        eventScripts = null;
+    }
+
+    /**
+     * Add a listener to be called, on the watcher thread, when something in the scripts directory
+     * changes.
+     *
+     * @param listener
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    private Map<String, List<File>> getEventScripts() {
+        Map<String, List<File>> eventScripts = this.eventScripts;
+        if (eventScripts == null) {
+            eventScripts = new HashMap<>();
+            File[] files = eventsDirectory.listFiles(File::isFile);
+            // Only look up the engines if there is something to run, since that can be slow.
+            if (files != null && files.length > 0) {
+                Set<String> extensions = new HashSet<>();
+                Collections.addAll(extensions, getExtensions());
+                for (File file : files) {
+                    String extension = Files.getFileExtension(file.getName()).toLowerCase();
+                    if (!extensions.contains(extension)) {
+                        continue;
+                    }
+                    eventScripts.computeIfAbsent(Files.getNameWithoutExtension(file.getName()),
+                            event -> new ArrayList<>()).add(file);
+                }
+                for (List<File> scripts : eventScripts.values()) {
+                    Collections.sort(scripts);
+                }
+            }
+            this.eventScripts = eventScripts;
+        }
+        return eventScripts;
+    }
+
+    private PooledEngine acquire(String extension) throws Exception {
+        Deque<PooledEngine> pool = pools.get(extension);
+        PooledEngine pooledEngine = pool == null ? null : pool.pollFirst();
+        if (pooledEngine == null) {
+            ScriptEngine engine = getEngineManager().getEngineByExtension(extension);
+            if (engine == null) {
+                throw new Exception("No script engine found for extension " + extension + ".");
+            }
+            pooledEngine = new PooledEngine(engine);
+        }
+        return pooledEngine;
+    }
+
+    private void release(String extension, PooledEngine pooledEngine) {
+        Deque<PooledEngine> pool =
+                pools.computeIfAbsent(extension, e -> new ConcurrentLinkedDeque<>());
+        if (pool.size() < MAX_POOLED_ENGINES) {
+            pool.addFirst(pooledEngine);
+        }
+    }
+
+    /**
+     * Watch the scripts directory and its subdirectories and invalidate scripts as they change.
+     */
+    private void watch() {
+        try {
+            watcher = scriptsDirectory.toPath().getFileSystem().newWatchService();
+            register(scriptsDirectory);
+        }
+        catch (Exception e) {
+            logger.warn("Unable to watch scripts directory, changes will not be noticed", e);
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            for (;;) {
+                try {
+                    // wait for an event
+                    WatchKey key = watcher.take();
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            invalidate(null);
+                            continue;
+                        }
+                        File file = directory.resolve((Path) event.context()).toFile();
+                        invalidate(file);
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                                && file.isDirectory()) {
+                            register(file);
+                        }
+                    }
+                    key.reset();
+                    for (Runnable listener : changeListeners) {
+                        listener.run();
+                    }
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                catch (Exception e) {
+                    logger.warn("Error handling scripts directory change", e);
+                }
+            }
+        }, "Scripts Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void register(File directory) throws IOException {
+        directory.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        File[] subdirectories = directory.listFiles(File::isDirectory);
+        if (subdirectories != null) {
+            for (File subdirectory : subdirectories) {
+                register(subdirectory);
+            }
+        }
+    }
+
+    /**
+     * An engine and the scripts it has compiled. Only used by one thread at a time.
+     */
+    private class PooledEngine {
+        private final ScriptEngine engine;
+        private final Map<File, CachedScript> scripts = new HashMap<>();
+
+        PooledEngine(ScriptEngine engine) {
+            this.engine = engine;
+        }
+
+        CachedScript getScript(File file) throws Exception {
+            int version = versions.getOrDefault(file, 0);
+            int generation = ScriptRuntime.this.generation.get();
+            CachedScript script = scripts.get(file);
+            if (script == null || script.version != version
+                    || script.generation != generation) {
+                String source = FileUtils.readFileToString(file, "UTF-8");
+                CompiledScript compiled = null;
+                if (engine instanceof Compilable) {
+                    compiled = ((Compilable) engine).compile(source);
+                }
+                script = new CachedScript(engine, source, compiled, version, generation);
+                scripts.put(file, script);
+            }
+            return script;
+        }
+    }
+
+    private static class CachedScript {
+        private final ScriptEngine engine;
+        private final String source;
+        private final CompiledScript compiled;
+        private final int version;
+        private final int generation;
+
+        CachedScript(ScriptEngine engine, String source, CompiledScript compiled, int version,
+                int generation) {
+            this.engine = engine;
+            this.source = source;
+            this.compiled = compiled;
+            this.version = version;
+            this.generation = generation;
+        }
+
+        Object eval() throws Exception {
+            if (compiled != null) {
+                return compiled.eval();
+            }
+            return engine.eval(source);
+        }
+    }
+}
@@ -3,24 +3,19 @@ package org.openpnp;
 import java.awt.Desktop;
 import java.awt.event.ActionEvent;
 import java.io.File;
-import java.io.FileReader;
-import java.nio.file.FileSystems;
-import java.nio.file.StandardWatchEventKinds;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineFactory;
-import javax.script.ScriptEngineManager;
 import javax.swing.AbstractAction;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
+import javax.swing.SwingUtilities;
 
 import org.apache.commons.io.FileUtils;
 import org.openpnp.gui.MainFrame;
@@ -29,31 +24,16 @@ import org.openpnp.util.UiUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.io.Files;
-
 public class Scripting {
     private static final Logger logger = LoggerFactory.getLogger(Scripting.class);
 
     final JMenu menu;
-    final ScriptEngineManager manager = new ScriptEngineManager();
-    final String[] extensions;
+    final ScriptRuntime runtime;
     File scriptsDirectory;
-    WatchService watcher;
 
     public Scripting(JMenu menu) {
         this.menu = menu;
 
-        // Collect all the script filename extensions we know how to handle from the list of
-        // available scripting engines.
-        List<ScriptEngineFactory> factories = manager.getEngineFactories();
-        Set<String> extensions = new HashSet<>();
-        for (ScriptEngineFactory factory : factories) {
-            for (String ext : factory.getExtensions()) {
-                extensions.add(ext.toLowerCase());
-            }
-        }
-        this.extensions = extensions.toArray(new String[] {});
-
         this.scriptsDirectory =
                 new File(Configuration.get().getConfigurationDirectory(), "scripts");
 
@@ -82,6 +62,9 @@ public class Scripting {
             }
         }
 
+        // The runtime runs the scripts and watches the scripts directory.
+        this.runtime = Configuration.get().getScriptRuntime();
+
         // Add a separator and the Refresh Scripts and Open Scripts Directory items
         menu.addSeparator();
         menu.add(new AbstractAction("Refresh Scripts") {
@@ -101,48 +84,25 @@ public class Scripting {
             }
         });
 
-        // Add a file watcher so that we can be notified if any scripts change
-        try {
-            watcher = FileSystems.getDefault().newWatchService();
-            watchDirectory(getScriptsDirectory());
-            new Thread(() -> {
-                for (;;) {
-                    try {
-                        // wait for an event
-                        WatchKey key = watcher.take();
-                        key.pollEvents();
-                        key.reset();
-                        // rescan
-                        synchronizeMenu(menu, getScriptsDirectory());
-                    }
-                    catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-            }).start();
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        // Synchronize the menu
-        synchronizeMenu(menu, getScriptsDirectory());
+        // Finding the script engines loads every engine on the classpath, which takes several
+        // seconds with Jython, so do it in the background. The script menu items are added once
+        // it is done.
+        Thread thread = new Thread(() -> {
+            runtime.getEngineManager();
+            SwingUtilities.invokeLater(() -> synchronizeMenu(menu, getScriptsDirectory()));
+        }, "Scripting Init");
+        thread.setDaemon(true);
+        thread.start();
+
+        // Rescan when any scripts change.
+        runtime.addChangeListener(() -> SwingUtilities
+                .invokeLater(() -> synchronizeMenu(menu, getScriptsDirectory())));
     }
 
     public File getScriptsDirectory() {
         return scriptsDirectory;
     }
 
-    private void watchDirectory(File directory) {
-        try {
-            directory.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
-                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
     private synchronized void synchronizeMenu(JMenu menu, File directory) {
         // Remove any menu items that don't have a matching entry in the directory
         Set<String> filenames = new HashSet<>(Arrays.asList(directory.list()));
@@ -155,7 +115,7 @@ public class Scripting {
         // Add any scripts not already in the menu
         Set<String> itemNames = getScriptMenuItems(menu).stream().map(JMenuItem::getText)
                 .collect(Collectors.toSet());
-        for (File script : FileUtils.listFiles(directory, extensions, false)) {
+        for (File script : FileUtils.listFiles(directory, runtime.getExtensions(), false)) {
             if (!script.isFile()) {
                 continue;
             }
@@ -176,7 +136,6 @@ public class Scripting {
             if (!itemNames.contains(d.getName())) {
                 JMenu m = new JMenu(d.getName());
                 addSorted(menu, m);
-                watchDirectory(d);
             }
         }
 
@@ -217,18 +176,9 @@ public class Scripting {
     }
 
     private void execute(File script) throws Exception {
-        ScriptEngine engine =
-                manager.getEngineByExtension(Files.getFileExtension(script.getName()));
-
-        engine.put("config", Configuration.get());
-        engine.put("machine", Configuration.get().getMachine());
-        engine.put("gui", MainFrame.get());
-        engine.put("scripting", this);
-
-        try (FileReader reader = new FileReader(script)) {
-            engine.eval(new FileReader(script));
-        }
+        Map<String, Object> globals = new HashMap<>();
+        globals.put("gui", MainFrame.get());
+        globals.put("scripting", this);
+        runtime.execute(script, globals);
     }
-    
-    
 }
@@ -33,11 +33,11 @@ import org.opencv.core.Scalar;
 import org.opencv.core.Size;
 import org.opencv.highgui.Highgui;
 import org.opencv.imgproc.Imgproc;
+import org.openpnp.util.OpenCvUtils;
 
 public class FiducialTest {
     static {
-        nu.pattern.OpenCV.loadShared();
-        System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+        OpenCvUtils.loadNativeLibrary();
     }
 
     public static void showResult(String name, Mat img) {
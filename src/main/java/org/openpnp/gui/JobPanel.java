@@ -61,6 +61,7 @@ import org.openpnp.gui.support.Helpers;
 import org.openpnp.gui.support.Icons;
 import org.openpnp.gui.support.MessageBoxes;
 import org.openpnp.gui.tablemodel.BoardLocationsTableModel;
+import org.openpnp.machine.reference.ReferencePnpJobProcessor;
 import org.openpnp.model.Board;
 import org.openpnp.model.Board.Side;
 import org.openpnp.model.BoardLocation;
@@ -653,7 +654,9 @@ public class JobPanel extends JPanel {
         }
         else if (title.equals("Pick and Place"))
         {
-            if(jobProcessor == null || jobProcessor == Configuration.get().getMachine().getPnpJobProcessor())
+            ReferencePnpJobProcessor referencePnpJobProcessor = getReferencePnpJobProcessor();
+            boolean resume = referencePnpJobProcessor != null && referencePnpJobProcessor.isResume();
+            if(!resume && (jobProcessor == null || jobProcessor == Configuration.get().getMachine().getPnpJobProcessor()))
             {
                // Run the glue dispense processor first, this will deposit glue ready for any component placements
                 jobProcessor = Configuration.get().getMachine().getGlueDispenseJobProcessor();
@@ -669,6 +672,45 @@ public class JobPanel extends JPanel {
         jobProcessor.initialize(job);
         jobRun();
     }
+
+    private ReferencePnpJobProcessor getReferencePnpJobProcessor() {
+        JobProcessor pnpJobProcessor = Configuration.get().getMachine().getPnpJobProcessor();
+        if (pnpJobProcessor instanceof ReferencePnpJobProcessor) {
+            return (ReferencePnpJobProcessor) pnpJobProcessor;
+        }
+        return null;
+    }
+
+    /**
+     * If the job is about to be started and its last run did not finish, ask whether to resume it
+     * at the next unfinished placement or start over. A resumed job skips glue dispensing.
+     * 
+     * @return false if the user cancelled.
+     */
+    private boolean confirmResume() {
+        if (fsm.getState() != State.Stopped
+                || !tabbedPane.getTitleAt(tabbedPane.getSelectedIndex()).equals("Pick and Place")) {
+            return true;
+        }
+        ReferencePnpJobProcessor jobProcessor = getReferencePnpJobProcessor();
+        if (jobProcessor == null) {
+            return true;
+        }
+        jobProcessor.setResume(false);
+        if (!jobProcessor.canResume(job)) {
+            return true;
+        }
+        String[] options = {"Resume", "Start Over", "Cancel"};
+        int result = JOptionPane.showOptionDialog(getTopLevelAncestor(),
+                "The last run of this job did not finish. Resume at the next unfinished placement?",
+                "Resume Job", JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE, null,
+                options, options[0]);
+        if (result == 0) {
+            jobProcessor.setResume(true);
+            return true;
+        }
+        return result == 1;
+    }
     
     public void jobRun() {
         UiUtils.submitUiMachineTask(() -> {
@@ -760,7 +802,9 @@ public class JobPanel extends JPanel {
         @Override
         public void actionPerformed(ActionEvent arg0) {
             UiUtils.messageBoxOnException(() -> {
-                fsm.send(Message.StartOrPause);
+                if (confirmResume()) {
+                    fsm.send(Message.StartOrPause);
+                }
             });
         }
     };
@@ -775,7 +819,9 @@ public class JobPanel extends JPanel {
         @Override
         public void actionPerformed(ActionEvent arg0) {
             UiUtils.messageBoxOnException(() -> {
-                fsm.send(Message.Step);
+                if (confirmResume()) {
+                    fsm.send(Message.Step);
+                }
             });
         }
     };
@@ -111,6 +111,7 @@ public class MainFrame extends JFrame {
     private CamerasPanel camerasPanel;
     private CameraPanel cameraPanel;
     private MachineSetupPanel machineSetupPanel;
+    private ProfilerPanel profilerPanel;
     private Component navigationPanel;
 
     public static MainFrame get() {
@@ -121,14 +122,34 @@ public class MainFrame extends JFrame {
         return machineControlsPanel;
     }
 
+    /**
+     * The Parts, Packages and Profiler tabs are created the first time they are selected or asked
+     * for, since building them for a large library slows down startup.
+     */
     public PartsPanel getPartsTab() {
+        if (partsPanel == null) {
+            partsPanel = new PartsPanel(configuration, this);
+            setTabComponent("Parts", partsPanel);
+        }
         return partsPanel;
     }
 
     public PackagesPanel getPackagesTab() {
+        if (packagesPanel == null) {
+            packagesPanel = new PackagesPanel(configuration, this);
+            setTabComponent("Packages", packagesPanel);
+        }
         return packagesPanel;
     }
 
+    public ProfilerPanel getProfilerTab() {
+        if (profilerPanel == null) {
+            profilerPanel = new ProfilerPanel();
+            setTabComponent("Profiler", profilerPanel);
+        }
+        return profilerPanel;
+    }
+
     public FeedersPanel getFeedersTab() {
         return feedersPanel;
     }
@@ -210,8 +231,6 @@ public class MainFrame extends JFrame {
                 prefs.getInt(PREF_WINDOW_WIDTH, PREF_WINDOW_WIDTH_DEF),
                 prefs.getInt(PREF_WINDOW_HEIGHT, PREF_WINDOW_HEIGHT_DEF));
         jobPanel = new JobPanel(configuration, this, machineControlsPanel);
-        partsPanel = new PartsPanel(configuration, this);
-        packagesPanel = new PackagesPanel(configuration, this);
         feedersPanel = new FeedersPanel(configuration, this);
         camerasPanel = new CamerasPanel(this, configuration);
         machineSetupPanel = new MachineSetupPanel();
@@ -474,15 +493,30 @@ public class MainFrame extends JFrame {
                 });
 
         tabs.addTab("Job", null, jobPanel, null);
-        tabs.addTab("Parts", null, partsPanel, null);
-        tabs.addTab("Packages", null, packagesPanel, null);
+        tabs.addTab("Parts", null, new JPanel(), null);
+        tabs.addTab("Packages", null, new JPanel(), null);
         tabs.addTab("Feeders", null, feedersPanel, null);
         tabs.addTab("Cameras", null, camerasPanel, null);
         tabs.addTab("Machine Setup", null, machineSetupPanel, null);
+        tabs.addTab("Profiler", null, new JPanel(), null);
 
         LogPanel logPanel = new LogPanel();
         tabs.addTab("Log", null, logPanel, null);
 
+        tabs.addChangeListener(e -> {
+            int index = tabs.getSelectedIndex();
+            String title = index == -1 ? null : tabs.getTitleAt(index);
+            if ("Parts".equals(title)) {
+                getPartsTab();
+            }
+            else if ("Packages".equals(title)) {
+                getPackagesTab();
+            }
+            else if ("Profiler".equals(title)) {
+                getProfilerTab();
+            }
+        });
+
         registerBoardImporters();
 
         addComponentListener(componentListener);
@@ -646,6 +680,10 @@ public class MainFrame extends JFrame {
         });
     }
 
+    private void setTabComponent(String title, Component component) {
+        tabs.setComponentAt(tabs.indexOfTab(title), component);
+    }
+
     public void showTab(String title) {
         int index = tabs.indexOfTab(title);
         tabs.setSelectedIndex(index);
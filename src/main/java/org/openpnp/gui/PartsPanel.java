@@ -25,8 +25,12 @@ import java.awt.event.ActionEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.prefs.Preferences;
+import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
@@ -46,6 +50,8 @@ import javax.swing.JTextField;
 import javax.swing.JToolBar;
 import javax.swing.ListSelectionModel;
 import javax.swing.RowFilter;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.ListSelectionEvent;
@@ -67,6 +73,7 @@ import org.openpnp.model.Configuration;
 import org.openpnp.model.Location;
 import org.openpnp.model.Part;
 import org.openpnp.spi.Feeder;
+import org.openpnp.spi.FeederIndex;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.spi.PartAlignment;
 import org.openpnp.util.MovableUtils;
@@ -80,6 +87,17 @@ public class PartsPanel extends JPanel implements WizardContainer {
 
     private static final String PREF_DIVIDER_POSITION = "PartsPanel.dividerPosition";
     private static final int PREF_DIVIDER_POSITION_DEF = -1;
+
+    /**
+     * How long to wait after the last keystroke before filtering.
+     */
+    private static final int SEARCH_DELAY = 200;
+
+    private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Parts Search");
+        thread.setDaemon(true);
+        return thread;
+    });
     private Preferences prefs = Preferences.userNodeForPackage(PartsPanel.class);
 
     final private Configuration configuration;
@@ -88,6 +106,10 @@ public class PartsPanel extends JPanel implements WizardContainer {
     private PartsTableModel tableModel;
     private TableRowSorter<PartsTableModel> tableSorter;
     private JTextField searchTextField;
+    private Timer searchTimer;
+    private int searchGeneration;
+    private long searchIndexModificationCount = -1;
+    private List<String[]> searchIndex;
     private JTable table;
     private ActionGroup singleSelectionActionGroup;
     private ActionGroup multiSelectionActionGroup;
@@ -104,6 +126,15 @@ public class PartsPanel extends JPanel implements WizardContainer {
         setLayout(new BorderLayout(0, 0));
         tableModel = new PartsTableModel();
         tableSorter = new TableRowSorter<>(tableModel);
+        searchTimer = new Timer(SEARCH_DELAY, e -> startSearch());
+        searchTimer.setRepeats(false);
+        // A search filter is computed from the rows as they were, so compute it again when they
+        // change.
+        tableModel.addTableModelListener(e -> {
+            if (tableSorter.getRowFilter() != null) {
+                search();
+            }
+        });
 
         JPanel toolbarAndSearch = new JPanel();
         add(toolbarAndSearch, BorderLayout.NORTH);
@@ -234,16 +265,73 @@ public class PartsPanel extends JPanel implements WizardContainer {
     }
 
     private void search() {
-        RowFilter<PartsTableModel, Object> rf = null;
+        searchTimer.restart();
+    }
+
+    /**
+     * Match the search text against the table in the background and apply the result as a row
+     * filter. The text of each row is kept in an index that is only rebuilt when the table has
+     * changed, so a new search is a single pass of the pattern over strings.
+     */
+    private void startSearch() {
+        String text = searchTextField.getText().trim();
+        int generation = ++searchGeneration;
+        if (text.isEmpty()) {
+            tableSorter.setRowFilter(null);
+            return;
+        }
+        Pattern pattern;
         // If current expression doesn't parse, don't update.
         try {
-            rf = RowFilter.regexFilter("(?i)" + searchTextField.getText().trim());
+            pattern = Pattern.compile("(?i)" + text);
         }
         catch (PatternSyntaxException e) {
             logger.warn("Search failed", e);
             return;
         }
-        tableSorter.setRowFilter(rf);
+        long modificationCount = tableModel.getModificationCount();
+        List<String[]> index =
+                modificationCount == searchIndexModificationCount ? searchIndex : null;
+        List<Part> parts = index == null ? tableModel.getParts() : null;
+        searchExecutor.submit(() -> {
+            List<String[]> rows = index;
+            if (rows == null) {
+                rows = new ArrayList<>(parts.size());
+                for (Part part : parts) {
+                    rows.add(tableModel.getSearchText(part));
+                }
+            }
+            BitSet matches = new BitSet(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                for (String cell : rows.get(i)) {
+                    if (pattern.matcher(cell).find()) {
+                        matches.set(i);
+                        break;
+                    }
+                }
+            }
+            List<String[]> builtIndex = rows;
+            SwingUtilities.invokeLater(() -> {
+                if (generation != searchGeneration) {
+                    // A newer search has started.
+                    return;
+                }
+                if (modificationCount != tableModel.getModificationCount()) {
+                    // The table changed while matching, so the rows no longer line up.
+                    search();
+                    return;
+                }
+                searchIndex = builtIndex;
+                searchIndexModificationCount = modificationCount;
+                tableSorter.setRowFilter(new RowFilter<PartsTableModel, Integer>() {
+                    @Override
+                    public boolean include(
+                            Entry<? extends PartsTableModel, ? extends Integer> entry) {
+                        return matches.get(entry.getIdentifier());
+                    }
+                });
+            });
+        });
     }
 
     public final Action newPartAction = new AbstractAction() {
@@ -273,7 +361,6 @@ public class PartsPanel extends JPanel implements WizardContainer {
                 part.setPackage(Configuration.get().getPackages().get(0));
 
                 configuration.addPart(part);
-                tableModel.fireTableDataChanged();
                 Helpers.selectLastTableRow(table);
                 break;
             }
@@ -322,13 +409,9 @@ public class PartsPanel extends JPanel implements WizardContainer {
             UiUtils.submitUiMachineTask(() -> {
                 Nozzle nozzle = MainFrame.get().getMachineControls().getSelectedNozzle();
                 Part part = getSelection();
-                Feeder feeder = null;
-                // find a feeder to feed
-                for (Feeder f : Configuration.get().getMachine().getFeeders()) {
-                    if (f.isEnabled() && f.getPart().equals(part)) {
-                        feeder = f;
-                    }
-                }
+                // find the nearest enabled feeder to feed
+                Feeder feeder = Configuration.get().getMachine().getFeederIndex().select(part,
+                        FeederIndex.Selection.Nearest, nozzle);
                 if (feeder == null) {
                     throw new Exception("No valid feeder found for " + part.getId());
                 }
@@ -0,0 +1,68 @@
+package org.openpnp.gui;
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.HierarchyEvent;
+
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JToolBar;
+import javax.swing.Timer;
+
+import org.openpnp.gui.tablemodel.ProfilerTableModel;
+import org.openpnp.util.Profiler;
+
+/**
+ * Shows the spans recorded by the Profiler, ordered by total time, so the top time consumers of a
+ * job are at the top of the table. The table refreshes once a second while the panel is showing.
+ */
+@SuppressWarnings("serial")
+public class ProfilerPanel extends JPanel {
+    private final ProfilerTableModel tableModel = new ProfilerTableModel();
+    private final Timer timer;
+
+    public ProfilerPanel() {
+        setLayout(new BorderLayout(0, 0));
+
+        JToolBar toolBar = new JToolBar();
+        toolBar.setFloatable(false);
+        add(toolBar, BorderLayout.NORTH);
+
+        JCheckBox chckbxEnabled = new JCheckBox("Enabled");
+        chckbxEnabled.setSelected(Profiler.get().isEnabled());
+        chckbxEnabled.addActionListener(e -> Profiler.get().setEnabled(chckbxEnabled.isSelected()));
+        toolBar.add(chckbxEnabled);
+
+        toolBar.add(new JButton(resetAction));
+
+        JTable table = new JTable(tableModel);
+        table.setAutoCreateRowSorter(true);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        timer = new Timer(1000, e -> tableModel.refresh());
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) == 0) {
+                return;
+            }
+            if (isShowing()) {
+                tableModel.refresh();
+                timer.start();
+            }
+            else {
+                timer.stop();
+            }
+        });
+    }
+
+    public final AbstractAction resetAction = new AbstractAction("Reset") {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            Profiler.get().reset();
+            tableModel.refresh();
+        }
+    };
+}
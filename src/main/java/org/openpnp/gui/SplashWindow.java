@@ -0,0 +1,72 @@
+package org.openpnp.gui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+
+import javax.swing.BoxLayout;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JWindow;
+import javax.swing.SwingUtilities;
+import javax.swing.border.CompoundBorder;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.LineBorder;
+
+import org.openpnp.Main;
+
+/**
+ * Shown while OpenPnP starts up. Startup runs on a background thread, so setProgress() can be
+ * called from any thread.
+ */
+@SuppressWarnings("serial")
+public class SplashWindow extends JWindow {
+    private final JLabel lblStatus;
+    private final JProgressBar progressBar;
+
+    public SplashWindow(int steps) {
+        JPanel contentPanel = new JPanel();
+        contentPanel.setBorder(new CompoundBorder(new LineBorder(Color.GRAY),
+                new EmptyBorder(15, 30, 15, 30)));
+        contentPanel.setLayout(new BoxLayout(contentPanel, BoxLayout.Y_AXIS));
+        getContentPane().add(contentPanel, BorderLayout.CENTER);
+
+        JLabel lblOpenpnp = new JLabel("OpenPnP");
+        lblOpenpnp.setAlignmentX(Component.CENTER_ALIGNMENT);
+        lblOpenpnp.setFont(new Font("Lucida Grande", Font.BOLD, 32));
+        contentPanel.add(lblOpenpnp);
+
+        JLabel lblVersion = new JLabel("Version: " + Main.getVersion());
+        lblVersion.setFont(new Font("Lucida Grande", Font.PLAIN, 10));
+        lblVersion.setAlignmentX(Component.CENTER_ALIGNMENT);
+        contentPanel.add(lblVersion);
+
+        progressBar = new JProgressBar(0, steps);
+        progressBar.setBorder(new EmptyBorder(10, 0, 5, 0));
+        progressBar.setAlignmentX(Component.CENTER_ALIGNMENT);
+        contentPanel.add(progressBar);
+
+        lblStatus = new JLabel(" ");
+        lblStatus.setFont(new Font("Lucida Grande", Font.PLAIN, 10));
+        lblStatus.setAlignmentX(Component.CENTER_ALIGNMENT);
+        contentPanel.add(lblStatus);
+
+        setSize(320, 150);
+        setLocationRelativeTo(null);
+    }
+
+    /**
+     * Show the given status and mark the given number of startup steps as done.
+     *
+     * @param step
+     * @param status
+     */
+    public void setProgress(int step, String status) {
+        SwingUtilities.invokeLater(() -> {
+            progressBar.setValue(step);
+            lblStatus.setText(status);
+        });
+    }
+}
@@ -46,6 +46,7 @@ import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -168,6 +169,12 @@ public class CameraView extends JComponent implements CameraListener {
 
     private ScheduledExecutorService scheduledExecutor;
 
+    private static final ExecutorService captureExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "CameraView Capture");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private Preferences prefs = Preferences.userNodeForPackage(CameraView.class);
 
     private String text;
@@ -238,14 +245,7 @@ public class CameraView extends JComponent implements CameraListener {
 
     public void setMaximumFps(int maximumFps) {
         this.maximumFps = maximumFps;
-        // turn off capture for the camera we are replacing, if any
-        if (this.camera != null) {
-            this.camera.stopContinuousCapture(this);
-        }
-        // turn on capture for the new camera
-        if (this.camera != null) {
-            this.camera.startContinuousCapture(this, maximumFps);
-        }
+        changeCapture(camera, camera, maximumFps);
     }
 
     public int getMaximumFps() {
@@ -253,15 +253,33 @@ public class CameraView extends JComponent implements CameraListener {
     }
 
     public void setCamera(Camera camera) {
-        // turn off capture for the camera we are replacing, if any
-        if (this.camera != null) {
-            this.camera.stopContinuousCapture(this);
-        }
+        Camera oldCamera = this.camera;
         this.camera = camera;
-        // turn on capture for the new camera
-        if (this.camera != null) {
-            this.camera.startContinuousCapture(this, maximumFps);
+        changeCapture(oldCamera, camera, maximumFps);
+    }
+
+    /**
+     * Turn off capture for the camera we are replacing, if any, and turn it on for the new
+     * camera. Starting capture may open the camera device, which can take seconds, so this is
+     * done on a background thread. A single thread is used so that the changes happen in order.
+     */
+    private void changeCapture(Camera oldCamera, Camera newCamera, int maximumFps) {
+        if (oldCamera == null && newCamera == null) {
+            return;
         }
+        captureExecutor.execute(() -> {
+            try {
+                if (oldCamera != null) {
+                    oldCamera.stopContinuousCapture(this);
+                }
+                if (newCamera != null) {
+                    newCamera.startContinuousCapture(this, maximumFps);
+                }
+            }
+            catch (Exception e) {
+                logger.warn("Unable to change capture for camera " + newCamera, e);
+            }
+        });
     }
 
     public Camera getCamera() {
@@ -23,8 +23,11 @@ import java.awt.FileDialog;
 import java.awt.FlowLayout;
 import java.awt.Frame;
 import java.awt.event.ActionEvent;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FilenameFilter;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
@@ -101,8 +104,61 @@ public class EagleBoardImporter implements BoardImporter {
         return board;
     }
 
-    private static List<Placement> parseFile(File file, Side side, boolean createMissingParts)
-            throws Exception {
+    /**
+     * Import the placements and solder paste pads in the file into the board. The file is read
+     * with EagleBoardStreamReader, and if that fails it is imported again with the JAXB based
+     * import.
+     * 
+     * @param file
+     * @param board
+     * @param side The side to import, or null for both.
+     * @param createMissingParts
+     * @return The imported placements.
+     * @throws Exception
+     */
+    public static List<Placement> parseFile(File file, Board board, Side side,
+            boolean createMissingParts) throws Exception {
+        try {
+            return parseFileStreaming(file, board, side, createMissingParts);
+        }
+        catch (Exception e) {
+            logger.warn("Streaming import of " + file + " failed, retrying with JAXB", e);
+            return parseFileWithJaxb(file, board, side, createMissingParts);
+        }
+    }
+
+    /**
+     * Import the file with EagleBoardStreamReader. Nothing is added to the board unless the whole
+     * file is read successfully.
+     */
+    public static List<Placement> parseFileStreaming(File file, Board board, Side side,
+            boolean createMissingParts) throws Exception {
+        List<Placement> placements = new ArrayList<>();
+        List<BoardPad> pads = new ArrayList<>();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            new EagleBoardStreamReader(side, createMissingParts, file.toString()).read(in,
+                    new EagleBoardStreamReader.Listener() {
+                        @Override
+                        public void placement(Placement placement) {
+                            placements.add(placement);
+                        }
+
+                        @Override
+                        public void pad(BoardPad pad) {
+                            pads.add(pad);
+                        }
+                    });
+        }
+        board.addSolderPastePads(pads);
+        board.addPlacements(placements);
+        return placements;
+    }
+
+    /**
+     * Import the file by unmarshalling it with EagleLoader.
+     */
+    public static List<Placement> parseFileWithJaxb(File file, Board board, Side side,
+            boolean createMissingParts) throws Exception {
 
         String dimensionLayer = "";
         String topLayer = "";
@@ -780,15 +836,15 @@ public class EagleBoardImporter implements BoardImporter {
                 try {
                     if (boardFile.exists()) {
                         if (chckbxImportTop.isSelected() && chckbxImportBottom.isSelected())
-                            placements.addAll(parseFile(boardFile, null,
+                            placements.addAll(parseFile(boardFile, board, null,
                                     chckbxCreateMissingParts.isSelected())); // both Top and Bottom
                                                                              // of the board
                         else if (chckbxImportTop.isSelected())
-                            placements.addAll(parseFile(boardFile, Side.Top,
+                            placements.addAll(parseFile(boardFile, board, Side.Top,
                                     chckbxCreateMissingParts.isSelected())); // Just the Top side of
                                                                              // the board
                         else if (chckbxImportBottom.isSelected())
-                            placements.addAll(parseFile(boardFile, Side.Bottom,
+                            placements.addAll(parseFile(boardFile, board, Side.Bottom,
                                     chckbxCreateMissingParts.isSelected())); // Just the Bottom side
                                                                              // of the board
                     }
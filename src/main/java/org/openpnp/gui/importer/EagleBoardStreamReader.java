@@ -0,0 +1,448 @@
+package org.openpnp.gui.importer;
+
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardPad;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Package;
+import org.openpnp.model.Pad;
+import org.openpnp.model.Part;
+import org.openpnp.model.Placement;
+import org.openpnp.model.Point;
+import org.openpnp.util.Utils2D;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads placements and solder paste pads from an EAGLE .brd file in a single streaming pass, as an
+ * alternative to unmarshalling the whole file with EagleLoader.
+ *
+ * EAGLE writes the layers, plain, libraries and design rules of a board before its elements. The
+ * packages in the libraries are indexed by library and package name as they are read, so each
+ * element is turned into a placement and pads as soon as it is read, with a single lookup. The
+ * results are the same as EagleBoardImporter's JAXB based import. A file that does not follow that
+ * order fails with an Exception so that the caller can fall back to the JAXB import.
+ */
+public class EagleBoardStreamReader {
+    private final static Logger logger = LoggerFactory.getLogger(EagleBoardStreamReader.class);
+
+    private static final double MIL_TO_MM = 0.0254;
+
+    /**
+     * Receives the results of the read, in file order.
+     */
+    public interface Listener {
+        void placement(Placement placement) throws Exception;
+
+        void pad(BoardPad pad) throws Exception;
+    }
+
+    private static class Smd {
+        String name;
+        String x;
+        String y;
+        String dx;
+        String dy;
+        String layer;
+        String roundness;
+        String rot;
+        String cream;
+    }
+
+    private static class Polygon {
+        String layer;
+        List<String[]> vertices = new ArrayList<>();
+    }
+
+    private final Side side;
+    private final boolean createMissingParts;
+    private final String name;
+
+    private String dimensionLayer = "";
+    private String topLayer = "";
+    private String bottomLayer = "";
+    private String tCreamLayer = "";
+    private String bCreamLayer = "";
+    private double xBoundary = 0;
+    private double mmMinCreamFrame = 0;
+    private double mmMaxCreamFrame = 0;
+
+    /**
+     * Package contents by library and package name, see key(). A name can occur more than once,
+     * so each entry holds the contents of every matching package in file order.
+     */
+    private final Map<String, List<List<Object>>> packages = new HashMap<>();
+
+    // As in the JAXB import these carry over from one element to the next.
+    private String libraryId = "";
+    private String packageId = "";
+    private Part part = null;
+
+    /**
+     * @param side The side to import, or null for both.
+     * @param createMissingParts
+     * @param name The name of the file, used in log messages.
+     */
+    public EagleBoardStreamReader(Side side, boolean createMissingParts, String name) {
+        this.side = side;
+        this.createMissingParts = createMissingParts;
+        this.name = name;
+    }
+
+    public void read(InputStream in, Listener listener) throws Exception {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // The DTD only supplies attribute defaults, which are applied below as the JAXB classes
+        // do, so there is no need to resolve it.
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            read(reader, listener);
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private void read(XMLStreamReader reader, Listener listener) throws Exception {
+        Deque<String> path = new ArrayDeque<>();
+        boolean inBoard = false;
+        boolean elementsStarted = false;
+        String library = null;
+        List<Object> packageContents = null;
+        Polygon polygon = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                String tag = path.pop();
+                if (tag.equals("library")) {
+                    library = null;
+                }
+                else if (tag.equals("package")) {
+                    packageContents = null;
+                }
+                else if (tag.equals("polygon")) {
+                    polygon = null;
+                }
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String tag = reader.getLocalName();
+            String parent = path.peek();
+            path.push(tag);
+
+            if (tag.equals("layer") && "layers".equals(parent)) {
+                readLayer(reader);
+            }
+            else if (tag.equals("board") && "drawing".equals(parent)) {
+                inBoard = true;
+            }
+            else if (!inBoard) {
+                continue;
+            }
+            else if (tag.equals("plain") || tag.equals("libraries")
+                    || tag.equals("designrules")) {
+                if (elementsStarted) {
+                    throw new Exception(name + ": " + tag + " found after elements");
+                }
+            }
+            else if (tag.equals("elements")) {
+                elementsStarted = true;
+            }
+            else if (tag.equals("wire") && "plain".equals(parent)) {
+                if (reader.getAttributeValue(null, "layer").equalsIgnoreCase(dimensionLayer)) {
+                    xBoundary = Math.max(xBoundary,
+                            Double.parseDouble(reader.getAttributeValue(null, "x1")));
+                    xBoundary = Math.max(xBoundary,
+                            Double.parseDouble(reader.getAttributeValue(null, "x2")));
+                }
+            }
+            else if (tag.equals("library") && "libraries".equals(parent)) {
+                library = reader.getAttributeValue(null, "name");
+            }
+            else if (tag.equals("package") && "packages".equals(parent) && library != null) {
+                packageContents = new ArrayList<>();
+                packages.computeIfAbsent(key(library, reader.getAttributeValue(null, "name")),
+                        k -> new ArrayList<>()).add(packageContents);
+            }
+            else if (tag.equals("smd") && "package".equals(parent) && packageContents != null) {
+                packageContents.add(readSmd(reader));
+            }
+            else if (tag.equals("polygon") && "package".equals(parent)
+                    && packageContents != null) {
+                polygon = new Polygon();
+                polygon.layer = reader.getAttributeValue(null, "layer");
+                packageContents.add(polygon);
+            }
+            else if (tag.equals("vertex") && "polygon".equals(parent) && polygon != null) {
+                polygon.vertices.add(new String[] {reader.getAttributeValue(null, "x"),
+                        reader.getAttributeValue(null, "y")});
+            }
+            else if (tag.equals("param") && "designrules".equals(parent)) {
+                readParam(reader.getAttributeValue(null, "name"),
+                        reader.getAttributeValue(null, "value"));
+            }
+            else if (tag.equals("element") && "elements".equals(parent)) {
+                readElement(reader, listener);
+            }
+        }
+    }
+
+    private void readLayer(XMLStreamReader reader) {
+        String layerName = reader.getAttributeValue(null, "name");
+        String number = reader.getAttributeValue(null, "number");
+        if (layerName.equalsIgnoreCase("Dimension")) {
+            dimensionLayer = number;
+        }
+        else if (layerName.equalsIgnoreCase("Top")) {
+            topLayer = number;
+        }
+        else if (layerName.equalsIgnoreCase("Bottom")) {
+            bottomLayer = number;
+        }
+        else if (layerName.equalsIgnoreCase("tCream")) {
+            tCreamLayer = number;
+        }
+        else if (layerName.equalsIgnoreCase("bCream")) {
+            bCreamLayer = number;
+        }
+    }
+
+    private Smd readSmd(XMLStreamReader reader) {
+        Smd smd = new Smd();
+        smd.name = reader.getAttributeValue(null, "name");
+        smd.x = reader.getAttributeValue(null, "x");
+        smd.y = reader.getAttributeValue(null, "y");
+        smd.dx = reader.getAttributeValue(null, "dx");
+        smd.dy = reader.getAttributeValue(null, "dy");
+        smd.layer = reader.getAttributeValue(null, "layer");
+        smd.roundness = attribute(reader, "roundness", "0");
+        smd.rot = attribute(reader, "rot", "R0");
+        smd.cream = attribute(reader, "cream", "yes");
+        return smd;
+    }
+
+    private void readParam(String paramName, String value) throws Exception {
+        // The same conversions as the JAXB import, including converting an mlMinCreamFrame given
+        // in mm as if it were in mil.
+        if (paramName.compareToIgnoreCase("mlMinCreamFrame") == 0) {
+            String number = value.replaceAll("[A-Za-z ]", "");
+            if (value.toUpperCase().endsWith("MIL") || value.toUpperCase().endsWith("MM")) {
+                mmMinCreamFrame = Double.parseDouble(number) * MIL_TO_MM;
+            }
+            else {
+                throw new Exception("mlMinCream must either be in mil or mm");
+            }
+        }
+        if (paramName.compareToIgnoreCase("mlMaxCreamFrame") == 0) {
+            String number = value.replaceAll("[A-Za-z ]", "");
+            if (value.toUpperCase().endsWith("MIL")) {
+                mmMaxCreamFrame = Double.parseDouble(number) * MIL_TO_MM;
+            }
+            else if (value.toUpperCase().endsWith("MM")) {
+                mmMaxCreamFrame = Double.parseDouble(number);
+            }
+            else {
+                throw new Exception("mlMaxCream must either be in mil or mm");
+            }
+        }
+    }
+
+    private void readElement(XMLStreamReader reader, Listener listener) throws Exception {
+        String elementName = reader.getAttributeValue(null, "name");
+        String rot = attribute(reader, "rot", "R0");
+        // A mirrored part is on the bottom of the board.
+        Side elementSide = rot.toUpperCase().startsWith("M") ? Side.Bottom : Side.Top;
+        if (side != null && side != elementSide) {
+            return;
+        }
+
+        String rotNumber = rot.replaceAll("[A-Za-z ]", "");
+        Placement placement = new Placement(elementName);
+        double rotation = Double.parseDouble(rotNumber);
+        double x = Double.parseDouble(reader.getAttributeValue(null, "x"));
+        double y = Double.parseDouble(reader.getAttributeValue(null, "y"));
+        placement.setLocation(new Location(LengthUnit.Millimeters, x, y, 0, rotation));
+
+        Configuration cfg = Configuration.get();
+        if (cfg != null && createMissingParts) {
+            String value = reader.getAttributeValue(null, "value");
+            packageId = reader.getAttributeValue(null, "package");
+            libraryId = reader.getAttributeValue(null, "library");
+            part = findOrCreatePart(cfg, value);
+        }
+        placement.setPart(part);
+
+        List<List<Object>> contents = packages.get(key(libraryId, packageId));
+        if (contents != null) {
+            for (List<Object> packageContents : contents) {
+                for (Object o : packageContents) {
+                    BoardPad pad = null;
+                    if (o instanceof Smd) {
+                        pad = createPad((Smd) o, elementName, elementSide, rotNumber, rotation, x,
+                                y);
+                    }
+                    else if (o instanceof Polygon) {
+                        pad = createPad((Polygon) o, elementName, x, y);
+                    }
+                    if (pad != null) {
+                        listener.pad(pad);
+                    }
+                }
+            }
+        }
+
+        placement.setSide(elementSide);
+        listener.placement(placement);
+    }
+
+    private Part findOrCreatePart(Configuration cfg, String value) throws Exception {
+        String pkgId = libraryId + "-" + packageId;
+        String partId = libraryId + "-" + packageId;
+        if (value.trim().length() > 0) {
+            partId += "-" + value;
+        }
+
+        Part part = cfg.getPart(partId);
+        Package pkg = cfg.getPackage(pkgId);
+        if (part == null || pkg == null) {
+            if (pkg == null) {
+                pkg = new Package(pkgId);
+                cfg.addPackage(pkg);
+                if (part != null) {
+                    // Remove the part so it can be re-added with the new package.
+                    cfg.removePart(part);
+                    part = null;
+                }
+            }
+            if (part == null) {
+                part = new Part(partId);
+                part.setPackage(pkg);
+                cfg.addPart(part);
+            }
+            cfg.addPart(part);
+        }
+        return part;
+    }
+
+    private BoardPad createPad(Smd smd, String elementName, Side elementSide, String rotNumber,
+            double rotation, double x, double y) {
+        if (smd.cream.equalsIgnoreCase("No")) {
+            return null;
+        }
+        Pad.RoundRectangle pad = new Pad.RoundRectangle();
+        pad.setUnits(LengthUnit.Millimeters);
+        pad.setHeight(Double.parseDouble(smd.dx) - (mmMaxCreamFrame - mmMinCreamFrame) / 2);
+        pad.setWidth(Double.parseDouble(smd.dy) - (mmMaxCreamFrame - mmMinCreamFrame) / 2);
+        pad.setRoundness(Double.parseDouble(smd.roundness));
+
+        double padRotation = Double.parseDouble(rotNumber);
+        padRotation += Double.parseDouble(smd.rot.replaceAll("[A-Za-z ]", "")) % 360;
+
+        Point a = new Point(Double.parseDouble(smd.x) + x, Double.parseDouble(smd.y) + y);
+        Point partCenter = new Point(x, y);
+        if (elementSide == Side.Top) {
+            a = Utils2D.rotateTranslateCenterPoint(a, rotation > 180 ? rotation : -rotation, 0, 0,
+                    partCenter);
+        }
+        else {
+            a = Utils2D.rotateTranslateCenterPoint(a,
+                    rotation > 180 ? rotation : -(180 - rotation), 0, 0, partCenter);
+            // Mirror across the middle of the board, then across the part's center line.
+            double center = xBoundary / 2;
+            if (a.getX() < center) {
+                a.setX(center + (center - a.getX()));
+            }
+            else {
+                a.setX(center - (a.getX() - center));
+            }
+            if (a.getY() < y) {
+                a.setY(y + (y - a.getY()));
+            }
+            else {
+                a.setY(y - (a.getY() - y));
+            }
+        }
+
+        BoardPad boardPad = new BoardPad(pad,
+                new Location(LengthUnit.Millimeters, a.getX(), a.getY(), 0, padRotation));
+        boardPad.setName(elementName + "-" + smd.name);
+        if (smd.layer.equalsIgnoreCase(topLayer)) {
+            boardPad.setSide(elementSide == Side.Top ? Side.Top : Side.Bottom);
+        }
+        else if (smd.layer.equalsIgnoreCase(bottomLayer)) {
+            boardPad.setSide(elementSide == Side.Top ? Side.Bottom : Side.Top);
+        }
+        else {
+            logger.info("Warning: " + name
+                    + " contains a SMD pad that is not on a topLayer or bottomLayer");
+        }
+        return boardPad;
+    }
+
+    private BoardPad createPad(Polygon polygon, String elementName, double x, double y) {
+        if (!polygon.layer.equalsIgnoreCase(tCreamLayer)
+                && !polygon.layer.equalsIgnoreCase(bCreamLayer)) {
+            return null;
+        }
+        logger.info("Warning: " + name + " contains a Polygon pad - this functionality has been"
+                + " implemented as the smallest bounded rectangle and may over paste the area");
+        // As in the JAXB import the bounds always include the package origin.
+        double xMin = 0, xMax = 0, yMin = 0, yMax = 0;
+        for (String[] vertex : polygon.vertices) {
+            xMin = Math.min(xMin, Double.parseDouble(vertex[0]));
+            xMax = Math.max(xMax, Double.parseDouble(vertex[0]));
+            yMin = Math.min(yMin, Double.parseDouble(vertex[1]));
+            yMax = Math.max(yMax, Double.parseDouble(vertex[1]));
+        }
+        Pad.RoundRectangle pad = new Pad.RoundRectangle();
+        pad.setUnits(LengthUnit.Millimeters);
+        pad.setRoundness(0);
+        pad.setHeight(yMax - yMin);
+        pad.setWidth(xMax - xMin);
+
+        BoardPad boardPad = new BoardPad(pad, new Location(LengthUnit.Millimeters,
+                x + (xMax + xMin) / 2, y + (yMax + yMin) / 2, 0, 0));
+        // Polygons are not named.
+        boardPad.setName(elementName + "-" + "Polygon ");
+        boardPad.setSide(polygon.layer.equalsIgnoreCase(tCreamLayer) ? Side.Top : Side.Bottom);
+        return boardPad;
+    }
+
+    private static String attribute(XMLStreamReader reader, String attributeName,
+            String defaultValue) {
+        String value = reader.getAttributeValue(null, attributeName);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * A key that matches library and package names the way String.equalsIgnoreCase() does.
+     */
+    private static String key(String library, String pkg) {
+        return foldCase(library) + '\u0000' + foldCase(pkg);
+    }
+
+    private static String foldCase(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+}
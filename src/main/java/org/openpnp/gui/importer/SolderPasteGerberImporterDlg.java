@@ -17,13 +17,16 @@ import javax.swing.JComponent;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JRootPane;
 import javax.swing.JSeparator;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.border.TitledBorder;
 
 import org.openpnp.gui.importer.rs274x.Rs274xParser;
+import org.openpnp.gui.importer.rs274x.Rs274xParser.PadListener;
 import org.openpnp.gui.support.MessageBoxes;
 import org.openpnp.model.Board;
 import org.openpnp.model.Board.Side;
@@ -35,9 +38,17 @@ import com.jgoodies.forms.layout.FormSpecs;
 import com.jgoodies.forms.layout.RowSpec;
 
 class SolderPasteGerberImporterDlg extends JDialog {
+    /**
+     * Pads are added to the board in batches of this size, so that a large paste layer does not
+     * copy the board's pad list and fire a property change for every pad.
+     */
+    private static final int PAD_BATCH_SIZE = 10000;
+
     private final SolderPasteGerberImporter solderPasteGerberImporter;
     private JTextField textFieldTopFile;
     private JTextField textFieldBottomFile;
+    private JProgressBar progressBar;
+    private volatile boolean importCancelled;
     private final Action browseTopFileAction = new SwingAction();
     private final Action browseBottomFileAction = new SwingAction_1();
     private final Action importAction = new SwingAction_2();
@@ -82,6 +93,11 @@ class SolderPasteGerberImporterDlg extends JDialog {
         btnBrowse_1.setAction(browseBottomFileAction);
         panel.add(btnBrowse_1, "6, 4");
 
+        progressBar = new JProgressBar(0, 1000);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        getContentPane().add(progressBar);
+
         JSeparator separator = new JSeparator();
         getContentPane().add(separator);
 
@@ -161,41 +177,79 @@ class SolderPasteGerberImporterDlg extends JDialog {
         }
 
         public void actionPerformed(ActionEvent e) {
-            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.topFile =
-                    new File(textFieldTopFile.getText());
-            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.bottomFile =
-                    new File(textFieldBottomFile.getText());
-            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.board = new Board();
-            List<BoardPad> pads = new ArrayList<>();
-            try {
-                if (SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.topFile.exists()) {
-                    List<BoardPad> topPads = new Rs274xParser().parseSolderPastePads(
-                            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.topFile);
-                    for (BoardPad pad : topPads) {
-                        pad.setSide(Side.Top);
+            File topFile = new File(textFieldTopFile.getText());
+            File bottomFile = new File(textFieldBottomFile.getText());
+            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.topFile = topFile;
+            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.bottomFile = bottomFile;
+            Board board = new Board();
+
+            // Parse on a background thread so that the dialog can show progress and be
+            // cancelled while a large file is imported.
+            importCancelled = false;
+            setEnabled(false);
+            progressBar.setValue(0);
+            progressBar.setVisible(true);
+            validate();
+            new Thread(() -> {
+                try {
+                    long total = (topFile.exists() ? topFile.length() : 0)
+                            + (bottomFile.exists() ? bottomFile.length() : 0);
+                    long done = 0;
+                    if (topFile.exists()) {
+                        importPads(topFile, Side.Top, board, done, total);
+                        done += topFile.length();
                     }
-                    pads.addAll(topPads);
-                }
-                if (SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.bottomFile
-                        .exists()) {
-                    List<BoardPad> bottomPads = new Rs274xParser().parseSolderPastePads(
-                            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.bottomFile);
-                    for (BoardPad pad : bottomPads) {
-                        pad.setSide(Side.Bottom);
+                    if (bottomFile.exists()) {
+                        importPads(bottomFile, Side.Bottom, board, done, total);
                     }
-                    pads.addAll(bottomPads);
+                    SwingUtilities.invokeLater(() -> {
+                        SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.board = board;
+                        setVisible(false);
+                    });
+                }
+                catch (Exception e1) {
+                    SwingUtilities.invokeLater(() -> {
+                        setEnabled(true);
+                        progressBar.setVisible(false);
+                        if (!importCancelled) {
+                            MessageBoxes.errorBox(SolderPasteGerberImporterDlg.this,
+                                    "Import Error", e1);
+                        }
+                    });
+                }
+            }, "Gerber Import").start();
+        }
+    }
+
+    /**
+     * Parse the file and add its pads to the board in batches, updating the progress bar as the
+     * file is read.
+     */
+    private void importPads(File file, Side side, Board board, long done, long total)
+            throws Exception {
+        List<BoardPad> batch = new ArrayList<>();
+        new Rs274xParser().parseSolderPastePads(file, new PadListener() {
+            @Override
+            public void padParsed(BoardPad pad) throws Exception {
+                if (importCancelled) {
+                    throw new Exception("Import cancelled");
+                }
+                pad.setSide(side);
+                batch.add(pad);
+                if (batch.size() == PAD_BATCH_SIZE) {
+                    board.addSolderPastePads(batch);
+                    batch.clear();
                 }
             }
-            catch (Exception e1) {
-                MessageBoxes.errorBox(SolderPasteGerberImporterDlg.this, "Import Error", e1);
-                return;
-            }
-            for (BoardPad pad : pads) {
-                SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.board
-                        .addSolderPastePad(pad);
+
+            @Override
+            public void progress(long charactersRead) {
+                int value = (int) (1000 * Math.min(done + charactersRead, total)
+                        / Math.max(total, 1));
+                SwingUtilities.invokeLater(() -> progressBar.setValue(value));
             }
-            setVisible(false);
-        }
+        });
+        board.addSolderPastePads(batch);
     }
 
     private class SwingAction_3 extends AbstractAction {
@@ -205,6 +259,7 @@ class SolderPasteGerberImporterDlg extends JDialog {
         }
 
         public void actionPerformed(ActionEvent e) {
+            importCancelled = true;
             setVisible(false);
         }
     }
@@ -1,9 +1,9 @@
 package org.openpnp.gui.importer.rs274x;
 
 import java.awt.geom.Point2D;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -26,6 +26,10 @@ import org.slf4j.LoggerFactory;
 public class Rs274xParser {
     private final static Logger logger = LoggerFactory.getLogger(Rs274xParser.class);
 
+    private static final double[] POWERS_OF_TEN =
+            {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14,
+                    1e15, 1e16, 1e17, 1e18};
+
     enum LevelPolarity {
         Dark, Clear
     }
@@ -34,7 +38,39 @@ public class Rs274xParser {
         Linear, Clockwise, CounterClockwise
     }
 
-    private BufferedReader reader;
+    /**
+     * Receives pads as they are parsed, so that callers can process large files without holding
+     * every pad in memory at once.
+     */
+    public interface PadListener {
+        /**
+         * Called for each pad, in file order.
+         * 
+         * @param pad
+         * @throws Exception To abort the parse, which then fails with the exception's message.
+         */
+        void padParsed(BoardPad pad) throws Exception;
+
+        /**
+         * Called each time the parser reads another block of input.
+         * 
+         * @param charactersRead The number of characters read so far.
+         */
+        default void progress(long charactersRead) {}
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Input is read in bulk into buffer and consumed from there, so reading a character is an
+     * array access rather than a call to the Reader.
+     */
+    private Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long bufferOffset;
+    private PadListener listener;
 
     // Context
     private LengthUnit unit;
@@ -59,8 +95,6 @@ public class Rs274xParser {
     private ParseStatistics parseStatistics;
     private boolean regionStarted;
 
-    private List<BoardPad> pads;
-
     public Rs274xParser() {
         reset();
     }
@@ -75,7 +109,25 @@ public class Rs274xParser {
      */
     public List<BoardPad> parseSolderPastePads(File file) throws Exception {
         logger.info("Parsing " + file);
-        return parseSolderPastePads(new FileReader(file));
+        try (Reader reader = new FileReader(file)) {
+            return parseSolderPastePads(reader);
+        }
+    }
+
+    /**
+     * Parse the given File for solder paste pads, passing each pad to the listener as it is
+     * parsed.
+     * 
+     * @see #parseSolderPastePads(Reader, PadListener)
+     * @param file
+     * @param listener
+     * @throws Exception
+     */
+    public void parseSolderPastePads(File file, PadListener listener) throws Exception {
+        logger.info("Parsing " + file);
+        try (Reader reader = new FileReader(file)) {
+            parseSolderPastePads(reader, listener);
+        }
     }
 
     /**
@@ -94,9 +146,24 @@ public class Rs274xParser {
      * @throws Exception
      */
     public List<BoardPad> parseSolderPastePads(Reader reader) throws Exception {
+        List<BoardPad> pads = new ArrayList<>();
+        parseSolderPastePads(reader, pad -> pads.add(pad));
+        return pads;
+    }
+
+    /**
+     * Parse the input from the Reader as in parseSolderPastePads(Reader), passing each pad to the
+     * listener as soon as it is parsed instead of collecting them into a List.
+     * 
+     * @param reader
+     * @param listener
+     * @throws Exception
+     */
+    public void parseSolderPastePads(Reader reader, PadListener listener) throws Exception {
         reset();
 
-        this.reader = new BufferedReader(reader);
+        this.reader = reader;
+        this.listener = listener;
 
         try {
             while (!stopped) {
@@ -107,8 +174,10 @@ public class Rs274xParser {
             parseStatistics.errored = true;
             error("Uncaught error: " + e.getMessage());
         }
-
-        return pads;
+        finally {
+            this.reader = null;
+            this.listener = null;
+        }
     }
 
     private void readCommand() throws Exception {
@@ -375,7 +444,7 @@ public class Rs274xParser {
 
         BoardPad pad = currentAperture.createPad(unit, coordinate);
         pad.setName(String.format("D%02d-%03d", currentAperture.getIndex(), counter++));
-        pads.add(pad);
+        listener.padParsed(pad);
         parseStatistics.padCount++;
 
         currentPoint = coordinate;
@@ -743,7 +812,7 @@ public class Rs274xParser {
     }
 
     private String readUntil(int ch) throws Exception {
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
         while (peek() != ch) {
             sb.append((char) read());
         }
@@ -751,7 +820,7 @@ public class Rs274xParser {
     }
 
     private String readString(int length) throws Exception {
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
         for (int i = 0; i < length; i++) {
             sb.append((char) read());
         }
@@ -768,9 +837,8 @@ public class Rs274xParser {
         else if (ch == '+') {
             read();
         }
-        StringBuffer sb = new StringBuffer();
-        String allowed = "0123456789.";
-        while (allowed.indexOf(peek()) != -1) {
+        StringBuilder sb = new StringBuilder();
+        for (ch = peek(); (ch >= '0' && ch <= '9') || ch == '.'; ch = peek()) {
             sb.append((char) read());
         }
         return (negative ? -1 : 1) * Double.parseDouble(sb.toString());
@@ -786,12 +854,21 @@ public class Rs274xParser {
         else if (ch == '+') {
             read();
         }
-        StringBuffer sb = new StringBuffer();
-        String allowed = "0123456789";
-        while (allowed.indexOf(peek()) != -1) {
-            sb.append((char) read());
+        // Accumulate the digits directly rather than building a String to parse, since every
+        // coordinate in the file passes through here.
+        long value = 0;
+        int digits = 0;
+        for (ch = peek(); ch >= '0' && ch <= '9'; ch = peek()) {
+            value = value * 10 + (read() - '0');
+            if (value > Integer.MAX_VALUE) {
+                error("Integer out of range");
+            }
+            digits++;
         }
-        return (negative ? -1 : 1) * Integer.parseInt(sb.toString());
+        if (digits == 0) {
+            error("Expected an integer");
+        }
+        return (int) (negative ? -value : value);
     }
 
     private double readCoordinateValue() throws Exception {
@@ -808,6 +885,16 @@ public class Rs274xParser {
         // something that isn't an integer character, then pad it out and then
         // break up the components.
         int value = readInteger();
+        int length = coordinateFormatIntegerLength + coordinateFormatDecimalLength;
+        long magnitude = Math.abs((long) value);
+        if (coordinateFormatDecimalLength >= 1 && length < POWERS_OF_TEN.length
+                && magnitude < POWERS_OF_TEN[length]) {
+            // The same value as the String based conversion below, including dropping the last
+            // decimal digit, computed without creating any Strings. Both operands are exact, so the
+            // correctly rounded division gives the same double as parsing the decimal String.
+            return (value < 0 ? -1 : 1)
+                    * ((magnitude / 10) / POWERS_OF_TEN[coordinateFormatDecimalLength - 1]);
+        }
         String sValue = Integer.toString(Math.abs(value));
         while (sValue.length() < coordinateFormatIntegerLength + coordinateFormatDecimalLength) {
             sValue = "0" + sValue;
@@ -826,11 +913,7 @@ public class Rs274xParser {
      */
     private int read() throws Exception {
         skipCrLf();
-        int ch = reader.read();
-        if (ch == -1) {
-            error("Unexpected end of stream");
-        }
-        return ch;
+        return buffer[position++];
     }
 
     /**
@@ -854,10 +937,10 @@ public class Rs274xParser {
             int ch = _peek();
             if (ch == '\n') {
                 lineNumber++;
-                reader.read();
+                position++;
             }
             else if (ch == '\r') {
-                reader.read();
+                position++;
             }
             else {
                 return;
@@ -866,19 +949,39 @@ public class Rs274xParser {
     }
 
     /**
-     * Return the next character in the reader without consuming it.
+     * Return the next character in the buffer without consuming it, refilling the buffer if it
+     * is empty.
      * 
      * @return
      * @throws Exception
      */
     private int _peek() throws Exception {
-        reader.mark(1);
-        int ch = reader.read();
-        if (ch == -1) {
+        if (position == limit && !fill()) {
             error("Unexpected end of stream");
         }
-        reader.reset();
-        return ch;
+        return buffer[position];
+    }
+
+    /**
+     * Read the next block of input into the buffer.
+     * 
+     * @return false if the end of the input has been reached.
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        bufferOffset += limit;
+        position = 0;
+        limit = 0;
+        int count;
+        do {
+            count = reader.read(buffer, 0, buffer.length);
+        } while (count == 0);
+        if (count == -1) {
+            return false;
+        }
+        limit = count;
+        listener.progress(bufferOffset + limit);
+        return true;
     }
 
     private void reset() {
@@ -900,7 +1003,9 @@ public class Rs274xParser {
         coordinateFormatIncremental = false;
         apertures = new HashMap<>();
         lineNumber = 1;
-        pads = new ArrayList<>();
+        position = 0;
+        limit = 0;
+        bufferOffset = 0;
         regionStarted = false;
         apertureUseCounts = new HashMap<>();
 
@@ -22,8 +22,12 @@ package org.openpnp.gui.tablemodel;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 
 import org.openpnp.gui.support.LengthCellValue;
@@ -33,18 +37,82 @@ import org.openpnp.model.Length;
 import org.openpnp.model.Package;
 import org.openpnp.model.Part;
 
+/**
+ * Table model for the Configuration's parts. Cell values are built the first time a row is
+ * painted and cached until the Part changes. Changes to a Part update only its row, and parts
+ * added to or removed from the Configuration insert or delete only their rows.
+ */
 @SuppressWarnings("serial")
 public class PartsTableModel extends AbstractTableModel implements PropertyChangeListener {
     private String[] columnNames =
             new String[] {"Id", "Description", "Height", "Package", "Speed %"};
     private Class[] columnTypes = new Class[] {String.class, String.class, LengthCellValue.class,
             Package.class, String.class};
-    private List<Part> parts;
+    private List<Part> parts = new ArrayList<>();
+    private List<Object[]> rows = new ArrayList<>();
+    private Map<Part, Integer> rowIndexes = new IdentityHashMap<>();
     private PercentConverter percentConverter = new PercentConverter();
+    private volatile long modificationCount;
 
     public PartsTableModel() {
         Configuration.get().addPropertyChangeListener("parts", this);
-        parts = new ArrayList<>(Configuration.get().getParts());
+        setParts(Configuration.get().getParts());
+    }
+
+    private void setParts(List<Part> parts) {
+        for (Part part : this.parts) {
+            part.removePropertyChangeListener(this);
+        }
+        this.parts = new ArrayList<>(parts);
+        rows = new ArrayList<>(parts.size());
+        for (Part part : this.parts) {
+            part.addPropertyChangeListener(this);
+            rows.add(null);
+        }
+        reindex(0);
+    }
+
+    private void reindex(int from) {
+        if (from == 0) {
+            rowIndexes.clear();
+        }
+        for (int i = from; i < parts.size(); i++) {
+            rowIndexes.put(parts.get(i), i);
+        }
+    }
+
+    /**
+     * Returns a number that changes whenever the rows or their values change, so that values
+     * derived from the table, such as a search index, can tell when they are out of date.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Returns a copy of the parts, in model row order.
+     */
+    public List<Part> getParts() {
+        return new ArrayList<>(parts);
+    }
+
+    /**
+     * Returns the text of each column for the Part, as displayed in the table and as matched by
+     * a RowFilter. May be called from any thread.
+     */
+    public String[] getSearchText(Part part) {
+        Object[] values = createRow(part);
+        String[] text = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            text[i] = values[i] == null ? "" : values[i].toString();
+        }
+        return text;
+    }
+
+    @Override
+    public void fireTableChanged(TableModelEvent e) {
+        modificationCount++;
+        super.fireTableChanged(e);
     }
 
     @Override
@@ -109,26 +177,78 @@ public class PartsTableModel extends AbstractTableModel implements PropertyChang
     }
 
     public Object getValueAt(int row, int col) {
-        Part part = parts.get(row);
-        switch (col) {
-            case 0:
-                return part.getId();
-            case 1:
-                return part.getName();
-            case 2:
-                return new LengthCellValue(part.getHeight(), true);
-            case 3:
-                return part.getPackage();
-            case 4:
-                return percentConverter.convertForward(part.getSpeed());
-            default:
-                return null;
+        if (col < 0 || col >= columnNames.length) {
+            return null;
+        }
+        Object[] values = rows.get(row);
+        if (values == null) {
+            values = createRow(parts.get(row));
+            rows.set(row, values);
         }
+        return values[col];
+    }
+
+    private Object[] createRow(Part part) {
+        return new Object[] {part.getId(), part.getName(),
+                new LengthCellValue(part.getHeight(), true), part.getPackage(),
+                percentConverter.convertForward(part.getSpeed())};
     }
 
     @Override
-    public void propertyChange(PropertyChangeEvent arg0) {
-        parts = new ArrayList<>(Configuration.get().getParts());
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> propertyChange(evt));
+            return;
+        }
+        if (evt.getSource() instanceof Part) {
+            Integer row = rowIndexes.get(evt.getSource());
+            if (row != null) {
+                rows.set(row, null);
+                fireTableRowsUpdated(row, row);
+            }
+            return;
+        }
+        partsChanged(Configuration.get().getParts());
+    }
+
+    /**
+     * Configuration fires the same event for every change to its parts, so compare the new list
+     * with the current rows. Parts appended to the end, such as new or imported parts, and a
+     * single deleted part are applied to just those rows. Anything else reloads the table.
+     */
+    private void partsChanged(List<Part> newParts) {
+        int common = 0;
+        int size = Math.min(parts.size(), newParts.size());
+        while (common < size && parts.get(common) == newParts.get(common)) {
+            common++;
+        }
+        if (common == parts.size() && newParts.size() > parts.size()) {
+            int first = parts.size();
+            for (int i = first; i < newParts.size(); i++) {
+                Part part = newParts.get(i);
+                parts.add(part);
+                rows.add(null);
+                part.addPropertyChangeListener(this);
+            }
+            reindex(first);
+            fireTableRowsInserted(first, parts.size() - 1);
+            return;
+        }
+        if (newParts.size() == parts.size() - 1
+                && parts.subList(common + 1, parts.size()).equals(newParts.subList(common,
+                        newParts.size()))) {
+            Part part = parts.remove(common);
+            rows.remove(common);
+            rowIndexes.remove(part);
+            part.removePropertyChangeListener(this);
+            reindex(common);
+            fireTableRowsDeleted(common, common);
+            return;
+        }
+        if (common == parts.size() && newParts.size() == parts.size()) {
+            return;
+        }
+        setParts(newParts);
         fireTableDataChanged();
     }
 }
@@ -19,6 +19,14 @@
 
 package org.openpnp.gui.tablemodel;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.SwingUtilities;
 import javax.swing.table.AbstractTableModel;
 
 import org.openpnp.gui.support.LengthCellValue;
@@ -32,9 +40,17 @@ import org.openpnp.model.Location;
 import org.openpnp.model.Part;
 import org.openpnp.model.Placement;
 import org.openpnp.model.Placement.Type;
-import org.openpnp.spi.Feeder;
+import org.openpnp.spi.FeederIndex;
+import org.openpnp.spi.Machine;
 
-public class PlacementsTableModel extends AbstractTableModel {
+/**
+ * Table model for the placements of a Board. Cell values are built the first time a row is
+ * painted and cached, so scrolling a large board does not allocate new cell wrappers or recompute
+ * placement status on every paint. The cache is kept current by property changes: a changed
+ * Placement or Part updates only its own rows, a change to the Board's placement list reloads the
+ * table and a change to the machine's feeders refreshes the status column.
+ */
+public class PlacementsTableModel extends AbstractTableModel implements PropertyChangeListener {
     final Configuration configuration;
 
     private String[] columnNames =
@@ -51,17 +67,188 @@ public class PlacementsTableModel extends AbstractTableModel {
         ZeroPartHeight
     }
 
+    private static final int STATUS_COLUMN = 7;
+
     private Board board;
 
+    private List<Placement> placements = new ArrayList<>();
+
+    private List<Object[]> rows = new ArrayList<>();
+
+    private final Map<Placement, Integer> rowIndexes = new IdentityHashMap<>();
+
+    /**
+     * The Parts whose changes are being observed, with the number of placements using each.
+     */
+    private final Map<Part, Integer> observedParts = new IdentityHashMap<>();
+
+    private FeederIndex feederIndex;
+
+    private boolean statusRefreshPending;
+
+    private final PropertyChangeListener feedersListener = new PropertyChangeListener() {
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            // The index may be invalidated many times in a row, such as while a machine loads, so
+            // coalesce the refreshes.
+            synchronized (PlacementsTableModel.this) {
+                if (statusRefreshPending) {
+                    return;
+                }
+                statusRefreshPending = true;
+            }
+            SwingUtilities.invokeLater(() -> refreshStatus());
+        }
+    };
+
     public PlacementsTableModel(Configuration configuration) {
         this.configuration = configuration;
     }
 
     public void setBoard(Board board) {
+        if (this.board != null) {
+            this.board.removePropertyChangeListener("placements", this);
+        }
         this.board = board;
+        if (board != null) {
+            board.addPropertyChangeListener("placements", this);
+        }
+        observeFeeders();
         fireTableDataChanged();
     }
 
+    /**
+     * Reload the placements from the Board and drop every cached row. Called for any change that
+     * may affect the whole table, including by views that change the Board directly.
+     */
+    @Override
+    public void fireTableDataChanged() {
+        reload();
+        super.fireTableDataChanged();
+    }
+
+    private void reload() {
+        for (Placement placement : placements) {
+            placement.removePropertyChangeListener(this);
+        }
+        for (Part part : observedParts.keySet()) {
+            part.removePropertyChangeListener(this);
+        }
+        observedParts.clear();
+        rowIndexes.clear();
+
+        placements = board == null ? new ArrayList<>() : new ArrayList<>(board.getPlacements());
+        rows = new ArrayList<>(placements.size());
+        for (int i = 0; i < placements.size(); i++) {
+            Placement placement = placements.get(i);
+            rows.add(null);
+            rowIndexes.put(placement, i);
+            placement.addPropertyChangeListener(this);
+            observePart(placement.getPart());
+        }
+    }
+
+    private void observeFeeders() {
+        Machine machine = configuration.getMachine();
+        FeederIndex feederIndex = machine == null ? null : machine.getFeederIndex();
+        if (feederIndex == this.feederIndex) {
+            return;
+        }
+        if (this.feederIndex != null) {
+            this.feederIndex.removePropertyChangeListener(feedersListener);
+        }
+        this.feederIndex = feederIndex;
+        if (feederIndex != null) {
+            feederIndex.addPropertyChangeListener(feedersListener);
+        }
+    }
+
+    private void observePart(Part part) {
+        if (part == null) {
+            return;
+        }
+        Integer count = observedParts.get(part);
+        if (count == null) {
+            part.addPropertyChangeListener(this);
+            count = 0;
+        }
+        observedParts.put(part, count + 1);
+    }
+
+    private void forgetPart(Part part) {
+        if (part == null) {
+            return;
+        }
+        Integer count = observedParts.get(part);
+        if (count == null) {
+            return;
+        }
+        if (count == 1) {
+            observedParts.remove(part);
+            part.removePropertyChangeListener(this);
+        }
+        else {
+            observedParts.put(part, count - 1);
+        }
+    }
+
+    public Placement getPlacement(int index) {
+        return placements.get(index);
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> propertyChange(evt));
+            return;
+        }
+        Object source = evt.getSource();
+        if (source == board) {
+            fireTableDataChanged();
+        }
+        else if (source instanceof Placement) {
+            Integer row = rowIndexes.get(source);
+            if (row == null) {
+                return;
+            }
+            if ("part".equals(evt.getPropertyName())) {
+                forgetPart((Part) evt.getOldValue());
+                observePart((Part) evt.getNewValue());
+            }
+            rows.set(row, null);
+            fireTableRowsUpdated(row, row);
+        }
+        else if (source instanceof Part) {
+            // The height of a Part changes the status of every placement of it.
+            for (int i = 0; i < placements.size(); i++) {
+                if (placements.get(i).getPart() == source) {
+                    rows.set(i, null);
+                    fireTableRowsUpdated(i, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute the status of the rows that have been built, updating those that changed.
+     */
+    private void refreshStatus() {
+        synchronized (this) {
+            statusRefreshPending = false;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            if (row == null) {
+                continue;
+            }
+            Status status = getPlacementStatus(placements.get(i));
+            if (status != row[STATUS_COLUMN]) {
+                row[STATUS_COLUMN] = status;
+                fireTableRowsUpdated(i, i);
+            }
+        }
+    }
+
     @Override
     public String getColumnName(int column) {
         return columnNames[column];
@@ -72,7 +259,7 @@ public class PlacementsTableModel extends AbstractTableModel {
     }
 
     public int getRowCount() {
-        return (board == null) ? 0 : board.getPlacements().size();
+        return placements.size();
     }
 
     @Override
@@ -89,7 +276,7 @@ public class PlacementsTableModel extends AbstractTableModel {
     @Override
     public void setValueAt(Object aValue, int rowIndex, int columnIndex) {
         try {
-            Placement placement = board.getPlacements().get(rowIndex);
+            Placement placement = placements.get(rowIndex);
             if (columnIndex == 1) {
                 placement.setPart((Part) aValue);
             }
@@ -140,14 +327,8 @@ public class PlacementsTableModel extends AbstractTableModel {
             return Status.MissingPart;
         }
         if (placement.getType() == Placement.Type.Place) {
-            boolean found = false;
-            for (Feeder feeder : Configuration.get().getMachine().getFeeders()) {
-                if (feeder.getPart() == placement.getPart() && feeder.isEnabled()) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
+            if (!Configuration.get().getMachine().getFeederIndex()
+                    .hasFeeder(placement.getPart())) {
                 return Status.MissingFeeder;
             }
 
@@ -159,33 +340,23 @@ public class PlacementsTableModel extends AbstractTableModel {
     }
 
     public Object getValueAt(int row, int col) {
-        Placement placement = board.getPlacements().get(row);
-        Location loc = placement.getLocation();
-        switch (col) {
-            case 0:
-                return new PartCellValue(placement.getId());
-            case 1:
-                return placement.getPart();
-            case 2:
-                return placement.getSide();
-            case 3:
-                return new LengthCellValue(loc.getLengthX(), true);
-            case 4:
-                return new LengthCellValue(loc.getLengthY(), true);
-            case 5:
-                // return String.format(Locale.US, configuration.getLengthDisplayFormat(),
-                // loc.getRotation());
-                return new RotationCellValue(loc.getRotation(), true);
-            case 6:
-                return placement.getType();
-            case 7:
-                return getPlacementStatus(placement);
-            case 8:
-                return placement.getGlue();
-            case 9:
-                return placement.getCheckFids();
-            default:
-                return null;
+        if (col < 0 || col >= columnNames.length) {
+            return null;
         }
+        Object[] values = rows.get(row);
+        if (values == null) {
+            values = createRow(placements.get(row));
+            rows.set(row, values);
+        }
+        return values[col];
+    }
+
+    private Object[] createRow(Placement placement) {
+        Location loc = placement.getLocation();
+        return new Object[] {new PartCellValue(placement.getId()), placement.getPart(),
+                placement.getSide(), new LengthCellValue(loc.getLengthX(), true),
+                new LengthCellValue(loc.getLengthY(), true),
+                new RotationCellValue(loc.getRotation(), true), placement.getType(),
+                getPlacementStatus(placement), placement.getGlue(), placement.getCheckFids()};
     }
 }
@@ -0,0 +1,66 @@
+package org.openpnp.gui.tablemodel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import org.openpnp.util.Histogram;
+import org.openpnp.util.Profiler;
+
+public class ProfilerTableModel extends AbstractTableModel {
+    private String[] columnNames = new String[] {"Name", "Count", "Total (ms)", "Mean (ms)",
+            "P50 (ms)", "P90 (ms)", "P99 (ms)", "Max (ms)"};
+
+    private Class[] columnTypes = new Class[] {String.class, Long.class, Double.class,
+            Double.class, Double.class, Double.class, Double.class, Double.class};
+
+    private List<Histogram> histograms = new ArrayList<>();
+
+    public void refresh() {
+        histograms = Profiler.get().getHistograms();
+        fireTableDataChanged();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return columnTypes[columnIndex];
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    public int getRowCount() {
+        return histograms.size();
+    }
+
+    public Object getValueAt(int row, int col) {
+        Histogram h = histograms.get(row);
+        switch (col) {
+            case 0:
+                return h.getName();
+            case 1:
+                return h.getCount();
+            case 2:
+                return Profiler.toMs(h.getTotal());
+            case 3:
+                return Profiler.toMs(h.getMean());
+            case 4:
+                return Profiler.toMs(h.getValueAtPercentile(50));
+            case 5:
+                return Profiler.toMs(h.getValueAtPercentile(90));
+            case 6:
+                return Profiler.toMs(h.getValueAtPercentile(99));
+            case 7:
+                return Profiler.toMs(h.getMax());
+            default:
+                return null;
+        }
+    }
+}
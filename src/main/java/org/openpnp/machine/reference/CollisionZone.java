@@ -0,0 +1,131 @@
+package org.openpnp.machine.reference;
+
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.Element;
+
+/**
+ * A rectangle of the machine's X, Y space that only one head may be in at a time, such as the
+ * area between two gantries that both of them can reach. See ReferenceMultiHeadPnpJobProcessor.
+ * The rectangle is checked against the nozzle positions, so it should have enough margin for the
+ * rest of the head and gantry.
+ */
+public class CollisionZone {
+    @Attribute(required = false)
+    private String name;
+
+    @Element
+    private Location corner1 = new Location(LengthUnit.Millimeters);
+
+    @Element
+    private Location corner2 = new Location(LengthUnit.Millimeters);
+
+    public CollisionZone() {
+
+    }
+
+    public CollisionZone(String name, Location corner1, Location corner2) {
+        this.name = name;
+        this.corner1 = corner1;
+        this.corner2 = corner2;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Location getCorner1() {
+        return corner1;
+    }
+
+    public void setCorner1(Location corner1) {
+        this.corner1 = corner1;
+    }
+
+    public Location getCorner2() {
+        return corner2;
+    }
+
+    public void setCorner2(Location corner2) {
+        this.corner2 = corner2;
+    }
+
+    public boolean contains(Location location) {
+        return intersects(location, location);
+    }
+
+    /**
+     * Returns true if the rectangle with the given corners overlaps the zone.
+     *
+     * @param corner1
+     * @param corner2
+     * @return
+     */
+    public boolean overlaps(Location corner1, Location corner2) {
+        Location a = this.corner1.convertToUnits(LengthUnit.Millimeters);
+        Location b = this.corner2.convertToUnits(LengthUnit.Millimeters);
+        Location c = corner1.convertToUnits(LengthUnit.Millimeters);
+        Location d = corner2.convertToUnits(LengthUnit.Millimeters);
+        // The rectangles overlap if their intersection is not empty.
+        double minX = Math.max(Math.min(a.getX(), b.getX()), Math.min(c.getX(), d.getX()));
+        double maxX = Math.min(Math.max(a.getX(), b.getX()), Math.max(c.getX(), d.getX()));
+        double minY = Math.max(Math.min(a.getY(), b.getY()), Math.min(c.getY(), d.getY()));
+        double maxY = Math.min(Math.max(a.getY(), b.getY()), Math.max(c.getY(), d.getY()));
+        return minX <= maxX && minY <= maxY;
+    }
+
+    /**
+     * Returns true if the straight line from one location to the other passes through the zone.
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    public boolean intersects(Location from, Location to) {
+        Location a = corner1.convertToUnits(LengthUnit.Millimeters);
+        Location b = corner2.convertToUnits(LengthUnit.Millimeters);
+        from = from.convertToUnits(LengthUnit.Millimeters);
+        to = to.convertToUnits(LengthUnit.Millimeters);
+        double minX = Math.min(a.getX(), b.getX());
+        double maxX = Math.max(a.getX(), b.getX());
+        double minY = Math.min(a.getY(), b.getY());
+        double maxY = Math.max(a.getY(), b.getY());
+
+        // Clip the line to the rectangle, Liang-Barsky style. t runs from 0 at from to 1 at to.
+        double dx = to.getX() - from.getX();
+        double dy = to.getY() - from.getY();
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {from.getX() - minX, maxX - from.getX(), from.getY() - minY,
+                maxY - from.getY()};
+        double t0 = 0;
+        double t1 = 1;
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                // Parallel to this edge, so it's either always inside or always outside of it.
+                if (q[i] < 0) {
+                    return false;
+                }
+            }
+            else {
+                double t = q[i] / p[i];
+                if (p[i] < 0) {
+                    t0 = Math.max(t0, t);
+                }
+                else {
+                    t1 = Math.min(t1, t);
+                }
+            }
+        }
+        return t0 <= t1;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,236 @@
+package org.openpnp.machine.reference;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only log of a job's progress, so that a job that was interrupted by a crash or power
+ * loss can be resumed where it stopped. Each record is a line of tab separated fields. The first
+ * line identifies the job the journal belongs to.
+ *
+ * Records are written on a background thread so the job doesn't wait for the disk. Each record is
+ * handed to the operating system as soon as it is written, which is enough to survive a crash of
+ * OpenPnP, and the file is synced to the disk at most SYNC_INTERVAL later, which bounds what is
+ * lost on a power failure.
+ */
+public class JobJournal {
+    private static final Logger logger = LoggerFactory.getLogger(JobJournal.class);
+
+    private static final String HEADER = "OpenPnP Job Journal 1";
+
+    /**
+     * How often, in milliseconds, written records are synced to the disk.
+     */
+    private static final long SYNC_INTERVAL = 1000;
+
+    private final File file;
+    private final FileChannel channel;
+    private final ScheduledExecutorService executor;
+    private boolean dirty;
+
+    /**
+     * Open the journal for the job with the given signature. A new journal replaces any existing
+     * one. An existing journal is appended to when resuming, after removing a record that was only
+     * partly written.
+     *
+     * @param file
+     * @param signature
+     * @param resume
+     * @throws IOException
+     */
+    public JobJournal(File file, String signature, boolean resume) throws IOException {
+        this.file = file;
+        if (resume) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            // Drop a record that was only partly written, so the next one starts on a line of
+            // its own.
+            long end = getCompleteLength(channel);
+            channel.truncate(end);
+            channel.position(end);
+        }
+        else {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Job Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::sync, SYNC_INTERVAL, SYNC_INTERVAL,
+                TimeUnit.MILLISECONDS);
+        if (!resume) {
+            write(HEADER, signature);
+            executor.execute(this::sync);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Append a record with the given fields. Returns immediately; the record is written in the
+     * background. Fields must not contain tabs or line breaks.
+     *
+     * @param fields
+     */
+    public void write(Object... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (Object field : fields) {
+            if (sb.length() > 0) {
+                sb.append('\t');
+            }
+            sb.append(field);
+        }
+        sb.append('\n');
+        ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        executor.execute(() -> {
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                dirty = true;
+            }
+            catch (IOException e) {
+                logger.warn("Unable to write to job journal " + file, e);
+            }
+        });
+    }
+
+    /**
+     * Write any pending records, sync them to the disk and close the file.
+     */
+    public void close() {
+        executor.execute(() -> {
+            sync();
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                logger.warn("Unable to close job journal " + file, e);
+            }
+        });
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the length of the part of the file that ends in a line break, that is the records
+     * that were written completely.
+     *
+     * @param channel
+     * @return
+     * @throws IOException
+     */
+    private static long getCompleteLength(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear();
+            buffer.limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    private void sync() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            channel.force(false);
+            dirty = false;
+        }
+        catch (IOException e) {
+            logger.warn("Unable to sync job journal " + file, e);
+        }
+    }
+
+    /**
+     * Returns true if the file is a journal for the job with the given signature.
+     *
+     * @param file
+     * @param signature
+     * @return
+     */
+    public static boolean matches(File file, String signature) {
+        if (!file.exists()) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath())) {
+            String line = reader.readLine();
+            return line != null && line.equals(HEADER + "\t" + signature);
+        }
+        catch (IOException e) {
+            logger.warn("Unable to read job journal " + file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Read the records of the journal, if it is one for the job with the given signature. A
+     * record that was only partly written when the journal was interrupted is ignored.
+     *
+     * @param file
+     * @param signature
+     * @return The fields of each record after the header, in order.
+     * @throws IOException if the file can't be read or is not a journal for the job.
+     */
+    public static List<String[]> read(File file, String signature) throws IOException {
+        String contents = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        List<String[]> records = new ArrayList<>();
+        int start = 0;
+        int end;
+        boolean header = true;
+        // Only lines that end in a line break are complete.
+        while ((end = contents.indexOf('\n', start)) >= 0) {
+            String line = contents.substring(start, end);
+            start = end + 1;
+            if (header) {
+                if (!line.equals(HEADER + "\t" + signature)) {
+                    throw new IOException("Job journal " + file + " is not for this job.");
+                }
+                header = false;
+            }
+            else if (!line.isEmpty()) {
+                records.add(line.split("\t", -1));
+            }
+        }
+        if (header) {
+            throw new IOException("Job journal " + file + " is empty.");
+        }
+        return records;
+    }
+}
@@ -31,6 +31,7 @@ import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.spi.base.AbstractActuator;
+import org.openpnp.util.Profiler;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.slf4j.Logger;
@@ -82,7 +83,9 @@ public class ReferenceActuator extends AbstractActuator implements ReferenceHead
     @Override
     public void actuate(boolean on) throws Exception {
         logger.debug("{}.actuate({})", getName(), on);
+        long t = Profiler.start();
         driver.actuate(this, on);
+        Profiler.stop("driver.actuate", t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -94,14 +97,29 @@ public class ReferenceActuator extends AbstractActuator implements ReferenceHead
     @Override
     public void actuate(double value) throws Exception {
         logger.debug("{}.actuate({})", getName(), value);
+        long t = Profiler.start();
         driver.actuate(this, value);
+        Profiler.stop("driver.actuate", t);
         machine.fireMachineHeadActivity(head);
     }
 
+    @Override
+    public String read() throws Exception {
+        long t = Profiler.start();
+        String value = driver.actuatorRead(this);
+        Profiler.stop("driver.actuatorRead", t);
+        if (value == null) {
+            throw new Exception("Actuator " + getName() + " can't be read by the driver.");
+        }
+        return value;
+    }
+
     @Override
     public void moveTo(Location location, double speed) throws Exception {
         logger.debug("{}.moveTo({}, {})", getName(), location, speed);
+        long t = Profiler.start();
         driver.moveTo(this, location, speed);
+        Profiler.stop("driver.moveTo", t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -111,7 +129,9 @@ public class ReferenceActuator extends AbstractActuator implements ReferenceHead
         Length safeZ = this.safeZ.convertToUnits(getLocation().getUnits());
         Location l = new Location(getLocation().getUnits(), Double.NaN, Double.NaN,
                 safeZ.getValue(), Double.NaN);
+        long t = Profiler.start();
         driver.moveTo(this, l, speed);
+        Profiler.stop("driver.moveTo", t);
         machine.fireMachineHeadActivity(head);
     }
 
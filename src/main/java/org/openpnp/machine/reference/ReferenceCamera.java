@@ -36,6 +36,7 @@ import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.spi.base.AbstractCamera;
 import org.openpnp.util.OpenCvUtils;
+import org.openpnp.util.Profiler;
 import org.openpnp.vision.LensCalibration;
 import org.openpnp.vision.LensCalibration.LensModel;
 import org.openpnp.vision.LensCalibration.Pattern;
@@ -48,8 +49,7 @@ import org.slf4j.LoggerFactory;
 
 public abstract class ReferenceCamera extends AbstractCamera implements ReferenceHeadMountable {
     static {
-        nu.pattern.OpenCV.loadShared();
-        System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+        OpenCvUtils.loadNativeLibrary();
     }
 
     protected final static Logger logger = LoggerFactory.getLogger(ReferenceCamera.class);
@@ -84,9 +84,13 @@ public abstract class ReferenceCamera extends AbstractCamera implements Referenc
     @Element(required = false)
     private LensCalibrationParams calibration = new LensCalibrationParams();
 
-    private boolean calibrating;
+    private volatile boolean calibrating;
     private CalibrationCallback calibrationCallback;
     private int calibrationCountGoal = 25;
+    private int calibrationCountReported;
+    private Thread calibrationThread;
+    // Not the camera itself, since subclasses hold that lock while waiting for the capture thread.
+    private final Object calibrationLock = new Object();
 
     private Mat undistortionMap1;
     private Mat undistortionMap2;
@@ -95,7 +99,7 @@ public abstract class ReferenceCamera extends AbstractCamera implements Referenc
     protected ReferenceDriver driver;
 
 
-    private LensCalibration lensCalibration;
+    private volatile LensCalibration lensCalibration;
 
     public ReferenceCamera() {
         Configuration.get().addListener(new ConfigurationListener.Adapter() {
@@ -120,7 +124,9 @@ public abstract class ReferenceCamera extends AbstractCamera implements Referenc
     @Override
     public void moveTo(Location location, double speed) throws Exception {
         logger.debug("moveTo({}, {})", location, speed);
+        long t = Profiler.start();
         driver.moveTo(this, location, speed);
+        Profiler.stop("driver.moveTo", t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -130,7 +136,9 @@ public abstract class ReferenceCamera extends AbstractCamera implements Referenc
         Length safeZ = this.safeZ.convertToUnits(getLocation().getUnits());
         Location l = new Location(getLocation().getUnits(), Double.NaN, Double.NaN,
                 safeZ.getValue(), Double.NaN);
+        long t = Profiler.start();
         driver.moveTo(this, l, speed);
+        Profiler.stop("driver.moveTo", t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -309,56 +317,117 @@ public abstract class ReferenceCamera extends AbstractCamera implements Referenc
         return dst;
     }
 
+    /**
+     * While calibrating, sampled frames are searched for the calibration pattern on
+     * LensCalibration's worker threads and the pattern found most recently is drawn on the frame.
+     * Once enough poses have been collected the calibration is computed on a separate thread. The
+     * capture thread never waits for either, so the frame rate is not affected.
+     */
     private Mat calibrate(Mat mat) {
-        if (!calibrating) {
+        LensCalibration lensCalibration = this.lensCalibration;
+        if (!calibrating || lensCalibration == null) {
             return mat;
         }
 
         int count = lensCalibration.getPatternFoundCount();
-
-        Mat appliedMat = lensCalibration.apply(mat);
-        if (appliedMat == null) {
-            // nothing was found in the image
+        if (count >= calibrationCountGoal) {
+            startCalibrationThread(lensCalibration);
             return mat;
         }
 
-        if (count != lensCalibration.getPatternFoundCount()) {
+        lensCalibration.offer(mat);
+        lensCalibration.drawLatest(mat, 500);
+
+        if (count != calibrationCountReported) {
             // a new image was counted, so let the caller know
-            if (lensCalibration.getPatternFoundCount() == calibrationCountGoal) {
-                calibrationCallback.callback(lensCalibration.getPatternFoundCount(),
-                        calibrationCountGoal, true);
-                lensCalibration.calibrate();
-                calibration.setCameraMatrixMat(lensCalibration.getCameraMatrix());
-                calibration
-                        .setDistortionCoefficientsMat(lensCalibration.getDistortionCoefficients());
-                calibration.setEnabled(true);
+            calibrationCountReported = count;
+            calibrationCallback.callback(count, calibrationCountGoal, false);
+        }
 
-                lensCalibration.close();
-                lensCalibration = null;
-                calibrating = false;
-            }
-            else {
-                calibrationCallback.callback(lensCalibration.getPatternFoundCount(),
-                        calibrationCountGoal, false);
+        return mat;
+    }
+
+    private void startCalibrationThread(LensCalibration lensCalibration) {
+        synchronized (calibrationLock) {
+            if (calibrationThread != null) {
+                return;
             }
+            calibrationThread = new Thread(() -> {
+                boolean ok = false;
+                try {
+                    ok = lensCalibration.calibrate();
+                }
+                catch (Exception e) {
+                    logger.warn("Lens calibration failed", e);
+                }
+                finishCalibration(lensCalibration, ok);
+            }, "Lens Calibration");
+            calibrationThread.setDaemon(true);
+            calibrationThread.start();
         }
+    }
 
-        return appliedMat;
+    private void finishCalibration(LensCalibration lensCalibration, boolean ok) {
+        synchronized (calibrationLock) {
+            if (calibrating && this.lensCalibration == lensCalibration) {
+                if (ok) {
+                    calibration.setCameraMatrixMat(lensCalibration.getCameraMatrix());
+                    calibration.setDistortionCoefficientsMat(
+                            lensCalibration.getDistortionCoefficients());
+                    // Rebuild the undistortion maps from the new calibration.
+                    undistortionMap1 = null;
+                    undistortionMap2 = null;
+                    calibration.setEnabled(true);
+                }
+                calibrating = false;
+                this.lensCalibration = null;
+                calibrationCallback.callback(calibrationCountGoal, calibrationCountGoal, true);
+            }
+            lensCalibration.close();
+            calibrationThread = null;
+        }
     }
 
     public void startCalibration(CalibrationCallback callback) {
-        this.calibrationCallback = callback;
-        calibration.setEnabled(false);
-        lensCalibration = new LensCalibration(LensModel.Pinhole, Pattern.AsymmetricCirclesGrid, 4,
-                11, 15, 750);
-        calibrating = true;
+        synchronized (calibrationLock) {
+            cancelCalibration();
+            this.calibrationCallback = callback;
+            calibration.setEnabled(false);
+            calibrationCountReported = 0;
+            lensCalibration = new LensCalibration(LensModel.Pinhole,
+                    Pattern.AsymmetricCirclesGrid, 4, 11, 15, 750);
+            calibrating = true;
+        }
     }
 
     public void cancelCalibration() {
-        if (calibrating) {
-            lensCalibration.close();
+        synchronized (calibrationLock) {
+            LensCalibration lensCalibration = this.lensCalibration;
+            calibrating = false;
+            this.lensCalibration = null;
+            // If the calibration is being computed its thread closes the LensCalibration when it
+            // is done, since closing releases the poses it is using.
+            if (lensCalibration != null && calibrationThread == null) {
+                lensCalibration.close();
+            }
         }
-        calibrating = false;
+    }
+
+    public int getCalibrationCountGoal() {
+        return calibrationCountGoal;
+    }
+
+    public void setCalibrationCountGoal(int calibrationCountGoal) {
+        this.calibrationCountGoal = calibrationCountGoal;
+    }
+
+    /**
+     * The LensCalibration in progress, or null if the camera is not calibrating.
+     * 
+     * @return
+     */
+    public LensCalibration getLensCalibration() {
+        return lensCalibration;
     }
 
     public LensCalibrationParams getCalibration() {
@@ -105,6 +105,18 @@ public interface ReferenceDriver extends WizardConfigurable, PropertySheetHolder
      */
     public void actuate(ReferenceActuator actuator, double value) throws Exception;
 
+    /**
+     * Reads the value of a machine defined sensor.
+     * 
+     * @param actuator
+     * @return The value read, or null if the driver can't read the actuator, which is the
+     *         default.
+     * @throws Exception
+     */
+    public default String actuatorRead(ReferenceActuator actuator) throws Exception {
+        return null;
+    }
+
     /**
      * Attempts to enable the Driver, turning on all outputs.
      * 
@@ -26,6 +26,7 @@ import org.openpnp.spi.Head;
 import org.openpnp.spi.Machine;
 import org.openpnp.spi.PasteDispenser;
 import org.openpnp.spi.base.AbstractPasteDispenseJobProcessor;
+import org.openpnp.util.BoardTransform;
 import org.openpnp.util.FiniteStateMachine;
 import org.openpnp.util.MovableUtils;
 import org.openpnp.util.Utils2D;
@@ -104,6 +105,9 @@ public class ReferenceGlueDispenseJobProcessor extends AbstractPasteDispenseJobP
 
     protected Map<BoardLocation, Location> boardLocationFiducialOverrides = new HashMap<>();
 
+    protected Map<BoardLocation, BoardTransform> boardLocationFiducialTransforms =
+            new HashMap<>();
+
     public ReferenceGlueDispenseJobProcessor() {
         fsm.add(State.Uninitialized, Message.Initialize, State.PreFlight, this::doInitialize);
 
@@ -133,7 +137,12 @@ public class ReferenceGlueDispenseJobProcessor extends AbstractPasteDispenseJobP
         if(fsm.getState() == State.Uninitialized)
             return false;
 
-        fsm.send(Message.Next);
+        try {
+            fsm.send(Message.Next);
+        } catch (Exception e) {
+            fireJobError(job, e);
+            throw (e);
+        }
 
         if (fsm.getState() == State.Stopped) {
             /*
@@ -200,6 +209,7 @@ public class ReferenceGlueDispenseJobProcessor extends AbstractPasteDispenseJobP
         this.pasteDispenser = this.head.getDefaultPasteDispenser();
         this.jobDispenses.clear();
         this.boardLocationFiducialOverrides.clear();
+        this.boardLocationFiducialTransforms.clear();
 
         fireTextStatus("Checking job for setup errors.");
 
@@ -238,6 +248,8 @@ public class ReferenceGlueDispenseJobProcessor extends AbstractPasteDispenseJobP
 
         // Safe Z the machine
         head.moveToSafeZ();
+
+        fireJobStarting(job);
     }
 
     protected void doFiducialCheck() throws Exception {
@@ -253,6 +265,8 @@ public class ReferenceGlueDispenseJobProcessor extends AbstractPasteDispenseJobP
             }
             Location location = locator.locateBoard(boardLocation);
             boardLocationFiducialOverrides.put(boardLocation, location);
+            boardLocationFiducialTransforms.put(boardLocation,
+                    boardLocation.getPlacementTransform(location));
             logger.debug("Fiducial check for {}", boardLocation);
         }
     }
@@ -267,15 +281,12 @@ public class ReferenceGlueDispenseJobProcessor extends AbstractPasteDispenseJobP
             Placement placement= jobDispense.placement;
 
             // Check if there is a fiducial override for the board location and if so, use it.
-            if (boardLocationFiducialOverrides.containsKey(boardLocation)) {
-                BoardLocation boardLocation2 = new BoardLocation(boardLocation.getBoard());
-                boardLocation2.setSide(boardLocation.getSide());
-                boardLocation2.setLocation(boardLocationFiducialOverrides.get(boardLocation));
-                boardLocation = boardLocation2;
+            BoardTransform transform = boardLocationFiducialTransforms.get(boardLocation);
+            if (transform == null) {
+                transform = boardLocation.getPlacementTransform();
             }
 
-            Location dispenseLocation =
-                    Utils2D.calculateBoardPlacementLocation(boardLocation, placement.getLocation());
+            Location dispenseLocation = transform.transform(placement.getLocation());
 
             MovableUtils.moveToLocationAtSafeZ(pasteDispenser, dispenseLocation);
 
@@ -297,6 +308,8 @@ public class ReferenceGlueDispenseJobProcessor extends AbstractPasteDispenseJobP
         // Safe Z the machine
         head.moveToSafeZ();
 
+        fireJobFinished(job);
+
     }
 
     protected void doReset() throws Exception {
@@ -31,6 +31,7 @@ import org.openpnp.model.Configuration;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.spi.base.AbstractHead;
 import org.openpnp.spi.base.SimplePropertySheetHolder;
+import org.openpnp.util.Profiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,7 +54,9 @@ public class ReferenceHead extends AbstractHead {
     @Override
     public void home() throws Exception {
         logger.debug("{}.home()", getName());
+        long t = Profiler.start();
         driver.home(this);
+        Profiler.stop("driver.home", t);
         machine.fireMachineHeadActivity(this);
     }
 
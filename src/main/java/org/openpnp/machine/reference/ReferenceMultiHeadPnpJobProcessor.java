@@ -0,0 +1,1243 @@
+package org.openpnp.machine.reference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.openpnp.machine.reference.ReferencePnpJobProcessor.JobPlacement;
+import org.openpnp.machine.reference.ReferencePnpJobProcessor.JobPlacement.Status;
+import org.openpnp.machine.reference.ReferencePnpJobProcessor.PlannedPlacement;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Job;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Part;
+import org.openpnp.model.Placement;
+import org.openpnp.spi.Camera;
+import org.openpnp.spi.Feeder;
+import org.openpnp.spi.FeederIndex;
+import org.openpnp.spi.FiducialLocator;
+import org.openpnp.spi.Head;
+import org.openpnp.spi.HeadMountable;
+import org.openpnp.spi.Machine;
+import org.openpnp.spi.Nozzle;
+import org.openpnp.spi.NozzleTip;
+import org.openpnp.spi.PartAlignment;
+import org.openpnp.spi.base.AbstractJobProcessor;
+import org.openpnp.spi.base.AbstractPnpJobProcessor;
+import org.openpnp.spi.base.CompatibilityMatrix;
+import org.openpnp.util.BoardTransform;
+import org.openpnp.util.FiniteStateMachine;
+import org.openpnp.util.MovableUtils;
+import org.openpnp.util.VisionUtils;
+import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.ElementList;
+import org.simpleframework.xml.Root;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pick and place job processor for machines with more than one head. The placements are split
+ * between the heads up front, each head taking the ones nearest to its park location up to its
+ * share of the job, and each head then plans and runs its own cycles on its own thread. A head
+ * that runs out of work takes placements from the others.
+ *
+ * The heads share the machine's space through CollisionZones. A head reserves the zones on the
+ * way to where it is going before it moves, and keeps the zones it is in until it leaves them.
+ * Before a feed it reserves every zone that overlaps the rectangle around the feeder's feed
+ * locations, its pick location and the nozzle, since the feeder may move the nozzle, a camera or
+ * an actuator anywhere in there. Before a nozzle tip change it does the same for the changer
+ * locations. A head that has to wait for a zone first moves to its park location, so it never
+ * waits while it is inside a zone and no two heads can wait for each other. That move to the park
+ * location is the one move a head makes without reserving the zones on the way, so park locations
+ * must be outside of every zone, and the way from a zone to a head's park location must not cross
+ * the other zones.
+ *
+ * The heads share the feeders through a FeederInventory, which gives each feeder to one head at a
+ * time, from feed to pick. A head may wait for a zone while it holds a feeder, for instance when
+ * vision moved the pick location out of the reserved rectangle, but it never waits for a feeder
+ * while it is inside a zone, so the owner of the zone can't be waiting for the feeder.
+ *
+ * The heads don't move in parallel before the run and after it, where they are stopped one after
+ * the other while the others are parked: before the fiducial checks, for which the fiducial
+ * locator moves the camera without reserving zones, after them and at the end of the job. The
+ * heads that are inside a zone park first, so that the others can cross the zones.
+ *
+ * Each call to next() lets every idle head start a cycle and returns when one of them has
+ * finished its cycle, so a paused job stops once the heads have finished their cycles. Fiducials
+ * are checked per board before the heads start; placements with Check Fids set use that check.
+ *
+ * The driver must accept moves of different heads from different threads at the same time.
+ */
+@Root
+public class ReferenceMultiHeadPnpJobProcessor extends AbstractPnpJobProcessor {
+    enum State {
+        Uninitialized,
+        PreFlight,
+        FiducialCheck,
+        Run,
+        Cleanup,
+        Stopped
+    }
+
+    enum Message {
+        Initialize,
+        Next,
+        Complete,
+        Abort,
+        Skip,
+        Reset
+    }
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(ReferenceMultiHeadPnpJobProcessor.class);
+
+    @Attribute(required = false)
+    protected boolean parkWhenComplete = false;
+
+    /**
+     * The number of heads to use, in machine order, or 0 for all of them.
+     */
+    @Attribute(required = false)
+    protected int maxHeads = 0;
+
+    @Attribute(required = false)
+    protected FeederIndex.Selection feederSelection = FeederIndex.Selection.First;
+
+    @ElementList(required = false)
+    protected List<CollisionZone> collisionZones = new ArrayList<>();
+
+    private FiniteStateMachine<State, Message> fsm = new FiniteStateMachine<>(State.Uninitialized);
+
+    protected Job job;
+
+    protected Machine machine;
+
+    protected List<HeadWorker> workers = new ArrayList<>();
+
+    protected List<JobPlacement> jobPlacements = new ArrayList<>();
+
+    protected Map<BoardLocation, BoardTransform> boardLocationFiducialTransforms =
+            new HashMap<>();
+
+    protected FeederInventory inventory;
+
+    /**
+     * The owner of each reserved CollisionZone. Also the lock that zone reservations wait on.
+     */
+    protected final Map<CollisionZone, HeadWorker> zoneOwners = new IdentityHashMap<>();
+
+    /**
+     * Guards the workers' state, their queues and the status of the JobPlacements while the
+     * heads are running.
+     */
+    protected final Object lock = new Object();
+
+    protected int cyclesFinished;
+
+    /**
+     * The number of heads inside of runCycle() right now, and the most there have been at once
+     * during this job.
+     */
+    protected int activeCycles;
+
+    protected int maxActiveCycles;
+
+    protected volatile boolean aborted;
+
+    protected long runStartNanos;
+
+    protected int placedCount;
+
+    protected double placementsPerHour;
+
+    public ReferenceMultiHeadPnpJobProcessor() {
+        fsm.add(State.Uninitialized, Message.Initialize, State.PreFlight, this::doInitialize);
+
+        fsm.add(State.PreFlight, Message.Next, State.FiducialCheck, this::doPreFlight,
+                Message.Next);
+        fsm.add(State.PreFlight, Message.Abort, State.Cleanup, Message.Next);
+
+        fsm.add(State.FiducialCheck, Message.Next, State.Run, this::doFiducialCheck);
+        fsm.add(State.FiducialCheck, Message.Skip, State.Run);
+        fsm.add(State.FiducialCheck, Message.Abort, State.Cleanup, Message.Next);
+
+        fsm.add(State.Run, Message.Next, State.Run, this::doRun);
+        fsm.add(State.Run, Message.Skip, State.Run, this::doSkip);
+        fsm.add(State.Run, Message.Complete, State.Cleanup, Message.Next);
+        fsm.add(State.Run, Message.Abort, State.Cleanup, Message.Next);
+
+        fsm.add(State.Cleanup, Message.Next, State.Stopped, this::doCleanup, Message.Reset);
+
+        fsm.add(State.Stopped, Message.Reset, State.Uninitialized, this::doReset);
+    }
+
+    public synchronized void initialize(Job job) throws Exception {
+        this.job = job;
+        fsm.send(Message.Initialize);
+    }
+
+    public synchronized boolean next() throws Exception {
+        try {
+            fsm.send(Message.Next);
+        }
+        catch (Exception e) {
+            this.fireJobState(this.machine.getSignalers(), AbstractJobProcessor.State.ERROR);
+            fireJobError(job, e);
+            throw (e);
+        }
+
+        if (fsm.getState() == State.Stopped) {
+            fsm.send(Message.Reset);
+            return false;
+        }
+        else if (fsm.getState() == State.Run && isJobComplete()) {
+            fsm.send(Message.Complete);
+            this.fireJobState(this.machine.getSignalers(), AbstractJobProcessor.State.FINISHED);
+            return false;
+        }
+
+        return true;
+    }
+
+    public void abort() throws Exception {
+        // Stop the heads before waiting for the lock, which next() may be holding while it waits
+        // for them.
+        aborted = true;
+        synchronized (this) {
+            fsm.send(Message.Abort);
+        }
+    }
+
+    public synchronized void skip() throws Exception {
+        fsm.send(Message.Skip);
+    }
+
+    /**
+     * A placement can be skipped when a head has failed on it.
+     */
+    public boolean canSkip() {
+        if (!fsm.canSend(Message.Skip)) {
+            return false;
+        }
+        if (fsm.getState() != State.Run) {
+            return true;
+        }
+        synchronized (lock) {
+            for (HeadWorker worker : workers) {
+                if (worker.failedJobPlacement != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected void doInitialize() throws Exception {
+        if (job == null) {
+            throw new Exception("Can't initialize with a null Job.");
+        }
+    }
+
+    /**
+     * Check the job for setup errors as ReferencePnpJobProcessor does, make sure every part can be
+     * placed by at least one head and split the placements between the heads.
+     *
+     * @throws Exception
+     */
+    protected void doPreFlight() throws Exception {
+        this.machine = Configuration.get().getMachine();
+        this.aborted = false;
+        this.jobPlacements.clear();
+        this.boardLocationFiducialTransforms.clear();
+        this.zoneOwners.clear();
+        this.cyclesFinished = 0;
+        this.activeCycles = 0;
+        this.maxActiveCycles = 0;
+        this.inventory = new FeederInventory(machine, feederSelection);
+
+        for (HeadWorker worker : workers) {
+            worker.compatibility.dispose();
+        }
+        workers.clear();
+        for (Head head : machine.getHeads()) {
+            if (maxHeads > 0 && workers.size() >= maxHeads) {
+                break;
+            }
+            workers.add(new HeadWorker(head));
+        }
+        if (workers.isEmpty()) {
+            throw new Exception("The machine has no heads.");
+        }
+
+        fireTextStatus("Checking job for setup errors.");
+
+        for (BoardLocation boardLocation : job.getBoardLocations()) {
+            if (!boardLocation.isEnabled()) {
+                continue;
+            }
+            for (Placement placement : boardLocation.getBoard().getPlacements()) {
+                if (placement.getType() != Placement.Type.Place
+                        || placement.getSide() != boardLocation.getSide()) {
+                    continue;
+                }
+                if (placement.getPart() == null) {
+                    throw new Exception(String.format("Part not found for board %s, placement %s.",
+                            boardLocation.getBoard().getName(), placement.getId()));
+                }
+                if (placement.getPart().getHeight().getValue() <= 0D) {
+                    throw new Exception(String.format("Part height for %s must be greater than 0.",
+                            placement.getPart().getId()));
+                }
+                if (getCapableWorkers(placement.getPart()).isEmpty()) {
+                    throw new Exception("No compatible nozzle tip on any head found for part "
+                            + placement.getPart().getId());
+                }
+                findFeeder(machine, placement.getPart());
+                jobPlacements.add(new JobPlacement(boardLocation, placement));
+            }
+        }
+
+        partition();
+
+        fireTextStatus("Preparing machine.");
+        for (HeadWorker worker : workers) {
+            worker.head.moveToSafeZ();
+        }
+        parkHeads();
+        for (HeadWorker worker : workers) {
+            discardAll(worker.head);
+            worker.head.moveToSafeZ();
+            if (!collisionZones.isEmpty()) {
+                park(worker);
+            }
+        }
+
+        fireJobStarting(job);
+    }
+
+    /**
+     * Split the placements between the heads that can place them. Placements go to the nearest
+     * head first, as measured from the head's park location, until each head has its share of the
+     * job. The rest go to the capable head with the fewest placements.
+     */
+    protected void partition() {
+        class Candidate {
+            final JobPlacement jobPlacement;
+            final HeadWorker worker;
+            final double distance;
+
+            Candidate(JobPlacement jobPlacement, HeadWorker worker, double distance) {
+                this.jobPlacement = jobPlacement;
+                this.worker = worker;
+                this.distance = distance;
+            }
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (JobPlacement jobPlacement : jobPlacements) {
+            Location location = getPlacementLocation(jobPlacement);
+            for (HeadWorker worker : getCapableWorkers(jobPlacement.placement.getPart())) {
+                candidates.add(new Candidate(jobPlacement, worker,
+                        worker.head.getParkLocation().getLinearDistanceTo(location)));
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(c -> c.distance));
+
+        int share = (jobPlacements.size() + workers.size() - 1) / workers.size();
+        Set<JobPlacement> assigned = new HashSet<>();
+        for (Candidate candidate : candidates) {
+            if (candidate.worker.queue.size() < share && assigned.add(candidate.jobPlacement)) {
+                candidate.worker.queue.add(candidate.jobPlacement);
+            }
+        }
+        for (JobPlacement jobPlacement : jobPlacements) {
+            if (!assigned.contains(jobPlacement)) {
+                Collections.min(getCapableWorkers(jobPlacement.placement.getPart()),
+                        Comparator.comparingInt(w -> w.queue.size())).queue.add(jobPlacement);
+            }
+        }
+
+        for (HeadWorker worker : workers) {
+            worker.queue.sort(Comparator.comparing(JobPlacement::getPartHeight));
+            logger.debug("{} has {} placements", worker.head.getName(), worker.queue.size());
+        }
+    }
+
+    protected List<HeadWorker> getCapableWorkers(Part part) {
+        List<HeadWorker> capable = new ArrayList<>();
+        for (HeadWorker worker : workers) {
+            try {
+                worker.compatibility.findNozzleTip(part);
+                capable.add(worker);
+            }
+            catch (Exception e) {
+            }
+        }
+        return capable;
+    }
+
+    protected void doFiducialCheck() throws Exception {
+        fireTextStatus("Performing fiducial checks.");
+
+        FiducialLocator locator = machine.getFiducialLocator();
+        for (BoardLocation boardLocation : job.getBoardLocations()) {
+            if (!boardLocation.isEnabled()) {
+                continue;
+            }
+            boolean checkFids = boardLocation.isCheckFiducials();
+            for (JobPlacement jobPlacement : jobPlacements) {
+                checkFids |= jobPlacement.boardLocation == boardLocation
+                        && jobPlacement.placement.getCheckFids();
+            }
+            if (!checkFids) {
+                continue;
+            }
+            Location location = locator.locateBoard(boardLocation);
+            boardLocationFiducialTransforms.put(boardLocation,
+                    boardLocation.getPlacementTransform(location));
+            logger.debug("Fiducial check for {}", boardLocation);
+        }
+        // The fiducial locator may have left a camera inside of a zone that no head has reserved.
+        parkHeads();
+        runStartNanos = System.nanoTime();
+    }
+
+    protected Location getPlacementLocation(JobPlacement jobPlacement) {
+        BoardTransform transform = boardLocationFiducialTransforms.get(jobPlacement.boardLocation);
+        if (transform == null) {
+            transform = jobPlacement.boardLocation.getPlacementTransform();
+        }
+        return transform.transform(jobPlacement.placement.getLocation());
+    }
+
+    /**
+     * Start a cycle on every head that is idle and has work, then wait for one of the heads to
+     * finish its cycle. If a head failed its error is thrown and the head tries again on the next
+     * call, unless its placement is skipped.
+     *
+     * @throws Exception
+     */
+    protected void doRun() throws Exception {
+        synchronized (lock) {
+            // Report a failure from a cycle that finished after the last call returned.
+            throwError();
+            int cyclesFinished = this.cyclesFinished;
+            for (HeadWorker worker : workers) {
+                if (!worker.running && hasWork(worker)) {
+                    worker.failedJobPlacement = null;
+                    worker.running = true;
+                    worker.executor.execute(worker);
+                }
+            }
+            while (this.cyclesFinished == cyclesFinished && isRunning()) {
+                lock.wait();
+            }
+            throwError();
+        }
+    }
+
+    /**
+     * Throw the error of the first head that failed, once. The placement it failed on stays in
+     * failedJobPlacement so it can be skipped.
+     *
+     * @throws Exception
+     */
+    protected void throwError() throws Exception {
+        for (HeadWorker worker : workers) {
+            Exception error = worker.error;
+            if (error != null && !worker.running) {
+                worker.error = null;
+                throw new Exception(
+                        String.format("%s: %s", worker.head.getName(), error.getMessage()), error);
+            }
+        }
+    }
+
+    /**
+     * Skip the placements that the heads failed on.
+     *
+     * @throws Exception
+     */
+    protected void doSkip() throws Exception {
+        synchronized (lock) {
+            for (HeadWorker worker : workers) {
+                JobPlacement jobPlacement = worker.failedJobPlacement;
+                if (jobPlacement == null) {
+                    continue;
+                }
+                for (HeadWorker w : workers) {
+                    w.queue.remove(jobPlacement);
+                }
+                jobPlacement.status = Status.Skipped;
+                worker.failedJobPlacement = null;
+                logger.debug("Skipped {}", jobPlacement.placement);
+            }
+        }
+    }
+
+    /**
+     * Wait for the heads to stop, discard any parts they are holding and report the throughput.
+     *
+     * @throws Exception
+     */
+    protected void doCleanup() throws Exception {
+        fireTextStatus("Cleaning up.");
+
+        synchronized (lock) {
+            aborted = true;
+            while (isRunning()) {
+                lock.wait();
+            }
+        }
+        for (HeadWorker worker : workers) {
+            worker.executor.shutdown();
+            worker.head.moveToSafeZ();
+        }
+        parkHeads();
+        for (HeadWorker worker : workers) {
+            discardAll(worker.head);
+            worker.head.moveToSafeZ();
+            if (parkWhenComplete || !collisionZones.isEmpty()) {
+                park(worker);
+            }
+        }
+
+        placedCount = 0;
+        for (HeadWorker worker : workers) {
+            placedCount += worker.placed;
+        }
+        double seconds = (System.nanoTime() - runStartNanos) / 1e9;
+        placementsPerHour = seconds > 0 ? placedCount * 3600 / seconds : 0;
+        logger.info("Placed {} parts in {} s with {} heads, {} per hour.", placedCount,
+                String.format("%.1f", seconds), workers.size(),
+                String.format("%.0f", placementsPerHour));
+        for (HeadWorker worker : workers) {
+            logger.info("{} placed {} parts and waited {} s for collision zones.",
+                    worker.head.getName(), worker.placed,
+                    String.format("%.1f", worker.zoneWaitNanos / 1e9));
+        }
+
+        fireJobFinished(job);
+    }
+
+    protected void doReset() throws Exception {
+        this.job = null;
+    }
+
+    /**
+     * Move the heads to their park locations one after the other, those inside of a zone first,
+     * and clear the zone reservations. Only for use while no head is running, and only if there
+     * are collision zones.
+     *
+     * @throws Exception
+     */
+    protected void parkHeads() throws Exception {
+        if (collisionZones.isEmpty()) {
+            return;
+        }
+        List<HeadWorker> order = new ArrayList<>(workers);
+        for (HeadWorker worker : workers) {
+            if (getZones(worker.head.getDefaultNozzle().getLocation()).isEmpty()) {
+                order.remove(worker);
+                order.add(worker);
+            }
+        }
+        for (HeadWorker worker : order) {
+            park(worker);
+        }
+    }
+
+    protected void park(HeadWorker worker) throws Exception {
+        Nozzle nozzle = worker.head.getDefaultNozzle();
+        MovableUtils.moveToLocationAtSafeZ(nozzle, worker.head.getParkLocation());
+        releaseZones(worker, nozzle.getLocation());
+    }
+
+    protected boolean isRunning() {
+        for (HeadWorker worker : workers) {
+            if (worker.running) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean hasWork(HeadWorker worker) {
+        for (HeadWorker w : workers) {
+            for (JobPlacement jobPlacement : w.queue) {
+                for (Nozzle nozzle : worker.head.getNozzles()) {
+                    if (worker.compatibility.canHandle(nozzle, jobPlacement.placement.getPart())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    protected boolean isJobComplete() {
+        synchronized (lock) {
+            if (isRunning()) {
+                return false;
+            }
+            for (JobPlacement jobPlacement : jobPlacements) {
+                if (jobPlacement.status == Status.Pending
+                        || jobPlacement.status == Status.Processing) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    protected void checkAborted() throws Exception {
+        if (aborted) {
+            throw new Exception("Job aborted.");
+        }
+    }
+
+    /**
+     * Get the zones on the straight lines from the location through each of the targets, and
+     * those containing the location itself.
+     *
+     * @param from
+     * @param targets
+     * @return
+     */
+    protected Set<CollisionZone> getZones(Location from, Location... targets) {
+        Set<CollisionZone> zones = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CollisionZone zone : collisionZones) {
+            Location a = from;
+            for (Location b : targets) {
+                if (zone.intersects(a, b)) {
+                    zones.add(zone);
+                }
+                a = b;
+            }
+            if (zone.contains(from)) {
+                zones.add(zone);
+            }
+        }
+        return zones;
+    }
+
+    /**
+     * Get the zones that overlap the smallest rectangle containing all of the locations.
+     *
+     * @param locations
+     * @return
+     */
+    protected Set<CollisionZone> getZonesAround(List<Location> locations) {
+        Set<CollisionZone> zones = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (locations.isEmpty()) {
+            return zones;
+        }
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (Location location : locations) {
+            location = location.convertToUnits(LengthUnit.Millimeters);
+            minX = Math.min(minX, location.getX());
+            minY = Math.min(minY, location.getY());
+            maxX = Math.max(maxX, location.getX());
+            maxY = Math.max(maxY, location.getY());
+        }
+        Location corner1 = new Location(LengthUnit.Millimeters, minX, minY, 0, 0);
+        Location corner2 = new Location(LengthUnit.Millimeters, maxX, maxY, 0, 0);
+        for (CollisionZone zone : collisionZones) {
+            if (zone.overlaps(corner1, corner2)) {
+                zones.add(zone);
+            }
+        }
+        return zones;
+    }
+
+    protected boolean tryReserveZones(HeadWorker worker, Set<CollisionZone> zones) {
+        synchronized (zoneOwners) {
+            for (CollisionZone zone : zones) {
+                HeadWorker owner = zoneOwners.get(zone);
+                if (owner != null && owner != worker) {
+                    return false;
+                }
+            }
+            for (CollisionZone zone : zones) {
+                zoneOwners.put(zone, worker);
+            }
+            return true;
+        }
+    }
+
+    protected void reserveZones(HeadWorker worker, Set<CollisionZone> zones) throws Exception {
+        synchronized (zoneOwners) {
+            while (!tryReserveZones(worker, zones)) {
+                checkAborted();
+                zoneOwners.wait(100);
+            }
+        }
+    }
+
+    protected boolean holdsZones(HeadWorker worker) {
+        synchronized (zoneOwners) {
+            return zoneOwners.containsValue(worker);
+        }
+    }
+
+    /**
+     * Release the zones the worker holds, other than those containing the given location.
+     *
+     * @param worker
+     * @param location
+     */
+    protected void releaseZones(HeadWorker worker, Location location) {
+        synchronized (zoneOwners) {
+            zoneOwners.entrySet().removeIf(
+                    e -> e.getValue() == worker && !e.getKey().contains(location));
+            zoneOwners.notifyAll();
+        }
+    }
+
+    /**
+     * Runs the cycles of one head, on a thread of its own.
+     */
+    protected class HeadWorker implements Runnable {
+        protected final Head head;
+        protected final CompatibilityMatrix compatibility;
+        protected final ExecutorService executor;
+
+        /**
+         * The placements this head is to place. Guarded by lock, since other heads take from it
+         * when they run out of work.
+         */
+        protected final List<JobPlacement> queue = new ArrayList<>();
+
+        protected final List<PlannedPlacement> plannedPlacements = new ArrayList<>();
+
+        protected boolean running;
+
+        protected Exception error;
+
+        protected JobPlacement currentJobPlacement;
+
+        protected JobPlacement failedJobPlacement;
+
+        protected int placed;
+
+        protected long zoneWaitNanos;
+
+        public HeadWorker(Head head) {
+            this.head = head;
+            this.compatibility = new CompatibilityMatrix(head);
+            this.executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "Job " + head.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public void run() {
+            synchronized (lock) {
+                activeCycles++;
+                maxActiveCycles = Math.max(maxActiveCycles, activeCycles);
+            }
+            try {
+                runCycle();
+            }
+            catch (Throwable t) {
+                // Errors are reported like exceptions, otherwise the placements of the cycle
+                // would stay in Processing and the job would never complete.
+                Exception e =
+                        t instanceof Exception ? (Exception) t : new Exception(t.toString(), t);
+                if (!aborted) {
+                    logger.warn("{} failed: {}", head.getName(), e.getMessage());
+                }
+                synchronized (lock) {
+                    // Put back what wasn't placed so the cycle can be tried again.
+                    for (PlannedPlacement plannedPlacement : plannedPlacements) {
+                        JobPlacement jobPlacement = plannedPlacement.jobPlacement;
+                        if (jobPlacement.status == Status.Processing) {
+                            jobPlacement.status = Status.Pending;
+                            queue.add(0, jobPlacement);
+                        }
+                    }
+                    error = e;
+                    failedJobPlacement = currentJobPlacement;
+                }
+            }
+            finally {
+                synchronized (lock) {
+                    plannedPlacements.clear();
+                    currentJobPlacement = null;
+                    running = false;
+                    activeCycles--;
+                    cyclesFinished++;
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        protected void runCycle() throws Exception {
+            discardParts();
+            plan();
+            for (PlannedPlacement plannedPlacement : plannedPlacements) {
+                changeNozzleTip(plannedPlacement);
+            }
+            for (PlannedPlacement plannedPlacement : plannedPlacements) {
+                feedAndPick(plannedPlacement);
+            }
+            for (PlannedPlacement plannedPlacement : plannedPlacements) {
+                align(plannedPlacement);
+            }
+            for (PlannedPlacement plannedPlacement : plannedPlacements) {
+                place(plannedPlacement);
+            }
+        }
+
+        /**
+         * Give each nozzle a placement, preferring this head's own placements and ones the
+         * nozzle's current tip can handle. When this head has nothing left the nozzle takes a
+         * placement from the head with the most placements left.
+         */
+        protected void plan() {
+            synchronized (lock) {
+                List<HeadWorker> others = new ArrayList<>(workers);
+                others.remove(this);
+                others.sort(Comparator.comparingInt((HeadWorker w) -> w.queue.size()).reversed());
+                for (Nozzle nozzle : head.getNozzles()) {
+                    JobPlacement jobPlacement = take(queue, nozzle);
+                    for (int i = 0; jobPlacement == null && i < others.size(); i++) {
+                        jobPlacement = take(others.get(i).queue, nozzle);
+                    }
+                    if (jobPlacement != null) {
+                        jobPlacement.status = Status.Processing;
+                        plannedPlacements.add(new PlannedPlacement(nozzle, jobPlacement));
+                    }
+                }
+            }
+            logger.debug("{} planned {}", head.getName(), plannedPlacements);
+        }
+
+        protected JobPlacement take(List<JobPlacement> queue, Nozzle nozzle) {
+            JobPlacement found = null;
+            for (JobPlacement jobPlacement : queue) {
+                Part part = jobPlacement.placement.getPart();
+                if (nozzle.getNozzleTip() != null
+                        && compatibility.canHandle(nozzle.getNozzleTip(), part)) {
+                    found = jobPlacement;
+                    break;
+                }
+                if (found == null && compatibility.canHandle(nozzle, part)) {
+                    found = jobPlacement;
+                }
+            }
+            if (found != null) {
+                queue.remove(found);
+            }
+            return found;
+        }
+
+        protected void changeNozzleTip(PlannedPlacement plannedPlacement) throws Exception {
+            checkAborted();
+            Nozzle nozzle = plannedPlacement.nozzle;
+            currentJobPlacement = plannedPlacement.jobPlacement;
+            Part part = currentJobPlacement.placement.getPart();
+            if (nozzle.getNozzleTip() != null
+                    && compatibility.canHandle(nozzle.getNozzleTip(), part)) {
+                return;
+            }
+            NozzleTip nozzleTip = compatibility.findNozzleTip(nozzle, part);
+            fireTextStatus("%s: Changing nozzle tip on nozzle %s.", head.getName(),
+                    nozzle.getId());
+            List<Location> changerLocations = new ArrayList<>();
+            for (NozzleTip tip : new NozzleTip[] {nozzle.getNozzleTip(), nozzleTip}) {
+                if (tip instanceof ReferenceNozzleTip) {
+                    ReferenceNozzleTip referenceNozzleTip = (ReferenceNozzleTip) tip;
+                    changerLocations.add(referenceNozzleTip.getChangerStartLocation());
+                    changerLocations.add(referenceNozzleTip.getChangerMidLocation());
+                    changerLocations.add(referenceNozzleTip.getChangerEndLocation());
+                }
+            }
+            changerLocations.add(nozzle.getLocation());
+            reserve(() -> getZonesAround(changerLocations));
+            nozzle.unloadNozzleTip();
+            nozzle.loadNozzleTip(nozzleTip);
+            releaseZones(this, nozzle.getLocation());
+        }
+
+        protected void feedAndPick(PlannedPlacement plannedPlacement) throws Exception {
+            checkAborted();
+            Nozzle nozzle = plannedPlacement.nozzle;
+            JobPlacement jobPlacement = plannedPlacement.jobPlacement;
+            currentJobPlacement = jobPlacement;
+            Placement placement = jobPlacement.placement;
+            Part part = placement.getPart();
+
+            while (true) {
+                Feeder feeder = acquireFeeder(part, nozzle);
+                Callable<Set<CollisionZone>> feedZones = getFeedZones(nozzle, feeder);
+                if (!tryReserveZones(this, feedZones.call())) {
+                    // Don't hold on to the feeder while waiting, another head may be able to use
+                    // it in the meantime.
+                    inventory.release(feeder);
+                    reserve(feedZones);
+                    continue;
+                }
+                try {
+                    try {
+                        retry(1 + feeder.getRetryCount(), () -> {
+                            fireTextStatus("%s: Feeding %s from %s for %s.", head.getName(),
+                                    part.getId(), feeder.getName(), placement.getId());
+                            feeder.feed(nozzle);
+                        });
+                    }
+                    catch (Exception e) {
+                        logger.debug("Feed {} from {} with {} failed!",
+                                new Object[] {part, feeder, nozzle});
+                        // Disable the feeder and try the next one, if there is one.
+                        feeder.setEnabled(false);
+                        continue;
+                    }
+                    plannedPlacement.feeder = feeder;
+                    moveTo(nozzle, feeder.getPickLocation());
+                    fireTextStatus("%s: Picking %s from %s for %s.", head.getName(),
+                            part.getId(), feeder.getName(), placement.getId());
+                    nozzle.pick(part);
+                    nozzle.moveToSafeZ();
+                    inventory.picked(part);
+                    return;
+                }
+                finally {
+                    inventory.release(feeder);
+                }
+            }
+        }
+
+        protected Feeder acquireFeeder(Part part, Nozzle nozzle) throws Exception {
+            Feeder feeder = inventory.tryAcquire(part, nozzle, this);
+            if (feeder == null) {
+                // Never wait for a feeder inside of a zone, since the owner of the feeder may be
+                // waiting for the zone.
+                leaveZones();
+                feeder = inventory.acquire(part, nozzle, this);
+            }
+            return feeder;
+        }
+
+        /**
+         * Get the zones that the feeder's feed and the pick may move through, from where the
+         * nozzle is when the returned Callable is called.
+         *
+         * @param nozzle
+         * @param feeder
+         * @return
+         */
+        protected Callable<Set<CollisionZone>> getFeedZones(Nozzle nozzle, Feeder feeder) {
+            return () -> {
+                List<Location> locations = new ArrayList<>(feeder.getFeedLocations());
+                locations.add(feeder.getPickLocation());
+                locations.add(nozzle.getLocation());
+                return getZonesAround(locations);
+            };
+        }
+
+        protected void align(PlannedPlacement plannedPlacement) throws Exception {
+            checkAborted();
+            Nozzle nozzle = plannedPlacement.nozzle;
+            JobPlacement jobPlacement = plannedPlacement.jobPlacement;
+            currentJobPlacement = jobPlacement;
+            Placement placement = jobPlacement.placement;
+            Part part = placement.getPart();
+            PartAlignment partAlignment = machine.getPartAlignment();
+            Camera camera = null;
+            try {
+                camera = VisionUtils.getBottomVisionCamera();
+            }
+            catch (Exception e) {
+                // Nothing to reserve; the alignment will report it if it needs a camera.
+            }
+            while (true) {
+                // There is one bottom camera, so one head aligns at a time.
+                synchronized (partAlignment) {
+                    if (camera == null || tryReserveZones(this,
+                            getZones(nozzle.getLocation(), camera.getLocation()))) {
+                        fireTextStatus("%s: Aligning %s for %s.", head.getName(), part.getId(),
+                                placement.getId());
+                        plannedPlacement.alignmentOffsets = partAlignment.findOffsets(part,
+                                jobPlacement.boardLocation, placement.getLocation(), nozzle);
+                        releaseZones(this, nozzle.getLocation());
+                        return;
+                    }
+                }
+                // Wait for the zones outside of the lock, which the owner may be waiting for.
+                reserve(nozzle, camera.getLocation());
+            }
+        }
+
+        protected void place(PlannedPlacement plannedPlacement) throws Exception {
+            checkAborted();
+            Nozzle nozzle = plannedPlacement.nozzle;
+            JobPlacement jobPlacement = plannedPlacement.jobPlacement;
+            currentJobPlacement = jobPlacement;
+            Placement placement = jobPlacement.placement;
+            Part part = placement.getPart();
+
+            Location placementLocation = getPlacementLocation(jobPlacement);
+            if (plannedPlacement.alignmentOffsets != null) {
+                placementLocation = applyAlignmentOffsets(placementLocation,
+                        plannedPlacement.alignmentOffsets);
+            }
+            placementLocation = placementLocation.add(new Location(part.getHeight().getUnits(), 0,
+                    0, part.getHeight().getValue(), 0));
+
+            moveTo(nozzle, placementLocation);
+            fireTextStatus("%s: Placing %s for %s.", head.getName(), part.getId(),
+                    placement.getId());
+            nozzle.place();
+            nozzle.moveToSafeZ();
+
+            synchronized (lock) {
+                jobPlacement.status = Status.Complete;
+                placed++;
+            }
+            logger.debug("{} placed {} with {}", head.getName(), part, nozzle.getName());
+        }
+
+        /**
+         * Discard any parts left on the nozzles by a failed cycle.
+         *
+         * @throws Exception
+         */
+        protected void discardParts() throws Exception {
+            for (Nozzle nozzle : head.getNozzles()) {
+                if (nozzle.getPart() != null) {
+                    moveTo(nozzle, machine.getDiscardLocation());
+                    nozzle.place();
+                    nozzle.moveToSafeZ();
+                }
+            }
+        }
+
+        /**
+         * Move to the location at safe Z, with the zones on the way reserved.
+         *
+         * @param hm
+         * @param location
+         * @throws Exception
+         */
+        protected void moveTo(HeadMountable hm, Location location) throws Exception {
+            reserve(hm, location);
+            MovableUtils.moveToLocationAtSafeZ(hm, location);
+            releaseZones(this, hm.getLocation());
+        }
+
+        /**
+         * Reserve the zones on the way from where the HeadMountable is through the targets. See
+         * reserve(Callable).
+         *
+         * @param hm
+         * @param targets
+         * @throws Exception
+         */
+        protected void reserve(HeadMountable hm, Location... targets) throws Exception {
+            reserve(() -> getZones(hm.getLocation(), targets));
+        }
+
+        /**
+         * Reserve the zones. If they aren't free the head leaves the zones it is in, by moving to
+         * its park location, and then asks for the zones again, from there, before it waits.
+         *
+         * @param zones
+         * @throws Exception
+         */
+        protected void reserve(Callable<Set<CollisionZone>> zones) throws Exception {
+            if (tryReserveZones(this, zones.call())) {
+                return;
+            }
+            long t = System.nanoTime();
+            leaveZones();
+            reserveZones(this, zones.call());
+            zoneWaitNanos += System.nanoTime() - t;
+        }
+
+        /**
+         * Move to the park location if the head holds any zones. The move is not reserved: it
+         * only leaves the zones the head holds, see the class comment.
+         *
+         * @throws Exception
+         */
+        protected void leaveZones() throws Exception {
+            if (holdsZones(this)) {
+                park(this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return head.getName();
+        }
+    }
+
+    /**
+     * Shares the machine's feeders between the heads. A feeder belongs to one head from when it
+     * is acquired, before the feed, until it is released after the pick, so that one head can't
+     * feed while another picks. When the preferred feeder for a part is in use another free
+     * feeder for the same part is used, if there is one. Also counts the parts picked.
+     */
+    protected static class FeederInventory {
+        private final Machine machine;
+        private final FeederIndex.Selection selection;
+        private final Map<Feeder, Object> owners = new IdentityHashMap<>();
+        private final Map<Part, Integer> picked = new HashMap<>();
+
+        public FeederInventory(Machine machine, FeederIndex.Selection selection) {
+            this.machine = machine;
+            this.selection = selection;
+        }
+
+        /**
+         * Get a free, enabled feeder for the part, waiting for one if they are all in use.
+         *
+         * @param part
+         * @param nozzle
+         * @param owner
+         * @return
+         * @throws Exception If there is no enabled feeder for the part.
+         */
+        public synchronized Feeder acquire(Part part, Nozzle nozzle, Object owner)
+                throws Exception {
+            while (true) {
+                Feeder feeder = tryAcquire(part, nozzle, owner);
+                if (feeder != null) {
+                    return feeder;
+                }
+                wait(100);
+            }
+        }
+
+        /**
+         * Get a free, enabled feeder for the part, or null if they are all in use.
+         *
+         * @param part
+         * @param nozzle
+         * @param owner
+         * @return
+         * @throws Exception If there is no enabled feeder for the part.
+         */
+        public synchronized Feeder tryAcquire(Part part, Nozzle nozzle, Object owner)
+                throws Exception {
+            Feeder feeder = findFeeder(machine, part, selection, nozzle);
+            if (owners.containsKey(feeder)) {
+                feeder = null;
+                for (Feeder f : machine.getFeederIndex().getFeeders(part)) {
+                    if (!owners.containsKey(f)) {
+                        feeder = f;
+                        break;
+                    }
+                }
+            }
+            if (feeder != null) {
+                owners.put(feeder, owner);
+            }
+            return feeder;
+        }
+
+        public synchronized void release(Feeder feeder) {
+            owners.remove(feeder);
+            notifyAll();
+        }
+
+        public synchronized void picked(Part part) {
+            picked.merge(part, 1, Integer::sum);
+        }
+
+        public synchronized int getPickedCount(Part part) {
+            return picked.getOrDefault(part, 0);
+        }
+    }
+
+    /**
+     * Get the number of parts placed by the last job run.
+     *
+     * @return
+     */
+    public int getPlacedCount() {
+        return placedCount;
+    }
+
+    /**
+     * Get the throughput of the last job run, in placements per hour, from the end of the
+     * fiducial checks to the end of the job.
+     *
+     * @return
+     */
+    public double getPlacementsPerHour() {
+        return placementsPerHour;
+    }
+
+    /**
+     * Get the number of parts the head placed in the last job run.
+     *
+     * @param head
+     * @return
+     */
+    public int getPlacedCount(Head head) {
+        for (HeadWorker worker : workers) {
+            if (worker.head == head) {
+                return worker.placed;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the largest number of heads that were running a cycle at the same time during the last
+     * job run.
+     *
+     * @return
+     */
+    public int getMaxActiveCycles() {
+        return maxActiveCycles;
+    }
+
+    public boolean isParkWhenComplete() {
+        return parkWhenComplete;
+    }
+
+    public void setParkWhenComplete(boolean parkWhenComplete) {
+        this.parkWhenComplete = parkWhenComplete;
+    }
+
+    public int getMaxHeads() {
+        return maxHeads;
+    }
+
+    public void setMaxHeads(int maxHeads) {
+        this.maxHeads = maxHeads;
+    }
+
+    public FeederIndex.Selection getFeederSelection() {
+        return feederSelection;
+    }
+
+    public void setFeederSelection(FeederIndex.Selection feederSelection) {
+        this.feederSelection = feederSelection;
+    }
+
+    public List<CollisionZone> getCollisionZones() {
+        return collisionZones;
+    }
+
+    public void setCollisionZones(List<CollisionZone> collisionZones) {
+        this.collisionZones = collisionZones;
+    }
+}
@@ -12,12 +12,15 @@ import org.openpnp.model.Configuration;
 import org.openpnp.model.Length;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
+import org.openpnp.model.MutableLocation;
 import org.openpnp.model.Part;
+import org.openpnp.spi.Actuator;
 import org.openpnp.spi.NozzleTip;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.spi.base.AbstractNozzle;
 import org.openpnp.spi.base.SimplePropertySheetHolder;
 import org.openpnp.util.MovableUtils;
+import org.openpnp.util.Profiler;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.slf4j.Logger;
@@ -41,6 +44,13 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
     @Attribute(required = false)
     private boolean changerEnabled = false;
 
+    /**
+     * The name of the Actuator that reads this nozzle's vacuum level. If set, picks are checked
+     * against the thresholds of the loaded nozzle tip.
+     */
+    @Attribute(required = false)
+    private String vacuumSenseActuatorName;
+
     @Element(required = false)
     protected Length safeZ = new Length(0, LengthUnit.Millimeters);
     
@@ -83,6 +93,14 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
         this.pickDwellMilliseconds = pickDwellMilliseconds;
     }
 
+    public String getVacuumSenseActuatorName() {
+        return vacuumSenseActuatorName;
+    }
+
+    public void setVacuumSenseActuatorName(String vacuumSenseActuatorName) {
+        this.vacuumSenseActuatorName = vacuumSenseActuatorName;
+    }
+
     public int getPlaceDwellMilliseconds() {
         return placeDwellMilliseconds;
     }
@@ -116,9 +134,70 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
             throw new Exception("Can't pick, no nozzle tip loaded");
         }
         this.part = part;
+        long t = Profiler.start();
         driver.pick(this);
+        Profiler.stop("driver.pick", t);
         machine.fireMachineHeadActivity(head);
         Thread.sleep(pickDwellMilliseconds);
+
+        Actuator vacuumSenseActuator = getVacuumSenseActuator();
+        if (vacuumSenseActuator == null || !nozzleTip.isVacuumSenseEnabled()) {
+            return;
+        }
+        // Check the vacuum before the part is carried anywhere, and pick again in place if it was
+        // missed, so a missed pick costs a dwell rather than a trip to the camera.
+        for (int i = 0;; i++) {
+            double vacuumLevel = readVacuumLevel(vacuumSenseActuator);
+            if (nozzleTip.isPartOn(vacuumLevel)) {
+                return;
+            }
+            if (i >= nozzleTip.getPickRetryCount()) {
+                driver.place(this);
+                this.part = null;
+                machine.fireMachineHeadActivity(head);
+                throw new Exception(String.format(
+                        "Pick of %s failed on nozzle %s: vacuum level %s is not between %s and %s.",
+                        part.getId(), getName(), vacuumLevel, nozzleTip.getVacuumLevelPartOnLow(),
+                        nozzleTip.getVacuumLevelPartOnHigh()));
+            }
+            logger.debug("{}.pick() missed {}, vacuum level {}, retrying", getName(),
+                    part.getId(), vacuumLevel);
+            driver.place(this);
+            driver.pick(this);
+            Thread.sleep(pickDwellMilliseconds);
+        }
+    }
+
+    protected Actuator getVacuumSenseActuator() throws Exception {
+        if (vacuumSenseActuatorName == null || vacuumSenseActuatorName.isEmpty()) {
+            return null;
+        }
+        Actuator actuator = head.getActuatorByName(vacuumSenseActuatorName);
+        if (actuator == null) {
+            actuator = machine.getActuatorByName(vacuumSenseActuatorName);
+        }
+        if (actuator == null) {
+            throw new Exception(String.format("Vacuum sense actuator %s not found for nozzle %s.",
+                    vacuumSenseActuatorName, getName()));
+        }
+        return actuator;
+    }
+
+    protected double readVacuumLevel(Actuator actuator) throws Exception {
+        String value = actuator.read().trim();
+        if (value.equalsIgnoreCase("true")) {
+            return 1;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            throw new Exception(String.format("Can't read a vacuum level from %s: %s",
+                    actuator.getName(), value));
+        }
     }
 
     @Override
@@ -127,7 +206,9 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
         if (nozzleTip == null) {
             throw new Exception("Can't place, no nozzle tip loaded");
         }
+        long t = Profiler.start();
         driver.place(this);
+        Profiler.stop("driver.place", t);
         this.part = null;
         machine.fireMachineHeadActivity(head);
         Thread.sleep(placeDwellMilliseconds);
@@ -135,23 +216,17 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
 
     @Override
     public void moveTo(Location location, double speed) throws Exception {
+        // The target is worked on in place, in the units it was given in, and only turned back
+        // into a Location when it is handed to the driver.
+        MutableLocation target = new MutableLocation(location);
+
         // Shortcut Double.NaN. Sending Double.NaN in a Location is an old API that should no
         // longer be used. It will be removed eventually:
         // https://github.com/openpnp/openpnp/issues/255
         // In the mean time, since Double.NaN would cause a problem for calibration, we shortcut
         // it here by replacing any NaN values with the current value from the driver.
-        Location currentLocation = getLocation().convertToUnits(location.getUnits());
-        if (Double.isNaN(location.getX())) {
-            location = location.derive(currentLocation.getX(), null, null, null);
-        }
-        if (Double.isNaN(location.getY())) {
-            location = location.derive(null, currentLocation.getY(), null, null);
-        }
-        if (Double.isNaN(location.getZ())) {
-            location = location.derive(null, null, currentLocation.getZ(), null);
-        }
-        if (Double.isNaN(location.getRotation())) {
-            location = location.derive(null, null, null, currentLocation.getRotation());
+        if (target.hasNaN()) {
+            target.replaceNaN(getLocation());
         }
 
         // Check calibration.
@@ -166,22 +241,23 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
         if (getPart() != null) {
             speed = part.getSpeed() * speed;
         }
-        logger.debug("{}.moveTo({}, {})", getName(), location, speed);
-        if (limitRotation && !Double.isNaN(location.getRotation())
-                && Math.abs(location.getRotation()) > 180) {
-            if (location.getRotation() < 0) {
-                location = location.derive(null, null, null, location.getRotation() + 360);
+        logger.debug("{}.moveTo({}, {})", getName(), target, speed);
+        if (limitRotation && !Double.isNaN(target.getRotation())
+                && Math.abs(target.getRotation()) > 180) {
+            if (target.getRotation() < 0) {
+                target.setRotation(target.getRotation() + 360);
             }
             else {
-                location = location.derive(null, null, null, location.getRotation() - 360);
+                target.setRotation(target.getRotation() - 360);
             }
         }
         if (nozzleTip != null && nozzleTip.getCalibration().isCalibrated()) {
-            location = location
-                    .subtract(nozzleTip.getCalibration().getCalibratedOffset(location.getRotation()));
-            logger.debug("{}.moveTo({}, {}) (corrected)", getName(), location, speed);
+            target.subtract(nozzleTip.getCalibration().getCalibratedOffset(target.getRotation()));
+            logger.debug("{}.moveTo({}, {}) (corrected)", getName(), target, speed);
         }
-        driver.moveTo(this, location, speed);
+        long t = Profiler.start();
+        driver.moveTo(this, target.toLocation(), speed);
+        Profiler.stop("driver.moveTo", t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -197,7 +273,9 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
         Length safeZ = this.safeZ.convertToUnits(getLocation().getUnits());
         Location l = new Location(getLocation().getUnits(), Double.NaN, Double.NaN,
                 safeZ.getValue(), Double.NaN);
+        long t = Profiler.start();
         driver.moveTo(this, l, speed);
+        Profiler.stop("driver.moveTo", t);
         machine.fireMachineHeadActivity(head);
     }
 
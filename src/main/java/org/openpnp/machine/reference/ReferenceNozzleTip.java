@@ -62,6 +62,24 @@ public class ReferenceNozzleTip extends AbstractNozzleTip {
     @Element(required = false)
     private Calibration calibration = new Calibration();
 
+    /**
+     * The range of vacuum sensor readings that means a part is on the nozzle tip, see
+     * ReferenceNozzle.pick(). Readings are checked only when the high level is greater than the
+     * low level. For a boolean sensor that reads 1 with a part on use 0.5 to 1.5.
+     */
+    @Attribute(required = false)
+    private double vacuumLevelPartOnLow;
+
+    @Attribute(required = false)
+    private double vacuumLevelPartOnHigh;
+
+    /**
+     * How many more times to pick in place, without moving, when the vacuum sensor shows a pick
+     * was missed.
+     */
+    @Attribute(required = false)
+    private int pickRetryCount = 1;
+
     private Set<org.openpnp.model.Package> compatiblePackages = new HashSet<>();
 
     public ReferenceNozzleTip() {
@@ -75,6 +93,7 @@ public class ReferenceNozzleTip extends AbstractNozzleTip {
                     }
                     compatiblePackages.add(pkg);
                 }
+                firePropertyChange("compatiblePackages", null, getCompatiblePackages());
             }
         });
     }
@@ -92,12 +111,14 @@ public class ReferenceNozzleTip extends AbstractNozzleTip {
     }
 
     public void setCompatiblePackages(Set<org.openpnp.model.Package> compatiblePackages) {
+        Set<org.openpnp.model.Package> oldValue = getCompatiblePackages();
         this.compatiblePackages.clear();
         this.compatiblePackages.addAll(compatiblePackages);
         compatiblePackageIds.clear();
         for (org.openpnp.model.Package pkg : compatiblePackages) {
             compatiblePackageIds.add(pkg.getId());
         }
+        firePropertyChange("compatiblePackages", oldValue, getCompatiblePackages());
     }
 
     @Override
@@ -136,7 +157,9 @@ public class ReferenceNozzleTip extends AbstractNozzleTip {
     }
 
     public void setAllowIncompatiblePackages(boolean allowIncompatiblePackages) {
+        boolean oldValue = this.allowIncompatiblePackages;
         this.allowIncompatiblePackages = allowIncompatiblePackages;
+        firePropertyChange("allowIncompatiblePackages", oldValue, allowIncompatiblePackages);
     }
 
     public Location getChangerStartLocation() {
@@ -163,6 +186,38 @@ public class ReferenceNozzleTip extends AbstractNozzleTip {
         this.changerEndLocation = changerEndLocation;
     }
 
+    public double getVacuumLevelPartOnLow() {
+        return vacuumLevelPartOnLow;
+    }
+
+    public void setVacuumLevelPartOnLow(double vacuumLevelPartOnLow) {
+        this.vacuumLevelPartOnLow = vacuumLevelPartOnLow;
+    }
+
+    public double getVacuumLevelPartOnHigh() {
+        return vacuumLevelPartOnHigh;
+    }
+
+    public void setVacuumLevelPartOnHigh(double vacuumLevelPartOnHigh) {
+        this.vacuumLevelPartOnHigh = vacuumLevelPartOnHigh;
+    }
+
+    public boolean isVacuumSenseEnabled() {
+        return vacuumLevelPartOnHigh > vacuumLevelPartOnLow;
+    }
+
+    public boolean isPartOn(double vacuumLevel) {
+        return vacuumLevel >= vacuumLevelPartOnLow && vacuumLevel <= vacuumLevelPartOnHigh;
+    }
+
+    public int getPickRetryCount() {
+        return pickRetryCount;
+    }
+
+    public void setPickRetryCount(int pickRetryCount) {
+        this.pickRetryCount = pickRetryCount;
+    }
+
     private Nozzle getParentNozzle() {
         for (Head head : Configuration.get().getMachine().getHeads()) {
             for (Nozzle nozzle : head.getNozzles()) {
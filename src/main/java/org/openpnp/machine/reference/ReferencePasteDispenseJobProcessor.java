@@ -43,6 +43,7 @@ import org.openpnp.model.Placement;
 import org.openpnp.spi.*;
 import org.openpnp.spi.base.AbstractJobProcessor;
 import org.openpnp.spi.base.AbstractPasteDispenseJobProcessor;
+import org.openpnp.util.BoardTransform;
 import org.openpnp.util.Collect;
 import org.openpnp.util.FiniteStateMachine;
 import org.openpnp.util.MovableUtils;
@@ -116,6 +117,9 @@ public class ReferencePasteDispenseJobProcessor extends AbstractPasteDispenseJob
 
     protected Map<BoardLocation, Location> boardLocationFiducialOverrides = new HashMap<>();
 
+    protected Map<BoardLocation, BoardTransform> boardLocationFiducialTransforms =
+            new HashMap<>();
+
     public ReferencePasteDispenseJobProcessor() {
         fsm.add(State.Uninitialized, Message.Initialize, State.PreFlight, this::doInitialize);
 
@@ -149,6 +153,7 @@ public class ReferencePasteDispenseJobProcessor extends AbstractPasteDispenseJob
             fsm.send(Message.Next);
         } catch (Exception e) {
             this.fireJobState(this.machine.getSignalers(), AbstractJobProcessor.State.ERROR);
+            fireJobError(job, e);
             throw (e);
         }
 
@@ -218,6 +223,7 @@ public class ReferencePasteDispenseJobProcessor extends AbstractPasteDispenseJob
         this.pasteDispenser = this.head.getDefaultPasteDispenser();
         this.jobDispenses.clear();
         this.boardLocationFiducialOverrides.clear();
+        this.boardLocationFiducialTransforms.clear();
 
         fireTextStatus("Checking job for setup errors.");
 
@@ -254,6 +260,8 @@ public class ReferencePasteDispenseJobProcessor extends AbstractPasteDispenseJob
 
         // Safe Z the machine
         head.moveToSafeZ();
+
+        fireJobStarting(job);
     }
 
     protected void doFiducialCheck() throws Exception {
@@ -269,6 +277,8 @@ public class ReferencePasteDispenseJobProcessor extends AbstractPasteDispenseJob
             }
             Location location = locator.locateBoard(boardLocation);
             boardLocationFiducialOverrides.put(boardLocation, location);
+            boardLocationFiducialTransforms.put(boardLocation,
+                    boardLocation.getPlacementTransform(location));
             logger.debug("Fiducial check for {}", boardLocation);
         }
     }
@@ -283,15 +293,12 @@ public class ReferencePasteDispenseJobProcessor extends AbstractPasteDispenseJob
             BoardPad boardPad = jobDispense.boardPad;
 
             // Check if there is a fiducial override for the board location and if so, use it.
-            if (boardLocationFiducialOverrides.containsKey(boardLocation)) {
-                BoardLocation boardLocation2 = new BoardLocation(boardLocation.getBoard());
-                boardLocation2.setSide(boardLocation.getSide());
-                boardLocation2.setLocation(boardLocationFiducialOverrides.get(boardLocation));
-                boardLocation = boardLocation2;
+            BoardTransform transform = boardLocationFiducialTransforms.get(boardLocation);
+            if (transform == null) {
+                transform = boardLocation.getPlacementTransform();
             }
 
-            Location dispenseLocation =
-                    Utils2D.calculateBoardPlacementLocation(boardLocation, boardPad.getLocation());
+            Location dispenseLocation = transform.transform(boardPad.getLocation());
 
             MovableUtils.moveToLocationAtSafeZ(pasteDispenser, dispenseLocation);
 
@@ -313,6 +320,8 @@ public class ReferencePasteDispenseJobProcessor extends AbstractPasteDispenseJob
         // Safe Z the machine
         head.moveToSafeZ();
 
+        fireJobFinished(job);
+
     }
 
     protected void doReset() throws Exception {
@@ -12,6 +12,7 @@ import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.spi.base.AbstractPasteDispenser;
+import org.openpnp.util.Profiler;
 import org.simpleframework.xml.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,14 +55,18 @@ public class ReferencePasteDispenser extends AbstractPasteDispenser
             long dispenseTimeMilliseconds) throws Exception {
         logger.debug("{}.dispense()", getName());
         Thread.sleep(dispenseTimeMilliseconds);
+        long t = Profiler.start();
         driver.dispense(this, startLocation, endLocation, dispenseTimeMilliseconds);
+        Profiler.stop("driver.dispense", t);
         machine.fireMachineHeadActivity(head);
     }
 
     @Override
     public void moveTo(Location location, double speed) throws Exception {
         logger.debug("{}.moveTo({}, {})", getName(), location, speed);
+        long t = Profiler.start();
         driver.moveTo(this, location, speed);
+        Profiler.stop("driver.moveTo", t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -71,7 +76,9 @@ public class ReferencePasteDispenser extends AbstractPasteDispenser
         Length safeZ = this.safeZ.convertToUnits(getLocation().getUnits());
         Location l = new Location(getLocation().getUnits(), Double.NaN, Double.NaN,
                 safeZ.getValue(), Double.NaN);
+        long t = Profiler.start();
         driver.moveTo(this, l, speed);
+        Profiler.stop("driver.moveTo", t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -19,18 +19,27 @@
 
 package org.openpnp.machine.reference;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.openpnp.ScriptRuntime;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferencePnpJobProcessor.JobPlacement.Status;
+import org.openpnp.machine.reference.feeder.ReferenceStripFeeder;
+import org.openpnp.machine.reference.feeder.ReferenceTrayFeeder;
 import org.openpnp.machine.reference.wizards.ReferencePnpJobProcessorConfigurationWizard;
 import org.openpnp.model.BoardLocation;
 import org.openpnp.model.Configuration;
@@ -42,15 +51,20 @@ import org.openpnp.model.Placement;
 import org.openpnp.spi.*;
 import org.openpnp.spi.base.AbstractJobProcessor;
 import org.openpnp.spi.base.AbstractPnpJobProcessor;
+import org.openpnp.spi.base.CompatibilityMatrix;
+import org.openpnp.util.BoardTransform;
 import org.openpnp.util.Collect;
 import org.openpnp.util.FiniteStateMachine;
 import org.openpnp.util.MovableUtils;
+import org.openpnp.util.Profiler;
 import org.openpnp.util.Utils2D;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Root;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.hash.Hashing;
+
 @Root
 public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
     enum State {
@@ -76,6 +90,61 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
         Reset
     }
 
+    /**
+     * When a placement with Check Fids set locates its board again. With every policy but
+     * EveryPlacement the board's fiducial check is reused for the rest of the cycle, so the
+     * nozzles placing on a board in one cycle share a single check.
+     */
+    public enum FiducialCheckPolicy {
+        /**
+         * Check before every placement.
+         */
+        EveryPlacement,
+        /**
+         * Check once per cycle.
+         */
+        OncePerCycle,
+        /**
+         * Check once fiducialCheckPlacements parts have been placed on the board since the last
+         * check.
+         */
+        Placements,
+        /**
+         * Check once the last check is older than fiducialCheckMaxAge.
+         */
+        MaxAge,
+        /**
+         * Check once the board is estimated to have drifted fiducialCheckMaxDrift since the last
+         * check, or the last check is older than fiducialCheckMaxAge. The drift is estimated from
+         * how far the board moved between its last two checks.
+         */
+        MaxDrift
+    }
+
+    /**
+     * The result of the last fiducial check of a board.
+     */
+    protected static class FiducialCheck {
+        final Location location;
+        final long nanos;
+        final int cycle;
+        /**
+         * How fast the board was drifting, in millimeters per second, or -1 if unknown.
+         */
+        final double driftRate;
+        /**
+         * The number of parts placed on the board since the check.
+         */
+        int placements;
+
+        FiducialCheck(Location location, long nanos, int cycle, double driftRate) {
+            this.location = location;
+            this.nanos = nanos;
+            this.cycle = cycle;
+            this.driftRate = driftRate;
+        }
+    }
+
     public static class JobPlacement {
         public enum Status {
             Pending,
@@ -87,6 +156,19 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
         public final BoardLocation boardLocation;
         public final Placement placement;
         public Status status = Status.Pending;
+        /**
+         * The machine location of the placement, as last projected by the job processor. See
+         * ReferencePnpJobProcessor.getPlacementLocation(JobPlacement).
+         */
+        public Location location;
+        private BoardTransform transform;
+        private Location placementLocation;
+        /**
+         * The indexes of the BoardLocation in the Job and of the Placement in the Board, which
+         * identify the JobPlacement in the journal.
+         */
+        private int boardLocationIndex;
+        private int placementIndex;
 
         public JobPlacement(BoardLocation boardLocation, Placement placement) {
             this.boardLocation = boardLocation;
@@ -128,6 +210,50 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
     @Attribute(required = false)
     protected boolean parkWhenComplete = false;
 
+    @Attribute(required = false)
+    protected boolean exportProfile = false;
+
+    /**
+     * The number of job profile exports to keep in the configuration directory. Older ones are
+     * deleted after each export.
+     */
+    @Attribute(required = false)
+    protected int exportProfileKeep = 20;
+
+    @Attribute(required = false)
+    protected FeederIndex.Selection feederSelection = FeederIndex.Selection.First;
+
+    @Attribute(required = false)
+    protected FiducialCheckPolicy fiducialCheckPolicy = FiducialCheckPolicy.OncePerCycle;
+
+    @Attribute(required = false)
+    protected int fiducialCheckPlacements = 10;
+
+    /**
+     * Seconds.
+     */
+    @Attribute(required = false)
+    protected double fiducialCheckMaxAge = 300;
+
+    /**
+     * Millimeters.
+     */
+    @Attribute(required = false)
+    protected double fiducialCheckMaxDrift = 0.05;
+
+    /**
+     * If true nozzles whose pick locations line up with their offsets on the head pick one after
+     * the other from the same head position, see planGangPick().
+     */
+    @Attribute(required = false)
+    protected boolean gangPick = false;
+
+    /**
+     * Millimeters.
+     */
+    @Attribute(required = false)
+    protected double gangPickTolerance = 0.1;
+
     private FiniteStateMachine<State, Message> fsm = new FiniteStateMachine<>(State.Uninitialized);
 
     protected Job job;
@@ -140,8 +266,47 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
 
     protected List<PlannedPlacement> plannedPlacements = new ArrayList<>();
 
+    protected CompatibilityMatrix compatibility;
+
     protected Map<BoardLocation, Location> boardLocationFiducialOverrides = new HashMap<>();
 
+    protected Map<BoardLocation, BoardTransform> boardLocationFiducialTransforms =
+            new HashMap<>();
+
+    protected long jobStartNanos;
+
+    protected ScriptRuntime scriptRuntime;
+
+    protected Set<BoardLocation> startedBoardLocations = new HashSet<>();
+
+    protected Map<BoardLocation, Integer> boardLocationPlacementsRemaining = new HashMap<>();
+
+    protected JobJournal journal;
+
+    /**
+     * Incremented each time a cycle is planned.
+     */
+    protected int cycle;
+
+    protected Map<BoardLocation, FiducialCheck> boardLocationFiducialChecks = new HashMap<>();
+
+    protected int individualFiducialCheckCount;
+
+    protected int individualFiducialCheckReuseCount;
+
+    protected int gangPickCount;
+
+    /**
+     * The head position at which each nozzle picks from each feeder, cached while planning a
+     * cycle. See byMostGangPicks.
+     */
+    protected Map<Nozzle, Map<Feeder, Location>> planningHeadLocations = new HashMap<>();
+
+    /**
+     * If true the next job run resumes from the journal instead of starting over.
+     */
+    protected boolean resume;
+
     public ReferencePnpJobProcessor() {
         fsm.add(State.Uninitialized, Message.Initialize, State.PreFlight, this::doInitialize);
 
@@ -200,6 +365,7 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
             fsm.send(Message.Next);
         } catch (Exception e) {
             this.fireJobState(this.machine.getSignalers(), AbstractJobProcessor.State.ERROR);
+            fireJobError(job, e);
             throw(e);
         }
 
@@ -282,17 +448,41 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
         // Create some shortcuts for things that won't change during the run
         this.machine = Configuration.get().getMachine();
         this.head = this.machine.getDefaultHead();
+        if (this.compatibility != null) {
+            // Stop the last job's matrix from listening to the parts and nozzle tips.
+            this.compatibility.dispose();
+        }
+        this.compatibility = new CompatibilityMatrix(head);
+        this.scriptRuntime = Configuration.get().getScriptRuntime();
         this.jobPlacements.clear();
         this.boardLocationFiducialOverrides.clear();
+        this.boardLocationFiducialTransforms.clear();
+        this.startedBoardLocations.clear();
+        this.boardLocationPlacementsRemaining.clear();
+        this.boardLocationFiducialChecks.clear();
+        this.cycle = 0;
+        this.individualFiducialCheckCount = 0;
+        this.individualFiducialCheckReuseCount = 0;
+        this.gangPickCount = 0;
+
+        // Start a fresh profile for this job. The FSM has already started timing this step so
+        // the PreFlight entry will be recorded into the new profile.
+        Profiler.get().reset();
+        jobStartNanos = Profiler.start();
 
         fireTextStatus("Checking job for setup errors.");
 
-        for (BoardLocation boardLocation : job.getBoardLocations()) {
+        List<BoardLocation> boardLocations = job.getBoardLocations();
+        for (int boardLocationIndex = 0; boardLocationIndex < boardLocations
+                .size(); boardLocationIndex++) {
+            BoardLocation boardLocation = boardLocations.get(boardLocationIndex);
             // Only check enabled boards
             if (!boardLocation.isEnabled()) {
                 continue;
             }
-            for (Placement placement : boardLocation.getBoard().getPlacements()) {
+            List<Placement> placements = boardLocation.getBoard().getPlacements();
+            for (int placementIndex = 0; placementIndex < placements.size(); placementIndex++) {
+                Placement placement = placements.get(placementIndex);
                 // Ignore placements that aren't set to be placed
                 if (placement.getType() != Placement.Type.Place) {
                     continue;
@@ -304,6 +494,8 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
                 }
 
                 JobPlacement jobPlacement = new JobPlacement(boardLocation, placement);
+                jobPlacement.boardLocationIndex = boardLocationIndex;
+                jobPlacement.placementIndex = placementIndex;
 
                 // Make sure the part is not null
                 if (placement.getPart() == null) {
@@ -319,12 +511,20 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
                 }
 
                 // Make sure there is at least one compatible nozzle tip available
-                findNozzleTip(head, placement.getPart());
+                compatibility.findNozzleTip(placement.getPart());
 
                 // Make sure there is at least one compatible and enabled feeder available
                 findFeeder(machine, placement.getPart());
 
                 jobPlacements.add(jobPlacement);
+                boardLocationPlacementsRemaining.merge(boardLocation, 1, Integer::sum);
+            }
+        }
+
+        // Project all of the placements into machine coordinates up front, a board at a time.
+        for (BoardLocation boardLocation : job.getBoardLocations()) {
+            if (boardLocation.isEnabled()) {
+                projectPlacements(boardLocation, getBoardTransform(boardLocation));
             }
         }
 
@@ -335,6 +535,187 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
         head.moveToSafeZ();
         // Discard any currently picked parts
         discardAll(head);
+
+        // Pick up where the journal left off, or start a new one.
+        File journalFile = getJournalFile();
+        String signature = getJobSignature(job);
+        boolean resumed = resume;
+        resume = false;
+        if (resumed) {
+            replayJournal(JobJournal.read(journalFile, signature));
+        }
+        journal = new JobJournal(journalFile, signature, resumed);
+
+        fireJobStarting(job);
+    }
+
+    /**
+     * Get the file the job journal is kept in. There is one journal, for the last job run.
+     * 
+     * @return
+     */
+    public static File getJournalFile() {
+        return new File(Configuration.get().getConfigurationDirectory(), "job.journal");
+    }
+
+    /**
+     * Returns true if the journal was left by an unfinished run of the given job, so the job can
+     * be resumed where it stopped with setResume(true).
+     * 
+     * @param job
+     * @return
+     */
+    public boolean canResume(Job job) {
+        return JobJournal.matches(getJournalFile(), getJobSignature(job));
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * Identify the job and the placements it is made of, so that a journal is only replayed
+     * against the job that wrote it.
+     * 
+     * @param job
+     * @return
+     */
+    protected static String getJobSignature(Job job) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(job.getFile() == null ? "" : job.getFile().getAbsolutePath());
+        for (BoardLocation boardLocation : job.getBoardLocations()) {
+            sb.append('\n').append(boardLocation.getBoard().getName());
+            sb.append(' ').append(boardLocation.getSide());
+            sb.append(' ').append(boardLocation.isEnabled());
+            for (Placement placement : boardLocation.getBoard().getPlacements()) {
+                sb.append(' ').append(placement.getId());
+            }
+        }
+        return Hashing.sha256().hashBytes(sb.toString().getBytes(StandardCharsets.UTF_8))
+                .toString();
+    }
+
+    /**
+     * Restore the state recorded in the journal: the finished and skipped placements, fiducial
+     * overrides and feeder counts. This is a single pass over the records. Records that are
+     * malformed are skipped with a warning, so that one damaged line doesn't prevent the job from
+     * being resumed.
+     * 
+     * @param records
+     * @throws Exception
+     */
+    protected void replayJournal(List<String[]> records) throws Exception {
+        Map<String, JobPlacement> jobPlacementsByIndex = new HashMap<>();
+        for (JobPlacement jobPlacement : this.jobPlacements) {
+            jobPlacementsByIndex.put(
+                    jobPlacement.boardLocationIndex + " " + jobPlacement.placementIndex,
+                    jobPlacement);
+        }
+        int finished = 0;
+        for (String[] record : records) {
+            try {
+                if (replayJournalRecord(record, jobPlacementsByIndex)) {
+                    finished++;
+                }
+            }
+            catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                logger.warn("Skipped malformed job journal record {}: {}",
+                        String.join("\t", record), e.getMessage());
+            }
+        }
+        logger.info("Resumed job from journal, {} of {} placements already finished.", finished,
+                jobPlacements.size());
+    }
+
+    /**
+     * Restore the state recorded in one journal record.
+     * 
+     * @param record
+     * @param jobPlacementsByIndex
+     * @return true if the record finished a placement.
+     * @throws IllegalArgumentException if the record is malformed.
+     * @throws IndexOutOfBoundsException if the record refers to a board that isn't in the job.
+     */
+    protected boolean replayJournalRecord(String[] record,
+            Map<String, JobPlacement> jobPlacementsByIndex) {
+        switch (record[0]) {
+            case "Complete":
+            case "Skipped": {
+                checkJournalRecord(record, 3);
+                JobPlacement jobPlacement = jobPlacementsByIndex.get(record[1] + " " + record[2]);
+                if (jobPlacement == null || jobPlacement.status != Status.Pending) {
+                    return false;
+                }
+                jobPlacement.status = Status.valueOf(record[0]);
+                startedBoardLocations.add(jobPlacement.boardLocation);
+                boardLocationPlacementsRemaining.computeIfPresent(jobPlacement.boardLocation,
+                        (b, count) -> count - 1);
+                return true;
+            }
+            case "Fiducials": {
+                checkJournalRecord(record, 7);
+                BoardLocation boardLocation =
+                        job.getBoardLocations().get(Integer.parseInt(record[1]));
+                setFiducialOverride(boardLocation,
+                        new Location(LengthUnit.valueOf(record[2]), Double.parseDouble(record[3]),
+                                Double.parseDouble(record[4]), Double.parseDouble(record[5]),
+                                Double.parseDouble(record[6])));
+                return false;
+            }
+            case "Feeder": {
+                checkJournalRecord(record, 3);
+                Feeder feeder = machine.getFeeder(record[1]);
+                if (feeder != null) {
+                    setFeedCount(feeder, Integer.parseInt(record[2]));
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void checkJournalRecord(String[] record, int fields) {
+        if (record.length != fields) {
+            throw new IllegalArgumentException(
+                    "Expected " + fields + " fields but found " + record.length + ".");
+        }
+    }
+
+    /**
+     * Get the number of parts fed by feeders that keep count of them, to be recorded in the
+     * journal. Returns -1 for other feeders.
+     * 
+     * @param feeder
+     * @return
+     */
+    protected int getFeedCount(Feeder feeder) {
+        if (feeder instanceof ReferenceStripFeeder) {
+            return ((ReferenceStripFeeder) feeder).getFeedCount();
+        }
+        if (feeder instanceof ReferenceTrayFeeder) {
+            return ((ReferenceTrayFeeder) feeder).getFeedCount();
+        }
+        return -1;
+    }
+
+    protected void setFeedCount(Feeder feeder, int feedCount) {
+        if (feeder instanceof ReferenceStripFeeder) {
+            ((ReferenceStripFeeder) feeder).setFeedCount(feedCount);
+        }
+        else if (feeder instanceof ReferenceTrayFeeder) {
+            ((ReferenceTrayFeeder) feeder).setFeedCount(feedCount);
+        }
+    }
+
+    protected void journalJobPlacement(JobPlacement jobPlacement) {
+        if (journal != null) {
+            journal.write(jobPlacement.status, jobPlacement.boardLocationIndex,
+                    jobPlacement.placementIndex);
+        }
     }
 
     protected void doFiducialCheck() throws Exception {
@@ -348,8 +729,12 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
             if (!boardLocation.isCheckFiducials()) {
                 continue;
             }
+            // A resumed job keeps the fiducial results from its journal.
+            if (boardLocationFiducialOverrides.containsKey(boardLocation)) {
+                continue;
+            }
             Location location = locator.locateBoard(boardLocation);
-            boardLocationFiducialOverrides.put(boardLocation, location);
+            setFiducialOverride(boardLocation, location);
             logger.debug("Fiducial check for {}", boardLocation);
         }
     }
@@ -359,11 +744,116 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
 
         FiducialLocator locator = Configuration.get().getMachine().getFiducialLocator();
         
+        long t = Profiler.start();
         Location location = locator.locateBoard(boardLocation);
-        boardLocationFiducialOverrides.put(boardLocation, location);
+        Profiler.stop("job.individualFiducialCheck", t);
+        setFiducialOverride(boardLocation, location);
+        individualFiducialCheckCount++;
         logger.debug("Fiducial check for {}", boardLocation);
     }
 
+    /**
+     * Returns true if a placement with Check Fids set has to check the board's fiducials again,
+     * according to the fiducialCheckPolicy, or false if the last check can be reused.
+     * 
+     * @param boardLocation
+     * @return
+     */
+    protected boolean needsFiducialCheck(BoardLocation boardLocation) {
+        FiducialCheck check = boardLocationFiducialChecks.get(boardLocation);
+        if (check == null || fiducialCheckPolicy == FiducialCheckPolicy.EveryPlacement) {
+            return true;
+        }
+        if (check.cycle == cycle) {
+            return false;
+        }
+        double age = (System.nanoTime() - check.nanos) / 1e9;
+        switch (fiducialCheckPolicy) {
+            case Placements:
+                return check.placements >= fiducialCheckPlacements;
+            case MaxAge:
+                return age >= fiducialCheckMaxAge;
+            case MaxDrift:
+                return age >= fiducialCheckMaxAge
+                        || (check.driftRate >= 0 && check.driftRate * age >= fiducialCheckMaxDrift);
+            default:
+                return true;
+        }
+    }
+
+    protected void setFiducialOverride(BoardLocation boardLocation, Location location) {
+        boardLocationFiducialOverrides.put(boardLocation, location);
+        boardLocationFiducialTransforms.put(boardLocation,
+                boardLocation.getPlacementTransform(location));
+        long nanos = System.nanoTime();
+        double driftRate = -1;
+        FiducialCheck previous = boardLocationFiducialChecks.get(boardLocation);
+        if (previous != null && nanos > previous.nanos) {
+            driftRate = location.convertToUnits(LengthUnit.Millimeters)
+                    .getLinearDistanceTo(previous.location) / ((nanos - previous.nanos) / 1e9);
+        }
+        boardLocationFiducialChecks.put(boardLocation,
+                new FiducialCheck(location, nanos, cycle, driftRate));
+        if (journal != null) {
+            journal.write("Fiducials", job.getBoardLocations().indexOf(boardLocation),
+                    location.getUnits(), location.getX(), location.getY(), location.getZ(),
+                    location.getRotation());
+        }
+    }
+
+    /**
+     * Get the transform currently in effect for the BoardLocation. This is the transform for the
+     * fiducial override, if there is one, or the BoardLocation's own transform otherwise.
+     * 
+     * @param boardLocation
+     * @return
+     */
+    protected BoardTransform getBoardTransform(BoardLocation boardLocation) {
+        BoardTransform transform = boardLocationFiducialTransforms.get(boardLocation);
+        return transform != null ? transform : boardLocation.getPlacementTransform();
+    }
+
+    /**
+     * Project every JobPlacement on the BoardLocation into machine coordinates in one pass.
+     * 
+     * @param boardLocation
+     * @param transform
+     */
+    protected void projectPlacements(BoardLocation boardLocation, BoardTransform transform) {
+        List<JobPlacement> boardPlacements = new ArrayList<>();
+        List<Location> locations = new ArrayList<>();
+        for (JobPlacement jobPlacement : jobPlacements) {
+            if (jobPlacement.boardLocation == boardLocation) {
+                boardPlacements.add(jobPlacement);
+                locations.add(jobPlacement.placement.getLocation());
+            }
+        }
+        Location[] results = Utils2D.calculateBoardPlacementLocations(transform, locations);
+        for (int i = 0; i < results.length; i++) {
+            JobPlacement jobPlacement = boardPlacements.get(i);
+            jobPlacement.location = results[i];
+            jobPlacement.transform = transform;
+            jobPlacement.placementLocation = locations.get(i);
+        }
+    }
+
+    /**
+     * Get the machine location of the JobPlacement. The projected location is reused unless the
+     * board's transform or the placement's location has changed since it was projected, in which
+     * case the whole board is projected again.
+     * 
+     * @param jobPlacement
+     * @return
+     */
+    protected Location getPlacementLocation(JobPlacement jobPlacement) {
+        BoardTransform transform = getBoardTransform(jobPlacement.boardLocation);
+        if (jobPlacement.transform != transform
+                || jobPlacement.placementLocation != jobPlacement.placement.getLocation()) {
+            projectPlacements(jobPlacement.boardLocation, transform);
+        }
+        return jobPlacement.location;
+    }
+
     /**
      * Description of the planner:
      * 
@@ -391,6 +881,7 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
      */
     protected void doPlan() throws Exception {
         plannedPlacements.clear();
+        cycle++;
 
         fireTextStatus("Planning placements.");
 
@@ -408,19 +899,26 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
         // for that Nozzle.
         List<List<JobPlacement>> solutions = head.getNozzles().stream().map(nozzle -> {
             return Stream.concat(jobPlacements.stream().filter(jobPlacement -> {
-                return nozzleCanHandle(nozzle, jobPlacement.placement.getPart());
+                return compatibility.canHandle(nozzle, jobPlacement.placement.getPart());
             }), Stream.of((JobPlacement) null)).collect(Collectors.toList());
         }).collect(Collectors.toList());
 
+        // Sort by the solutions that contain the fewest nulls followed by the solutions that
+        // require the fewest nozzle changes and then, when gang picking, those that can pick the
+        // most parts without moving the head.
+        Comparator<List<JobPlacement>> order = byFewestNulls.thenComparing(byFewestNozzleChanges);
+        if (gangPick && head.getNozzles().size() > 1) {
+            planningHeadLocations.clear();
+            order = order.thenComparing(byMostGangPicks);
+        }
+
         // Get the cartesian product of those Lists
         List<JobPlacement> result = Collect.cartesianProduct(solutions).stream()
                 // Filter out any results that contains the same JobPlacement more than once
                 .filter(list -> {
                     return new HashSet<JobPlacement>(list).size() == list.size();
                 })
-                // Sort by the solutions that contain the fewest nulls followed by the
-                // solutions that require the fewest nozzle changes.
-                .sorted(byFewestNulls.thenComparing(byFewestNozzleChanges))
+                .sorted(order)
                 // And return the top result.
                 .findFirst().orElse(null);
 
@@ -436,6 +934,13 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
         }
 
         logger.debug("Planned placements {}", plannedPlacements);
+
+        for (PlannedPlacement plannedPlacement : plannedPlacements) {
+            BoardLocation boardLocation = plannedPlacement.jobPlacement.boardLocation;
+            if (startedBoardLocations.add(boardLocation)) {
+                fireScriptEvent("Job.Board.Starting", boardLocation, null);
+            }
+        }
     }
 
     protected void doChangeNozzleTip() throws Exception {
@@ -450,7 +955,8 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
             Part part = placement.getPart();
 
             // If the currently loaded NozzleTip can handle the Part we're good.
-            if (nozzle.getNozzleTip() != null && nozzle.getNozzleTip().canHandle(part)) {
+            if (nozzle.getNozzleTip() != null
+                    && compatibility.canHandle(nozzle.getNozzleTip(), part)) {
                 logger.debug("No nozzle change needed for nozzle {}", nozzle);
                 plannedPlacement.stepComplete = true;
                 continue;
@@ -459,7 +965,7 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
             fireTextStatus("Changing nozzle tip on nozzle %s.", nozzle.getId());
 
             // Otherwise find a compatible tip and load it
-            NozzleTip nozzleTip = findNozzleTip(nozzle, part);
+            NozzleTip nozzleTip = compatibility.findNozzleTip(nozzle, part);
             logger.debug("Change nozzle tip on {} from {} to {}",
                     new Object[] {nozzle, nozzle.getNozzleTip(), nozzleTip});
             nozzle.unloadNozzleTip();
@@ -492,73 +998,242 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
      * https://imgur.com/a/63Y1t
      */
     protected void doFeedAndPick() throws Exception {
-        for (PlannedPlacement plannedPlacement : plannedPlacements) {
-            if (plannedPlacement.stepComplete) {
-                continue;
+        List<PlannedPlacement> gang;
+        while (!(gang = planGangPick()).isEmpty()) {
+            // Feed the whole gang before picking it, so that the nozzles can pick one after the
+            // other without moving X and Y. Two parts are never fed from the same feeder before
+            // both are picked, since the second feed would move the first part's pick location,
+            // so a placement whose feeder is already used waits for the next gang.
+            Set<Feeder> gangFeeders = new HashSet<>();
+            List<PlannedPlacement> fedGang = new ArrayList<>();
+            for (PlannedPlacement plannedPlacement : gang) {
+                if (feed(plannedPlacement, gangFeeders)) {
+                    gangFeeders.add(plannedPlacement.feeder);
+                    fedGang.add(plannedPlacement);
+                }
             }
-            Nozzle nozzle = plannedPlacement.nozzle;
-            JobPlacement jobPlacement = plannedPlacement.jobPlacement;
-            Placement placement = jobPlacement.placement;
-            Part part = placement.getPart();
-
-            if (!plannedPlacement.fed) {
-                while (true) {
-                    // Find a compatible, enabled feeder
-                    Feeder feeder = findFeeder(machine, part);
-                    plannedPlacement.feeder = feeder;
-
-                    // Feed the part
-                    try {
-                        // Try to feed the part. If it fails, retry the specified number of times
-                        // before
-                        // giving up.
-                        retry(1 + feeder.getRetryCount(), () -> {
-                            fireTextStatus("Feeding %s from %s for %s.", part.getId(),
-                                    feeder.getName(), placement.getId());
-                            logger.debug("Attempt Feed {} from {} with {}.",
-                                    new Object[] {part, feeder, nozzle});
-
-                            feeder.feed(nozzle);
+            pick(fedGang);
+        }
 
-                            logger.debug("Fed {} from {} with {}.",
-                                    new Object[] {part, feeder, nozzle});
-                        });
+        clearStepComplete();
+    }
 
-                        break;
-                    }
-                    catch (Exception e) {
-                        logger.debug("Feed {} from {} with {} failed!",
-                                new Object[] {part, feeder, nozzle});
-                        // If the feed fails, disable the feeder and continue. If there are no
-                        // more valid feeders the findFeeder() call above will throw and exit the
-                        // loop.
-                        feeder.setEnabled(false);
-                    }
+    /**
+     * Feed the part for the PlannedPlacement, unless it was already fed.
+     * 
+     * @param plannedPlacement
+     * @param excludedFeeders Feeders that must not be fed from.
+     * @return False if the only enabled feeder for the part is one of the excluded feeders, in
+     *         which case nothing was fed.
+     * @throws Exception If there is no enabled feeder for the part left.
+     */
+    protected boolean feed(PlannedPlacement plannedPlacement, Set<Feeder> excludedFeeders)
+            throws Exception {
+        if (plannedPlacement.fed) {
+            return !excludedFeeders.contains(plannedPlacement.feeder);
+        }
+        Nozzle nozzle = plannedPlacement.nozzle;
+        JobPlacement jobPlacement = plannedPlacement.jobPlacement;
+        Placement placement = jobPlacement.placement;
+        Part part = placement.getPart();
+
+        long feedStart = Profiler.start();
+        // Use the feeder chosen by planGangPick(), if it's still enabled.
+        Feeder plannedFeeder = plannedPlacement.feeder;
+        while (true) {
+            // Find a compatible, enabled feeder
+            Feeder feeder = plannedFeeder != null && plannedFeeder.isEnabled() ? plannedFeeder
+                    : findFeeder(machine, part, feederSelection, nozzle);
+            if (excludedFeeders.contains(feeder)) {
+                Profiler.stop("job.feed", feedStart);
+                return false;
+            }
+            if (feeder == plannedFeeder) {
+                // planGangPick() only peeked at the feeder, so move the selection on here.
+                machine.getFeederIndex().used(part, feeder);
+            }
+            plannedFeeder = null;
+            plannedPlacement.feeder = feeder;
+
+            // Feed the part
+            try {
+                // Try to feed the part. If it fails, retry the specified number of times before
+                // giving up.
+                retry(1 + feeder.getRetryCount(), () -> {
+                    fireTextStatus("Feeding %s from %s for %s.", part.getId(), feeder.getName(),
+                            placement.getId());
+                    logger.debug("Attempt Feed {} from {} with {}.",
+                            new Object[] {part, feeder, nozzle});
+
+                    fireScriptEvent("Job.Feed.Starting", jobPlacement.boardLocation,
+                            plannedPlacement);
+
+                    feeder.feed(nozzle);
+
+                    logger.debug("Fed {} from {} with {}.", new Object[] {part, feeder, nozzle});
+                });
+
+                int feedCount = getFeedCount(feeder);
+                if (journal != null && feedCount >= 0) {
+                    journal.write("Feeder", feeder.getId(), feedCount);
                 }
-                plannedPlacement.fed = true;
+
+                fireScriptEvent("Job.Feed.Finished", jobPlacement.boardLocation,
+                        plannedPlacement);
+                break;
+            }
+            catch (Exception e) {
+                logger.debug("Feed {} from {} with {} failed!",
+                        new Object[] {part, feeder, nozzle});
+                // If the feed fails, disable the feeder and continue. If there are no
+                // more valid feeders the findFeeder() call above will throw and exit the
+                // loop.
+                feeder.setEnabled(false);
             }
+        }
+        plannedPlacement.fed = true;
+        Profiler.stop("job.feed", feedStart);
+        return true;
+    }
 
-            // Get the feeder that was used to feed
+    /**
+     * Pick the fed parts in order. A nozzle whose pick location lines up with the head's current
+     * X, Y position, to within gangPickTolerance, is lowered straight onto its part instead of
+     * going through Safe Z and an X, Y move.
+     * 
+     * @param plannedPlacements
+     * @throws Exception
+     */
+    protected void pick(List<PlannedPlacement> plannedPlacements) throws Exception {
+        Location headLocation = null;
+        for (PlannedPlacement plannedPlacement : plannedPlacements) {
+            Nozzle nozzle = plannedPlacement.nozzle;
+            Placement placement = plannedPlacement.jobPlacement.placement;
+            Part part = placement.getPart();
             Feeder feeder = plannedPlacement.feeder;
 
+            long pickStart = Profiler.start();
+
             // Move to the pick location
-            MovableUtils.moveToLocationAtSafeZ(nozzle, feeder.getPickLocation());
+            Location pickLocation = feeder.getPickLocation();
+            Location pickHeadLocation = getHeadLocation(nozzle, pickLocation);
+            if (isGangPickAligned(headLocation, pickHeadLocation)) {
+                logger.debug("Gang pick {} with {}", part, nozzle);
+                nozzle.moveTo(pickLocation);
+                gangPickCount++;
+            }
+            else {
+                MovableUtils.moveToLocationAtSafeZ(nozzle, pickLocation);
+                headLocation = pickHeadLocation;
+            }
 
             fireTextStatus("Picking %s from %s for %s.", part.getId(), feeder.getName(),
                     placement.getId());
 
-            // Pick
-            nozzle.pick(part);
+            // Pick. If the nozzle finds the pick failed, feed a new part when this is tried again.
+            try {
+                nozzle.pick(part);
+            }
+            catch (Exception e) {
+                plannedPlacement.fed = false;
+                throw e;
+            }
 
             // Retract
             nozzle.moveToSafeZ();
 
+            Profiler.stop("job.pick", pickStart);
+
             logger.debug("Pick {} from {} with {}", part, feeder, nozzle);
 
             plannedPlacement.stepComplete = true;
         }
+    }
 
-        clearStepComplete();
+    /**
+     * Choose the PlannedPlacements to feed and pick next: the first one not yet picked, followed,
+     * if gangPick is enabled, by those that can be picked from the same head position, each from
+     * a different feeder. The feeder chosen for each is stored in PlannedPlacement.feeder for
+     * feed() to use. Feeders that haven't fed yet are assumed to keep their current pick
+     * location, so the gang is an estimate that pick() checks again after feeding.
+     * 
+     * @return The gang, or an empty list if every PlannedPlacement has been picked.
+     */
+    protected List<PlannedPlacement> planGangPick() {
+        List<PlannedPlacement> gang = new ArrayList<>();
+        Set<Feeder> gangFeeders = new HashSet<>();
+        Location headLocation = null;
+        for (PlannedPlacement plannedPlacement : plannedPlacements) {
+            if (plannedPlacement.stepComplete) {
+                continue;
+            }
+            Nozzle nozzle = plannedPlacement.nozzle;
+            Part part = plannedPlacement.jobPlacement.placement.getPart();
+            if (gang.isEmpty()) {
+                gang.add(plannedPlacement);
+                if (!plannedPlacement.fed) {
+                    plannedPlacement.feeder = previewFeeder(nozzle, part);
+                }
+                if (!gangPick || plannedPlacement.feeder == null) {
+                    break;
+                }
+                gangFeeders.add(plannedPlacement.feeder);
+                headLocation = getHeadLocation(nozzle, plannedPlacement.feeder);
+                continue;
+            }
+            List<Feeder> feeders = plannedPlacement.fed
+                    ? Collections.singletonList(plannedPlacement.feeder)
+                    : machine.getFeederIndex().getFeeders(part);
+            for (Feeder feeder : feeders) {
+                if (!gangFeeders.contains(feeder)
+                        && isGangPickAligned(headLocation, getHeadLocation(nozzle, feeder))) {
+                    plannedPlacement.feeder = feeder;
+                    gang.add(plannedPlacement);
+                    gangFeeders.add(feeder);
+                    break;
+                }
+            }
+        }
+        return gang;
+    }
+
+    /**
+     * Get the feeder that the part would be fed from by the nozzle, or null if there is none.
+     * Does not change the FeederIndex, so it is safe to call from comparators.
+     */
+    protected Feeder previewFeeder(Nozzle nozzle, Part part) {
+        return machine.getFeederIndex().peek(part, feederSelection, nozzle);
+    }
+
+    /**
+     * Get the X, Y position of the head when the nozzle is at the location, in millimeters, or
+     * null if the nozzle's offsets from the head are unknown.
+     */
+    protected static Location getHeadLocation(Nozzle nozzle, Location location) {
+        if (!(nozzle instanceof ReferenceHeadMountable) || location == null) {
+            return null;
+        }
+        Location headOffsets = ((ReferenceHeadMountable) nozzle).getHeadOffsets();
+        return location.convertToUnits(LengthUnit.Millimeters)
+                .subtract(headOffsets.convertToUnits(LengthUnit.Millimeters))
+                .derive(null, null, 0.0, 0.0);
+    }
+
+    /**
+     * Get the X, Y position of the head when the nozzle is at the feeder's current pick location,
+     * or null if it isn't known.
+     */
+    protected static Location getHeadLocation(Nozzle nozzle, Feeder feeder) {
+        try {
+            return getHeadLocation(nozzle, feeder.getPickLocation());
+        }
+        catch (Exception e) {
+            return null;
+        }
+    }
+
+    protected boolean isGangPickAligned(Location a, Location b) {
+        return gangPick && a != null && b != null && a.getLinearDistanceTo(b) <= gangPickTolerance;
     }
 
     protected void doAlign() throws Exception {
@@ -591,70 +1266,34 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
             JobPlacement jobPlacement = plannedPlacement.jobPlacement;
             Placement placement = jobPlacement.placement;
             Part part = placement.getPart();
-            BoardLocation boardLocation = plannedPlacement.jobPlacement.boardLocation;
-            //Check if the individual piece has a fiducial check and check to see if the board is enabled
-            if(jobPlacement.placement.getCheckFids()&&jobPlacement.boardLocation.isEnabled())
-                doIndividualFiducialCheck(jobPlacement.boardLocation);
-
-            // Check if there is a fiducial override for the board location and if so, use it.
-            if (boardLocationFiducialOverrides.containsKey(boardLocation)) {
-                BoardLocation boardLocation2 = new BoardLocation(boardLocation.getBoard());
-                boardLocation2.setSide(boardLocation.getSide());
-                boardLocation2.setLocation(boardLocationFiducialOverrides.get(boardLocation));
-                boardLocation = boardLocation2;
+            // Check if the individual piece has a fiducial check and check to see if the board is
+            // enabled. The board's last check is reused if the fiducialCheckPolicy allows it.
+            if (placement.getCheckFids() && jobPlacement.boardLocation.isEnabled()) {
+                if (needsFiducialCheck(jobPlacement.boardLocation)) {
+                    doIndividualFiducialCheck(jobPlacement.boardLocation);
+                }
+                else {
+                    individualFiducialCheckReuseCount++;
+                    logger.debug("Reusing fiducial check for {}", jobPlacement.boardLocation);
+                }
             }
-            Location placementLocation =
-                    Utils2D.calculateBoardPlacementLocation(boardLocation, placement.getLocation());
+
+            // The projected location takes any fiducial override for the board into account.
+            Location placementLocation = getPlacementLocation(jobPlacement);
 
             // If there are alignment offsets update the placement location with them
             if (plannedPlacement.alignmentOffsets != null) {
-
-                /*
-                        preRotated means during alignment we have already rotated the component
-                        - this is useful for say an external rotating stage that the component is
-                        placed on, rotated to correct placement angle, and then picked up again.
-                 */
-                if(plannedPlacement.alignmentOffsets.getPreRotated())
-                {
-                    Location location = placementLocation;
-                    location = location.derive(null, null, null,
-                            plannedPlacement.alignmentOffsets.getLocation().getRotation());
-                    placementLocation = location;
-                }
-                else
-                {
-                    Location alignmentOffsets = plannedPlacement.alignmentOffsets.getLocation();
-                    // Rotate the point 0,0 using the alignment offsets as a center point by the angle
-                    // that is
-                    // the difference between the alignment angle and the calculated global
-                    // placement angle.
-                    Location location =
-                            new Location(LengthUnit.Millimeters).rotateXyCenterPoint(alignmentOffsets,
-                                    placementLocation.getRotation() - alignmentOffsets.getRotation());
-
-                    // Set the angle to the difference mentioned above, aligning the part to the
-                    // same angle as
-                    // the placement.
-                    location = location.derive(null, null, null,
-                            placementLocation.getRotation() - alignmentOffsets.getRotation());
-
-                    // Add the placement final location to move our local coordinate into global
-                    // space
-                    location = location.add(placementLocation);
-
-                    // Subtract the alignment offsets to move the part to the final location,
-                    // instead of
-                    // the nozzle.
-                    location = location.subtract(alignmentOffsets);
-
-                    placementLocation = location;
-                }
+                placementLocation = applyAlignmentOffsets(placementLocation,
+                        plannedPlacement.alignmentOffsets);
             }
 
             // Add the part's height to the placement location
             placementLocation = placementLocation.add(new Location(part.getHeight().getUnits(), 0,
                     0, part.getHeight().getValue(), 0));
 
+            fireScriptEvent("Job.Placement.Starting", jobPlacement.boardLocation,
+                    plannedPlacement);
+
             // Move to the placement location
             MovableUtils.moveToLocationAtSafeZ(nozzle, placementLocation);
 
@@ -668,10 +1307,21 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
 
             // Mark the placement as finished
             jobPlacement.status = Status.Complete;
+            journalJobPlacement(jobPlacement);
+
+            FiducialCheck fiducialCheck =
+                    boardLocationFiducialChecks.get(jobPlacement.boardLocation);
+            if (fiducialCheck != null) {
+                fiducialCheck.placements++;
+            }
 
             plannedPlacement.stepComplete = true;
 
             logger.debug("Place {} with {}", part, nozzle.getName());
+
+            fireScriptEvent("Job.Placement.Finished", jobPlacement.boardLocation,
+                    plannedPlacement);
+            jobPlacementFinished(jobPlacement);
         }
 
         clearStepComplete();
@@ -680,6 +1330,15 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
     protected void doCleanup() throws Exception {
         fireTextStatus("Cleaning up.");
 
+        // Keep the journal of an unfinished job so it can be resumed.
+        if (journal != null) {
+            journal.close();
+            if (isJobComplete()) {
+                journal.getFile().delete();
+            }
+            journal = null;
+        }
+
         // Safe Z the machine
         head.moveToSafeZ();
         
@@ -693,6 +1352,48 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
             fireTextStatus("Park nozzle.");
             MovableUtils.moveToLocationAtSafeZ(head.getDefaultNozzle(), head.getParkLocation());
         }
+
+        if (individualFiducialCheckCount + individualFiducialCheckReuseCount > 0) {
+            logger.info("Individual fiducial checks: {} done, {} avoided by reusing a check.",
+                    individualFiducialCheckCount, individualFiducialCheckReuseCount);
+        }
+        if (gangPickCount > 0) {
+            logger.info("Gang picks: {} picks without an X, Y move.", gangPickCount);
+        }
+
+        fireJobFinished(job);
+
+        Profiler.stop("job.total", jobStartNanos);
+        if (exportProfile && Profiler.get().isEnabled()) {
+            try {
+                String name = "job-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+                File directory = Configuration.get().getResourceDirectory(Profiler.class);
+                Profiler.get().export(directory, name);
+                deleteOldProfiles(directory);
+            }
+            catch (Exception e) {
+                logger.warn("Unable to export job profile", e);
+            }
+        }
+    }
+
+    /**
+     * Delete all but the newest exportProfileKeep job profile exports. The names sort by date.
+     */
+    protected void deleteOldProfiles(File directory) {
+        for (String extension : new String[] {".csv", ".json"}) {
+            File[] files = directory.listFiles(
+                    (dir, name) -> name.startsWith("job-") && name.endsWith(extension));
+            if (files == null || files.length <= exportProfileKeep) {
+                continue;
+            }
+            Arrays.sort(files);
+            for (int i = 0; i < files.length - Math.max(0, exportProfileKeep); i++) {
+                if (!files[i].delete()) {
+                    logger.warn("Unable to delete old job profile {}", files[i]);
+                }
+            }
+        }
     }
 
     protected void doReset() throws Exception {
@@ -712,10 +1413,56 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
             Nozzle nozzle = plannedPlacement.nozzle;
             discard(nozzle);
             jobPlacement.status = Status.Skipped;
+            journalJobPlacement(jobPlacement);
             logger.debug("Skipped {}", jobPlacement.placement);
+            jobPlacementFinished(jobPlacement);
+        }
+    }
+
+    /**
+     * Count the JobPlacement as done for its board and fire Job.Board.Finished if it was the last
+     * one.
+     * 
+     * @param jobPlacement
+     * @throws Exception
+     */
+    protected void jobPlacementFinished(JobPlacement jobPlacement) throws Exception {
+        BoardLocation boardLocation = jobPlacement.boardLocation;
+        Integer remaining = boardLocationPlacementsRemaining.computeIfPresent(boardLocation,
+                (b, count) -> count - 1);
+        if (remaining != null && remaining == 0) {
+            fireScriptEvent("Job.Board.Finished", boardLocation, null);
         }
     }
 
+    /**
+     * Run the scripts for the given event. Besides the Job.Starting, Job.Finished and Job.Error
+     * events of every job processor, this one fires Job.Board.Starting, Job.Board.Finished,
+     * Job.Feed.Starting, Job.Feed.Finished, Job.Placement.Starting and Job.Placement.Finished.
+     * Scripts get the boardLocation, placement, part, nozzle and feeder where they apply. The
+     * variables are only created if the event has scripts.
+     * 
+     * @param event
+     * @param boardLocation May be null.
+     * @param plannedPlacement May be null.
+     * @throws Exception
+     */
+    protected void fireScriptEvent(String event, BoardLocation boardLocation,
+            PlannedPlacement plannedPlacement) throws Exception {
+        if (!scriptRuntime.hasScripts(event)) {
+            return;
+        }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("boardLocation", boardLocation);
+        if (plannedPlacement != null) {
+            variables.put("placement", plannedPlacement.jobPlacement.placement);
+            variables.put("part", plannedPlacement.jobPlacement.placement.getPart());
+            variables.put("nozzle", plannedPlacement.nozzle);
+            variables.put("feeder", plannedPlacement.feeder);
+        }
+        fireJobScriptEvent(event, job, variables);
+    }
+
     protected void clearStepComplete() {
         for (PlannedPlacement plannedPlacement : plannedPlacements) {
             plannedPlacement.stepComplete = false;
@@ -745,6 +1492,78 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
         this.parkWhenComplete = parkWhenComplete;
     }
 
+    public boolean isExportProfile() {
+        return exportProfile;
+    }
+
+    public void setExportProfile(boolean exportProfile) {
+        this.exportProfile = exportProfile;
+    }
+
+    public int getExportProfileKeep() {
+        return exportProfileKeep;
+    }
+
+    public void setExportProfileKeep(int exportProfileKeep) {
+        this.exportProfileKeep = exportProfileKeep;
+    }
+
+    public FiducialCheckPolicy getFiducialCheckPolicy() {
+        return fiducialCheckPolicy;
+    }
+
+    public void setFiducialCheckPolicy(FiducialCheckPolicy fiducialCheckPolicy) {
+        this.fiducialCheckPolicy = fiducialCheckPolicy;
+    }
+
+    public int getFiducialCheckPlacements() {
+        return fiducialCheckPlacements;
+    }
+
+    public void setFiducialCheckPlacements(int fiducialCheckPlacements) {
+        this.fiducialCheckPlacements = fiducialCheckPlacements;
+    }
+
+    public double getFiducialCheckMaxAge() {
+        return fiducialCheckMaxAge;
+    }
+
+    public void setFiducialCheckMaxAge(double fiducialCheckMaxAge) {
+        this.fiducialCheckMaxAge = fiducialCheckMaxAge;
+    }
+
+    public double getFiducialCheckMaxDrift() {
+        return fiducialCheckMaxDrift;
+    }
+
+    public void setFiducialCheckMaxDrift(double fiducialCheckMaxDrift) {
+        this.fiducialCheckMaxDrift = fiducialCheckMaxDrift;
+    }
+
+    public boolean isGangPick() {
+        return gangPick;
+    }
+
+    public void setGangPick(boolean gangPick) {
+        this.gangPick = gangPick;
+    }
+
+    public double getGangPickTolerance() {
+        return gangPickTolerance;
+    }
+
+    public void setGangPickTolerance(double gangPickTolerance) {
+        this.gangPickTolerance = gangPickTolerance;
+    }
+
+    public FeederIndex.Selection getFeederSelection() {
+        return feederSelection;
+    }
+
+    public void setFeederSelection(FeederIndex.Selection feederSelection) {
+        this.feederSelection = feederSelection;
+    }
+
     // Sort a List<JobPlacement> by the number of nulls it contains in ascending order.
     Comparator<List<JobPlacement>> byFewestNulls = (a, b) -> {
         return Collections.frequency(a, null) - Collections.frequency(b, null);
@@ -763,13 +1582,71 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
                 countB++;
                 continue;
             }
-            if (jpA != null && !nozzle.getNozzleTip().canHandle(jpA.placement.getPart())) {
+            if (jpA != null
+                    && !compatibility.canHandle(nozzle.getNozzleTip(), jpA.placement.getPart())) {
                 countA++;
             }
-            if (jpB != null && !nozzle.getNozzleTip().canHandle(jpB.placement.getPart())) {
+            if (jpB != null
+                    && !compatibility.canHandle(nozzle.getNozzleTip(), jpB.placement.getPart())) {
                 countB++;
             }
         }
         return countA - countB;
     };
+
+    // Sort a List<JobPlacement> by the number of parts that can be gang picked, that is picked
+    // without moving the head after an earlier nozzle's pick, in descending order.
+    Comparator<List<JobPlacement>> byMostGangPicks = (a, b) -> {
+        return countGangPicks(b) - countGangPicks(a);
+    };
+
+    protected int countGangPicks(List<JobPlacement> solution) {
+        int count = 0;
+        List<Location> headLocations = new ArrayList<>();
+        Set<Feeder> usedFeeders = new HashSet<>();
+        for (int i = 0; i < head.getNozzles().size(); i++) {
+            Nozzle nozzle = head.getNozzles().get(i);
+            JobPlacement jobPlacement = solution.get(i);
+            if (jobPlacement == null) {
+                continue;
+            }
+            Part part = jobPlacement.placement.getPart();
+            Feeder feeder = null;
+            Location headLocation = null;
+            // Look for a free feeder for the part that lines up with an earlier pick.
+            search: for (Feeder f : machine.getFeederIndex().getFeeders(part)) {
+                if (usedFeeders.contains(f)) {
+                    continue;
+                }
+                Location l = getPlanningHeadLocation(nozzle, f);
+                for (Location location : headLocations) {
+                    if (isGangPickAligned(location, l)) {
+                        feeder = f;
+                        headLocation = l;
+                        count++;
+                        break search;
+                    }
+                }
+            }
+            if (feeder == null) {
+                feeder = previewFeeder(nozzle, part);
+                if (feeder == null) {
+                    continue;
+                }
+                headLocation = getPlanningHeadLocation(nozzle, feeder);
+            }
+            usedFeeders.add(feeder);
+            headLocations.add(headLocation);
+        }
+        return count;
+    }
+
+    protected Location getPlanningHeadLocation(Nozzle nozzle, Feeder feeder) {
+        Map<Feeder, Location> headLocations =
+                planningHeadLocations.computeIfAbsent(nozzle, n -> new HashMap<>());
+        if (!headLocations.containsKey(feeder)) {
+            headLocations.put(feeder, getHeadLocation(nozzle, feeder));
+        }
+        return headLocations.get(feeder);
+    }
 }
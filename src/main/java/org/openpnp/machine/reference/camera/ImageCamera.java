@@ -119,7 +119,7 @@ public class ImageCamera extends ReferenceCamera implements Runnable {
     }
 
     @Override
-    public synchronized BufferedImage capture() {
+    public BufferedImage capture() {
         /*
          * Create a buffer that we will render the center tile and it's surrounding tiles to.
          */
@@ -147,6 +147,7 @@ public class ImageCamera extends ReferenceCamera implements Runnable {
 
     private synchronized void initialize() throws Exception {
         stop();
+        frameBuffer.clear();
 
         if (sourceUri.startsWith("classpath://")) {
             source = ImageIO.read(getClass().getClassLoader()
@@ -162,10 +163,17 @@ public class ImageCamera extends ReferenceCamera implements Runnable {
     }
 
 
+    @Override
+    protected boolean isGrabbing() {
+        Thread thread = this.thread;
+        return thread != null && thread.isAlive();
+    }
+
     public void run() {
         while (!Thread.interrupted()) {
+            long nanoTime = System.nanoTime();
             BufferedImage frame = capture();
-            broadcastCapture(frame);
+            publishFrame(frame, nanoTime);
             try {
                 Thread.sleep(1000 / fps);
             }
@@ -0,0 +1,503 @@
+/*
+ * Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ *
+ * This file is part of OpenPnP.
+ *
+ * OpenPnP is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * OpenPnP is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with OpenPnP. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.machine.reference.camera;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A client for MJPEG over HTTP, the multipart/x-mixed-replace stream served by most IP cameras.
+ * One connection is kept open for as long as the stream runs, and is reopened if it drops.
+ *
+ * A reader thread splits the stream into JPEG frames and a decoder thread decodes them, so that
+ * reading the network is never held up by decoding. If the decoder falls behind, frames it has not
+ * started on are replaced by newer ones and counted as dropped. The frame byte arrays are reused
+ * between the two threads, so a steady stream allocates nothing but the decoded images.
+ */
+public class MjpegStream implements Closeable {
+    private final static Logger logger = LoggerFactory.getLogger(MjpegStream.class);
+
+    public interface FrameListener {
+        /**
+         * Called on the decoder thread for each decoded frame.
+         *
+         * @param image
+         * @param nanoTime The System.nanoTime() at which the frame finished arriving.
+         */
+        void frameReceived(BufferedImage image, long nanoTime);
+    }
+
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int READ_TIMEOUT_MS = 5000;
+    private static final long RECONNECT_DELAY_MS = 1000;
+
+    private final URL url;
+    private final String username;
+    private final String password;
+
+    private Thread readerThread;
+    private Thread decoderThread;
+    private volatile boolean closed;
+    private volatile boolean connected;
+    private volatile InputStream in;
+
+    private final Object lock = new Object();
+    private byte[] pending;
+    private int pendingLength;
+    private long pendingNanoTime;
+    private byte[] spare;
+
+    private volatile long framesRead;
+    private volatile long framesDecoded;
+    private volatile long framesDropped;
+
+    public MjpegStream(URL url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Start reading the stream and delivering frames to the listener. Returns immediately; the
+     * connection is made on the reader thread.
+     *
+     * @param listener
+     */
+    public synchronized void start(FrameListener listener) {
+        if (readerThread != null) {
+            throw new IllegalStateException("Stream already started.");
+        }
+        readerThread = new Thread(this::read, "MJPEG Reader " + url);
+        readerThread.setDaemon(true);
+        decoderThread = new Thread(() -> decode(listener), "MJPEG Decoder " + url);
+        decoderThread.setDaemon(true);
+        readerThread.start();
+        decoderThread.start();
+    }
+
+    /**
+     * Returns true while a stream is open and frames are being read from it.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long getFramesRead() {
+        return framesRead;
+    }
+
+    public long getFramesDecoded() {
+        return framesDecoded;
+    }
+
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly(in);
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        Thread readerThread;
+        Thread decoderThread;
+        synchronized (this) {
+            readerThread = this.readerThread;
+            decoderThread = this.decoderThread;
+        }
+        for (Thread thread : new Thread[] {readerThread, decoderThread}) {
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+                try {
+                    thread.join(READ_TIMEOUT_MS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    private void read() {
+        while (!closed) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+                connection.setReadTimeout(READ_TIMEOUT_MS);
+                if (username != null && !username.isEmpty()) {
+                    String credentials = username + ":" + (password == null ? "" : password);
+                    connection.setRequestProperty("Authorization", "Basic " + Base64.getEncoder()
+                            .encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+                }
+                String boundary = getBoundary(connection.getContentType());
+                in = connection.getInputStream();
+                if (closed) {
+                    break;
+                }
+                Parser parser = new Parser(in, boundary);
+                connected = true;
+                logger.debug("Connected to MJPEG stream {}", url);
+                while (!closed && parser.readFrame()) {
+                    framesRead++;
+                    offer(parser.getBuffer(), parser.getFrameOffset(), parser.getFrameLength(),
+                            System.nanoTime());
+                }
+            }
+            catch (Exception e) {
+                if (!closed) {
+                    logger.warn("MJPEG stream {} failed: {}", url, e.getMessage());
+                }
+            }
+            finally {
+                connected = false;
+                closeQuietly(in);
+                in = null;
+            }
+            if (!closed) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                }
+                catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy a frame into a free array and make it the next frame to decode, replacing any frame the
+     * decoder has not taken yet.
+     */
+    private void offer(byte[] buffer, int offset, int length, long nanoTime) {
+        byte[] frame;
+        synchronized (lock) {
+            frame = spare;
+            spare = null;
+        }
+        if (frame == null || frame.length < length) {
+            frame = new byte[length + length / 4];
+        }
+        System.arraycopy(buffer, offset, frame, 0, length);
+        synchronized (lock) {
+            if (pending != null) {
+                framesDropped++;
+                spare = pending;
+            }
+            pending = frame;
+            pendingLength = length;
+            pendingNanoTime = nanoTime;
+            lock.notifyAll();
+        }
+    }
+
+    private void decode(FrameListener listener) {
+        while (!closed) {
+            byte[] frame;
+            int length;
+            long nanoTime;
+            synchronized (lock) {
+                while (pending == null && !closed) {
+                    try {
+                        lock.wait();
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                frame = pending;
+                length = pendingLength;
+                nanoTime = pendingNanoTime;
+                pending = null;
+            }
+            BufferedImage image = null;
+            try {
+                image = ImageIO.read(new ByteArrayInputStream(frame, 0, length));
+            }
+            catch (Exception e) {
+                logger.debug("Failed to decode MJPEG frame: {}", e.getMessage());
+            }
+            synchronized (lock) {
+                if (spare == null) {
+                    spare = frame;
+                }
+            }
+            if (image == null) {
+                continue;
+            }
+            framesDecoded++;
+            try {
+                listener.frameReceived(image, nanoTime);
+            }
+            catch (Exception e) {
+                logger.warn("MJPEG frame listener failed", e);
+            }
+        }
+    }
+
+    static String getBoundary(String contentType) throws IOException {
+        if (contentType == null || !contentType.toLowerCase().startsWith("multipart/")) {
+            throw new IOException("Not a multipart stream: " + contentType);
+        }
+        for (String parameter : contentType.split(";")) {
+            parameter = parameter.trim();
+            if (parameter.toLowerCase().startsWith("boundary=")) {
+                String boundary = parameter.substring("boundary=".length()).trim();
+                if (boundary.length() > 1 && boundary.startsWith("\"")
+                        && boundary.endsWith("\"")) {
+                    boundary = boundary.substring(1, boundary.length() - 1);
+                }
+                // Some cameras include the leading dashes in the parameter.
+                if (boundary.startsWith("--")) {
+                    boundary = boundary.substring(2);
+                }
+                return boundary;
+            }
+        }
+        throw new IOException("No boundary in " + contentType);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        }
+        catch (IOException e) {
+            // Nothing more can be done with it.
+        }
+    }
+
+    /**
+     * Splits a multipart stream into its parts, reading through a single buffer that only grows
+     * when a part is larger than any seen before. Parts with a Content-Length header are read
+     * directly. Parts without one are read up to the next boundary.
+     */
+    public static class Parser {
+        private static final int INITIAL_BUFFER_SIZE = 256 * 1024;
+        private static final int MAX_LINE_LENGTH = 8 * 1024;
+
+        private final InputStream in;
+        private final byte[] delimiter;
+        private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private int frameOffset;
+        private int frameLength;
+
+        public Parser(InputStream in, String boundary) {
+            this.in = in;
+            this.delimiter = ("--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Read the next part. On success the part's body is in getBuffer() from getFrameOffset()
+         * for getFrameLength() bytes, until the next call.
+         *
+         * @return false at the end of the stream.
+         * @throws IOException
+         */
+        public boolean readFrame() throws IOException {
+            // Find the boundary line that starts the part.
+            while (true) {
+                String line = readLine();
+                if (line == null) {
+                    return false;
+                }
+                if (startsWithDelimiter(line)) {
+                    if (line.endsWith("--")) {
+                        // The closing boundary.
+                        return false;
+                    }
+                    break;
+                }
+            }
+            int contentLength = -1;
+            while (true) {
+                String line = readLine();
+                if (line == null) {
+                    return false;
+                }
+                if (line.isEmpty()) {
+                    break;
+                }
+                int colon = line.indexOf(':');
+                if (colon > 0
+                        && line.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                    try {
+                        contentLength = Integer.parseInt(line.substring(colon + 1).trim());
+                    }
+                    catch (NumberFormatException e) {
+                        contentLength = -1;
+                    }
+                }
+            }
+            if (contentLength >= 0) {
+                if (!require(contentLength)) {
+                    return false;
+                }
+                frameOffset = position;
+                frameLength = contentLength;
+                position += contentLength;
+                return true;
+            }
+            // No length, so the body runs up to the CRLF before the next boundary.
+            int scanned = 0;
+            while (true) {
+                int index = indexOfDelimiter(position + scanned);
+                if (index >= 0) {
+                    int end = index;
+                    if (end - 2 >= position && buffer[end - 2] == '\r' && buffer[end - 1] == '\n') {
+                        end -= 2;
+                    }
+                    else if (end - 1 >= position && buffer[end - 1] == '\n') {
+                        end -= 1;
+                    }
+                    frameOffset = position;
+                    frameLength = end - position;
+                    position = index;
+                    return true;
+                }
+                // Keep enough of the end to find a delimiter that is split across reads.
+                scanned = Math.max(0, limit - position - delimiter.length + 1);
+                if (!require(limit - position + 1)) {
+                    return false;
+                }
+            }
+        }
+
+        public byte[] getBuffer() {
+            return buffer;
+        }
+
+        public int getFrameOffset() {
+            return frameOffset;
+        }
+
+        public int getFrameLength() {
+            return frameLength;
+        }
+
+        private boolean startsWithDelimiter(String line) {
+            if (line.length() < delimiter.length) {
+                return false;
+            }
+            for (int i = 0; i < delimiter.length; i++) {
+                if (line.charAt(i) != delimiter[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int indexOfDelimiter(int from) {
+            int last = limit - delimiter.length;
+            outer: for (int i = from; i <= last; i++) {
+                for (int j = 0; j < delimiter.length; j++) {
+                    if (buffer[i + j] != delimiter[j]) {
+                        continue outer;
+                    }
+                }
+                // Only a delimiter at the start of a line is a boundary.
+                if (i == position || buffer[i - 1] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Read a line of ASCII, without its CRLF or LF.
+         */
+        private String readLine() throws IOException {
+            int searchFrom = position;
+            while (true) {
+                for (int i = searchFrom; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        int end = i;
+                        if (end > position && buffer[end - 1] == '\r') {
+                            end--;
+                        }
+                        String line = new String(buffer, position, end - position,
+                                StandardCharsets.US_ASCII);
+                        position = i + 1;
+                        return line;
+                    }
+                }
+                int available = limit - position;
+                if (available > MAX_LINE_LENGTH) {
+                    throw new IOException("Multipart header line too long.");
+                }
+                if (!require(available + 1)) {
+                    return null;
+                }
+                searchFrom = position + available;
+            }
+        }
+
+        /**
+         * Make sure at least count bytes are buffered after position, compacting and growing the
+         * buffer as needed.
+         *
+         * @return false if the stream ends first.
+         */
+        private boolean require(int count) throws IOException {
+            if (limit - position >= count) {
+                return true;
+            }
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            }
+            if (count > buffer.length) {
+                byte[] grown = new byte[Math.max(count, buffer.length * 2)];
+                System.arraycopy(buffer, 0, grown, 0, limit);
+                buffer = grown;
+            }
+            while (limit < count) {
+                int read = in.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    return false;
+                }
+                limit += read;
+            }
+            return true;
+        }
+    }
+}
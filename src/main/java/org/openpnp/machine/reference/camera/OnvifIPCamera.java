@@ -34,6 +34,7 @@ import org.openpnp.gui.wizards.CameraConfigurationWizard;
 import org.openpnp.machine.reference.ReferenceCamera;
 import org.openpnp.machine.reference.camera.wizards.OnvifIPCameraConfigurationWizard;
 import org.openpnp.spi.PropertySheetHolder;
+import org.openpnp.util.FrameRingBuffer;
 import org.simpleframework.xml.Attribute;
 
 import java.net.ConnectException;
@@ -58,6 +59,11 @@ import de.onvif.soap.devices.MediaDevices;
 
 /**
  * A Camera implementation for ONVIF compatible IP cameras.
+ * 
+ * By default each frame is a JPEG snapshot fetched from the camera's snapshot URI. When a Stream
+ * URL is set the camera instead keeps one MJPEG connection open and publishes every frame it
+ * decodes, which gives far higher frame rates with less latency. Snapshots are still used whenever
+ * the stream is not connected.
  */
 public class OnvifIPCamera extends ReferenceCamera implements Runnable {
 
@@ -77,12 +83,15 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
     private String username;
     @Attribute(required = false)
     private String password;
+    @Attribute(required = false)
+    private String streamUrl;
 
     private Thread thread;
     private boolean dirty = false;
 
     private OnvifDevice nvt;
     private URL snapshotURI;
+    private volatile MjpegStream stream;
 
     public OnvifIPCamera() {}
 
@@ -91,6 +100,17 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
         if (thread == null) {
             initCamera();
         }
+        MjpegStream stream = this.stream;
+        if (stream != null && stream.isConnected()) {
+            FrameRingBuffer.Frame frame = frameBuffer.getLatest();
+            if (frame != null) {
+                return frame.image;
+            }
+        }
+        return captureSnapshot();
+    }
+
+    private BufferedImage captureSnapshot() {
         try {
             if (snapshotURI == null) {
                 return null;
@@ -136,22 +156,54 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
         super.startContinuousCapture(listener, maximumFps);
     }
 
+    @Override
+    protected boolean isGrabbing() {
+        Thread thread = this.thread;
+        return thread != null && thread.isAlive();
+    }
+
     public void run() {
-        while (!Thread.interrupted()) {
+        MjpegStream stream = null;
+        if (streamUrl != null && !streamUrl.isEmpty()) {
             try {
-                BufferedImage image = capture();
-                if (image != null) {
-                    broadcastCapture(image);
-                }
+                stream = new MjpegStream(new URL(streamUrl), username, password);
+                stream.start((image, nanoTime) -> {
+                    publishFrame(transformImage(resizeImage(image)), nanoTime);
+                });
+                this.stream = stream;
             }
-            catch (Exception e) {
-                e.printStackTrace();
+            catch (MalformedURLException e) {
+                System.err.println("Malformed stream URL for IP camera: " + streamUrl);
             }
-            try {
-                Thread.sleep(1000 / fps);
+        }
+        try {
+            while (!Thread.interrupted()) {
+                // While the stream is connected it publishes frames on its own thread, and
+                // snapshots are only taken when it is not.
+                if (stream == null || !stream.isConnected()) {
+                    try {
+                        long nanoTime = System.nanoTime();
+                        BufferedImage image = captureSnapshot();
+                        if (image != null) {
+                            publishFrame(image, nanoTime);
+                        }
+                    }
+                    catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+                try {
+                    Thread.sleep(1000 / fps);
+                }
+                catch (InterruptedException e) {
+                    break;
+                }
             }
-            catch (InterruptedException e) {
-                break;
+        }
+        finally {
+            this.stream = null;
+            if (stream != null) {
+                stream.close();
             }
         }
     }
@@ -371,6 +423,22 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
         setDirty(true);
     }
 
+    public String getStreamUrl() {
+        return streamUrl;
+    }
+
+    public synchronized void setStreamUrl(String streamUrl) {
+        this.streamUrl = streamUrl;
+        setDirty(true);
+    }
+
+    /**
+     * Returns the MJPEG stream while the camera is running one, or null.
+     */
+    public MjpegStream getStream() {
+        return stream;
+    }
+
     public String getPreferredResolution() {
         return preferredResolution;
     }
@@ -34,16 +34,18 @@ import org.openpnp.gui.wizards.CameraConfigurationWizard;
 import org.openpnp.machine.reference.ReferenceCamera;
 import org.openpnp.machine.reference.camera.wizards.OpenCvCameraConfigurationWizard;
 import org.openpnp.spi.PropertySheetHolder;
+import org.openpnp.util.FrameRingBuffer;
 import org.openpnp.util.OpenCvUtils;
 import org.simpleframework.xml.Attribute;
 
 /**
- * A Camera implementation based on the OpenCV FrameGrabbers.
+ * A Camera implementation based on the OpenCV FrameGrabbers. A single grabber thread reads the
+ * device and publishes timestamped frames to the camera's frame buffer, and capture() is served
+ * from that buffer so that vision and the live preview do not contend for the device.
  */
 public class OpenCvCamera extends ReferenceCamera implements Runnable {
     static {
-        nu.pattern.OpenCV.loadShared();
-        System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+        OpenCvUtils.loadNativeLibrary();
     }
 
     @Attribute(name = "deviceIndex", required = true)
@@ -57,32 +59,63 @@ public class OpenCvCamera extends ReferenceCamera implements Runnable {
     private int fps = 24;
 
     private VideoCapture fg = new VideoCapture();
-    private Thread thread;
+    private final Object deviceLock = new Object();
+    private volatile Thread thread;
     private boolean dirty = false;
 
     public OpenCvCamera() {}
 
     @Override
-    public synchronized BufferedImage capture() {
-        if (thread == null) {
-            initCamera();
+    public BufferedImage capture() {
+        synchronized (this) {
+            if (thread == null) {
+                initCamera();
+            }
         }
-        Mat mat = new Mat();
+        if (!isGrabbing()) {
+            return grabFrame();
+        }
+        // The grabber thread owns the device, so rather than contending with it for a read we
+        // take the first frame it publishes after this call.
         try {
-            if (!fg.read(mat)) {
-                return null;
+            FrameRingBuffer.Frame frame =
+                    frameBuffer.awaitAfter(System.nanoTime(), captureAfterTimeoutMs);
+            if (frame != null) {
+                return frame.image;
             }
-            BufferedImage img = OpenCvUtils.toBufferedImage(mat);
-            return transformImage(img);
         }
-        catch (Exception e) {
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return null;
         }
-        finally {
-            mat.release();
+        return grabFrame();
+    }
+
+    private BufferedImage grabFrame() {
+        synchronized (deviceLock) {
+            Mat mat = new Mat();
+            try {
+                if (!fg.read(mat)) {
+                    return null;
+                }
+                BufferedImage img = OpenCvUtils.toBufferedImage(mat);
+                return transformImage(img);
+            }
+            catch (Exception e) {
+                return null;
+            }
+            finally {
+                mat.release();
+            }
         }
     }
 
+    @Override
+    protected boolean isGrabbing() {
+        Thread thread = this.thread;
+        return thread != null && thread.isAlive();
+    }
+
     @Override
     public synchronized void startContinuousCapture(CameraListener listener, int maximumFps) {
         if (thread == null) {
@@ -94,9 +127,10 @@ public class OpenCvCamera extends ReferenceCamera implements Runnable {
     public void run() {
         while (!Thread.interrupted()) {
             try {
-                BufferedImage image = capture();
+                long nanoTime = System.nanoTime();
+                BufferedImage image = grabFrame();
                 if (image != null) {
-                    broadcastCapture(image);
+                    publishFrame(image, nanoTime);
                 }
             }
             catch (Exception e) {
@@ -122,6 +156,7 @@ public class OpenCvCamera extends ReferenceCamera implements Runnable {
             }
             thread = null;
         }
+        frameBuffer.clear();
         try {
             setDirty(false);
             width = null;
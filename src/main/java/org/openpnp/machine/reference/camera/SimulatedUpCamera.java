@@ -194,10 +194,17 @@ public class SimulatedUpCamera extends ReferenceCamera implements Runnable {
         }
     }
 
+    @Override
+    protected boolean isGrabbing() {
+        Thread thread = this.thread;
+        return thread != null && thread.isAlive();
+    }
+
     public void run() {
         while (!Thread.interrupted()) {
+            long nanoTime = System.nanoTime();
             BufferedImage frame = capture();
-            broadcastCapture(frame);
+            publishFrame(frame, nanoTime);
             try {
                 Thread.sleep(1000 / fps);
             }
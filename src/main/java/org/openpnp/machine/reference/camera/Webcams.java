@@ -101,14 +101,23 @@ public class Webcams extends ReferenceCamera implements Runnable, WebcamImageTra
     private BufferedImage redImage = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
 
 
+    @Override
+    protected boolean isGrabbing() {
+        Thread thread = this.thread;
+        return thread != null && thread.isAlive();
+    }
+
     public void run() {
         while (!Thread.interrupted()) {
             try {
+                long nanoTime = System.nanoTime();
                 BufferedImage image = capture();
                 if (image == null) {
-                    image = redImage;
+                    broadcastCapture(redImage);
+                }
+                else {
+                    publishFrame(image, nanoTime);
                 }
-                broadcastCapture(image);
             }
             catch (Exception e) {
                 e.printStackTrace();
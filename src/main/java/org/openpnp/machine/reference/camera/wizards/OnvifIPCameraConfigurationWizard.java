@@ -76,6 +76,8 @@ public class OnvifIPCameraConfigurationWizard extends ReferenceCameraConfigurati
                 FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,
                 FormSpecs.RELATED_GAP_ROWSPEC,
+                FormSpecs.DEFAULT_ROWSPEC,
+                FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,}));
 
         lblIP = new JLabel("Camera IP");
@@ -147,6 +149,16 @@ public class OnvifIPCameraConfigurationWizard extends ReferenceCameraConfigurati
 
         lbluseFor_rh = new JLabel("(Use 0 for no resizing)");
         panelGeneral.add(lbluseFor_rh, "6, 14");
+
+        lblStreamUrl = new JLabel("MJPEG Stream URL");
+        panelGeneral.add(lblStreamUrl, "2, 16, right, default");
+
+        streamUrlTextField = new JTextField();
+        panelGeneral.add(streamUrlTextField, "4, 16");
+        streamUrlTextField.setColumns(16);
+
+        lbluseFor_stream = new JLabel("(leave blank to use snapshots)");
+        panelGeneral.add(lbluseFor_stream, "6, 16");
     }
     
     private void refreshResolutionList() {
@@ -180,6 +192,7 @@ public class OnvifIPCameraConfigurationWizard extends ReferenceCameraConfigurati
         addWrappedBinding(camera, "fps", fpsTextField, "text", intConverter);
         addWrappedBinding(camera, "username", usernameTextField, "text");
         addWrappedBinding(camera, "password", passwordTextField, "text");
+        addWrappedBinding(camera, "streamUrl", streamUrlTextField, "text");
         // Should always be last so that it doesn't trigger multiple camera reloads.
         addWrappedBinding(camera, "hostIP", ipTextField, "text");
 
@@ -187,6 +200,7 @@ public class OnvifIPCameraConfigurationWizard extends ReferenceCameraConfigurati
         ComponentDecorators.decorateWithAutoSelect(ipTextField);
         ComponentDecorators.decorateWithAutoSelect(usernameTextField);
         ComponentDecorators.decorateWithAutoSelect(passwordTextField);
+        ComponentDecorators.decorateWithAutoSelect(streamUrlTextField);
     }
 
     @Override
@@ -217,6 +231,9 @@ public class OnvifIPCameraConfigurationWizard extends ReferenceCameraConfigurati
     private JComboBox<String> cboSupportedResolutions;
     private JLabel lblResizeWidth;
     private JTextField resizeWidthTextField;
+    private JLabel lblStreamUrl;
+    private JTextField streamUrlTextField;
+    private JLabel lbluseFor_stream;
     private JLabel lblResizeHeight;
     private JTextField resizeHeightTextField;
     private JLabel lbluseFor_ip;
@@ -4,10 +4,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -23,6 +29,7 @@ import org.openpnp.machine.reference.ReferenceMachine;
 import org.openpnp.machine.reference.ReferenceNozzle;
 import org.openpnp.machine.reference.driver.wizards.GcodeDriverConfigurationWizard;
 import org.openpnp.model.Configuration;
+import org.openpnp.model.Length;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.model.Part;
@@ -61,7 +68,9 @@ public class GcodeDriver extends AbstractSerialPortDriver implements Runnable {
         PICK_COMMAND(true, "Id", "Name"),
         PLACE_COMMAND(true, "Id", "Name"),
         ACTUATE_BOOLEAN_COMMAND(true, "Id", "Name", "Index", "BooleanValue", "True", "False"),
-        ACTUATE_DOUBLE_COMMAND(true, "Id", "Name", "Index", "DoubleValue", "IntegerValue");
+        ACTUATE_DOUBLE_COMMAND(true, "Id", "Name", "Index", "DoubleValue", "IntegerValue"),
+        ACTUATOR_READ_COMMAND(true, "Id", "Name", "Index"),
+        ACTUATOR_READ_REGEX(true);
 
         final boolean headMountable;
         final String[] variableNames;
@@ -215,6 +224,21 @@ public class GcodeDriver extends AbstractSerialPortDriver implements Runnable {
     @ElementList(required = false, inline = true)
     public ArrayList<Command> commands = new ArrayList<>();
 
+    /**
+     * If true, commands are sent to each sub-driver on its own thread while this driver sends its
+     * own command, and the caller waits for all of them to complete. If false, the sub-drivers
+     * are called one after another once this driver's command has completed.
+     */
+    @Attribute(required = false)
+    protected boolean parallelSubDrivers = false;
+
+    /**
+     * If true, moves are not sent to sub-drivers that are GcodeDrivers with no axis for the
+     * HeadMountable being moved.
+     */
+    @Attribute(required = false)
+    protected boolean skipSubDriversWithoutAxes = false;
+
     @ElementList(required = false)
     protected List<ReferenceDriver> subDrivers = new ArrayList<>();
 
@@ -226,6 +250,22 @@ public class GcodeDriver extends AbstractSerialPortDriver implements Runnable {
     private boolean connected;
     private LinkedBlockingQueue<String> responseQueue = new LinkedBlockingQueue<>();
     private Set<Nozzle> pickedNozzles = new HashSet<>();
+    private final Map<ReferenceDriver, ExecutorService> subDriverExecutors =
+            new IdentityHashMap<>();
+
+    /**
+     * A command for this driver, see dispatch().
+     */
+    protected interface DriverCommand {
+        void execute() throws Exception;
+    }
+
+    /**
+     * A command for one sub-driver, see dispatch().
+     */
+    protected interface SubDriverCommand {
+        void execute(ReferenceDriver driver) throws Exception;
+    }
 
     @Commit
     public void commit() {
@@ -318,39 +358,35 @@ public class GcodeDriver extends AbstractSerialPortDriver implements Runnable {
 
     @Override
     public void setEnabled(boolean enabled) throws Exception {
-        if (enabled && !connected) {
-            connect();
-        }
-        if (connected) {
-            if (enabled) {
-                sendGcode(getCommand(null, CommandType.ENABLE_COMMAND));
+        dispatch(null, () -> {
+            if (enabled && !connected) {
+                connect();
             }
-            else {
-                sendGcode(getCommand(null, CommandType.DISABLE_COMMAND));
+            if (connected) {
+                if (enabled) {
+                    sendGcode(getCommand(null, CommandType.ENABLE_COMMAND));
+                }
+                else {
+                    sendGcode(getCommand(null, CommandType.DISABLE_COMMAND));
+                }
             }
-        }
-
-        for (ReferenceDriver driver : subDrivers) {
-            driver.setEnabled(enabled);
-        }
+        }, driver -> driver.setEnabled(enabled));
     }
 
     @Override
     public void home(ReferenceHead head) throws Exception {
         // Home is sent with an infinite timeout since it's tough to tell how long it will
         // take.
-        String command = getCommand(null, CommandType.HOME_COMMAND);
-        command = substituteVariable(command, "Id", head.getId());
-        command = substituteVariable(command, "Name", head.getName());
-        sendGcode(command, -1);
-
-        for (Axis axis : axes) {
-            axis.setCoordinate(axis.getHomeCoordinate());
-        }
-
-        for (ReferenceDriver driver : subDrivers) {
-            driver.home(head);
-        }
+        dispatch(null, () -> {
+            String command = getCommand(null, CommandType.HOME_COMMAND);
+            command = substituteVariable(command, "Id", head.getId());
+            command = substituteVariable(command, "Name", head.getName());
+            sendGcode(command, -1);
+
+            for (Axis axis : axes) {
+                axis.setCoordinate(axis.getHomeCoordinate());
+            }
+        }, driver -> driver.home(head));
 
         /*
          * The head camera for nozzle-1 should now be (if everything has homed correctly) directly
@@ -401,6 +437,21 @@ public class GcodeDriver extends AbstractSerialPortDriver implements Runnable {
         }
         return null;
     }
+
+    /**
+     * Returns true if any of this driver's axes move the HeadMountable.
+     *
+     * @param hm
+     * @return
+     */
+    public boolean hasAxis(HeadMountable hm) {
+        for (Axis.Type type : Axis.Type.values()) {
+            if (getAxis(hm, type) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
     
     public Command getCommand(HeadMountable hm, CommandType type, boolean checkDefaults) {
         // If a HeadMountable is specified, see if we can find a match
@@ -471,13 +522,28 @@ public class GcodeDriver extends AbstractSerialPortDriver implements Runnable {
     @Override
     public void moveTo(ReferenceHeadMountable hm, Location location, double speed)
             throws Exception {
-        location = location.convertToUnits(units);
-
-        location = location.subtract(hm.getHeadOffsets());
+        dispatch(hm, () -> moveAxes(hm, location, speed),
+                driver -> driver.moveTo(hm, location, speed));
+    }
 
-        double x = location.getX();
-        double y = location.getY();
-        double z = location.getZ();
+    /**
+     * Move this driver's axes, without forwarding the move to the sub-drivers.
+     */
+    private void moveAxes(ReferenceHeadMountable hm, Location location, double speed)
+            throws Exception {
+        // Convert straight to driver units and remove the head offsets. Nozzles hand on the
+        // Location in the units it was given in, so one that is already in driver units passes
+        // through unchanged. That matters since the result is compared exactly with the axis
+        // coordinates below.
+        Location headOffsets = hm.getHeadOffsets();
+        LengthUnit locationUnits = location.getUnits();
+        LengthUnit offsetUnits = headOffsets.getUnits();
+        double x = Length.convertToUnits(location.getX(), locationUnits, units)
+                - Length.convertToUnits(headOffsets.getX(), offsetUnits, units);
+        double y = Length.convertToUnits(location.getY(), locationUnits, units)
+                - Length.convertToUnits(headOffsets.getY(), offsetUnits, units);
+        double z = Length.convertToUnits(location.getZ(), locationUnits, units)
+                - Length.convertToUnits(headOffsets.getZ(), offsetUnits, units);
         double rotation = location.getRotation();
 
         Axis xAxis = getAxis(hm, Axis.Type.X);
@@ -612,10 +678,6 @@ public class GcodeDriver extends AbstractSerialPortDriver implements Runnable {
         if (rotationAxis != null) {
             rotationAxis.setCoordinate(rotation);
         }
-
-        for (ReferenceDriver driver : subDrivers) {
-            driver.moveTo(hm, location, speed);
-        }
     }
 
     private boolean containsMatch(List<String> responses, String regex) {
@@ -629,68 +691,211 @@ public class GcodeDriver extends AbstractSerialPortDriver implements Runnable {
 
     @Override
     public void pick(ReferenceNozzle nozzle) throws Exception {
-        pickedNozzles.add(nozzle);
-        if (pickedNozzles.size() > 0) {
-            sendGcode(getCommand(nozzle, CommandType.PUMP_ON_COMMAND));
-        }
-
-        String command = getCommand(nozzle, CommandType.PICK_COMMAND);
-        command = substituteVariable(command, "Id", nozzle.getId());
-        command = substituteVariable(command, "Name", nozzle.getName());
-        sendGcode(command);
+        dispatch(null, () -> {
+            pickedNozzles.add(nozzle);
+            if (pickedNozzles.size() > 0) {
+                sendGcode(getCommand(nozzle, CommandType.PUMP_ON_COMMAND));
+            }
 
-        for (ReferenceDriver driver : subDrivers) {
-            driver.pick(nozzle);
-        }
+            String command = getCommand(nozzle, CommandType.PICK_COMMAND);
+            command = substituteVariable(command, "Id", nozzle.getId());
+            command = substituteVariable(command, "Name", nozzle.getName());
+            sendGcode(command);
+        }, driver -> driver.pick(nozzle));
     }
 
     @Override
     public void place(ReferenceNozzle nozzle) throws Exception {
-        String command = getCommand(nozzle, CommandType.PLACE_COMMAND);
-        command = substituteVariable(command, "Id", nozzle.getId());
-        command = substituteVariable(command, "Name", nozzle.getName());
-        sendGcode(command);
+        dispatch(null, () -> {
+            String command = getCommand(nozzle, CommandType.PLACE_COMMAND);
+            command = substituteVariable(command, "Id", nozzle.getId());
+            command = substituteVariable(command, "Name", nozzle.getName());
+            sendGcode(command);
+
+            pickedNozzles.remove(nozzle);
+            if (pickedNozzles.size() < 1) {
+                sendGcode(getCommand(nozzle, CommandType.PUMP_OFF_COMMAND));
+            }
+        }, driver -> driver.place(nozzle));
+    }
 
-        pickedNozzles.remove(nozzle);
-        if (pickedNozzles.size() < 1) {
-            sendGcode(getCommand(nozzle, CommandType.PUMP_OFF_COMMAND));
-        }
 
-        for (ReferenceDriver driver : subDrivers) {
-            driver.place(nozzle);
-        }
+    @Override
+    public void actuate(ReferenceActuator actuator, boolean on) throws Exception {
+        dispatch(null, () -> {
+            String command = getCommand(actuator, CommandType.ACTUATE_BOOLEAN_COMMAND);
+            command = substituteVariable(command, "Id", actuator.getId());
+            command = substituteVariable(command, "Name", actuator.getName());
+            command = substituteVariable(command, "Index", actuator.getIndex());
+            command = substituteVariable(command, "BooleanValue", on);
+            command = substituteVariable(command, "True", on ? on : null);
+            command = substituteVariable(command, "False", on ? null : on);
+            sendGcode(command);
+        }, driver -> driver.actuate(actuator, on));
     }
 
+    @Override
+    public void actuate(ReferenceActuator actuator, double value) throws Exception {
+        dispatch(null, () -> {
+            String command = getCommand(actuator, CommandType.ACTUATE_DOUBLE_COMMAND);
+            command = substituteVariable(command, "Id", actuator.getId());
+            command = substituteVariable(command, "Name", actuator.getName());
+            command = substituteVariable(command, "Index", actuator.getIndex());
+            command = substituteVariable(command, "DoubleValue", value);
+            command = substituteVariable(command, "IntegerValue", (int) value);
+            sendGcode(command);
+        }, driver -> driver.actuate(actuator, value));
+    }
 
+    /**
+     * Send the ACTUATOR_READ_COMMAND and return the Value group of the first response that matches
+     * the ACTUATOR_READ_REGEX, for example "ok T:(?<Value>-?\d+\.?\d*).*". If this driver has
+     * no read command for the actuator the sub-drivers are asked in turn.
+     */
     @Override
-    public void actuate(ReferenceActuator actuator, boolean on) throws Exception {
-        String command = getCommand(actuator, CommandType.ACTUATE_BOOLEAN_COMMAND);
+    public String actuatorRead(ReferenceActuator actuator) throws Exception {
+        String command = getCommand(actuator, CommandType.ACTUATOR_READ_COMMAND);
+        String regex = getCommand(actuator, CommandType.ACTUATOR_READ_REGEX);
+        if (command == null || regex == null) {
+            for (ReferenceDriver driver : subDrivers) {
+                String value = driver.actuatorRead(actuator);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
         command = substituteVariable(command, "Id", actuator.getId());
         command = substituteVariable(command, "Name", actuator.getName());
         command = substituteVariable(command, "Index", actuator.getIndex());
-        command = substituteVariable(command, "BooleanValue", on);
-        command = substituteVariable(command, "True", on ? on : null);
-        command = substituteVariable(command, "False", on ? null : on);
-        sendGcode(command);
 
-        for (ReferenceDriver driver : subDrivers) {
-            driver.actuate(actuator, on);
+        Pattern pattern = Pattern.compile(regex);
+        List<String> responses = sendGcode(command);
+        long t = System.currentTimeMillis();
+        while (true) {
+            for (String response : responses) {
+                Matcher matcher = pattern.matcher(response);
+                if (matcher.matches()) {
+                    try {
+                        return matcher.group("Value");
+                    }
+                    catch (IllegalArgumentException e) {
+                        throw new Exception(
+                                "ACTUATOR_READ_REGEX must contain a group named Value: " + regex);
+                    }
+                }
+            }
+            // The value may be reported after the command is confirmed.
+            if (System.currentTimeMillis() - t >= timeoutMilliseconds) {
+                throw new Exception("Timed out waiting for a response matching " + regex
+                        + " to read actuator " + actuator.getName() + ".");
+            }
+            responses = sendCommand(null, 250);
         }
     }
 
-    @Override
-    public void actuate(ReferenceActuator actuator, double value) throws Exception {
-        String command = getCommand(actuator, CommandType.ACTUATE_DOUBLE_COMMAND);
-        command = substituteVariable(command, "Id", actuator.getId());
-        command = substituteVariable(command, "Name", actuator.getName());
-        command = substituteVariable(command, "Index", actuator.getIndex());
-        command = substituteVariable(command, "DoubleValue", value);
-        command = substituteVariable(command, "IntegerValue", (int) value);
-        sendGcode(command);
+    /**
+     * Execute command on this driver and subDriverCommand on each of the sub-drivers. If
+     * parallelSubDrivers is set the sub-driver commands are started first, each on the sub-driver's
+     * own thread, and this method returns once all of them and this driver's command have
+     * completed. Otherwise the sub-drivers are called in order after this driver's command.
+     *
+     * If more than one of the commands fails the first failure is thrown and the others are added
+     * to it as suppressed exceptions.
+     *
+     * @param hm The HeadMountable being moved, used to skip sub-drivers without an axis for it. May
+     *        be null for commands that are not moves.
+     * @param command
+     * @param subDriverCommand
+     * @throws Exception
+     */
+    protected void dispatch(HeadMountable hm, DriverCommand command,
+            SubDriverCommand subDriverCommand) throws Exception {
+        List<ReferenceDriver> drivers = getSubDrivers(hm);
+        if (!parallelSubDrivers || drivers.isEmpty()) {
+            command.execute();
+            for (ReferenceDriver driver : drivers) {
+                subDriverCommand.execute(driver);
+            }
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (ReferenceDriver driver : drivers) {
+            futures.add(getSubDriverExecutor(driver).submit(() -> {
+                subDriverCommand.execute(driver);
+                return null;
+            }));
+        }
 
+        Exception error = null;
+        try {
+            command.execute();
+        }
+        catch (Exception e) {
+            error = e;
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            Exception e = null;
+            try {
+                futures.get(i).get();
+            }
+            catch (ExecutionException ex) {
+                e = new Exception("Sub-driver " + getDriverName(drivers.get(i)) + ": "
+                        + ex.getCause().getMessage(), ex.getCause());
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                e = ex;
+            }
+            if (e == null) {
+                continue;
+            }
+            if (error == null) {
+                error = e;
+            }
+            else {
+                error.addSuppressed(e);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private List<ReferenceDriver> getSubDrivers(HeadMountable hm) {
+        if (hm == null || !skipSubDriversWithoutAxes) {
+            return subDrivers;
+        }
+        List<ReferenceDriver> drivers = new ArrayList<>();
         for (ReferenceDriver driver : subDrivers) {
-            driver.actuate(actuator, value);
+            if (!(driver instanceof GcodeDriver) || ((GcodeDriver) driver).hasAxis(hm)) {
+                drivers.add(driver);
+            }
+        }
+        return drivers;
+    }
+
+    private synchronized ExecutorService getSubDriverExecutor(ReferenceDriver driver) {
+        ExecutorService executor = subDriverExecutors.get(driver);
+        if (executor == null) {
+            String name = "GcodeDriver " + getDriverName(driver);
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            subDriverExecutors.put(driver, executor);
+        }
+        return executor;
+    }
+
+    private static String getDriverName(ReferenceDriver driver) {
+        if (driver instanceof AbstractSerialPortDriver
+                && ((AbstractSerialPortDriver) driver).getPortName() != null) {
+            return ((AbstractSerialPortDriver) driver).getPortName();
         }
+        return driver.getClass().getSimpleName();
     }
 
     public synchronized void disconnect() {
@@ -722,6 +927,37 @@ public class GcodeDriver extends AbstractSerialPortDriver implements Runnable {
         for (ReferenceDriver driver : subDrivers) {
             driver.close();
         }
+
+        synchronized (this) {
+            for (ExecutorService executor : subDriverExecutors.values()) {
+                executor.shutdown();
+            }
+            subDriverExecutors.clear();
+        }
+    }
+
+    public boolean isParallelSubDrivers() {
+        return parallelSubDrivers;
+    }
+
+    public void setParallelSubDrivers(boolean parallelSubDrivers) {
+        this.parallelSubDrivers = parallelSubDrivers;
+    }
+
+    public boolean isSkipSubDriversWithoutAxes() {
+        return skipSubDriversWithoutAxes;
+    }
+
+    public void setSkipSubDriversWithoutAxes(boolean skipSubDriversWithoutAxes) {
+        this.skipSubDriversWithoutAxes = skipSubDriversWithoutAxes;
+    }
+
+    public List<ReferenceDriver> getSubDrivers() {
+        return subDrivers;
+    }
+
+    public List<Axis> getAxes() {
+        return axes;
     }
 
     protected List<String> sendGcode(String gCode) throws Exception {
@@ -20,7 +20,8 @@
 package org.openpnp.machine.reference.driver;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.Action;
 import javax.swing.Icon;
@@ -37,6 +38,7 @@ import org.openpnp.machine.reference.ReferencePasteDispenser;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
+import org.openpnp.model.MutableLocation;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.PropertySheetHolder;
 import org.simpleframework.xml.Attribute;
@@ -54,7 +56,16 @@ public class NullDriver implements ReferenceDriver {
     @Attribute(required = false)
     private double feedRateMmPerMinute = 5000;
 
-    private HashMap<Head, Location> headLocations = new HashMap<>();
+    /**
+     * Concurrent since the heads of a multi-head machine may move at the same time, see
+     * ReferenceMultiHeadPnpJobProcessor.
+     */
+    private Map<Head, Location> headLocations = new ConcurrentHashMap<>();
+
+    /**
+     * The last value each actuator was actuated with, which is what reading it returns.
+     */
+    private Map<ReferenceActuator, String> actuatorValues = new ConcurrentHashMap<>();
 
     private boolean enabled;
 
@@ -92,7 +103,8 @@ public class NullDriver implements ReferenceDriver {
      */
     @Override
     public Location getLocation(ReferenceHeadMountable hm) {
-        return getHeadLocation(hm.getHead()).add(hm.getHeadOffsets());
+        return new MutableLocation(getHeadLocation(hm.getHead())).add(hm.getHeadOffsets())
+                .toLocation();
     }
 
     /**
@@ -107,12 +119,10 @@ public class NullDriver implements ReferenceDriver {
         checkEnabled();
 
         // Subtract the offsets from the incoming Location. This converts the
-        // offset coordinates to driver / absolute coordinates.
-        location = location.subtract(hm.getHeadOffsets());
-
-        // Convert the Location to millimeters, since that's the unit that
-        // this driver works in natively.
-        location = location.convertToUnits(LengthUnit.Millimeters);
+        // offset coordinates to driver / absolute coordinates, in millimeters, which is the unit
+        // that this driver works in natively.
+        location = new MutableLocation(location).subtract(hm.getHeadOffsets())
+                .toLocation(LengthUnit.Millimeters);
 
         // Get the current location of the Head that we'll move
         Location hl = getHeadLocation(hm.getHead());
@@ -244,6 +254,7 @@ public class NullDriver implements ReferenceDriver {
     public void actuate(ReferenceActuator actuator, double value) throws Exception {
         logger.debug("actuate({}, {})", actuator, value);
         checkEnabled();
+        actuatorValues.put(actuator, String.valueOf(value));
         if (feedRateMmPerMinute > 0) {
             Thread.sleep(500);
         }
@@ -253,11 +264,19 @@ public class NullDriver implements ReferenceDriver {
     public void actuate(ReferenceActuator actuator, boolean on) throws Exception {
         logger.debug("actuate({}, {})", actuator, on);
         checkEnabled();
+        actuatorValues.put(actuator, String.valueOf(on));
         if (feedRateMmPerMinute > 0) {
             Thread.sleep(500);
         }
     }
 
+    @Override
+    public String actuatorRead(ReferenceActuator actuator) throws Exception {
+        logger.debug("actuatorRead({})", actuator);
+        checkEnabled();
+        return actuatorValues.getOrDefault(actuator, "0");
+    }
+
     @Override
     public void dispense(ReferencePasteDispenser dispenser, Location startLocation,
             Location endLocation, long dispenseTimeMilliseconds) throws Exception {
@@ -25,6 +25,8 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.imageio.ImageIO;
 import javax.swing.Action;
@@ -35,6 +37,7 @@ import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceFeeder;
 import org.openpnp.machine.reference.feeder.wizards.ReferenceDragFeederConfigurationWizard;
 import org.openpnp.model.Configuration;
+import org.openpnp.model.Length;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.model.Rectangle;
@@ -65,6 +68,12 @@ import org.slf4j.LoggerFactory;
  * commanded to pick the Part it only needs to move the distance of the Vision Offsets and do the
  * pick. The Vision Offsets are then used in the next feed operation to be sure to hit the tape at
  * the right position.
+ * 
+ * A well behaved tape tends to produce the same Vision Offsets feed after feed. When Skip After
+ * Stable Feeds is set, the Vision Operation is skipped once that many feeds in a row have produced
+ * offsets within the Stable Tolerance of each other, and the last offsets are reused. Vision is run
+ * again after Verify Interval skipped feeds, and any offset outside the tolerance starts the count
+ * over.
  */
 public class ReferenceDragFeeder extends ReferenceFeeder {
     private final static Logger logger = LoggerFactory.getLogger(ReferenceDragFeeder.class);
@@ -92,6 +101,13 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
      */
     protected Location visionOffset;
 
+    /*
+     * The number of feeds in a row whose vision offsets were within the stable tolerance of the
+     * previous offsets, and the number of feeds that have skipped vision since it was last run.
+     */
+    protected int stableFeeds;
+    protected int skippedFeeds;
+
     @Override
     public Location getPickLocation() throws Exception {
         if (pickLocation == null) {
@@ -100,6 +116,15 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
         return pickLocation;
     }
 
+    /**
+     * The actuator moves from the feed start to the feed end location, and with vision enabled
+     * the camera looks at the pick location.
+     */
+    @Override
+    public List<Location> getFeedLocations() throws Exception {
+        return Arrays.asList(feedStartLocation, feedEndLocation, getPickLocation());
+    }
+
     @Override
     public void feed(Nozzle nozzle) throws Exception {
         logger.debug("feed({})", nozzle);
@@ -138,6 +163,8 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
                 logger.debug("First feed, running vision pre-flight.");
 
                 visionOffset = getVisionOffsets(head, location);
+                stableFeeds = 0;
+                skippedFeeds = 0;
             }
             logger.debug("visionOffsets " + visionOffset);
         }
@@ -174,16 +201,42 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
         actuator.actuate(false);
 
         if (vision.isEnabled()) {
-            visionOffset = getVisionOffsets(head, location);
+            if (isVisionOffsetStable()) {
+                skippedFeeds++;
+                logger.debug("Vision offsets stable for {} feeds, skipping vision.", stableFeeds);
+            }
+            else {
+                Location offset = getVisionOffsets(head, location);
+                updateStability(offset);
+                visionOffset = offset;
 
-            logger.debug("final visionOffsets " + visionOffset);
+                logger.debug("final visionOffsets " + visionOffset);
+            }
         }
 
         logger.debug("Modified pickLocation {}", pickLocation);
     }
 
+    private boolean isVisionOffsetStable() {
+        int skipAfterStableFeeds = vision.getSkipAfterStableFeeds();
+        return skipAfterStableFeeds > 0 && stableFeeds >= skipAfterStableFeeds
+                && skippedFeeds < vision.getVerifyInterval();
+    }
+
+    private void updateStability(Location offset) {
+        Length tolerance = vision.getStableTolerance();
+        if (visionOffset != null && tolerance != null && offset.getLinearDistanceTo(
+                visionOffset) <= tolerance.convertToUnits(offset.getUnits()).getValue()) {
+            stableFeeds++;
+        }
+        else {
+            stableFeeds = 0;
+        }
+        skippedFeeds = 0;
+    }
+
     // TODO: Throw an Exception if vision fails.
-    private Location getVisionOffsets(Head head, Location pickLocation) throws Exception {
+    protected Location getVisionOffsets(Head head, Location pickLocation) throws Exception {
         logger.debug("getVisionOffsets({}, {})", head.getName(), pickLocation);
         // Find the Camera to be used for vision
         // TODO: Consider caching this
@@ -225,9 +278,8 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
         // match now contains the position, in pixels, from the top left corner
         // of the image to the top left corner of the match. We are interested in
         // knowing how far from the center of the image the center of the match is.
-        BufferedImage image = camera.capture();
-        double imageWidth = image.getWidth();
-        double imageHeight = image.getHeight();
+        double imageWidth = camera.getWidth();
+        double imageHeight = camera.getHeight();
         double templateWidth = vision.getTemplateImage().getWidth();
         double templateHeight = vision.getTemplateImage().getHeight();
         double matchX = match.x;
@@ -366,6 +418,12 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
         private Location templateImageTopLeft = new Location(LengthUnit.Millimeters);
         @Element(required = false)
         private Location templateImageBottomRight = new Location(LengthUnit.Millimeters);
+        @Attribute(required = false)
+        private int skipAfterStableFeeds;
+        @Attribute(required = false)
+        private int verifyInterval = 10;
+        @Element(required = false)
+        private Length stableTolerance = new Length(0.05, LengthUnit.Millimeters);
 
         private BufferedImage templateImage;
         private boolean templateImageDirty;
@@ -442,5 +500,39 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
         public void setTemplateImageBottomRight(Location templateImageBottomRight) {
             this.templateImageBottomRight = templateImageBottomRight;
         }
+
+        /**
+         * The number of feeds in a row that must produce stable offsets before vision is
+         * skipped. 0 disables skipping.
+         */
+        public int getSkipAfterStableFeeds() {
+            return skipAfterStableFeeds;
+        }
+
+        public void setSkipAfterStableFeeds(int skipAfterStableFeeds) {
+            this.skipAfterStableFeeds = skipAfterStableFeeds;
+        }
+
+        /**
+         * The number of feeds that may skip vision before it is run again to verify the offsets.
+         */
+        public int getVerifyInterval() {
+            return verifyInterval;
+        }
+
+        public void setVerifyInterval(int verifyInterval) {
+            this.verifyInterval = verifyInterval;
+        }
+
+        /**
+         * How far apart the offsets of two feeds may be and still count as stable.
+         */
+        public Length getStableTolerance() {
+            return stableTolerance;
+        }
+
+        public void setStableTolerance(Length stableTolerance) {
+            this.stableTolerance = stableTolerance;
+        }
     }
 }
@@ -23,11 +23,13 @@ package org.openpnp.machine.reference.feeder;
 
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.swing.Action;
 
 import org.openpnp.gui.MainFrame;
+import org.openpnp.gui.components.CameraView;
 import org.openpnp.gui.support.PropertySheetWizardAdapter;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceFeeder;
@@ -39,8 +41,10 @@ import org.openpnp.model.Point;
 import org.openpnp.spi.Camera;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.spi.PropertySheetHolder;
+import org.openpnp.util.ImageUtils;
 import org.openpnp.util.MovableUtils;
 import org.openpnp.util.Utils2D;
+import org.openpnp.util.VisionUtils;
 import org.openpnp.vision.FluentCv;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
@@ -51,6 +55,11 @@ import org.slf4j.LoggerFactory;
 /**
  * Implementation of Feeder that indexes through a strip of cut tape. This is a specialization of
  * the tray feeder that knows specifics about tape so that vision capabilities can be added.
+ * 
+ * With tracking enabled the feeder fits a line through the reference hole, the last hole and the
+ * holes it has seen, predicts where the next hole will be and only searches a small area around
+ * the prediction. A full frame search is made every Tracking Verify Interval feeds, or whenever
+ * the hole is not found within Tracking Tolerance of the prediction, and the line is fitted again.
  */
 
 /**
@@ -108,6 +117,15 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
     @Attribute
     private int feedCount = 0;
 
+    @Attribute(required = false)
+    private boolean trackingEnabled = false;
+
+    @Attribute(required = false)
+    private int trackingVerifyInterval = 10;
+
+    @Element(required = false)
+    private Length trackingTolerance = new Length(0.25, LengthUnit.Millimeters);
+
     private Length holeDiameter = new Length(1.5, LengthUnit.Millimeters);
 
     private Length holePitch = new Length(4, LengthUnit.Millimeters);
@@ -117,6 +135,17 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
     private Location visionOffsets;
     private Location visionLocation;
 
+    /*
+     * The most recently seen holes, the line fitted through them as an origin at the reference
+     * hole and a unit direction towards the last hole, both in millimeters, and the number of
+     * feeds that have been tracked since the line was last fitted.
+     */
+    private static final int MAX_OBSERVED_HOLES = 100;
+    private List<Location> observedHoles = new ArrayList<>();
+    private Point trackingOrigin;
+    private Point trackingDirection;
+    private int trackedFeeds;
+
     public Length getHoleDiameterMin() {
         return getHoleDiameter().multiply(0.9);
     }
@@ -200,6 +229,15 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
         }
     }
 
+    /**
+     * With vision enabled the camera looks for the next hole along the strip, which runs from the
+     * reference hole past the last hole.
+     */
+    @Override
+    public List<Location> getFeedLocations() throws Exception {
+        return Arrays.asList(referenceHoleLocation, lastHoleLocation, getPickLocation());
+    }
+
     public void feed(Nozzle nozzle) throws Exception {
         setFeedCount(getFeedCount() + 1);
 
@@ -212,7 +250,7 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
         }
         // go to where we expect to find the next reference hole
         Camera camera = nozzle.getHead().getDefaultCamera();
-        Location expectedLocation = null;
+        Length distance = null;
         Location[] lineLocations = getIdealLineLocations();
 
         if (partPitch.convertToUnits(LengthUnit.Millimeters).getValue() < 4) {
@@ -220,53 +258,199 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
             // twice since there are two parts per reference hole.
             // Note the use of holePitch here and partPitch in the
             // alternate case below.
-            expectedLocation = getPointAlongLine(lineLocations[0], lineLocations[1],
-                    holePitch.multiply((feedCount - 1) / 2));
+            distance = holePitch.multiply((feedCount - 1) / 2);
         }
         else {
             // For tapes with a part pitch >= 4 there is always a reference
             // hole 2mm from a part so we just multiply by the part pitch
             // skipping over holes that are not reference holes.
-            expectedLocation = getPointAlongLine(lineLocations[0], lineLocations[1],
-                    partPitch.multiply(feedCount - 1));
+            distance = partPitch.multiply(feedCount - 1);
+        }
+        Location expectedLocation = getPointAlongLine(lineLocations[0], lineLocations[1], distance);
+        Location actualLocation = null;
+        boolean verified = true;
+        if (isTracking()) {
+            Location predictedLocation = getPredictedHoleLocation(expectedLocation, distance);
+            MovableUtils.moveToLocationAtSafeZ(camera, predictedLocation);
+            actualLocation = findHoleNearCenter(camera);
+            if (actualLocation == null) {
+                logger.debug("Feeder {}: hole not found near {}, verifying.", getName(),
+                        predictedLocation);
+            }
+            else if (actualLocation.getLinearLengthTo(predictedLocation)
+                    .convertToUnits(LengthUnit.Millimeters).getValue() > trackingTolerance
+                            .convertToUnits(LengthUnit.Millimeters).getValue()) {
+                logger.debug("Feeder {}: hole {} too far from prediction {}, verifying.",
+                        getName(), actualLocation, predictedLocation);
+                actualLocation = null;
+            }
+            else {
+                verified = false;
+            }
+            if (actualLocation == null) {
+                actualLocation = findClosestHole(camera);
+            }
+        }
+        else {
+            MovableUtils.moveToLocationAtSafeZ(camera, expectedLocation);
+            // and look for the hole
+            actualLocation = findClosestHole(camera);
         }
-        MovableUtils.moveToLocationAtSafeZ(camera, expectedLocation);
-        // and look for the hole
-        Location actualLocation = findClosestHole(camera);
         if (actualLocation == null) {
             throw new Exception(
                     "Feeder " + getName() + ": Unable to locate reference hole. End of strip?");
         }
         // make sure it's not too far away
-        Length distance = actualLocation.getLinearLengthTo(expectedLocation)
+        Length offsetLength = actualLocation.getLinearLengthTo(expectedLocation)
                 .convertToUnits(LengthUnit.Millimeters);
-        if (distance.getValue() > 2) {
+        if (offsetLength.getValue() > 2) {
             throw new Exception(
                     "Feeder " + getName() + ": Unable to locate reference hole. End of strip?");
         }
         visionOffsets = actualLocation.subtract(expectedLocation).derive(null, null, 0d, 0d);
         visionLocation = actualLocation;
+        if (trackingEnabled) {
+            observedHoles.add(actualLocation);
+            if (observedHoles.size() > MAX_OBSERVED_HOLES) {
+                observedHoles.remove(0);
+            }
+            if (verified) {
+                fitTrackingLine();
+                trackedFeeds = 0;
+            }
+            else {
+                trackedFeeds++;
+            }
+        }
+    }
+
+    private boolean isTracking() {
+        return trackingEnabled && trackingDirection != null
+                && trackedFeeds < trackingVerifyInterval;
+    }
+
+    /**
+     * Fit a line through the reference hole, the last hole and the observed holes by least
+     * squares, measuring the error perpendicular to the line since the strip can be at any angle.
+     */
+    private void fitTrackingLine() {
+        Location reference = referenceHoleLocation.convertToUnits(LengthUnit.Millimeters);
+        Location last = lastHoleLocation.convertToUnits(LengthUnit.Millimeters);
+        List<Location> points = new ArrayList<>();
+        points.add(reference);
+        points.add(last);
+        for (Location hole : observedHoles) {
+            points.add(hole.convertToUnits(LengthUnit.Millimeters));
+        }
+        double cx = 0, cy = 0;
+        for (Location point : points) {
+            cx += point.getX();
+            cy += point.getY();
+        }
+        cx /= points.size();
+        cy /= points.size();
+        double sxx = 0, sxy = 0, syy = 0;
+        for (Location point : points) {
+            double dx = point.getX() - cx;
+            double dy = point.getY() - cy;
+            sxx += dx * dx;
+            sxy += dx * dy;
+            syy += dy * dy;
+        }
+        if (sxx + syy == 0) {
+            // All of the points are the same, so there is no line to follow.
+            trackingDirection = null;
+            return;
+        }
+        double angle = 0.5 * Math.atan2(2 * sxy, sxx - syy);
+        double ux = Math.cos(angle);
+        double uy = Math.sin(angle);
+        if ((last.getX() - reference.getX()) * ux + (last.getY() - reference.getY()) * uy < 0) {
+            ux = -ux;
+            uy = -uy;
+        }
+        // Start the line at the reference hole's projection onto it.
+        double t = (reference.getX() - cx) * ux + (reference.getY() - cy) * uy;
+        trackingOrigin = new Point(cx + t * ux, cy + t * uy);
+        trackingDirection = new Point(ux, uy);
+        logger.debug("Feeder {}: fitted strip line through {} holes, origin {}, {}, angle {}",
+                getName(), points.size(), trackingOrigin.x, trackingOrigin.y,
+                Math.toDegrees(Math.atan2(uy, ux)));
+    }
+
+    private Location getPredictedHoleLocation(Location expectedLocation, Length distance) {
+        double d = distance.convertToUnits(LengthUnit.Millimeters).getValue();
+        Location predicted = new Location(LengthUnit.Millimeters,
+                trackingOrigin.x + trackingDirection.x * d,
+                trackingOrigin.y + trackingDirection.y * d, 0, 0)
+                        .convertToUnits(expectedLocation.getUnits());
+        return expectedLocation.derive(predicted.getX(), predicted.getY(), null, null);
     }
 
     private Location findClosestHole(Camera camera) {
         List<Location> holeLocations = new ArrayList<>();
-        BufferedImage image = new FluentCv().setCamera(camera).settleAndCapture("original").toGray()
+        FluentCv cv = new FluentCv().setCamera(camera).settleAndCapture("original").toGray()
                 .blurGaussian(getHoleBlurKernelSize())
                 .findCirclesHough(getHoleDiameterMin(), getHoleDiameterMax(), getHolePitchMin(),
                         "circles")
-                .convertCirclesToLocations(holeLocations).drawCircles("original").toBufferedImage();
+                .convertCirclesToLocations(holeLocations);
         if (holeLocations.isEmpty()) {
             return null;
         }
-        try {
-            MainFrame.get().getCameraViews().getCameraView(camera).showFilteredImage(image, 500);
+        showFilteredImage(camera, cv, "original");
+        return holeLocations.get(0);
+    }
+
+    /**
+     * Look for a hole in a small area at the center of the camera, which is large enough for a
+     * hole that is up to the tracking tolerance away from the center. Only that area is converted
+     * and searched.
+     */
+    private Location findHoleNearCenter(Camera camera) {
+        BufferedImage image = camera.settleAndCapture();
+        int size = (int) Math.ceil(2 * VisionUtils.toPixels(getHoleDiameterMax(), camera)
+                + 2 * VisionUtils.toPixels(trackingTolerance, camera));
+        int width = Math.min(size, image.getWidth());
+        int height = Math.min(size, image.getHeight());
+        int x = (image.getWidth() - width) / 2;
+        int y = (image.getHeight() - height) / 2;
+        BufferedImage roi =
+                ImageUtils.crop(image, x, y, width, height, BufferedImage.TYPE_3BYTE_BGR);
+
+        List<org.opencv.core.Point> points = new ArrayList<>();
+        FluentCv cv = new FluentCv().setCamera(camera).toMat(roi, "original").toGray()
+                .blurGaussian(getHoleBlurKernelSize())
+                .findCirclesHough(getHoleDiameterMin(), getHoleDiameterMax(), getHolePitchMin(),
+                        "circles")
+                .convertCirclesToPoints(points);
+        if (points.isEmpty()) {
+            return null;
         }
-        catch (Exception e) {
-            // if we aren't running in the UI this will fail, and that's okay
+        List<Location> holeLocations = new ArrayList<>();
+        for (org.opencv.core.Point point : points) {
+            holeLocations.add(VisionUtils.getPixelLocation(camera, point.x + x, point.y + y));
         }
+        VisionUtils.sortLocationsByDistance(camera.getLocation(), holeLocations);
+        showFilteredImage(camera, cv, "original");
         return holeLocations.get(0);
     }
 
+    /**
+     * Draw the circles found onto the image stored in baseTag and show it in the camera's view.
+     * Nothing is drawn when there is no UI to show it in.
+     */
+    private static void showFilteredImage(Camera camera, FluentCv cv, String baseTag) {
+        MainFrame mainFrame = MainFrame.get();
+        if (mainFrame == null) {
+            return;
+        }
+        CameraView cameraView = mainFrame.getCameraViews().getCameraView(camera);
+        if (cameraView == null) {
+            return;
+        }
+        cameraView.showFilteredImage(cv.drawCircles(baseTag).toBufferedImage(), 500);
+    }
+
     private Length getHoleToPartLateral() {
         Length tapeWidth = this.tapeWidth.convertToUnits(LengthUnit.Millimeters);
         return new Length(tapeWidth.getValue() / 2 - 0.5, LengthUnit.Millimeters);
@@ -311,6 +495,7 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
     public void setReferenceHoleLocation(Location referenceHoleLocation) {
         this.referenceHoleLocation = referenceHoleLocation;
         visionLocation = null;
+        resetTracking();
     }
 
     public Location getLastHoleLocation() {
@@ -320,6 +505,14 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
     public void setLastHoleLocation(Location lastHoleLocation) {
         this.lastHoleLocation = lastHoleLocation;
         visionLocation = null;
+        resetTracking();
+    }
+
+    private void resetTracking() {
+        observedHoles.clear();
+        trackingOrigin = null;
+        trackingDirection = null;
+        trackedFeeds = 0;
     }
 
     public Length getHoleDiameter() {
@@ -381,6 +574,31 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
         this.visionEnabled = visionEnabled;
     }
 
+    public boolean isTrackingEnabled() {
+        return trackingEnabled;
+    }
+
+    public void setTrackingEnabled(boolean trackingEnabled) {
+        this.trackingEnabled = trackingEnabled;
+        resetTracking();
+    }
+
+    public int getTrackingVerifyInterval() {
+        return trackingVerifyInterval;
+    }
+
+    public void setTrackingVerifyInterval(int trackingVerifyInterval) {
+        this.trackingVerifyInterval = trackingVerifyInterval;
+    }
+
+    public Length getTrackingTolerance() {
+        return trackingTolerance;
+    }
+
+    public void setTrackingTolerance(Length trackingTolerance) {
+        this.trackingTolerance = trackingTolerance;
+    }
+
     @Override
     public String toString() {
         return getName();
@@ -85,6 +85,9 @@ public class ReferenceDragFeederConfigurationWizard
     private JPanel panelVision;
     private JPanel panelLocations;
     private JCheckBox chckbxVisionEnabled;
+    private JTextField textFieldSkipAfterStableFeeds;
+    private JTextField textFieldVerifyInterval;
+    private JTextField textFieldStableTolerance;
     private JPanel panelVisionEnabled;
     private JPanel panelTemplate;
     private JLabel labelTemplateImage;
@@ -215,6 +218,25 @@ public class ReferenceDragFeederConfigurationWizard
         chckbxVisionEnabled = new JCheckBox("Vision Enabled?");
         panelVisionEnabled.add(chckbxVisionEnabled);
 
+        panelVisionEnabled.add(new JLabel("Skip After Stable Feeds"));
+        textFieldSkipAfterStableFeeds = new JTextField();
+        textFieldSkipAfterStableFeeds.setToolTipText(
+                "Skip vision once this many feeds in a row find the same offsets. 0 never skips.");
+        textFieldSkipAfterStableFeeds.setColumns(4);
+        panelVisionEnabled.add(textFieldSkipAfterStableFeeds);
+
+        panelVisionEnabled.add(new JLabel("Verify Interval"));
+        textFieldVerifyInterval = new JTextField();
+        textFieldVerifyInterval.setToolTipText(
+                "Run vision again after this many feeds have skipped it.");
+        textFieldVerifyInterval.setColumns(4);
+        panelVisionEnabled.add(textFieldVerifyInterval);
+
+        panelVisionEnabled.add(new JLabel("Stable Tolerance"));
+        textFieldStableTolerance = new JTextField();
+        textFieldStableTolerance.setColumns(6);
+        panelVisionEnabled.add(textFieldStableTolerance);
+
         separator = new JSeparator();
         panelVision.add(separator);
 
@@ -337,6 +359,12 @@ public class ReferenceDragFeederConfigurationWizard
         addWrappedBinding(feedEndLocation, "lengthZ", textFieldFeedEndZ, "text", lengthConverter);
 
         addWrappedBinding(feeder, "vision.enabled", chckbxVisionEnabled, "selected");
+        addWrappedBinding(feeder, "vision.skipAfterStableFeeds", textFieldSkipAfterStableFeeds,
+                "text", intConverter);
+        addWrappedBinding(feeder, "vision.verifyInterval", textFieldVerifyInterval, "text",
+                intConverter);
+        addWrappedBinding(feeder, "vision.stableTolerance", textFieldStableTolerance, "text",
+                lengthConverter);
         addWrappedBinding(feeder, "vision.templateImage", labelTemplateImage, "icon",
                 imageConverter);
 
@@ -356,6 +384,9 @@ public class ReferenceDragFeederConfigurationWizard
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldFeedEndX);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldFeedEndY);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldFeedEndZ);
+        ComponentDecorators.decorateWithAutoSelect(textFieldSkipAfterStableFeeds);
+        ComponentDecorators.decorateWithAutoSelect(textFieldVerifyInterval);
+        ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldStableTolerance);
         ComponentDecorators.decorateWithAutoSelect(textFieldAoiX);
         ComponentDecorators.decorateWithAutoSelect(textFieldAoiY);
         ComponentDecorators.decorateWithAutoSelect(textFieldAoiWidth);
@@ -171,6 +171,7 @@ public class ReferenceStripFeederConfigurationWizard extends AbstractConfigurati
                         FormSpecs.RELATED_GAP_COLSPEC, FormSpecs.DEFAULT_COLSPEC,
                         FormSpecs.RELATED_GAP_COLSPEC, FormSpecs.DEFAULT_COLSPEC,},
                 new RowSpec[] {FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
                         FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
                         FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
                         FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,}));
@@ -220,6 +221,28 @@ public class ReferenceStripFeederConfigurationWizard extends AbstractConfigurati
         chckbxUseVision = new JCheckBox("");
         panelTapeSettings.add(chckbxUseVision, "4, 8");
 
+        lblTracking = new JLabel("Track Holes?");
+        lblTracking.setToolTipText(
+                "Predict each hole from the strip line and only search a small area around it.");
+        panelTapeSettings.add(lblTracking, "2, 10, right, default");
+
+        chckbxTracking = new JCheckBox("");
+        panelTapeSettings.add(chckbxTracking, "4, 10");
+
+        lblTrackingVerifyInterval = new JLabel("Verify Interval");
+        panelTapeSettings.add(lblTrackingVerifyInterval, "6, 10, right, default");
+
+        textFieldTrackingVerifyInterval = new JTextField();
+        panelTapeSettings.add(textFieldTrackingVerifyInterval, "8, 10");
+        textFieldTrackingVerifyInterval.setColumns(5);
+
+        lblTrackingTolerance = new JLabel("Tolerance");
+        panelTapeSettings.add(lblTrackingTolerance, "10, 10, right, default");
+
+        textFieldTrackingTolerance = new JTextField();
+        panelTapeSettings.add(textFieldTrackingTolerance, "12, 10");
+        textFieldTrackingTolerance.setColumns(5);
+
         panelLocations = new JPanel();
         contentPanel.add(panelLocations);
         panelLocations.setBorder(new TitledBorder(null, "Locations", TitledBorder.LEADING,
@@ -322,12 +345,19 @@ public class ReferenceStripFeederConfigurationWizard extends AbstractConfigurati
         addWrappedBinding(feedEndLocation, "lengthZ", textFieldFeedEndZ, "text", lengthConverter);
 
         addWrappedBinding(feeder, "visionEnabled", chckbxUseVision, "selected");
+        addWrappedBinding(feeder, "trackingEnabled", chckbxTracking, "selected");
+        addWrappedBinding(feeder, "trackingVerifyInterval", textFieldTrackingVerifyInterval, "text",
+                intConverter);
+        addWrappedBinding(feeder, "trackingTolerance", textFieldTrackingTolerance, "text",
+                lengthConverter);
 
         ComponentDecorators.decorateWithAutoSelect(textFieldLocationRotation);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldTapeWidth);
         ComponentDecorators.decorateWithAutoSelect(retryCountTf);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldPartPitch);
         ComponentDecorators.decorateWithAutoSelect(textFieldFeedCount);
+        ComponentDecorators.decorateWithAutoSelect(textFieldTrackingVerifyInterval);
+        ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldTrackingTolerance);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldFeedStartX);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldFeedStartY);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldFeedStartZ);
@@ -545,6 +575,12 @@ public class ReferenceStripFeederConfigurationWizard extends AbstractConfigurati
 
     private JCheckBox chckbxUseVision;
     private JLabel lblUseVision;
+    private JLabel lblTracking;
+    private JCheckBox chckbxTracking;
+    private JLabel lblTrackingVerifyInterval;
+    private JTextField textFieldTrackingVerifyInterval;
+    private JLabel lblTrackingTolerance;
+    private JTextField textFieldTrackingTolerance;
     private JLabel lblPart;
     private JLabel lblRetryCount;
     private JTextField retryCountTf;
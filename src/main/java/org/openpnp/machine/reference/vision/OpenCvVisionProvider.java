@@ -19,30 +19,26 @@
 
 package org.openpnp.machine.reference.vision;
 
-
-
 import java.awt.Point;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-
-import javax.imageio.ImageIO;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.opencv.core.Core;
 import org.opencv.core.Core.MinMaxLocResult;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
-import org.opencv.core.Rect;
 import org.opencv.core.Scalar;
 import org.opencv.imgproc.Imgproc;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.vision.wizards.OpenCvVisionProviderConfigurationWizard;
-import org.openpnp.model.Configuration;
 import org.openpnp.spi.Camera;
 import org.openpnp.spi.VisionProvider;
+import org.openpnp.util.DebugImageWriter;
 import org.openpnp.util.ImageUtils;
 import org.openpnp.util.OpenCvUtils;
 import org.openpnp.util.VisionUtils;
@@ -55,12 +51,18 @@ public class OpenCvVisionProvider implements VisionProvider {
     private final static Logger logger = LoggerFactory.getLogger(OpenCvVisionProvider.class);
 
     static {
-        nu.pattern.OpenCV.loadShared();
-        System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+        OpenCvUtils.loadNativeLibrary();
     }
 
     protected Camera camera;
 
+    /**
+     * Template images prepared for matching, keyed by the template image instance. Feeders replace
+     * their template image rather than drawing into it, so a new template gets a new entry and the
+     * old one is dropped once its image is no longer referenced.
+     */
+    private final Map<BufferedImage, Mat> templateMats = new WeakHashMap<>();
+
     @Override
     public void setCamera(Camera camera) {
         this.camera = camera;
@@ -157,15 +159,10 @@ public class OpenCvVisionProvider implements VisionProvider {
             int coiY, BufferedImage templateImage_) throws Exception {
         BufferedImage cameraImage_ = camera.capture();
 
-        // Convert the camera image and template image to the same type. This
-        // is required by the cvMatchTemplate call.
-        templateImage_ =
-                ImageUtils.convertBufferedImage(templateImage_, BufferedImage.TYPE_INT_ARGB);
-        cameraImage_ = ImageUtils.convertBufferedImage(cameraImage_, BufferedImage.TYPE_INT_ARGB);
-
-        Mat templateImage = OpenCvUtils.toMat(templateImage_);
-        Mat cameraImage = OpenCvUtils.toMat(cameraImage_);
-        Mat roiImage = new Mat(cameraImage, new Rect(roiX, roiY, roiWidth, roiHeight));
+        // Only the area of interest is converted. Both images are converted to the same type,
+        // which is required by the cvMatchTemplate call.
+        Mat templateImage = getTemplateMat(templateImage_);
+        Mat roiImage = OpenCvUtils.toMat(crop(cameraImage_, roiX, roiY, roiWidth, roiHeight));
 
         // http://stackoverflow.com/questions/17001083/opencv-template-matching-example-in-android
         Mat resultImage = new Mat(roiImage.cols() - templateImage.cols() + 1,
@@ -188,36 +185,45 @@ public class OpenCvVisionProvider implements VisionProvider {
 
     protected void saveDebugImage(String name, Mat mat) {
         if (logger.isDebugEnabled()) {
-            try {
-                BufferedImage debugImage = OpenCvUtils.toBufferedImage(mat);
-                File file = Configuration.get().createResourceFile(OpenCvVisionProvider.class,
-                        name + "_", ".png");
-                ImageIO.write(debugImage, "PNG", file);
-            }
-            catch (Exception e) {
-                e.printStackTrace();
-            }
+            DebugImageWriter.get().write(OpenCvVisionProvider.class, name + "_", mat);
         }
     }
 
+    private synchronized Mat getTemplateMat(BufferedImage templateImage) {
+        Mat mat = templateMats.get(templateImage);
+        if (mat == null) {
+            // A template read from a gray PNG is TYPE_BYTE_GRAY, which toMat() would keep as a
+            // single channel Mat, so convert it to the type crop() gives the area of interest.
+            mat = OpenCvUtils.toMat(
+                    ImageUtils.convertBufferedImage(templateImage, BufferedImage.TYPE_3BYTE_BGR));
+            templateMats.put(templateImage, mat);
+        }
+        return mat;
+    }
+
+    /**
+     * Copy the given region of the image into a new TYPE_3BYTE_BGR image, the type toMat() uses
+     * without a further conversion.
+     */
+    private static BufferedImage crop(BufferedImage image, int x, int y, int width, int height)
+            throws Exception {
+        if (x < 0 || y < 0 || width <= 0 || height <= 0 || x + width > image.getWidth()
+                || y + height > image.getHeight()) {
+            throw new Exception(String.format(
+                    "Area of interest %d, %d, %d x %d is outside of the %d x %d camera image.", x,
+                    y, width, height, image.getWidth(), image.getHeight()));
+        }
+        return ImageUtils.crop(image, x, y, width, height, BufferedImage.TYPE_3BYTE_BGR);
+    }
+
     private void locateTemplateMatchesDebug(Mat roiImage, Mat templateImage,
             org.opencv.core.Point matchLoc) {
         if (logger.isDebugEnabled()) {
-            try {
-                Core.rectangle(roiImage, matchLoc,
-                        new org.opencv.core.Point(matchLoc.x + templateImage.cols(),
-                                matchLoc.y + templateImage.rows()),
-                        new Scalar(0, 255, 0));
-
-                BufferedImage debugImage = OpenCvUtils.toBufferedImage(roiImage);
-                File file = Configuration.get().createResourceFile(OpenCvVisionProvider.class,
-                        "debug_", ".png");
-                ImageIO.write(debugImage, "PNG", file);
-                logger.debug("Debug image filename {}", file);
-            }
-            catch (Exception e) {
-                e.printStackTrace();
-            }
+            Core.rectangle(roiImage, matchLoc,
+                    new org.opencv.core.Point(matchLoc.x + templateImage.cols(),
+                            matchLoc.y + templateImage.rows()),
+                    new Scalar(0, 255, 0));
+            DebugImageWriter.get().write(OpenCvVisionProvider.class, "debug_", roiImage);
         }
     }
 
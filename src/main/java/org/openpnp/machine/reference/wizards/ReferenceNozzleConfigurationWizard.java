@@ -52,6 +52,7 @@ public class ReferenceNozzleConfigurationWizard extends AbstractConfigurationWiz
     private JCheckBox chckbxChangerEnabled;
     private JCheckBox chckbxLimitRotationTo;
     private JTextField textFieldSafeZ;
+    private JTextField textFieldVacuumSenseActuatorName;
 
     public ReferenceNozzleConfigurationWizard(ReferenceNozzle nozzle) {
         this.nozzle = nozzle;
@@ -122,6 +123,7 @@ public class ReferenceNozzleConfigurationWizard extends AbstractConfigurationWiz
                                 FormSpecs.RELATED_GAP_COLSPEC, ColumnSpec.decode("default:grow"),
                                 FormSpecs.RELATED_GAP_COLSPEC, ColumnSpec.decode("default:grow"),},
                         new RowSpec[] {FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                                FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
                                 FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,}));
 
         chckbxChangerEnabled = new JCheckBox("Changer Enabled?");
@@ -130,6 +132,16 @@ public class ReferenceNozzleConfigurationWizard extends AbstractConfigurationWiz
         chckbxLimitRotationTo = new JCheckBox("Limit Rotation to 180º");
         panelChanger.add(chckbxLimitRotationTo, "2, 4");
 
+        JLabel lblVacuumSenseActuator = new JLabel("Vacuum Sense Actuator");
+        lblVacuumSenseActuator.setToolTipText(
+                "Name of the actuator that reads the vacuum level, to check picks against the "
+                        + "nozzle tip's vacuum thresholds.");
+        panelChanger.add(lblVacuumSenseActuator, "2, 6, right, default");
+
+        textFieldVacuumSenseActuatorName = new JTextField();
+        panelChanger.add(textFieldVacuumSenseActuatorName, "4, 6, fill, default");
+        textFieldVacuumSenseActuatorName.setColumns(10);
+
 
     }
 
@@ -146,6 +158,8 @@ public class ReferenceNozzleConfigurationWizard extends AbstractConfigurationWiz
         addWrappedBinding(nozzle, "changerEnabled", chckbxChangerEnabled, "selected");
         addWrappedBinding(nozzle, "limitRotation", chckbxLimitRotationTo, "selected");
         addWrappedBinding(nozzle, "safeZ", textFieldSafeZ, "text", lengthConverter);
+        addWrappedBinding(nozzle, "vacuumSenseActuatorName", textFieldVacuumSenseActuatorName,
+                "text");
 
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(locationX);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(locationY);
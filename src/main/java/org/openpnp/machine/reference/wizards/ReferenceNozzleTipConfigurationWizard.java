@@ -45,6 +45,8 @@ import org.openpnp.gui.components.AutoSelectTextTable;
 import org.openpnp.gui.components.ComponentDecorators;
 import org.openpnp.gui.components.LocationButtonsPanel;
 import org.openpnp.gui.support.AbstractConfigurationWizard;
+import org.openpnp.gui.support.DoubleConverter;
+import org.openpnp.gui.support.IntegerConverter;
 import org.openpnp.gui.support.LengthConverter;
 import org.openpnp.gui.support.MutableLocationProxy;
 import org.openpnp.machine.reference.ReferenceNozzleTip;
@@ -92,6 +94,10 @@ public class ReferenceNozzleTipConfigurationWizard extends AbstractConfiguration
     private JButton btnReset;
     private JLabel lblEnabled;
     private JCheckBox calibrationEnabledCheckbox;
+    private JPanel panelVacuum;
+    private JTextField textFieldVacuumLevelPartOnLow;
+    private JTextField textFieldVacuumLevelPartOnHigh;
+    private JTextField textFieldPickRetryCount;
 
     public ReferenceNozzleTipConfigurationWizard(ReferenceNozzleTip nozzleTip) {
         this.nozzleTip = nozzleTip;
@@ -199,6 +205,45 @@ public class ReferenceNozzleTipConfigurationWizard extends AbstractConfiguration
         changerEndLocationButtonsPanel.setShowPositionToolNoSafeZ(true);
         panelChanger.add(changerEndLocationButtonsPanel, "10, 8, fill, default");
 
+        panelVacuum = new JPanel();
+        panelVacuum.setBorder(new TitledBorder(null, "Vacuum Sensing", TitledBorder.LEADING,
+                TitledBorder.TOP, null, null));
+        contentPanel.add(panelVacuum);
+        panelVacuum.setLayout(new FormLayout(
+                new ColumnSpec[] {FormSpecs.RELATED_GAP_COLSPEC, FormSpecs.DEFAULT_COLSPEC,
+                        FormSpecs.RELATED_GAP_COLSPEC, FormSpecs.DEFAULT_COLSPEC,},
+                new RowSpec[] {FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,}));
+
+        JLabel lblVacuumLevelPartOnLow = new JLabel("Part On Vacuum Low");
+        lblVacuumLevelPartOnLow.setToolTipText(
+                "Lowest vacuum sensor reading with a part on the nozzle tip. Picks are only "
+                        + "checked when the high reading is greater than the low reading.");
+        panelVacuum.add(lblVacuumLevelPartOnLow, "2, 2, right, default");
+
+        textFieldVacuumLevelPartOnLow = new JTextField();
+        panelVacuum.add(textFieldVacuumLevelPartOnLow, "4, 2, fill, default");
+        textFieldVacuumLevelPartOnLow.setColumns(10);
+
+        JLabel lblVacuumLevelPartOnHigh = new JLabel("Part On Vacuum High");
+        lblVacuumLevelPartOnHigh.setToolTipText(
+                "Highest vacuum sensor reading with a part on the nozzle tip.");
+        panelVacuum.add(lblVacuumLevelPartOnHigh, "2, 4, right, default");
+
+        textFieldVacuumLevelPartOnHigh = new JTextField();
+        panelVacuum.add(textFieldVacuumLevelPartOnHigh, "4, 4, fill, default");
+        textFieldVacuumLevelPartOnHigh.setColumns(10);
+
+        JLabel lblPickRetryCount = new JLabel("Pick Retries");
+        lblPickRetryCount.setToolTipText(
+                "How many more times to pick in place when the vacuum shows a missed pick.");
+        panelVacuum.add(lblPickRetryCount, "2, 6, right, default");
+
+        textFieldPickRetryCount = new JTextField();
+        panelVacuum.add(textFieldPickRetryCount, "4, 6, fill, default");
+        textFieldPickRetryCount.setColumns(10);
+
         panelCalibration = new JPanel();
         panelCalibration.setBorder(new TitledBorder(null, "Calibration", TitledBorder.LEADING,
                 TitledBorder.TOP, null, null));
@@ -265,6 +310,8 @@ public class ReferenceNozzleTipConfigurationWizard extends AbstractConfiguration
     @Override
     public void createBindings() {
         LengthConverter lengthConverter = new LengthConverter();
+        DoubleConverter doubleConverter = new DoubleConverter("%f");
+        IntegerConverter integerConverter = new IntegerConverter();
 
         addWrappedBinding(nozzleTip, "allowIncompatiblePackages", chckbxAllowIncompatiblePackages,
                 "selected");
@@ -312,6 +359,17 @@ public class ReferenceNozzleTipConfigurationWizard extends AbstractConfiguration
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldChangerEndX);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldChangerEndY);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldChangerEndZ);
+
+        addWrappedBinding(nozzleTip, "vacuumLevelPartOnLow", textFieldVacuumLevelPartOnLow, "text",
+                doubleConverter);
+        addWrappedBinding(nozzleTip, "vacuumLevelPartOnHigh", textFieldVacuumLevelPartOnHigh,
+                "text", doubleConverter);
+        addWrappedBinding(nozzleTip, "pickRetryCount", textFieldPickRetryCount, "text",
+                integerConverter);
+
+        ComponentDecorators.decorateWithAutoSelect(textFieldVacuumLevelPartOnLow);
+        ComponentDecorators.decorateWithAutoSelect(textFieldVacuumLevelPartOnHigh);
+        ComponentDecorators.decorateWithAutoSelect(textFieldPickRetryCount);
     }
 
     @Override
@@ -21,12 +21,20 @@ package org.openpnp.machine.reference.wizards;
 
 import javax.swing.BoxLayout;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JTextField;
 import javax.swing.border.TitledBorder;
 
+import org.openpnp.gui.components.ComponentDecorators;
 import org.openpnp.gui.support.AbstractConfigurationWizard;
+import org.openpnp.gui.support.DoubleConverter;
+import org.openpnp.gui.support.IntegerConverter;
 import org.openpnp.machine.reference.ReferencePnpJobProcessor;
+import org.openpnp.machine.reference.ReferencePnpJobProcessor.FiducialCheckPolicy;
+import org.openpnp.model.Configuration;
+import org.openpnp.spi.FeederIndex;
 
 import com.jgoodies.forms.layout.ColumnSpec;
 import com.jgoodies.forms.layout.FormLayout;
@@ -37,6 +45,14 @@ import com.jgoodies.forms.layout.RowSpec;
 public class ReferencePnpJobProcessorConfigurationWizard extends AbstractConfigurationWizard {
     private final ReferencePnpJobProcessor jobProcessor;
     private JCheckBox parkWhenComplete;
+    private JCheckBox exportProfile;
+    private JComboBox<FeederIndex.Selection> feederSelection;
+    private JComboBox<FiducialCheckPolicy> fiducialCheckPolicy;
+    private JTextField fiducialCheckPlacements;
+    private JTextField fiducialCheckMaxAge;
+    private JTextField fiducialCheckMaxDrift;
+    private JCheckBox gangPick;
+    private JTextField gangPickTolerance;
 
     public ReferencePnpJobProcessorConfigurationWizard(ReferencePnpJobProcessor jobProcessor) {
         this.jobProcessor = jobProcessor;
@@ -48,17 +64,130 @@ public class ReferencePnpJobProcessorConfigurationWizard extends AbstractConfigu
         contentPanel.add(panelGeneral);
         panelGeneral.setLayout(new FormLayout(
                 new ColumnSpec[] {FormSpecs.DEFAULT_COLSPEC, FormSpecs.DEFAULT_COLSPEC,},
-                new RowSpec[] {FormSpecs.RELATED_GAP_ROWSPEC, RowSpec.decode("16px"),}));
+                new RowSpec[] {FormSpecs.RELATED_GAP_ROWSPEC, RowSpec.decode("16px"),
+                        FormSpecs.RELATED_GAP_ROWSPEC, RowSpec.decode("16px"),
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,}));
 
         JLabel lblParkWhenComplete = new JLabel("Park When Complete");
         panelGeneral.add(lblParkWhenComplete, "1, 2, right, top");
 
         parkWhenComplete = new JCheckBox("");
         panelGeneral.add(parkWhenComplete, "2, 2");
+
+        JLabel lblExportProfile = new JLabel("Export Job Profile");
+        lblExportProfile.setToolTipText(
+                "Write per job cycle time statistics as CSV and JSON to the configuration directory. Older exports are deleted.");
+        panelGeneral.add(lblExportProfile, "1, 4, right, top");
+
+        exportProfile = new JCheckBox("");
+        panelGeneral.add(exportProfile, "2, 4");
+
+        JLabel lblFeederSelection = new JLabel("Feeder Selection");
+        lblFeederSelection.setToolTipText(
+                "How to choose between several enabled feeders for the same part.");
+        panelGeneral.add(lblFeederSelection, "1, 6, right, default");
+
+        feederSelection = new JComboBox<>(FeederIndex.Selection.values());
+        panelGeneral.add(feederSelection, "2, 6");
+
+        JPanel panelFiducials = new JPanel();
+        panelFiducials.setBorder(new TitledBorder(null, "Placement Fiducial Checks",
+                TitledBorder.LEADING, TitledBorder.TOP, null, null));
+        contentPanel.add(panelFiducials);
+        panelFiducials.setLayout(new FormLayout(
+                new ColumnSpec[] {FormSpecs.DEFAULT_COLSPEC, FormSpecs.DEFAULT_COLSPEC,},
+                new RowSpec[] {FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,}));
+
+        JLabel lblFiducialCheckPolicy = new JLabel("Check Policy");
+        lblFiducialCheckPolicy.setToolTipText("When a placement with Check Fids set locates its "
+                + "board again instead of reusing the last check.");
+        panelFiducials.add(lblFiducialCheckPolicy, "1, 2, right, default");
+
+        fiducialCheckPolicy = new JComboBox<>(FiducialCheckPolicy.values());
+        panelFiducials.add(fiducialCheckPolicy, "2, 2");
+
+        JLabel lblFiducialCheckPlacements = new JLabel("Placements");
+        lblFiducialCheckPlacements.setToolTipText(
+                "For the Placements policy, the number of parts placed on a board between checks.");
+        panelFiducials.add(lblFiducialCheckPlacements, "1, 4, right, default");
+
+        fiducialCheckPlacements = new JTextField();
+        fiducialCheckPlacements.setColumns(8);
+        panelFiducials.add(fiducialCheckPlacements, "2, 4");
+
+        JLabel lblFiducialCheckMaxAge = new JLabel("Max Age (s)");
+        lblFiducialCheckMaxAge.setToolTipText(
+                "For the MaxAge and MaxDrift policies, the longest time between checks.");
+        panelFiducials.add(lblFiducialCheckMaxAge, "1, 6, right, default");
+
+        fiducialCheckMaxAge = new JTextField();
+        fiducialCheckMaxAge.setColumns(8);
+        panelFiducials.add(fiducialCheckMaxAge, "2, 6");
+
+        JLabel lblFiducialCheckMaxDrift = new JLabel("Max Drift (mm)");
+        lblFiducialCheckMaxDrift.setToolTipText("For the MaxDrift policy, how far a board may be "
+                + "estimated to have drifted before it is checked again.");
+        panelFiducials.add(lblFiducialCheckMaxDrift, "1, 8, right, default");
+
+        fiducialCheckMaxDrift = new JTextField();
+        fiducialCheckMaxDrift.setColumns(8);
+        panelFiducials.add(fiducialCheckMaxDrift, "2, 8");
+
+        JPanel panelGangPick = new JPanel();
+        panelGangPick.setBorder(new TitledBorder(null, "Gang Picking", TitledBorder.LEADING,
+                TitledBorder.TOP, null, null));
+        contentPanel.add(panelGangPick);
+        panelGangPick.setLayout(new FormLayout(
+                new ColumnSpec[] {FormSpecs.DEFAULT_COLSPEC, FormSpecs.DEFAULT_COLSPEC,},
+                new RowSpec[] {FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,}));
+
+        JLabel lblGangPick = new JLabel("Enabled");
+        lblGangPick.setToolTipText("Pick with several nozzles from one head position when their "
+                + "feeders line up with the nozzle spacing.");
+        panelGangPick.add(lblGangPick, "1, 2, right, default");
+
+        gangPick = new JCheckBox("");
+        panelGangPick.add(gangPick, "2, 2");
+
+        JLabel lblGangPickTolerance = new JLabel("Tolerance (mm)");
+        lblGangPickTolerance.setToolTipText(
+                "How far apart two pick locations may be from lining up and still be gang picked.");
+        panelGangPick.add(lblGangPickTolerance, "1, 4, right, default");
+
+        gangPickTolerance = new JTextField();
+        gangPickTolerance.setColumns(8);
+        panelGangPick.add(gangPickTolerance, "2, 4");
     }
 
     @Override
     public void createBindings() {
         addWrappedBinding(jobProcessor, "parkWhenComplete", parkWhenComplete, "selected");
+        addWrappedBinding(jobProcessor, "exportProfile", exportProfile, "selected");
+        addWrappedBinding(jobProcessor, "feederSelection", feederSelection, "selectedItem");
+
+        IntegerConverter intConverter = new IntegerConverter();
+        DoubleConverter doubleConverter =
+                new DoubleConverter(Configuration.get().getLengthDisplayFormat());
+        addWrappedBinding(jobProcessor, "fiducialCheckPolicy", fiducialCheckPolicy,
+                "selectedItem");
+        addWrappedBinding(jobProcessor, "fiducialCheckPlacements", fiducialCheckPlacements,
+                "text", intConverter);
+        addWrappedBinding(jobProcessor, "fiducialCheckMaxAge", fiducialCheckMaxAge, "text",
+                doubleConverter);
+        addWrappedBinding(jobProcessor, "fiducialCheckMaxDrift", fiducialCheckMaxDrift, "text",
+                doubleConverter);
+
+        ComponentDecorators.decorateWithAutoSelect(fiducialCheckPlacements);
+        ComponentDecorators.decorateWithAutoSelect(fiducialCheckMaxAge);
+        ComponentDecorators.decorateWithAutoSelect(fiducialCheckMaxDrift);
+
+        addWrappedBinding(jobProcessor, "gangPick", gangPick, "selected");
+        addWrappedBinding(jobProcessor, "gangPickTolerance", gangPickTolerance, "text",
+                doubleConverter);
+        ComponentDecorators.decorateWithAutoSelect(gangPickTolerance);
     }
 }
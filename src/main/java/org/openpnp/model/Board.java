@@ -127,6 +127,22 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
         }
     }
 
+    /**
+     * Add all of the placements at once, with a single property change, rather than calling
+     * addPlacement(Placement) for each.
+     * 
+     * @param placements
+     */
+    public void addPlacements(List<Placement> placements) {
+        Object oldValue = this.placements;
+        this.placements = new ArrayList<>(this.placements);
+        this.placements.addAll(placements);
+        firePropertyChange("placements", oldValue, this.placements);
+        for (Placement placement : placements) {
+            placement.addPropertyChangeListener(this);
+        }
+    }
+
     public void removePlacement(Placement placement) {
         Object oldValue = placements;
         placements = new ArrayList<>(placements);
@@ -151,6 +167,22 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
         }
     }
 
+    /**
+     * Add all of the pads at once, with a single property change, rather than calling
+     * addSolderPastePad(BoardPad) for each.
+     * 
+     * @param pads
+     */
+    public void addSolderPastePads(List<BoardPad> pads) {
+        Object oldValue = solderPastePads;
+        solderPastePads = new ArrayList<>(solderPastePads);
+        solderPastePads.addAll(pads);
+        firePropertyChange("solderPastePads", oldValue, solderPastePads);
+        for (BoardPad pad : pads) {
+            pad.addPropertyChangeListener(this);
+        }
+    }
+
     public void removeSolderPastePad(BoardPad pad) {
         Object oldValue = solderPastePads;
         solderPastePads = new ArrayList<>(solderPastePads);
@@ -20,6 +20,7 @@
 package org.openpnp.model;
 
 import org.openpnp.model.Board.Side;
+import org.openpnp.util.BoardTransform;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.simpleframework.xml.core.Commit;
@@ -40,6 +41,8 @@ public class BoardLocation extends AbstractModelObject {
     @Attribute(required = false)
     private boolean enabled = true;
 
+    private volatile BoardTransform placementTransform;
+
     BoardLocation() {
         setLocation(new Location(LengthUnit.Millimeters));
     }
@@ -63,6 +66,7 @@ public class BoardLocation extends AbstractModelObject {
     public void setLocation(Location location) {
         Location oldValue = this.location;
         this.location = location;
+        this.placementTransform = null;
         firePropertyChange("location", oldValue, location);
     }
 
@@ -73,6 +77,7 @@ public class BoardLocation extends AbstractModelObject {
     public void setSide(Side side) {
         Object oldValue = this.side;
         this.side = side;
+        this.placementTransform = null;
         firePropertyChange("side", oldValue, side);
     }
 
@@ -83,9 +88,42 @@ public class BoardLocation extends AbstractModelObject {
     public void setBoard(Board board) {
         Board oldValue = this.board;
         this.board = board;
+        this.placementTransform = null;
         firePropertyChange("board", oldValue, board);
     }
 
+    /**
+     * Get the transform from board coordinates to machine coordinates for this BoardLocation. The
+     * transform is cached and rebuilt when the location, side or board, or the width of the board,
+     * changes.
+     * 
+     * @return
+     */
+    public BoardTransform getPlacementTransform() {
+        double offset = board == null ? 0 : board.getDimensions().getX();
+        BoardTransform transform = placementTransform;
+        if (transform == null || transform.getOffset() != offset) {
+            transform = new BoardTransform(location, side, offset);
+            placementTransform = transform;
+        }
+        return transform;
+    }
+
+    /**
+     * Get a transform for this BoardLocation's board and side placed at the given location, such
+     * as a location found by a fiducial check.
+     * 
+     * @param location
+     * @return
+     */
+    public BoardTransform getPlacementTransform(Location location) {
+        BoardTransform transform = getPlacementTransform();
+        if (location == this.location || location.equals(transform.getBoardLocation())) {
+            return transform;
+        }
+        return new BoardTransform(location, side, transform.getOffset());
+    }
+
     String getBoardFile() {
         return boardFile;
     }
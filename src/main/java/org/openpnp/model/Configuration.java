@@ -29,10 +29,15 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.prefs.Preferences;
 
 import org.apache.commons.io.FileUtils;
 import org.openpnp.ConfigurationListener;
+import org.openpnp.ScriptRuntime;
 import org.openpnp.spi.Machine;
 import org.openpnp.util.ResourceUtils;
 import org.simpleframework.xml.Element;
@@ -71,9 +76,11 @@ public class Configuration extends AbstractModelObject {
     private Machine machine;
     private LinkedHashMap<File, Board> boards = new LinkedHashMap<>();
     private boolean loaded;
+    private Preloaded preloaded;
     private Set<ConfigurationListener> listeners = Collections.synchronizedSet(new HashSet<>());
     private File configurationDirectory;
     private Preferences prefs;
+    private ScriptRuntime scriptRuntime;
 
     public static Configuration get() {
         if (instance == null) {
@@ -96,6 +103,17 @@ public class Configuration extends AbstractModelObject {
         return configurationDirectory;
     }
 
+    /**
+     * Get the ScriptRuntime for the scripts directory in the configuration directory, creating it
+     * the first time.
+     */
+    public synchronized ScriptRuntime getScriptRuntime() {
+        if (scriptRuntime == null) {
+            scriptRuntime = new ScriptRuntime(new File(configurationDirectory, "scripts"));
+        }
+        return scriptRuntime;
+    }
+
     public LengthUnit getSystemUnits() {
         return LengthUnit.valueOf(prefs.get(PREF_UNITS, PREF_UNITS_DEF));
     }
@@ -199,65 +217,53 @@ public class Configuration extends AbstractModelObject {
         listeners.remove(listener);
     }
 
-    public synchronized void load() throws Exception {
-        boolean forceSave = false;
-        boolean overrideUserConfig = Boolean.getBoolean("overrideUserConfig");
-
-        try {
-            File file = new File(configurationDirectory, "packages.xml");
-            if (overrideUserConfig || !file.exists()) {
-                logger.info("No packages.xml found in configuration directory, loading defaults.");
-                file = File.createTempFile("packages", "xml");
-                FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/packages.xml"), file);
-                forceSave = true;
-            }
-            loadPackages(file);
-        }
-        catch (Exception e) {
-            String message = e.getMessage();
-            if (e.getCause() != null && e.getCause().getMessage() != null) {
-                message = e.getCause().getMessage();
-            }
-            throw new Exception("Error while reading packages.xml (" + message + ")", e);
+    /**
+     * Parse packages.xml, parts.xml and machine.xml concurrently, one document per thread, and
+     * keep the results for load(). Nothing in the Configuration is changed and no listeners are
+     * called, so this can be called from a background thread while the user interface is being
+     * built. Calling it is optional; load() parses the documents itself if it has not been
+     * called.
+     * 
+     * @throws Exception
+     */
+    public synchronized void preload() throws Exception {
+        if (preloaded != null) {
+            return;
         }
-
-
+        ExecutorService executor = Executors.newFixedThreadPool(3, r -> {
+            Thread thread = new Thread(r, "Configuration Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
         try {
-            File file = new File(configurationDirectory, "parts.xml");
-            if (overrideUserConfig || !file.exists()) {
-                logger.info("No parts.xml found in configuration directory, loading defaults.");
-                file = File.createTempFile("parts", "xml");
-                FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/parts.xml"), file);
-                forceSave = true;
-            }
-            loadParts(file);
+            Future<Document<PackagesConfigurationHolder>> packages =
+                    executor.submit(() -> parse("packages.xml", PackagesConfigurationHolder.class));
+            Future<Document<PartsConfigurationHolder>> parts =
+                    executor.submit(() -> parse("parts.xml", PartsConfigurationHolder.class));
+            Future<Document<MachineConfigurationHolder>> machine =
+                    executor.submit(() -> parse("machine.xml", MachineConfigurationHolder.class));
+            preloaded = new Preloaded(getResult(packages), getResult(parts), getResult(machine));
         }
-        catch (Exception e) {
-            String message = e.getMessage();
-            if (e.getCause() != null && e.getCause().getMessage() != null) {
-                message = e.getCause().getMessage();
-            }
-            throw new Exception("Error while reading parts.xml (" + message + ")", e);
+        finally {
+            executor.shutdownNow();
         }
+    }
 
+    public synchronized void load() throws Exception {
+        preload();
+        Preloaded preloaded = this.preloaded;
+        this.preloaded = null;
 
-        try {
-            File file = new File(configurationDirectory, "machine.xml");
-            if (overrideUserConfig || !file.exists()) {
-                logger.info("No machine.xml found in configuration directory, loading defaults.");
-                file = File.createTempFile("machine", "xml");
-                FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/machine.xml"), file);
-                forceSave = true;
-            }
-            loadMachine(file);
+        for (Package pkg : preloaded.packages.holder.packages) {
+            addPackage(pkg);
         }
-        catch (Exception e) {
-            String message = e.getMessage();
-            if (e.getCause() != null && e.getCause().getMessage() != null) {
-                message = e.getCause().getMessage();
-            }
-            throw new Exception("Error while reading machine.xml (" + message + ")", e);
+        for (Part part : preloaded.parts.holder.parts) {
+            addPart(part);
         }
+        machine = preloaded.machine.holder.machine;
+
+        boolean forceSave = preloaded.packages.defaults || preloaded.parts.defaults
+                || preloaded.machine.defaults;
 
         loaded = true;
 
@@ -276,6 +282,51 @@ public class Configuration extends AbstractModelObject {
         }
     }
 
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Read the named document from the configuration directory, or the default from the
+     * classpath if there is none or overrideUserConfig is set.
+     */
+    private <T> Document<T> parse(String name, Class<T> holderClass) throws Exception {
+        boolean overrideUserConfig = Boolean.getBoolean("overrideUserConfig");
+        try {
+            File file = new File(configurationDirectory, name);
+            boolean defaults = false;
+            if (overrideUserConfig || !file.exists()) {
+                logger.info("No " + name + " found in configuration directory, loading defaults.");
+                file = File.createTempFile(name.substring(0, name.indexOf('.')), "xml");
+                FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/" + name), file);
+                defaults = true;
+            }
+            long t = System.currentTimeMillis();
+            T holder = createSerializer().read(holderClass, file);
+            logger.debug("Parsed {} in {} ms", name, System.currentTimeMillis() - t);
+            return new Document<>(holder, defaults);
+        }
+        catch (Exception e) {
+            String message = e.getMessage();
+            if (e.getCause() != null && e.getCause().getMessage() != null) {
+                message = e.getCause().getMessage();
+            }
+            throw new Exception("Error while reading " + name + " (" + message + ")", e);
+        }
+    }
+
+    private static <T> T getResult(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
     public synchronized void save() throws Exception {
         try {
             saveMachine(new File(configurationDirectory, "machine.xml"));
@@ -370,12 +421,6 @@ public class Configuration extends AbstractModelObject {
         return board;
     }
 
-    private void loadMachine(File file) throws Exception {
-        Serializer serializer = createSerializer();
-        MachineConfigurationHolder holder = serializer.read(MachineConfigurationHolder.class, file);
-        machine = holder.machine;
-    }
-
     private void saveMachine(File file) throws Exception {
         MachineConfigurationHolder holder = new MachineConfigurationHolder();
         holder.machine = machine;
@@ -384,15 +429,6 @@ public class Configuration extends AbstractModelObject {
         serializer.write(holder, file);
     }
 
-    private void loadPackages(File file) throws Exception {
-        Serializer serializer = createSerializer();
-        PackagesConfigurationHolder holder =
-                serializer.read(PackagesConfigurationHolder.class, file);
-        for (Package pkg : holder.packages) {
-            addPackage(pkg);
-        }
-    }
-
     private void savePackages(File file) throws Exception {
         Serializer serializer = createSerializer();
         PackagesConfigurationHolder holder = new PackagesConfigurationHolder();
@@ -401,14 +437,6 @@ public class Configuration extends AbstractModelObject {
         serializer.write(holder, file);
     }
 
-    private void loadParts(File file) throws Exception {
-        Serializer serializer = createSerializer();
-        PartsConfigurationHolder holder = serializer.read(PartsConfigurationHolder.class, file);
-        for (Part part : holder.parts) {
-            addPart(part);
-        }
-    }
-
     private void saveParts(File file) throws Exception {
         Serializer serializer = createSerializer();
         PartsConfigurationHolder holder = new PartsConfigurationHolder();
@@ -501,6 +529,30 @@ public class Configuration extends AbstractModelObject {
         return UUID.randomUUID().toString();
     }
 
+    private static class Document<T> {
+        final T holder;
+        final boolean defaults;
+
+        Document(T holder, boolean defaults) {
+            this.holder = holder;
+            this.defaults = defaults;
+        }
+    }
+
+    private static class Preloaded {
+        final Document<PackagesConfigurationHolder> packages;
+        final Document<PartsConfigurationHolder> parts;
+        final Document<MachineConfigurationHolder> machine;
+
+        Preloaded(Document<PackagesConfigurationHolder> packages,
+                Document<PartsConfigurationHolder> parts,
+                Document<MachineConfigurationHolder> machine) {
+            this.packages = packages;
+            this.parts = parts;
+            this.machine = machine;
+        }
+    }
+
     /**
      * Used to provide a fixed root for the Machine when serializing.
      */
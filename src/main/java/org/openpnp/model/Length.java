@@ -91,49 +91,70 @@ public class Length {
         if (this.units == units) {
             return this;
         }
-        double mm = 0;
-        if (this.units == LengthUnit.Millimeters) {
-            mm = value;
+        return new Length(convertToUnits(value, this.units, units), units);
+    }
+
+    public static double convertToUnits(double value, LengthUnit fromUnits, LengthUnit toUnits) {
+        if (fromUnits == toUnits) {
+            return value;
         }
-        else if (this.units == LengthUnit.Centimeters) {
-            mm = value * 10;
+        return fromMillimeters(toMillimeters(value, fromUnits), toUnits);
+    }
+
+    /**
+     * Convert a value in the given units to millimeters without allocating a Length.
+     * 
+     * @param value
+     * @param units
+     * @return
+     */
+    public static double toMillimeters(double value, LengthUnit units) {
+        if (units == LengthUnit.Millimeters) {
+            return value;
         }
-        else if (this.units == LengthUnit.Meters) {
-            mm = value * 1000;
+        else if (units == LengthUnit.Centimeters) {
+            return value * 10;
         }
-        else if (this.units == LengthUnit.Inches) {
-            mm = value * 25.4;
+        else if (units == LengthUnit.Meters) {
+            return value * 1000;
         }
-        else if (this.units == LengthUnit.Feet) {
-            mm = value * 25.4 * 12;
+        else if (units == LengthUnit.Inches) {
+            return value * 25.4;
+        }
+        else if (units == LengthUnit.Feet) {
+            return value * 25.4 * 12;
         }
         else {
-            throw new Error("convertLength() unrecognized units " + this.units);
+            throw new Error("convertLength() unrecognized units " + units);
         }
+    }
 
+    /**
+     * Convert a value in millimeters to the given units without allocating a Length.
+     * 
+     * @param mm
+     * @param units
+     * @return
+     */
+    public static double fromMillimeters(double mm, LengthUnit units) {
         if (units == LengthUnit.Millimeters) {
-            return new Length(mm, units);
+            return mm;
         }
         else if (units == LengthUnit.Centimeters) {
-            return new Length(mm / 10, units);
+            return mm / 10;
         }
         else if (units == LengthUnit.Meters) {
-            return new Length(mm / 1000, units);
+            return mm / 1000;
         }
         else if (units == LengthUnit.Inches) {
-            return new Length(mm * (1 / 25.4), units);
+            return mm * (1 / 25.4);
         }
         else if (units == LengthUnit.Feet) {
-            return new Length(mm * (1 / 25.4) * 12, units);
+            return mm * (1 / 25.4) / 12;
         }
         else {
             throw new Error("convertLength() unrecognized units " + units);
         }
-
-    }
-
-    public static double convertToUnits(double value, LengthUnit fromUnits, LengthUnit toUnits) {
-        return new Length(value, fromUnits).convertToUnits(toUnits).getValue();
     }
 
     public static Length parse(String s) {
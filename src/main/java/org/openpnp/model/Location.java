@@ -85,10 +85,14 @@ public class Location {
     }
 
     public Location convertToUnits(LengthUnit units) {
-        Location location =
-                new Location(units, new Length(x, this.units).convertToUnits(units).getValue(),
-                        new Length(y, this.units).convertToUnits(units).getValue(),
-                        new Length(z, this.units).convertToUnits(units).getValue(), rotation);
+        // Locations are immutable, so there is no need to copy one that is already in the
+        // requested units.
+        if (this.units == units) {
+            return this;
+        }
+        Location location = new Location(units, Length.convertToUnits(x, this.units, units),
+                Length.convertToUnits(y, this.units, units),
+                Length.convertToUnits(z, this.units, units), rotation);
         return location;
     }
 
@@ -0,0 +1,155 @@
+package org.openpnp.model;
+
+import java.util.Locale;
+
+/**
+ * A mutable companion to Location for hot paths such as motion and vision offset math. Its
+ * operations update it in place, so a chain of operations does not allocate intermediate
+ * Locations.
+ *
+ * Like Location, a MutableLocation keeps the units it was set with and converts the Locations it
+ * is combined with to those units. A Location that is read in and handed back out with
+ * toLocation() therefore keeps its exact values, which matters to drivers that compare the target
+ * with their current coordinates. toLocation(LengthUnit) converts the result once, at the end. As
+ * with Location, add and subtract do not change the rotation.
+ */
+public class MutableLocation {
+    private LengthUnit units = LengthUnit.Millimeters;
+    private double x;
+    private double y;
+    private double z;
+    private double rotation;
+
+    public MutableLocation() {}
+
+    public MutableLocation(Location location) {
+        set(location);
+    }
+
+    public MutableLocation(LengthUnit units, double x, double y, double z, double rotation) {
+        set(units, x, y, z, rotation);
+    }
+
+    public MutableLocation set(Location location) {
+        return set(location.getUnits(), location.getX(), location.getY(), location.getZ(),
+                location.getRotation());
+    }
+
+    public MutableLocation set(LengthUnit units, double x, double y, double z, double rotation) {
+        this.units = units;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.rotation = rotation;
+        return this;
+    }
+
+    public MutableLocation add(Location location) {
+        return add(location.getUnits(), location.getX(), location.getY(), location.getZ());
+    }
+
+    public MutableLocation add(LengthUnit units, double x, double y, double z) {
+        this.x += Length.convertToUnits(x, units, this.units);
+        this.y += Length.convertToUnits(y, units, this.units);
+        this.z += Length.convertToUnits(z, units, this.units);
+        return this;
+    }
+
+    public MutableLocation subtract(Location location) {
+        return add(location.getUnits(), -location.getX(), -location.getY(), -location.getZ());
+    }
+
+    /**
+     * Returns true if any of the components is Double.NaN.
+     *
+     * @return
+     */
+    public boolean hasNaN() {
+        return Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(z) || Double.isNaN(rotation);
+    }
+
+    /**
+     * Replace any components that are Double.NaN with the matching component of location.
+     *
+     * @param location
+     * @return
+     */
+    public MutableLocation replaceNaN(Location location) {
+        LengthUnit units = location.getUnits();
+        if (Double.isNaN(x)) {
+            x = Length.convertToUnits(location.getX(), units, this.units);
+        }
+        if (Double.isNaN(y)) {
+            y = Length.convertToUnits(location.getY(), units, this.units);
+        }
+        if (Double.isNaN(z)) {
+            z = Length.convertToUnits(location.getZ(), units, this.units);
+        }
+        if (Double.isNaN(rotation)) {
+            rotation = location.getRotation();
+        }
+        return this;
+    }
+
+    public LengthUnit getUnits() {
+        return units;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public void setX(double x) {
+        this.x = x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public void setY(double y) {
+        this.y = y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public void setZ(double z) {
+        this.z = z;
+    }
+
+    public double getRotation() {
+        return rotation;
+    }
+
+    public void setRotation(double rotation) {
+        this.rotation = rotation;
+    }
+
+    public double getX(LengthUnit units) {
+        return Length.convertToUnits(x, this.units, units);
+    }
+
+    public double getY(LengthUnit units) {
+        return Length.convertToUnits(y, this.units, units);
+    }
+
+    public double getZ(LengthUnit units) {
+        return Length.convertToUnits(z, this.units, units);
+    }
+
+    public Location toLocation() {
+        return new Location(units, x, y, z, rotation);
+    }
+
+    public Location toLocation(LengthUnit units) {
+        return new Location(units, getX(units), getY(units), getZ(units), rotation);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "(%f, %f, %f, %f %s)", x, y, z, rotation,
+                units.getShortName());
+    }
+}
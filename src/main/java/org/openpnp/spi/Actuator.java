@@ -45,4 +45,14 @@ public interface Actuator
      * @throws Exception
      */
     public void actuate(double value) throws Exception;
+
+    /**
+     * Reads the current value of the Actuator, for Actuators that are sensors such as a vacuum
+     * sensor or a limit switch. The format of the value is up to the driver; analog sensors
+     * typically return a number and boolean sensors true / false or 1 / 0.
+     * 
+     * @return
+     * @throws Exception If the Actuator can't be read.
+     */
+    public String read() throws Exception;
 }
@@ -29,6 +29,10 @@ import org.openpnp.model.Named;
 
 /**
  * Represents a Camera attached to the system and allows a caller to retrieve images from it.
+ * 
+ * The images a Camera returns, and those it passes to CameraListeners, may be shared with other
+ * callers and listeners, so they must be treated as read only. Copy an image before drawing on
+ * it.
  */
 public interface Camera extends HeadMountable, WizardConfigurable,
         PropertySheetHolder, Closeable {
@@ -69,6 +73,41 @@ public interface Camera extends HeadMountable, WizardConfigurable,
      */
     public BufferedImage settleAndCapture();
 
+    /**
+     * Returns the first frame that was exposed after the given System.nanoTime() value. Cameras
+     * that run a grabber thread serve this from their frame buffer without an additional device
+     * read, so vision code can request a frame that is guaranteed to postdate the end of a move.
+     * 
+     * The default waits until nanoTime and then calls capture(), for cameras without a frame
+     * buffer.
+     * 
+     * @param nanoTime
+     * @return
+     */
+    public default BufferedImage captureAfter(long nanoTime) {
+        long waitNanos = nanoTime - System.nanoTime();
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1000000L, (int) (waitNanos % 1000000L));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return capture();
+    }
+
+    /**
+     * Returns the most recent frame available from the camera without waiting for a new one, if
+     * the camera has one buffered. Otherwise this is the same as capture(), which is what the
+     * default does.
+     * 
+     * @return
+     */
+    public default BufferedImage captureLatest() {
+        return capture();
+    }
+
     /**
      * Registers a listener to receive continuous images from the camera at a rate less than or
      * equal to maximumFps images per second.
@@ -19,6 +19,9 @@
 
 package org.openpnp.spi;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.openpnp.model.Identifiable;
 import org.openpnp.model.Location;
 import org.openpnp.model.Named;
@@ -74,6 +77,19 @@ public interface Feeder extends Identifiable, Named, WizardConfigurable, Propert
      * @throws Exception
      */
     public void feed(Nozzle nozzle) throws Exception;
-    
+
+    /**
+     * Gets the Locations that feed() may move a Nozzle, Camera or Actuator to, such as the ends of
+     * a drag or the locations vision looks at, so that a job processor can keep other heads out of
+     * the way while this Feeder feeds. The default is the pick location alone, which suits Feeders
+     * that don't move the head to feed.
+     * 
+     * @return
+     * @throws Exception
+     */
+    public default List<Location> getFeedLocations() throws Exception {
+        return Collections.singletonList(getPickLocation());
+    }
+
     public int getRetryCount();
 }
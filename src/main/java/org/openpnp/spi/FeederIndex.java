@@ -0,0 +1,90 @@
+package org.openpnp.spi;
+
+import java.beans.PropertyChangeListener;
+import java.util.List;
+
+import org.openpnp.model.Part;
+
+/**
+ * An index of the enabled Feeders on a Machine by the Part they serve, so that finding a feeder
+ * for a Part does not require a scan of every feeder.
+ */
+public interface FeederIndex {
+    /**
+     * How to choose between several enabled feeders for the same Part.
+     */
+    public enum Selection {
+        /**
+         * The first enabled feeder in machine order. Drains one feeder before moving on to the
+         * next.
+         */
+        First,
+        /**
+         * The enabled feeder whose pick location is nearest to the nozzle.
+         */
+        Nearest,
+        /**
+         * Each enabled feeder in turn, to spread depletion across identical feeders.
+         */
+        RoundRobin
+    }
+
+    /**
+     * Get the enabled feeders for the Part, in machine order. The returned list must not be
+     * modified.
+     *
+     * @param part
+     * @return
+     */
+    public List<Feeder> getFeeders(Part part);
+
+    public boolean hasFeeder(Part part);
+
+    /**
+     * Select one of the enabled feeders for the Part according to the Selection policy.
+     *
+     * @param part
+     * @param selection
+     * @param hm The nozzle that will pick the part, used by Selection.Nearest. May be null, in
+     *        which case Nearest behaves as First.
+     * @return The selected Feeder, or null if there is no enabled feeder for the Part.
+     */
+    public Feeder select(Part part, Selection selection, HeadMountable hm);
+
+    /**
+     * Get the feeder that select() would return, without moving Selection.RoundRobin on to the
+     * next feeder. Use this when planning, and call used() with the feeder that is finally fed
+     * from.
+     *
+     * @param part
+     * @param selection
+     * @param hm The nozzle that will pick the part, used by Selection.Nearest. May be null, in
+     *        which case Nearest behaves as First.
+     * @return The selected Feeder, or null if there is no enabled feeder for the Part.
+     */
+    public Feeder peek(Part part, Selection selection, HeadMountable hm);
+
+    /**
+     * Record that the Part was fed from the feeder, so that Selection.RoundRobin continues with
+     * the feeder after it. select() does this itself.
+     *
+     * @param part
+     * @param feeder
+     */
+    public void used(Part part, Feeder feeder);
+
+    /**
+     * Discard the index so that it is rebuilt on the next lookup. Call this after changing the
+     * enabled state or Part of a feeder that does not fire property changes.
+     */
+    public void invalidate();
+
+    /**
+     * Listen for "feeders" property changes, fired whenever the index is invalidated.
+     *
+     * @param listener
+     */
+    public void addPropertyChangeListener(PropertyChangeListener listener);
+
+    public void removePropertyChangeListener(PropertyChangeListener listener);
+}
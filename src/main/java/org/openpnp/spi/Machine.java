@@ -65,6 +65,14 @@ public interface Machine extends WizardConfigurable, PropertySheetHolder, Closea
 
     public Feeder getFeederByName(String name);
 
+    /**
+     * Gets the index of enabled Feeders by Part, used to find a feeder for a Part without scanning
+     * every feeder.
+     * 
+     * @return
+     */
+    public FeederIndex getFeederIndex();
+
     /**
      * Gets a List of Cameras attached to the Machine that are not attached to Heads.
      * 
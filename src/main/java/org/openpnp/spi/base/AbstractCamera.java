@@ -17,6 +17,8 @@ import org.openpnp.model.Location;
 import org.openpnp.spi.Camera;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.VisionProvider;
+import org.openpnp.util.FrameRingBuffer;
+import org.openpnp.util.Profiler;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 
@@ -39,8 +41,20 @@ public abstract class AbstractCamera implements Camera {
     @Attribute(required = false)
     protected long settleTimeMs = 250;
 
+    /**
+     * Maximum time in milliseconds that captureAfter() will wait on the frame buffer before falling
+     * back to a direct capture.
+     */
+    @Attribute(required = false)
+    protected long captureAfterTimeoutMs = 1000;
+
     protected Set<ListenerEntry> listeners = Collections.synchronizedSet(new HashSet<>());
 
+    /**
+     * Timestamped frames published by the camera's grabber thread, if it has one.
+     */
+    protected final FrameRingBuffer frameBuffer = new FrameRingBuffer(4);
+
     protected Head head;
 
     protected Integer width;
@@ -127,15 +141,79 @@ public abstract class AbstractCamera implements Camera {
     }
 
     public BufferedImage settleAndCapture() {
-        try {
-            Thread.sleep(getSettleTimeMs());
+        return captureAfter(System.nanoTime() + getSettleTimeMs() * 1000000L);
+    }
+
+    @Override
+    public BufferedImage captureAfter(long nanoTime) {
+        long t = Profiler.start();
+        BufferedImage image = awaitFrameAfter(nanoTime);
+        Profiler.stop("camera.captureAfter", t);
+        return image;
+    }
+
+    private BufferedImage awaitFrameAfter(long nanoTime) {
+        if (isGrabbing()) {
+            try {
+                FrameRingBuffer.Frame frame =
+                        frameBuffer.awaitAfter(nanoTime, getSettleTimeMs() + captureAfterTimeoutMs);
+                if (frame != null) {
+                    return frame.image;
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
         }
-        catch (Exception e) {
+        // No grabber thread, or it stalled, so do a direct read once the requested time has
+        // passed.
+        long waitMs = (nanoTime - System.nanoTime()) / 1000000L;
+        if (waitMs > 0) {
+            try {
+                Thread.sleep(waitMs);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return capture();
+    }
 
+    @Override
+    public BufferedImage captureLatest() {
+        if (isGrabbing()) {
+            FrameRingBuffer.Frame frame = frameBuffer.getLatest();
+            if (frame != null) {
+                return frame.image;
+            }
         }
         return capture();
     }
 
+    /**
+     * Returns true if the camera currently has a grabber thread publishing frames with
+     * publishFrame(). Subclasses that run one should override this.
+     * 
+     * @return
+     */
+    protected boolean isGrabbing() {
+        return false;
+    }
+
+    /**
+     * Called by a camera's grabber thread for each frame read from the device. The frame is stored
+     * in the frame buffer and then sent to any continuous capture listeners.
+     * 
+     * @param img
+     * @param nanoTime The System.nanoTime() value taken just before the frame was read.
+     */
+    protected void publishFrame(BufferedImage img, long nanoTime) {
+        frameBuffer.add(img, nanoTime);
+        broadcastCapture(img);
+    }
+
     protected void broadcastCapture(BufferedImage img) {
         for (ListenerEntry listener : new ArrayList<>(listeners)) {
             if (listener.lastFrameSent < (System.currentTimeMillis()
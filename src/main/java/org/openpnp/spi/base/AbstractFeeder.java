@@ -34,7 +34,9 @@ public abstract class AbstractFeeder extends AbstractModelObject implements Feed
         Configuration.get().addListener(new ConfigurationListener.Adapter() {
             @Override
             public void configurationLoaded(Configuration configuration) throws Exception {
+                Part oldValue = part;
                 part = configuration.getPart(partId);
+                firePropertyChange("part", oldValue, part);
             }
         });
     }
@@ -51,13 +53,17 @@ public abstract class AbstractFeeder extends AbstractModelObject implements Feed
 
     @Override
     public void setEnabled(boolean enabled) {
+        boolean oldValue = this.enabled;
         this.enabled = enabled;
+        firePropertyChange("enabled", oldValue, enabled);
     }
 
     @Override
     public void setPart(Part part) {
+        Part oldValue = this.part;
         this.part = part;
         this.partId = part.getId();
+        firePropertyChange("part", oldValue, part);
     }
 
     @Override
@@ -1,18 +1,33 @@
 package org.openpnp.spi.base;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.Action;
 import javax.swing.Icon;
 
+import org.openpnp.ScriptRuntime;
 import org.openpnp.gui.support.PropertySheetWizardAdapter;
 import org.openpnp.gui.support.Wizard;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Job;
 import org.openpnp.spi.JobProcessor;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.spi.Signaler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public abstract class AbstractJobProcessor implements JobProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractJobProcessor.class);
+
+    /**
+     * The variables job event scripts may be given. Each event sets all of them, so that a pooled
+     * engine doesn't keep those of an earlier event.
+     */
+    private static final String[] SCRIPT_VARIABLES = {"job", "jobProcessor", "boardLocation",
+            "placement", "part", "nozzle", "feeder", "error"};
 
     public enum State {
         STOPPED,
@@ -27,6 +42,10 @@ public abstract class AbstractJobProcessor implements JobProcessor {
 
     protected List<TextStatusListener> textStatusListeners = new ArrayList<>();
 
+    protected long jobScriptEventCount;
+
+    protected long jobScriptEventTimeNs;
+
     @Override
     public String getPropertySheetHolderTitle() {
         return getClass().getSimpleName();
@@ -83,6 +102,85 @@ public abstract class AbstractJobProcessor implements JobProcessor {
         signalers.forEach(signaler -> signaler.signalJobProcessorState(state));
     }
 
+    /**
+     * Run the Job.Starting scripts and start counting the time event scripts take for the job.
+     * Call this once the job has passed its pre-flight checks.
+     * 
+     * @param job
+     * @throws Exception
+     */
+    protected void fireJobStarting(Job job) throws Exception {
+        ScriptRuntime scriptRuntime = Configuration.get().getScriptRuntime();
+        jobScriptEventCount = scriptRuntime.getEventCount();
+        jobScriptEventTimeNs = scriptRuntime.getEventTimeNs();
+        fireJobScriptEvent("Job.Starting", job, null);
+    }
+
+    /**
+     * Run the Job.Finished scripts and log the time event scripts took for the job. Call this
+     * when the job is cleaned up, whether it completed or was aborted.
+     * 
+     * @param job
+     * @throws Exception
+     */
+    protected void fireJobFinished(Job job) throws Exception {
+        fireJobScriptEvent("Job.Finished", job, null);
+        ScriptRuntime scriptRuntime = Configuration.get().getScriptRuntime();
+        long scriptEventCount = scriptRuntime.getEventCount() - jobScriptEventCount;
+        if (scriptEventCount > 0) {
+            long scriptEventTimeNs = scriptRuntime.getEventTimeNs() - jobScriptEventTimeNs;
+            logger.info("Event scripts ran {} times in {} ms, {} ms per run.", scriptEventCount,
+                    scriptEventTimeNs / 1e6, scriptEventTimeNs / 1e6 / scriptEventCount);
+        }
+    }
+
+    /**
+     * Run the Job.Error scripts, with the Exception that stopped the job as error. A script that
+     * fails here is logged rather than thrown, so that the caller reports the original error.
+     * 
+     * @param job
+     * @param error
+     */
+    protected void fireJobError(Job job, Exception error) {
+        try {
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("error", error);
+            fireJobScriptEvent("Job.Error", job, variables);
+        }
+        catch (Exception e) {
+            logger.warn("Job.Error script failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Run the scripts for the given job event. Scripts get the job and jobProcessor, along with
+     * the given variables. Nothing is done if the event has no scripts, so unused events cost next
+     * to nothing. A script that throws stops the job with an error, like any other step.
+     * 
+     * @param event
+     * @param job
+     * @param variables Any of boardLocation, placement, part, nozzle, feeder and error. May be
+     *        null.
+     * @throws Exception
+     */
+    protected void fireJobScriptEvent(String event, Job job, Map<String, Object> variables)
+            throws Exception {
+        ScriptRuntime scriptRuntime = Configuration.get().getScriptRuntime();
+        if (!scriptRuntime.hasScripts(event)) {
+            return;
+        }
+        Map<String, Object> globals = new HashMap<>();
+        for (String name : SCRIPT_VARIABLES) {
+            globals.put(name, null);
+        }
+        if (variables != null) {
+            globals.putAll(variables);
+        }
+        globals.put("job", job);
+        globals.put("jobProcessor", this);
+        scriptRuntime.on(event, globals);
+    }
+
     /**
      * Call the Retryable's action method until it either does not throw an Exception or it is
      * called maxTries number of times. If the method throws an Exception each time then this method
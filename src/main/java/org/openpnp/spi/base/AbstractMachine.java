@@ -67,6 +67,8 @@ public abstract class AbstractMachine implements Machine {
 
     protected ThreadPoolExecutor executor;
 
+    protected SimpleFeederIndex feederIndex = new SimpleFeederIndex(this);
+
     protected AbstractMachine() {}
 
     @SuppressWarnings("unused")
@@ -177,11 +179,18 @@ public abstract class AbstractMachine implements Machine {
     @Override
     public void addFeeder(Feeder feeder) throws Exception {
         feeders.add(feeder);
+        feederIndex.invalidate();
     }
 
     @Override
     public void removeFeeder(Feeder feeder) {
         feeders.remove(feeder);
+        feederIndex.forget(feeder);
+    }
+
+    @Override
+    public FeederIndex getFeederIndex() {
+        return feederIndex;
     }
 
     @Override
@@ -6,6 +6,7 @@ import java.util.List;
 import javax.swing.Icon;
 
 import org.openpnp.gui.support.Icons;
+import org.openpnp.model.AbstractModelObject;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Part;
 import org.openpnp.spi.Head;
@@ -15,7 +16,7 @@ import org.openpnp.util.IdentifiableList;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.ElementList;
 
-public abstract class AbstractNozzle implements Nozzle {
+public abstract class AbstractNozzle extends AbstractModelObject implements Nozzle {
     @ElementList(required = false)
     protected IdentifiableList<NozzleTip> nozzleTips = new IdentifiableList<>();
 
@@ -39,6 +40,16 @@ public abstract class AbstractNozzle implements Nozzle {
         return Collections.unmodifiableList(nozzleTips);
     }
 
+    public void addNozzleTip(NozzleTip nozzleTip) {
+        nozzleTips.add(nozzleTip);
+        firePropertyChange("nozzleTips", null, getNozzleTips());
+    }
+
+    public void removeNozzleTip(NozzleTip nozzleTip) {
+        nozzleTips.remove(nozzleTip);
+        firePropertyChange("nozzleTips", null, getNozzleTips());
+    }
+
     @Override
     public String getId() {
         return id;
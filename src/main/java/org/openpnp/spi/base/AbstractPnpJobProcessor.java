@@ -1,12 +1,16 @@
 package org.openpnp.spi.base;
 
 import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
 import org.openpnp.model.Part;
 import org.openpnp.spi.Feeder;
+import org.openpnp.spi.FeederIndex;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.Machine;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.spi.NozzleTip;
+import org.openpnp.spi.PartAlignment;
 import org.openpnp.spi.PnpJobProcessor;
 import org.openpnp.util.MovableUtils;
 
@@ -39,6 +43,46 @@ public abstract class AbstractPnpJobProcessor extends AbstractJobProcessor
         nozzle.moveToSafeZ();
     }
 
+    /**
+     * Adjust the placement location for the offsets found when the part was aligned, so that
+     * the part rather than the nozzle ends up at the placement location.
+     * 
+     * @param placementLocation
+     * @param alignmentOffset
+     * @return
+     */
+    public static Location applyAlignmentOffsets(Location placementLocation,
+            PartAlignment.PartAlignmentOffset alignmentOffset) {
+        // preRotated means during alignment we have already rotated the component - this is
+        // useful for say an external rotating stage that the component is placed on, rotated to
+        // correct placement angle, and then picked up again.
+        if (alignmentOffset.getPreRotated()) {
+            return placementLocation.derive(null, null, null,
+                    alignmentOffset.getLocation().getRotation());
+        }
+
+        Location alignmentOffsets = alignmentOffset.getLocation();
+        // Rotate the point 0,0 using the alignment offsets as a center point by the angle that is
+        // the difference between the alignment angle and the calculated global placement angle.
+        Location location =
+                new Location(LengthUnit.Millimeters).rotateXyCenterPoint(alignmentOffsets,
+                        placementLocation.getRotation() - alignmentOffsets.getRotation());
+
+        // Set the angle to the difference mentioned above, aligning the part to the same angle as
+        // the placement.
+        location = location.derive(null, null, null,
+                placementLocation.getRotation() - alignmentOffsets.getRotation());
+
+        // Add the placement final location to move our local coordinate into global space
+        location = location.add(placementLocation);
+
+        // Subtract the alignment offsets to move the part to the final location, instead of the
+        // nozzle.
+        location = location.subtract(alignmentOffsets);
+
+        return location;
+    }
+
     public static NozzleTip findNozzleTip(Nozzle nozzle, Part part) throws Exception {
         for (NozzleTip nozzleTip : nozzle.getNozzleTips()) {
             if (nozzleTip.canHandle(part)) {
@@ -84,12 +128,27 @@ public abstract class AbstractPnpJobProcessor extends AbstractJobProcessor
      * @throws Exception If no Feeder is found that is both enabled and is serving the Part.
      */
     public static Feeder findFeeder(Machine machine, Part part) throws Exception {
-        for (Feeder feeder : machine.getFeeders()) {
-            if (feeder.getPart() == part && feeder.isEnabled()) {
-                return feeder;
-            }
+        return findFeeder(machine, part, FeederIndex.Selection.First, null);
+    }
+
+    /**
+     * Select an enabled Feeder that is able to feed the given Part, using the Machine's
+     * FeederIndex and the given Selection policy.
+     * 
+     * @param machine
+     * @param part
+     * @param selection
+     * @param nozzle The nozzle that will pick the part, used by Selection.Nearest.
+     * @return
+     * @throws Exception If no Feeder is found that is both enabled and is serving the Part.
+     */
+    public static Feeder findFeeder(Machine machine, Part part, FeederIndex.Selection selection,
+            Nozzle nozzle) throws Exception {
+        Feeder feeder = machine.getFeederIndex().select(part, selection, nozzle);
+        if (feeder == null) {
+            throw new Exception("No compatible, enabled feeder found for part " + part.getId());
         }
-        throw new Exception("No compatible, enabled feeder found for part " + part.getId());
+        return feeder;
     }
 
 
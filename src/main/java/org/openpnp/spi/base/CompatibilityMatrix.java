@@ -0,0 +1,218 @@
+package org.openpnp.spi.base;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openpnp.model.AbstractModelObject;
+import org.openpnp.model.Part;
+import org.openpnp.spi.Head;
+import org.openpnp.spi.Nozzle;
+import org.openpnp.spi.NozzleTip;
+
+/**
+ * A precomputed table of which NozzleTips on a Head can handle which Parts. Each Part maps to a
+ * BitSet over the head's nozzle tips, and each Nozzle to a BitSet of the tips it carries, so that
+ * compatibility questions asked during job planning are answered with a couple of bit operations
+ * instead of package set lookups.
+ *
+ * Rows are computed the first time a Part is queried, or up front with addPart(). The matrix is
+ * rebuilt on the next query after it has been invalidated. It listens for package changes on the
+ * Parts it has rows for, compatibility changes on the NozzleTips and nozzle tips being added to or
+ * removed from the Nozzles, for those that are AbstractModelObjects. Others should call
+ * invalidate() after such a change. Call dispose() when the matrix is no longer needed, so that
+ * it stops listening.
+ *
+ * A matrix is intended to be used by a single job processor thread and is not thread safe, other
+ * than invalidate(), which may be called from any thread.
+ */
+public class CompatibilityMatrix implements PropertyChangeListener {
+    private final Head head;
+
+    private volatile boolean valid;
+
+    private final Set<AbstractModelObject> observed =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private List<NozzleTip> tips = new ArrayList<>();
+
+    private final Map<NozzleTip, Integer> tipIndexes = new IdentityHashMap<>();
+
+    private final Map<Nozzle, BitSet> tipsByNozzle = new IdentityHashMap<>();
+
+    private final Map<Part, BitSet> tipsByPart = new IdentityHashMap<>();
+
+    public CompatibilityMatrix(Head head) {
+        this.head = head;
+    }
+
+    /**
+     * Mark the matrix as out of date, so that it is rebuilt on the next query.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Stop listening to the parts, nozzles and nozzle tips.
+     */
+    public void dispose() {
+        for (AbstractModelObject o : observed) {
+            o.removePropertyChangeListener(this);
+        }
+        observed.clear();
+        invalidate();
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent e) {
+        String name = e.getPropertyName();
+        if (name == null || name.equals("package") || name.equals("nozzleTips")
+                || name.equals("compatiblePackages") || name.equals("allowIncompatiblePackages")) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Compute the row for a Part ahead of time.
+     *
+     * @param part
+     */
+    public void addPart(Part part) {
+        getTips(part);
+    }
+
+    public boolean canHandle(NozzleTip nozzleTip, Part part) {
+        Integer index = getTipIndex(nozzleTip);
+        if (index == null) {
+            // Not a tip on this head, so there is nothing cached for it.
+            return nozzleTip.canHandle(part);
+        }
+        return getTips(part).get(index);
+    }
+
+    /**
+     * Returns true if any of the nozzle tips on the Nozzle can handle the Part.
+     *
+     * @param nozzle
+     * @param part
+     * @return
+     */
+    public boolean canHandle(Nozzle nozzle, Part part) {
+        BitSet nozzleTips = getTips(nozzle);
+        if (nozzleTips == null) {
+            // Not a nozzle on this head, so there is nothing cached for it.
+            return AbstractPnpJobProcessor.nozzleCanHandle(nozzle, part);
+        }
+        return nozzleTips.intersects(getTips(part));
+    }
+
+    /**
+     * Find the first NozzleTip on the Nozzle that can handle the Part.
+     *
+     * @param nozzle
+     * @param part
+     * @return
+     * @throws Exception If no compatible NozzleTip can be found.
+     */
+    public NozzleTip findNozzleTip(Nozzle nozzle, Part part) throws Exception {
+        if (getTips(nozzle) == null) {
+            return AbstractPnpJobProcessor.findNozzleTip(nozzle, part);
+        }
+        BitSet partTips = getTips(part);
+        for (NozzleTip nozzleTip : nozzle.getNozzleTips()) {
+            Integer index = tipIndexes.get(nozzleTip);
+            if (index != null && partTips.get(index)) {
+                return nozzleTip;
+            }
+        }
+        throw new Exception("No compatible nozzle tip on nozzle " + nozzle.getName()
+                + " found for part " + part.getId());
+    }
+
+    /**
+     * Find the first NozzleTip on any Nozzle of the Head that can handle the Part.
+     *
+     * @param part
+     * @return
+     * @throws Exception If no compatible NozzleTip can be found.
+     */
+    public NozzleTip findNozzleTip(Part part) throws Exception {
+        BitSet partTips = getTips(part);
+        for (Nozzle nozzle : head.getNozzles()) {
+            for (NozzleTip nozzleTip : nozzle.getNozzleTips()) {
+                Integer index = tipIndexes.get(nozzleTip);
+                if (index != null && partTips.get(index)) {
+                    return nozzleTip;
+                }
+            }
+        }
+        throw new Exception(
+                "No compatible nozzle tip on any nozzle found for part " + part.getId());
+    }
+
+    private Integer getTipIndex(NozzleTip nozzleTip) {
+        checkModified();
+        return tipIndexes.get(nozzleTip);
+    }
+
+    private BitSet getTips(Nozzle nozzle) {
+        checkModified();
+        return tipsByNozzle.get(nozzle);
+    }
+
+    private BitSet getTips(Part part) {
+        checkModified();
+        BitSet partTips = tipsByPart.get(part);
+        if (partTips == null) {
+            partTips = new BitSet(tips.size());
+            for (int i = 0; i < tips.size(); i++) {
+                if (tips.get(i).canHandle(part)) {
+                    partTips.set(i);
+                }
+            }
+            tipsByPart.put(part, partTips);
+            observe(part);
+        }
+        return partTips;
+    }
+
+    private void observe(Object o) {
+        if (o instanceof AbstractModelObject && observed.add((AbstractModelObject) o)) {
+            ((AbstractModelObject) o).addPropertyChangeListener(this);
+        }
+    }
+
+    private void checkModified() {
+        if (valid) {
+            return;
+        }
+        // Set first, so that a change made while rebuilding invalidates the result.
+        valid = true;
+        tips = new ArrayList<>();
+        tipIndexes.clear();
+        tipsByNozzle.clear();
+        tipsByPart.clear();
+        for (Nozzle nozzle : head.getNozzles()) {
+            observe(nozzle);
+            BitSet nozzleTips = new BitSet();
+            for (NozzleTip nozzleTip : nozzle.getNozzleTips()) {
+                Integer index = tipIndexes.get(nozzleTip);
+                if (index == null) {
+                    index = tips.size();
+                    tips.add(nozzleTip);
+                    tipIndexes.put(nozzleTip, index);
+                    observe(nozzleTip);
+                }
+                nozzleTips.set(index);
+            }
+            tipsByNozzle.put(nozzle, nozzleTips);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.openpnp.spi.base;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openpnp.model.AbstractModelObject;
+import org.openpnp.model.Location;
+import org.openpnp.model.Part;
+import org.openpnp.spi.Feeder;
+import org.openpnp.spi.FeederIndex;
+import org.openpnp.spi.HeadMountable;
+import org.openpnp.spi.Machine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A FeederIndex that keeps the enabled Feeders of a Machine in a map by Part.
+ *
+ * The index is rebuilt lazily, on the next lookup, after it has been invalidated. The Machine
+ * invalidates it when feeders are added or removed, and the index listens for enabled and part
+ * property changes on feeders that are AbstractModelObjects. Feeders that do not fire property
+ * changes should call invalidate() after changing either.
+ *
+ * Every invalidation fires a "feeders" property change, so that views derived from the index, such
+ * as placement status, can refresh without polling it.
+ */
+public class SimpleFeederIndex implements FeederIndex, PropertyChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(SimpleFeederIndex.class);
+
+    private final Machine machine;
+
+    private Map<Part, List<Feeder>> feedersByPart;
+
+    private final Set<Feeder> observed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final Map<Part, Integer> nextIndex = new HashMap<>();
+
+    private final PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
+
+    public SimpleFeederIndex(Machine machine) {
+        this.machine = machine;
+    }
+
+    @Override
+    public void invalidate() {
+        synchronized (this) {
+            feedersByPart = null;
+        }
+        // Fired outside the lock so that listeners may query the index.
+        propertyChangeSupport.firePropertyChange("feeders", null, null);
+    }
+
+    @Override
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        propertyChangeSupport.addPropertyChangeListener(listener);
+    }
+
+    @Override
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        propertyChangeSupport.removePropertyChangeListener(listener);
+    }
+
+    @Override
+    public synchronized List<Feeder> getFeeders(Part part) {
+        if (feedersByPart == null) {
+            rebuild();
+        }
+        List<Feeder> feeders = feedersByPart.get(part);
+        return feeders == null ? Collections.emptyList() : feeders;
+    }
+
+    @Override
+    public boolean hasFeeder(Part part) {
+        return !getFeeders(part).isEmpty();
+    }
+
+    @Override
+    public synchronized Feeder select(Part part, Selection selection, HeadMountable hm) {
+        Feeder feeder = peek(part, selection, hm);
+        if (feeder != null && selection == Selection.RoundRobin) {
+            used(part, feeder);
+        }
+        return feeder;
+    }
+
+    @Override
+    public synchronized Feeder peek(Part part, Selection selection, HeadMountable hm) {
+        List<Feeder> feeders = getFeeders(part);
+        if (feeders.isEmpty()) {
+            return null;
+        }
+        if (feeders.size() == 1 || selection == null) {
+            return feeders.get(0);
+        }
+        switch (selection) {
+            case Nearest:
+                return selectNearest(feeders, hm);
+            case RoundRobin: {
+                Integer index = nextIndex.get(part);
+                return feeders.get(index == null ? 0 : index % feeders.size());
+            }
+            default:
+                return feeders.get(0);
+        }
+    }
+
+    @Override
+    public synchronized void used(Part part, Feeder feeder) {
+        int i = getFeeders(part).indexOf(feeder);
+        if (i >= 0) {
+            nextIndex.put(part, i + 1);
+        }
+    }
+
+    private Feeder selectNearest(List<Feeder> feeders, HeadMountable hm) {
+        if (hm == null) {
+            return feeders.get(0);
+        }
+        Location location = hm.getLocation();
+        Feeder nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        for (Feeder feeder : feeders) {
+            double distance;
+            try {
+                distance = location.getLinearDistanceTo(feeder.getPickLocation());
+            }
+            catch (Exception e) {
+                logger.debug("No pick location for {}: {}", feeder.getName(), e.getMessage());
+                continue;
+            }
+            if (nearest == null || distance < nearestDistance) {
+                nearest = feeder;
+                nearestDistance = distance;
+            }
+        }
+        return nearest == null ? feeders.get(0) : nearest;
+    }
+
+    private void rebuild() {
+        Map<Part, List<Feeder>> feedersByPart = new HashMap<>();
+        for (Feeder feeder : machine.getFeeders()) {
+            if (feeder instanceof AbstractModelObject && observed.add(feeder)) {
+                ((AbstractModelObject) feeder).addPropertyChangeListener(this);
+            }
+            if (!feeder.isEnabled() || feeder.getPart() == null) {
+                continue;
+            }
+            feedersByPart.computeIfAbsent(feeder.getPart(), p -> new ArrayList<>()).add(feeder);
+        }
+        this.feedersByPart = feedersByPart;
+    }
+
+    /**
+     * Stop listening to a feeder that has been removed from the machine.
+     *
+     * @param feeder
+     */
+    public void forget(Feeder feeder) {
+        synchronized (this) {
+            if (observed.remove(feeder)) {
+                ((AbstractModelObject) feeder).removePropertyChangeListener(this);
+            }
+        }
+        invalidate();
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent e) {
+        String name = e.getPropertyName();
+        if (name == null || name.equals("enabled") || name.equals("part")) {
+            invalidate();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.openpnp.util;
+
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+/**
+ * An immutable, precomputed transform from board coordinates to machine coordinates. It performs
+ * the same calculation as Utils2D.calculateBoardPlacementLocation(Location, Side, double,
+ * Location), but the unit conversion of the board location and the sine and cosine of the board
+ * rotation are done once when the transform is created instead of once per placement.
+ *
+ * A transform works in a single unit. Placements in other units are projected with a derived
+ * transform for those units, see forUnits(LengthUnit), so that results are identical to the
+ * per placement calculation.
+ */
+public class BoardTransform {
+    private final Location boardLocation;
+    private final Side side;
+    private final double offset;
+    private final LengthUnit units;
+    private final double x;
+    private final double y;
+    private final double z;
+    private final double rotation;
+    private final boolean rotate;
+    private final double cos;
+    private final double sin;
+    private final BoardTransform[] byUnits = new BoardTransform[LengthUnit.values().length];
+
+    /**
+     * @param boardLocation The location of the board on the machine.
+     * @param side The side of the board being processed.
+     * @param offset The board width, used to mirror bottom side placements. As in Utils2D, this is
+     *        taken to be in the units of the placements being projected.
+     */
+    public BoardTransform(Location boardLocation, Side side, double offset) {
+        this.boardLocation = boardLocation;
+        this.side = side;
+        this.offset = offset;
+        this.units = boardLocation.getUnits();
+        this.x = boardLocation.getX();
+        this.y = boardLocation.getY();
+        this.z = boardLocation.getZ();
+        this.rotation = boardLocation.getRotation();
+        // Same normalization as Location.rotateXy() so that results match exactly.
+        double angle = rotation;
+        this.rotate = angle != 0.0;
+        if (rotate) {
+            while (angle < 180.) {
+                angle += 360;
+            }
+            while (angle > 180.) {
+                angle -= 360;
+            }
+            angle = Math.toRadians(angle);
+        }
+        this.cos = Math.cos(angle);
+        this.sin = Math.sin(angle);
+        byUnits[units.ordinal()] = this;
+    }
+
+    public Location getBoardLocation() {
+        return boardLocation;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public double getOffset() {
+        return offset;
+    }
+
+    public LengthUnit getUnits() {
+        return units;
+    }
+
+    /**
+     * Returns a transform for the same board with the board location converted to the given units.
+     * Derived transforms are cached, so this is cheap to call per placement.
+     *
+     * @param units
+     * @return
+     */
+    public BoardTransform forUnits(LengthUnit units) {
+        BoardTransform transform = byUnits[units.ordinal()];
+        if (transform == null) {
+            transform = new BoardTransform(boardLocation.convertToUnits(units), side, offset);
+            byUnits[units.ordinal()] = transform;
+        }
+        return transform;
+    }
+
+    /**
+     * Transform a single placement location into machine coordinates. The Z of the placement is
+     * ignored and the result is in the units of the placement.
+     *
+     * @param placementLocation
+     * @return
+     */
+    public Location transform(Location placementLocation) {
+        if (placementLocation.getUnits() != units) {
+            return forUnits(placementLocation.getUnits()).transform(placementLocation);
+        }
+        double px = placementLocation.getX();
+        double py = placementLocation.getY();
+        if (side == Side.Bottom) {
+            px = px * -1 + offset;
+        }
+        double tx = px;
+        double ty = py;
+        if (rotate) {
+            tx = px * cos - py * sin;
+            ty = px * sin + py * cos;
+        }
+        return new Location(units, tx + x, ty + y, z, placementLocation.getRotation() + rotation);
+    }
+
+    /**
+     * Transform count points, given in the units of this transform, into machine coordinates in a
+     * single pass. The output arrays may be the same as the input arrays. The Z of every result is
+     * the Z of the board location, see getBoardLocation().
+     *
+     * @param count
+     * @param xs
+     * @param ys
+     * @param rotations
+     * @param outXs
+     * @param outYs
+     * @param outRotations
+     */
+    public void transform(int count, double[] xs, double[] ys, double[] rotations, double[] outXs,
+            double[] outYs, double[] outRotations) {
+        boolean bottom = side == Side.Bottom;
+        for (int i = 0; i < count; i++) {
+            double px = xs[i];
+            double py = ys[i];
+            if (bottom) {
+                px = px * -1 + offset;
+            }
+            double tx = px;
+            double ty = py;
+            if (rotate) {
+                tx = px * cos - py * sin;
+                ty = px * sin + py * cos;
+            }
+            outXs[i] = tx + x;
+            outYs[i] = ty + y;
+            outRotations[i] = rotations[i] + rotation;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("board (%s), side (%s), offset (%f)", boardLocation, side, offset);
+    }
+}
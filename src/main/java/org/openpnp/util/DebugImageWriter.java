@@ -0,0 +1,367 @@
+package org.openpnp.util;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.prefs.Preferences;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfInt;
+import org.opencv.highgui.Highgui;
+import org.openpnp.model.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes debug images in the background so that vision code does not wait for image encoding and
+ * disk I/O. Images are copied when they are queued and encoded by a small pool of daemon threads.
+ * The queue is bounded and the OverflowPolicy decides what happens when it is full. Debug images
+ * are written to the resource directory of the class that wrote them and the total size of these
+ * directories is kept under a disk budget by deleting the oldest files first.
+ *
+ * Settings are stored in the user's preferences and take effect the next time the application
+ * starts.
+ */
+public class DebugImageWriter {
+    private final static Logger logger = LoggerFactory.getLogger(DebugImageWriter.class);
+
+    private static final String PREF_QUEUE_SIZE = "DebugImageWriter.queueSize";
+    private static final int PREF_QUEUE_SIZE_DEF = 16;
+
+    private static final String PREF_THREADS = "DebugImageWriter.threads";
+    private static final int PREF_THREADS_DEF = 2;
+
+    private static final String PREF_OVERFLOW_POLICY = "DebugImageWriter.overflowPolicy";
+    private static final String PREF_OVERFLOW_POLICY_DEF = OverflowPolicy.DropNewest.name();
+
+    private static final String PREF_FORMAT = "DebugImageWriter.format";
+    private static final String PREF_FORMAT_DEF = Format.Png.name();
+
+    private static final String PREF_DISK_BUDGET_MB = "DebugImageWriter.diskBudgetMb";
+    private static final int PREF_DISK_BUDGET_MB_DEF = 500;
+
+    public enum OverflowPolicy {
+        /**
+         * Discard the image being queued.
+         */
+        DropNewest,
+        /**
+         * Discard the oldest queued image to make room for the new one.
+         */
+        DropOldest,
+        /**
+         * Make the caller wait until there is room in the queue.
+         */
+        Block
+    }
+
+    public enum Format {
+        /**
+         * PNG with the default compression.
+         */
+        Png(".png", 3),
+        /**
+         * PNG with the lowest compression. Files are larger but encode several times faster.
+         */
+        FastPng(".png", 1),
+        /**
+         * Uncompressed bitmap. The fastest to write and the largest on disk.
+         */
+        Bmp(".bmp", -1);
+
+        private final String suffix;
+        private final int pngCompression;
+
+        private Format(String suffix, int pngCompression) {
+            this.suffix = suffix;
+            this.pngCompression = pngCompression;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+    }
+
+    private static DebugImageWriter instance;
+
+    private final Preferences prefs = Preferences.userNodeForPackage(DebugImageWriter.class);
+    private final ThreadPoolExecutor executor;
+    private final OverflowPolicy overflowPolicy;
+    private final Format format;
+    private final long diskBudget;
+    private final int queueSize;
+
+    private final Deque<File> files = new ArrayDeque<>();
+    private final Set<File> directories = new HashSet<>();
+    private long diskUsage;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    public static synchronized DebugImageWriter get() {
+        if (instance == null) {
+            instance = new DebugImageWriter();
+        }
+        return instance;
+    }
+
+    private DebugImageWriter() {
+        overflowPolicy =
+                OverflowPolicy.valueOf(prefs.get(PREF_OVERFLOW_POLICY, PREF_OVERFLOW_POLICY_DEF));
+        format = Format.valueOf(prefs.get(PREF_FORMAT, PREF_FORMAT_DEF));
+        diskBudget = prefs.getInt(PREF_DISK_BUDGET_MB, PREF_DISK_BUDGET_MB_DEF) * 1024L * 1024L;
+        int threads = Math.max(1, prefs.getInt(PREF_THREADS, PREF_THREADS_DEF));
+        queueSize = Math.max(1, prefs.getInt(PREF_QUEUE_SIZE, PREF_QUEUE_SIZE_DEF));
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new WriterThreadFactory(),
+                new OverflowHandler());
+    }
+
+    /**
+     * Queue the image to be written as a debug image for the given class. The image is copied
+     * before this method returns so the caller is free to modify or release it.
+     *
+     * @param forClass
+     * @param prefix
+     * @param mat
+     */
+    public void write(Class forClass, String prefix, Mat mat) {
+        write(forClass, prefix, format.getSuffix(), mat);
+    }
+
+    /**
+     * Queue the image to be written as a debug image for the given class, in the format given by
+     * the suffix instead of the configured one. The suffix should be a file extension (including
+     * the period).
+     *
+     * @param forClass
+     * @param prefix
+     * @param suffix
+     * @param mat
+     */
+    public void write(Class forClass, String prefix, String suffix, Mat mat) {
+        Mat copy = mat.clone();
+        submit(() -> {
+            try {
+                File directory = Configuration.get().getResourceDirectory(forClass);
+                File file = File.createTempFile(prefix, suffix, directory);
+                encode(file, copy);
+                account(directory, file);
+            }
+            catch (Exception e) {
+                logger.warn("Unable to write debug image", e);
+            }
+            finally {
+                copy.release();
+            }
+        });
+    }
+
+    /**
+     * Queue the image to be written to the given file. The format is chosen based on the
+     * filename's extension. The file is not counted against the disk budget.
+     *
+     * @param file
+     * @param mat
+     */
+    public void write(File file, Mat mat) {
+        Mat copy = mat.clone();
+        submit(() -> {
+            try {
+                if (!Highgui.imwrite(file.getAbsolutePath(), copy)) {
+                    throw new Exception("Unable to encode " + file);
+                }
+                written.incrementAndGet();
+            }
+            catch (Exception e) {
+                logger.warn("Unable to write image", e);
+            }
+            finally {
+                copy.release();
+            }
+        });
+    }
+
+    /**
+     * Wait for all of the queued images to be written.
+     *
+     * @throws InterruptedException
+     */
+    public void flush() throws InterruptedException {
+        while (pending.get() > 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        prefs.put(PREF_OVERFLOW_POLICY, overflowPolicy.name());
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void setFormat(Format format) {
+        prefs.put(PREF_FORMAT, format.name());
+    }
+
+    public int getDiskBudgetMb() {
+        return (int) (diskBudget / 1024 / 1024);
+    }
+
+    public void setDiskBudgetMb(int diskBudgetMb) {
+        prefs.putInt(PREF_DISK_BUDGET_MB, diskBudgetMb);
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        prefs.putInt(PREF_QUEUE_SIZE, queueSize);
+    }
+
+    public int getThreads() {
+        return executor.getCorePoolSize();
+    }
+
+    public void setThreads(int threads) {
+        prefs.putInt(PREF_THREADS, threads);
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    private void submit(Runnable task) {
+        pending.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                task.run();
+            }
+            finally {
+                pending.decrementAndGet();
+            }
+        });
+    }
+
+    private void encode(File file, Mat mat) throws Exception {
+        boolean ok;
+        if (format.pngCompression >= 0 && file.getName().endsWith(".png")) {
+            ok = Highgui.imwrite(file.getAbsolutePath(), mat,
+                    new MatOfInt(Highgui.IMWRITE_PNG_COMPRESSION, format.pngCompression));
+        }
+        else {
+            ok = Highgui.imwrite(file.getAbsolutePath(), mat);
+        }
+        if (!ok) {
+            file.delete();
+            throw new Exception("Unable to encode " + file);
+        }
+        written.incrementAndGet();
+        logger.trace("Wrote debug image {}", file);
+    }
+
+    /**
+     * Add the file to the disk usage and delete the oldest debug images until the usage is back
+     * under the budget. Files left by earlier runs are counted the first time a directory is
+     * written to.
+     */
+    private synchronized void account(File directory, File file) {
+        if (directories.add(directory)) {
+            File[] existing = directory.listFiles();
+            if (existing != null) {
+                Arrays.sort(existing, Comparator.comparingLong(File::lastModified));
+                for (File f : existing) {
+                    if (f.isFile() && !f.equals(file)) {
+                        files.add(f);
+                        diskUsage += f.length();
+                    }
+                }
+            }
+        }
+        files.add(file);
+        diskUsage += file.length();
+        while (diskUsage > diskBudget && files.size() > 1) {
+            File oldest = files.removeFirst();
+            long length = oldest.length();
+            if (oldest.delete() || !oldest.exists()) {
+                diskUsage -= length;
+                evicted.incrementAndGet();
+            }
+        }
+    }
+
+    private class OverflowHandler implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            switch (overflowPolicy) {
+                case Block:
+                    try {
+                        executor.getQueue().put(r);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        drop();
+                    }
+                    break;
+                case DropOldest:
+                    // The copy held by the dropped task is released when it is garbage collected.
+                    if (executor.getQueue().poll() != null) {
+                        drop();
+                    }
+                    executor.execute(r);
+                    break;
+                default:
+                    drop();
+                    break;
+            }
+        }
+
+        private void drop() {
+            pending.decrementAndGet();
+            long count = dropped.incrementAndGet();
+            // Log at 1, 2, 4, 8... drops so a sustained overload doesn't flood the log.
+            if (Long.bitCount(count) == 1) {
+                logger.warn("Debug image queue is full, {} images dropped so far", count);
+            }
+        }
+    }
+
+    private static class WriterThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Debug Image Writer " + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
@@ -33,7 +33,9 @@ public class FiniteStateMachine<State, Message> extends AbstractModelObject {
                 throw new Exception("No defined transitions from " + state + " for " + message);
             }
             if (transition.task != null) {
+                long t = Profiler.start();
                 transition.task.task();
+                Profiler.stop(transition.profilerName, t);
             }
             setState(transition.toState);
             logger.trace(message + " => " + state + " -> " + transition.toState);
@@ -72,7 +74,8 @@ public class FiniteStateMachine<State, Message> extends AbstractModelObject {
             t = new HashMap<>();
             transitions.put(fromState, t);
         }
-        t.put(message, new Transition(toState, task, nextMessage));
+        t.put(message, new Transition(toState, task, nextMessage,
+                "fsm." + fromState + "." + message));
     }
     
     private void setState(State state) {
@@ -114,11 +117,13 @@ public class FiniteStateMachine<State, Message> extends AbstractModelObject {
         public final State toState;
         public final Task task;
         public final Message nextMessage;
+        public final String profilerName;
 
-        public Transition(State toState, Task task, Message nextMessage) {
+        public Transition(State toState, Task task, Message nextMessage, String profilerName) {
             this.toState = toState;
             this.task = task;
             this.nextMessage = nextMessage;
+            this.profilerName = profilerName;
         }
     }
 
@@ -0,0 +1,118 @@
+package org.openpnp.util;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A small, fixed size ring buffer of timestamped camera frames. A camera's grabber thread adds
+ * frames as they are read from the device and any number of consumers can retrieve the most recent
+ * frame or block until a frame exposed after a given time is available. Timestamps are
+ * System.nanoTime() values taken just before the device read started, so a frame with a timestamp
+ * later than T is guaranteed to have been exposed after T.
+ *
+ * Frames are not copied, every consumer gets the same BufferedImage, so consumers must not modify
+ * them.
+ */
+public class FrameRingBuffer {
+    private final Frame[] frames;
+    private int head = 0;
+    private int count = 0;
+
+    public FrameRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        frames = new Frame[capacity];
+    }
+
+    /**
+     * Add a frame to the buffer, overwriting the oldest frame if the buffer is full, and wake any
+     * threads waiting in awaitAfter().
+     *
+     * @param image
+     * @param nanoTime
+     */
+    public synchronized void add(BufferedImage image, long nanoTime) {
+        frames[head] = new Frame(image, nanoTime);
+        head = (head + 1) % frames.length;
+        count = Math.min(count + 1, frames.length);
+        notifyAll();
+    }
+
+    /**
+     * Get the most recently added frame, or null if the buffer is empty.
+     *
+     * @return
+     */
+    public synchronized Frame getLatest() {
+        if (count == 0) {
+            return null;
+        }
+        return frames[(head - 1 + frames.length) % frames.length];
+    }
+
+    /**
+     * Get the oldest frame in the buffer whose timestamp is later than nanoTime, or null if there
+     * is none.
+     *
+     * @param nanoTime
+     * @return
+     */
+    public synchronized Frame getFirstAfter(long nanoTime) {
+        for (int i = count; i > 0; i--) {
+            Frame frame = frames[(head - i + frames.length) % frames.length];
+            if (frame.nanoTime - nanoTime > 0) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait up to timeoutMs milliseconds for a frame whose timestamp is later than nanoTime and
+     * return it. Returns null if no such frame arrives before the timeout.
+     *
+     * @param nanoTime
+     * @param timeoutMs
+     * @return
+     * @throws InterruptedException
+     */
+    public synchronized Frame awaitAfter(long nanoTime, long timeoutMs)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1000000L;
+        Frame frame;
+        while ((frame = getFirstAfter(nanoTime)) == null) {
+            long remainingMs = (deadline - System.nanoTime()) / 1000000L;
+            if (remainingMs <= 0) {
+                return null;
+            }
+            wait(remainingMs);
+        }
+        return frame;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return frames.length;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = null;
+        }
+        head = 0;
+        count = 0;
+    }
+
+    public static class Frame {
+        public final BufferedImage image;
+        public final long nanoTime;
+
+        public Frame(BufferedImage image, long nanoTime) {
+            this.image = image;
+            this.nanoTime = nanoTime;
+        }
+    }
+}
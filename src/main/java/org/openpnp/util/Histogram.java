@@ -0,0 +1,119 @@
+package org.openpnp.util;
+
+/**
+ * A fixed memory, log-linear histogram of long values in the style of HdrHistogram. Values are
+ * recorded into buckets with roughly 6% relative precision, so recording is a couple of shifts
+ * and an array increment no matter how many values have been recorded. Intended for timing
+ * values in nanoseconds, but any non-negative long can be recorded.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int BUCKET_COUNT =
+            LINEAR_LIMIT + (63 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+    private final String name;
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public Histogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[indexOf(value)]++;
+        count++;
+        total += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public synchronized long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public synchronized long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    public synchronized double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Returns the value at the given percentile, between 0 and 100. The result is the upper bound
+     * of the bucket containing the percentile, clamped to the recorded maximum.
+     *
+     * @param percentile
+     * @return
+     */
+    public synchronized long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100. * count);
+        target = Math.max(1, target);
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.max(min, Math.min(max, highestValueOf(i)));
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        int top = (int) (value >>> shift);
+        return LINEAR_LIMIT + (msb - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int k = index - LINEAR_LIMIT;
+        int msb = k / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long top = k % SUB_BUCKETS + SUB_BUCKETS;
+        int shift = msb - SUB_BUCKET_BITS;
+        return ((top + 1) << shift) - 1;
+    }
+}
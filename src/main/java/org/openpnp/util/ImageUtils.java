@@ -25,4 +25,24 @@ public class ImageUtils {
         return img;
     }
 
+    /**
+     * Copy a region of a BufferedImage into a new BufferedImage of the specified type. Any part of
+     * the region outside of the source image is left black.
+     * 
+     * @param src
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     * @param type
+     * @return
+     */
+    public static BufferedImage crop(BufferedImage src, int x, int y, int width, int height,
+            int type) {
+        BufferedImage img = new BufferedImage(width, height, type);
+        Graphics2D g2d = img.createGraphics();
+        g2d.drawImage(src, -x, -y, null);
+        g2d.dispose();
+        return img;
+    }
 }
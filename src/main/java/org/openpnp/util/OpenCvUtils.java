@@ -2,12 +2,9 @@ package org.openpnp.util;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
-import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.imageio.ImageIO;
-
 import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
@@ -15,7 +12,6 @@ import org.opencv.core.Point;
 import org.opencv.core.Scalar;
 import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
-import org.openpnp.model.Configuration;
 import org.openpnp.model.Length;
 import org.openpnp.model.Location;
 import org.openpnp.spi.Camera;
@@ -25,9 +21,25 @@ import org.slf4j.LoggerFactory;
 public class OpenCvUtils {
     private final static Logger logger = LoggerFactory.getLogger(OpenCvUtils.class);
 
+    private static boolean nativeLibraryLoaded;
+
     static {
+        loadNativeLibrary();
+    }
+
+    /**
+     * Load the OpenCV native library. Every class that uses OpenCV calls this from its static
+     * initializer, but only the first call does any work. nu.pattern.OpenCV.loadShared() extracts
+     * the library to a temporary directory each time it is called, so this saves a copy of the
+     * library per class at startup.
+     */
+    public static synchronized void loadNativeLibrary() {
+        if (nativeLibraryLoaded) {
+            return;
+        }
         nu.pattern.OpenCV.loadShared();
         System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+        nativeLibraryLoaded = true;
     }
 
     /**
@@ -217,15 +229,7 @@ public class OpenCvUtils {
 
     public static void saveDebugImage(String name, Mat mat) {
         if (logger.isDebugEnabled()) {
-            try {
-                BufferedImage debugImage = OpenCvUtils.toBufferedImage(mat);
-                File file = Configuration.get().createResourceFile(OpenCvUtils.class, name + "_",
-                        ".png");
-                ImageIO.write(debugImage, "PNG", file);
-            }
-            catch (Exception e) {
-                e.printStackTrace();
-            }
+            DebugImageWriter.get().write(OpenCvUtils.class, name + "_", mat);
         }
     }
 }
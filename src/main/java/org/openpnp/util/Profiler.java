@@ -0,0 +1,178 @@
+package org.openpnp.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * A low overhead, process wide timing recorder. Callers take a timestamp with start() and record
+ * the elapsed time against a name with stop(). Each name gets its own Histogram, so the cost of a
+ * recording is a hash lookup and a bucket increment.
+ *
+ * Names are dotted, with the first component identifying the subsystem, e.g. fsm.Plan.Next,
+ * driver.moveTo, camera.captureAfter or pipeline.BlurGaussian.
+ *
+ * The recorded data can be exported to CSV or JSON, is available live through JMX and is shown in
+ * the Profiler tab of the GUI.
+ */
+public class Profiler implements ProfilerMBean {
+    private static final Logger logger = LoggerFactory.getLogger(Profiler.class);
+
+    private static final Profiler instance = new Profiler();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(instance,
+                    new ObjectName("org.openpnp:type=Profiler"));
+        }
+        catch (Exception e) {
+            logger.warn("Unable to register Profiler MBean", e);
+        }
+    }
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled = true;
+
+    public static Profiler get() {
+        return instance;
+    }
+
+    /**
+     * Returns a start timestamp for a span, or 0 if profiling is disabled.
+     *
+     * @return
+     */
+    public static long start() {
+        return instance.enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time elapsed since startNanos, as returned by start(), against name.
+     *
+     * @param name
+     * @param startNanos
+     */
+    public static void stop(String name, long startNanos) {
+        if (startNanos == 0 || !instance.enabled) {
+            return;
+        }
+        instance.record(name, System.nanoTime() - startNanos);
+    }
+
+    public void record(String name, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(name, Histogram::new);
+        }
+        histogram.record(nanos);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void reset() {
+        histograms.clear();
+    }
+
+    /**
+     * Returns all histograms ordered by total recorded time, descending.
+     *
+     * @return
+     */
+    public List<Histogram> getHistograms() {
+        List<Histogram> list = new ArrayList<>(histograms.values());
+        list.sort(Comparator.comparingLong(Histogram::getTotal).reversed());
+        return list;
+    }
+
+    @Override
+    public String[] getTopConsumers() {
+        List<Histogram> list = getHistograms();
+        String[] lines = new String[list.size()];
+        for (int i = 0; i < lines.length; i++) {
+            Histogram h = list.get(i);
+            lines[i] = String.format("%s: total %.1f ms, count %d, mean %.3f ms, p99 %.3f ms",
+                    h.getName(), toMs(h.getTotal()), h.getCount(), toMs(h.getMean()),
+                    toMs(h.getValueAtPercentile(99)));
+        }
+        return lines;
+    }
+
+    @Override
+    public String getCsv() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("name,count,total_ms,mean_ms,min_ms,p50_ms,p90_ms,p99_ms,max_ms\n");
+        for (Histogram h : getHistograms()) {
+            sb.append(String.format("%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f\n", h.getName(),
+                    h.getCount(), toMs(h.getTotal()), toMs(h.getMean()), toMs(h.getMin()),
+                    toMs(h.getValueAtPercentile(50)), toMs(h.getValueAtPercentile(90)),
+                    toMs(h.getValueAtPercentile(99)), toMs(h.getMax())));
+        }
+        return sb.toString();
+    }
+
+    public String getJson() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Histogram h : getHistograms()) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("name", h.getName());
+            m.put("count", h.getCount());
+            m.put("totalMs", toMs(h.getTotal()));
+            m.put("meanMs", toMs(h.getMean()));
+            m.put("minMs", toMs(h.getMin()));
+            m.put("p50Ms", toMs(h.getValueAtPercentile(50)));
+            m.put("p90Ms", toMs(h.getValueAtPercentile(90)));
+            m.put("p99Ms", toMs(h.getValueAtPercentile(99)));
+            m.put("maxMs", toMs(h.getMax()));
+            list.add(m);
+        }
+        return new GsonBuilder().setPrettyPrinting().create().toJson(list);
+    }
+
+    /**
+     * Write the current results to name.csv and name.json in the given directory.
+     *
+     * @param directory
+     * @param name
+     * @throws IOException
+     */
+    public void export(File directory, String name) throws IOException {
+        try (Writer writer = new FileWriter(new File(directory, name + ".csv"))) {
+            writer.write(getCsv());
+        }
+        try (Writer writer = new FileWriter(new File(directory, name + ".json"))) {
+            writer.write(getJson());
+        }
+    }
+
+    public static double toMs(double nanos) {
+        return nanos / 1000000.;
+    }
+}
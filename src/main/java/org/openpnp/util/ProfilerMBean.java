@@ -0,0 +1,22 @@
+package org.openpnp.util;
+
+/**
+ * JMX management interface for the Profiler. Registered with the platform MBean server as
+ * org.openpnp:type=Profiler so that timings can be watched live with jconsole or VisualVM.
+ */
+public interface ProfilerMBean {
+    public boolean isEnabled();
+
+    public void setEnabled(boolean enabled);
+
+    /**
+     * Returns one line per recorded span name, ordered by total time spent, descending.
+     * 
+     * @return
+     */
+    public String[] getTopConsumers();
+
+    public String getCsv();
+
+    public void reset();
+}
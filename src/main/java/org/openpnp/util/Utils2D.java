@@ -21,8 +21,11 @@
 
 package org.openpnp.util;
 
+import java.util.List;
+
 import org.openpnp.model.Board.Side;
 import org.openpnp.model.BoardLocation;
+import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.model.Placement;
 import org.openpnp.model.Point;
@@ -81,8 +84,50 @@ public class Utils2D {
 
     public static Location calculateBoardPlacementLocation(BoardLocation bl,
             Location placementLocation) {
-        return calculateBoardPlacementLocation(bl.getLocation(), bl.getSide(),
-                bl.getBoard().getDimensions().getX(), placementLocation);
+        return bl.getPlacementTransform().transform(placementLocation);
+    }
+
+    /**
+     * Project a list of placement or pad locations into machine coordinates using a precomputed
+     * BoardTransform. Locations in the units of the transform are projected in a single pass over
+     * primitive arrays. The results are in the same order, and the same units, as the input.
+     * 
+     * @param transform
+     * @param placementLocations
+     * @return
+     */
+    public static Location[] calculateBoardPlacementLocations(BoardTransform transform,
+            List<Location> placementLocations) {
+        int count = placementLocations.size();
+        Location[] results = new Location[count];
+        if (count == 0) {
+            return results;
+        }
+        // Work in the units of the first location, which are normally the units of every
+        // location on the board.
+        LengthUnit units = placementLocations.get(0).getUnits();
+        transform = transform.forUnits(units);
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        double[] rotations = new double[count];
+        for (int i = 0; i < count; i++) {
+            Location location = placementLocations.get(i);
+            xs[i] = location.getX();
+            ys[i] = location.getY();
+            rotations[i] = location.getRotation();
+        }
+        transform.transform(count, xs, ys, rotations, xs, ys, rotations);
+        double z = transform.getBoardLocation().getZ();
+        for (int i = 0; i < count; i++) {
+            Location location = placementLocations.get(i);
+            if (location.getUnits() == units) {
+                results[i] = new Location(units, xs[i], ys[i], z, rotations[i]);
+            }
+            else {
+                results[i] = transform.transform(location);
+            }
+        }
+        return results;
     }
 
     public static Location calculateBoardPlacementLocation(Location boardLocation, Side side,
@@ -7,6 +7,7 @@ import java.util.List;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Length;
 import org.openpnp.model.Location;
+import org.openpnp.model.MutableLocation;
 import org.openpnp.spi.Camera;
 
 public class VisionUtils {
@@ -57,7 +58,14 @@ public class VisionUtils {
      * @return
      */
     public static Location getPixelLocation(Camera camera, double x, double y) {
-        return camera.getLocation().add(getPixelCenterOffsets(camera, x, y));
+        Location cameraLocation = camera.getLocation();
+        Location unitsPerPixel = camera.getUnitsPerPixel();
+        double offsetX = (x - (camera.getWidth() / 2.)) * unitsPerPixel.getX();
+        double offsetY = ((camera.getHeight() / 2.) - y) * unitsPerPixel.getY();
+        // Add the offsets in place rather than through an intermediate offsets Location.
+        return new MutableLocation(cameraLocation)
+                .add(unitsPerPixel.getUnits(), offsetX, offsetY, 0)
+                .toLocation(cameraLocation.getUnits());
     }
 
     public static List<Location> sortLocationsByDistance(final Location origin,
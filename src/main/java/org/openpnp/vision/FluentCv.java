@@ -74,6 +74,7 @@ import org.openpnp.model.Length;
 import org.openpnp.model.Location;
 import org.openpnp.spi.Camera;
 import org.openpnp.util.HslColor;
+import org.openpnp.util.OpenCvUtils;
 import org.openpnp.util.VisionUtils;
 
 /**
@@ -102,8 +103,7 @@ import org.openpnp.util.VisionUtils;
  */
 public class FluentCv {
     static {
-        nu.pattern.OpenCV.loadShared();
-        System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+        OpenCvUtils.loadNativeLibrary();
     }
 
     public enum ColorCode {
@@ -2,6 +2,9 @@ package org.openpnp.vision;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.opencv.calib3d.Calib3d;
 import org.opencv.core.Core;
@@ -9,10 +12,12 @@ import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint2f;
 import org.opencv.core.MatOfPoint3f;
+import org.opencv.core.Point;
 import org.opencv.core.Point3;
 import org.opencv.core.Size;
 import org.opencv.core.TermCriteria;
 import org.opencv.imgproc.Imgproc;
+import org.openpnp.util.OpenCvUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,13 +30,17 @@ import org.slf4j.LoggerFactory;
  * 
  * FishEye model code is included but unfinished. This code cannot be finished until we are using
  * OpenCV 3.
+ * 
+ * Frames can be processed synchronously with apply(), or handed to offer(), which samples them
+ * and searches for the pattern on a pool of worker threads so that the caller is not slowed down.
+ * Poses that are too close to one already collected are not used, since they add little to the
+ * calibration.
  */
 public class LensCalibration {
     protected final static Logger logger = LoggerFactory.getLogger(LensCalibration.class);
 
     static {
-        nu.pattern.OpenCV.loadShared();
-        System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+        OpenCvUtils.loadNativeLibrary();
     }
 
     public enum Pattern {
@@ -56,6 +65,17 @@ public class LensCalibration {
     private Mat distortionCoefficients;
     private long lastApplyMs;
 
+    private ExecutorService executor;
+    private int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private long sampleIntervalMs = 100;
+    private long lastSampleMs;
+    private double minimumPoseChange = 0.03;
+    private int rejectedCount;
+    private volatile Point[] latestImagePoints;
+    private volatile long latestFoundMs;
+    private boolean closed;
+
     public LensCalibration(LensModel lensModel, Pattern pattern, int patternWidth,
             int patternHeight, double objectSize, long applyDelayMs) {
         if (lensModel == LensModel.Fisheye) {
@@ -71,7 +91,11 @@ public class LensCalibration {
         objectPoints = calculateObjectPoints();
     }
     
-    public void close() {
+    public synchronized void close() {
+        closed = true;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
     	if (cameraMatrix != null) {
     		cameraMatrix.release();
     	}
@@ -86,9 +110,7 @@ public class LensCalibration {
     }
 
     public Mat apply(Mat mat) {
-        if (imageSize == null) {
-            imageSize = mat.size();
-        }
+        setImageSize(mat);
 
         MatOfPoint2f imagePoints = findImagePoints(mat);
         if (imagePoints == null) {
@@ -97,18 +119,138 @@ public class LensCalibration {
 
         Calib3d.drawChessboardCorners(mat, patternSize, imagePoints, true);
 
-        if (System.currentTimeMillis() - lastApplyMs > applyDelayMs) {
-            objectPointsList.add(objectPoints);
-            imagePointsList.add(imagePoints);
-            lastApplyMs = System.currentTimeMillis();
+        if (!accept(imagePoints)) {
+            imagePoints.release();
         }
 
         return mat;
     }
 
+    /**
+     * Hand the frame to the worker pool to be searched for the pattern, if a worker is free and
+     * the last frame was taken at least sampleIntervalMs ago. Frames that are not taken are
+     * skipped. The frame is copied, so the caller may modify or release it as soon as this
+     * returns.
+     * 
+     * @param mat
+     * @return true if the frame was taken.
+     */
+    public boolean offer(Mat mat) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (closed || now - lastSampleMs < sampleIntervalMs || inFlight.get() >= threads) {
+                return false;
+            }
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(threads, r -> {
+                    Thread thread = new Thread(r, "LensCalibration Detect");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            setImageSize(mat);
+            lastSampleMs = now;
+            inFlight.incrementAndGet();
+        }
+        Mat copy = mat.clone();
+        executor.execute(() -> {
+            try {
+                MatOfPoint2f imagePoints = findImagePoints(copy);
+                if (imagePoints != null) {
+                    latestImagePoints = imagePoints.toArray();
+                    latestFoundMs = System.currentTimeMillis();
+                    if (!accept(imagePoints)) {
+                        imagePoints.release();
+                    }
+                }
+            }
+            catch (Exception e) {
+                logger.warn("Pattern detection failed", e);
+            }
+            finally {
+                copy.release();
+                inFlight.decrementAndGet();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Draw the pattern found most recently by the worker pool onto the frame, if it was found
+     * within the last maxAgeMs milliseconds, so the user can see that the pattern is detected.
+     * 
+     * @param mat
+     * @param maxAgeMs
+     */
+    public void drawLatest(Mat mat, long maxAgeMs) {
+        Point[] points = latestImagePoints;
+        if (points == null || System.currentTimeMillis() - latestFoundMs > maxAgeMs) {
+            return;
+        }
+        MatOfPoint2f imagePoints = new MatOfPoint2f(points);
+        Calib3d.drawChessboardCorners(mat, patternSize, imagePoints, true);
+        imagePoints.release();
+    }
+
+    /**
+     * Add the found pattern to the calibration set unless it was found less than applyDelayMs
+     * after the last one or is a near duplicate of a pose already in the set.
+     */
+    private synchronized boolean accept(MatOfPoint2f imagePoints) {
+        if (closed || System.currentTimeMillis() - lastApplyMs <= applyDelayMs) {
+            return false;
+        }
+        if (isDuplicatePose(imagePoints)) {
+            rejectedCount++;
+            return false;
+        }
+        objectPointsList.add(objectPoints);
+        imagePointsList.add(imagePoints);
+        lastApplyMs = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * A pose is a near duplicate if the RMS distance between its points and the corresponding
+     * points of a pose already in the set is less than minimumPoseChange times the image
+     * diagonal.
+     */
+    private boolean isDuplicatePose(MatOfPoint2f imagePoints) {
+        double diagonal = Math.hypot(imageSize.width, imageSize.height);
+        double threshold = minimumPoseChange * diagonal;
+        double count = imagePoints.total();
+        for (Mat existing : imagePointsList) {
+            double rms = Core.norm(imagePoints, existing, Core.NORM_L2) / Math.sqrt(count);
+            if (rms < threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void setImageSize(Mat mat) {
+        if (imageSize == null) {
+            imageSize = mat.size();
+        }
+    }
+
+    /**
+     * Calibrate from the poses collected so far. The lock is only held while the poses are
+     * copied, so offer() and apply() can continue while this runs.
+     * 
+     * @return
+     */
     public boolean calibrate() {
         Mat cameraMatrix;
         Mat distortionCoefficients;
+        List<Mat> objectPointsList;
+        List<Mat> imagePointsList;
+        Size imageSize;
+        synchronized (this) {
+            objectPointsList = new ArrayList<>(this.objectPointsList);
+            imagePointsList = new ArrayList<>(this.imagePointsList);
+            imageSize = this.imageSize;
+        }
 
         cameraMatrix = Mat.eye(3, 3, CvType.CV_64F);
 
@@ -158,8 +300,10 @@ public class LensCalibration {
         logger.info("calibrate() ok {}, rms {}", ok, rms);
 
         if (ok) {
-            this.cameraMatrix = cameraMatrix;
-            this.distortionCoefficients = distortionCoefficients;
+            synchronized (this) {
+                this.cameraMatrix = cameraMatrix;
+                this.distortionCoefficients = distortionCoefficients;
+            }
         } else {
         	cameraMatrix.release();
         	distortionCoefficients.release();
@@ -168,10 +312,50 @@ public class LensCalibration {
         return ok;
     }
 
-    public int getPatternFoundCount() {
+    public synchronized int getPatternFoundCount() {
         return imagePointsList.size();
     }
 
+    public synchronized int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of worker threads used by offer(). Must be called before the first call to
+     * offer().
+     * 
+     * @param threads
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public long getSampleIntervalMs() {
+        return sampleIntervalMs;
+    }
+
+    public void setSampleIntervalMs(long sampleIntervalMs) {
+        this.sampleIntervalMs = sampleIntervalMs;
+    }
+
+    public double getMinimumPoseChange() {
+        return minimumPoseChange;
+    }
+
+    /**
+     * Set how far a pose must be from every pose already collected to be used, as a fraction of
+     * the image diagonal.
+     * 
+     * @param minimumPoseChange
+     */
+    public void setMinimumPoseChange(double minimumPoseChange) {
+        this.minimumPoseChange = minimumPoseChange;
+    }
+
     public boolean isCalibrated() {
         return cameraMatrix != null && distortionCoefficients != null;
     }
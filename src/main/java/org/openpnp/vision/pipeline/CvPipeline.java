@@ -2,15 +2,26 @@ package org.openpnp.vision.pipeline;
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
 
 import org.opencv.core.Mat;
 import org.openpnp.model.Configuration;
 import org.openpnp.spi.Camera;
+import org.openpnp.util.OpenCvUtils;
+import org.openpnp.util.Profiler;
 import org.openpnp.vision.pipeline.CvStage.Result;
 import org.simpleframework.xml.ElementList;
 import org.simpleframework.xml.Root;
@@ -22,7 +33,8 @@ import org.slf4j.LoggerFactory;
  * A CvPipeline performs computer vision operations on a working image by processing in series a
  * list of CvStage instances. Each CvStage instance can modify the working image and return a new
  * image along with data extracted from the image. After processing the image callers can get access
- * to the images and models from each stage.
+ * to the images and models from each stage. Stages that don't depend on each other are processed
+ * concurrently, with the same results as processing them in series.
  * 
  * CvPipeline is serializable using toXmlString and fromXmlString. This makes it easy to export
  * pipelines and exchange them with others.
@@ -40,17 +52,39 @@ import org.slf4j.LoggerFactory;
 @Root
 public class CvPipeline {
     static {
-        nu.pattern.OpenCV.loadShared();
-        System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+        OpenCvUtils.loadNativeLibrary();
     }
 
     private final static Logger logger = LoggerFactory.getLogger(CvPipeline.class);
 
+    private static final ForkJoinPool pool =
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+                ForkJoinWorkerThread thread =
+                        ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("CvPipeline " + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+
+    /**
+     * The task processing a stage on the current thread, if any.
+     */
+    private static final ThreadLocal<StageTask> currentTask = new ThreadLocal<>();
+
     @ElementList
     private ArrayList<CvStage> stages = new ArrayList<>();
 
     private Map<CvStage, Result> results = new HashMap<CvStage, Result>();
 
+    /**
+     * The stages that have results from the last run, in the order they were processed.
+     */
+    private List<CvStage> processedStages = new ArrayList<>();
+
+    /**
+     * For each stage with a result, the stages it waited for when it was processed.
+     */
+    private Map<CvStage, List<CvStage>> dependencies = new HashMap<>();
+
     private Mat workingImage;
 
     private Camera camera;
@@ -75,7 +109,7 @@ public class CvPipeline {
      * @param name
      * @param stage
      */
-    public void add(String name, CvStage stage) {
+    public synchronized void add(String name, CvStage stage) {
         if (name == null) {
             name = generateUniqueName();
         }
@@ -93,7 +127,7 @@ public class CvPipeline {
         add(stage.getName(), stage);
     }
 
-    public void insert(String name, CvStage stage, int index) {
+    public synchronized void insert(String name, CvStage stage, int index) {
         if (name == null) {
             name = generateUniqueName();
         }
@@ -109,7 +143,7 @@ public class CvPipeline {
         remove(getStage(name));
     }
 
-    public void remove(CvStage stage) {
+    public synchronized void remove(CvStage stage) {
         stages.remove(stage);
     }
 
@@ -140,6 +174,10 @@ public class CvPipeline {
         if (name == null) {
             return null;
         }
+        StageTask task = currentTask.get();
+        if (task != null && task.getPipeline() == this) {
+            return getResult(task.run.getStage(name));
+        }
         return getResult(getStage(name));
     }
 
@@ -147,6 +185,10 @@ public class CvPipeline {
      * Get the Result returned by give CvStage. May return null if the stage did not return a
      * result.
      * 
+     * When called by a stage during processing, this returns the result of the given stage only if
+     * it comes before the calling stage, waiting for it to finish if it has not yet. This gives the
+     * same results as processing the stages one after another.
+     * 
      * @param stage
      * @return
      */
@@ -154,16 +196,67 @@ public class CvPipeline {
         if (stage == null) {
             return null;
         }
-        return results.get(stage);
+        StageTask task = currentTask.get();
+        if (task != null && task.getPipeline() == this) {
+            int index = task.run.stages.indexOf(stage);
+            if (index >= task.index) {
+                return null;
+            }
+            if (index >= 0) {
+                task.await(index);
+            }
+        }
+        synchronized (this) {
+            return results.get(stage);
+        }
     }
 
     /**
      * Get the current working image. Primarily intended to be called from CvStage implementations.
+     * When called by a stage during processing this is the stage's own copy of the image.
      * 
      * @return
      */
     public Mat getWorkingImage() {
-        return workingImage;
+        StageTask task = currentTask.get();
+        if (task != null && task.getPipeline() == this) {
+            return task.input;
+        }
+        synchronized (this) {
+            return workingImage;
+        }
+    }
+
+    /**
+     * Get the stages that determined how long the last run took: the chain of dependent stages,
+     * each waiting on the one before it, with the longest total processing time.
+     * 
+     * @return
+     */
+    public synchronized List<CvStage> getCriticalPath() {
+        Map<CvStage, Long> finishNs = new HashMap<>();
+        Map<CvStage, CvStage> previous = new HashMap<>();
+        CvStage last = null;
+        for (CvStage stage : processedStages) {
+            long startNs = 0;
+            for (CvStage dependency : dependencies.getOrDefault(stage,
+                    Collections.emptyList())) {
+                Long dependencyFinishNs = finishNs.get(dependency);
+                if (dependencyFinishNs != null && dependencyFinishNs > startNs) {
+                    startNs = dependencyFinishNs;
+                    previous.put(stage, dependency);
+                }
+            }
+            finishNs.put(stage, startNs + results.get(stage).processingTimeNs);
+            if (last == null || finishNs.get(stage) > finishNs.get(last)) {
+                last = stage;
+            }
+        }
+        List<CvStage> path = new ArrayList<>();
+        for (CvStage stage = last; stage != null; stage = previous.get(stage)) {
+            path.add(0, stage);
+        }
+        return path;
     }
 
     public void setCamera(Camera camera) {
@@ -174,22 +267,234 @@ public class CvPipeline {
         return camera;
     }
 
+    /**
+     * Process every stage of the pipeline, discarding the results of any previous run.
+     */
     public void process() {
-        release();
-        for (CvStage stage : stages) {
+        process(0, null);
+    }
+
+    /**
+     * Process the pipeline starting at the stage at the given index, keeping the results of the
+     * stages before it from the previous run. The working image passed to the first processed stage
+     * is a copy of the result image of the stage before it, so a pipeline that starts with
+     * ImageCapture can be re-run from a later stage without capturing a new image. If stages were
+     * added, removed or moved since the previous run, processing starts at the first stage that
+     * changed position, or earlier if the previous run did not finish.
+     * 
+     * Stages that do not depend on each other are processed concurrently. A stage depends on the
+     * last stage before it that writes the working image, if it reads the working image, and on
+     * the stages named by CvStage#getReferencedStageNames(). Each stage works on its own copy of
+     * the working image, so the results are the same as processing the stages one after another.
+     * 
+     * @param fromIndex
+     * @param cancelled Checked before each stage. If it returns true the remaining stages are not
+     *        processed and have no results. May be null.
+     * @return false if processing was cancelled.
+     */
+    public boolean process(int fromIndex, BooleanSupplier cancelled) {
+        Run run;
+        synchronized (this) {
+            List<CvStage> stages = new ArrayList<>(this.stages);
+            fromIndex = Math.max(0, Math.min(fromIndex, processedStages.size()));
+            for (int i = 0; i < fromIndex; i++) {
+                if (i >= stages.size() || stages.get(i) != processedStages.get(i)) {
+                    fromIndex = i;
+                    break;
+                }
+            }
+            // Keep the results of the stages before fromIndex and release the rest, including
+            // those of stages that have since been removed.
+            processedStages = new ArrayList<>(stages.subList(0, fromIndex));
+            Set<CvStage> kept = new HashSet<>(processedStages);
+            for (Iterator<Map.Entry<CvStage, Result>> i = results.entrySet().iterator(); i
+                    .hasNext();) {
+                Map.Entry<CvStage, Result> entry = i.next();
+                if (!kept.contains(entry.getKey())) {
+                    if (entry.getValue().image != null) {
+                        entry.getValue().image.release();
+                    }
+                    i.remove();
+                }
+            }
+            dependencies.keySet().retainAll(kept);
+            if (workingImage != null) {
+                workingImage.release();
+                workingImage = null;
+            }
+            run = new Run(stages, fromIndex, cancelled);
+        }
+        for (int i = fromIndex; i < run.tasks.length; i++) {
+            pool.execute(run.tasks[i]);
+        }
+        boolean completed = true;
+        for (int i = fromIndex; i < run.tasks.length; i++) {
+            run.tasks[i].join();
+            completed &= run.tasks[i].completed;
+        }
+        synchronized (this) {
+            for (int i = fromIndex; i < run.tasks.length && run.tasks[i].completed; i++) {
+                processedStages.add(run.stages.get(i));
+            }
+            if (!processedStages.isEmpty()) {
+                Result last = results.get(processedStages.get(processedStages.size() - 1));
+                if (last.image != null) {
+                    workingImage = last.image.clone();
+                }
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * The stages being processed and the order and dependencies between them.
+     */
+    private class Run {
+        private final List<CvStage> stages;
+        private final int fromIndex;
+        private final BooleanSupplier cancelled;
+        private final StageTask[] tasks;
+
+        /**
+         * For each stage, the index of the last stage before it that writes the working image, or
+         * -1 if there is none.
+         */
+        private final int[] imageSources;
+
+        Run(List<CvStage> stages, int fromIndex, BooleanSupplier cancelled) {
+            this.stages = stages;
+            this.fromIndex = fromIndex;
+            this.cancelled = cancelled;
+            tasks = new StageTask[stages.size()];
+            imageSources = new int[stages.size()];
+            int imageSource = -1;
+            for (int i = 0; i < stages.size(); i++) {
+                CvStage stage = stages.get(i);
+                imageSources[i] = imageSource;
+                if (stage.isEnabled() && stage.writesWorkingImage()) {
+                    imageSource = i;
+                }
+            }
+            for (int i = fromIndex; i < stages.size(); i++) {
+                tasks[i] = new StageTask(this, i);
+            }
+        }
+
+        CvStage getStage(String name) {
+            for (CvStage stage : stages) {
+                if (stage.getName().equals(name)) {
+                    return stage;
+                }
+            }
+            return null;
+        }
+
+        boolean isCancelled() {
+            return cancelled != null && cancelled.getAsBoolean();
+        }
+    }
+
+    /**
+     * Processes one stage once the stages it depends on are done.
+     */
+    @SuppressWarnings("serial")
+    private class StageTask extends RecursiveAction {
+        private final Run run;
+        private final int index;
+        private final CvStage stage;
+        private final boolean reads;
+        private final List<CvStage> awaited = new ArrayList<>();
+        private Mat input;
+        private volatile boolean completed;
+
+        StageTask(Run run, int index) {
+            this.run = run;
+            this.index = index;
+            this.stage = run.stages.get(index);
+            this.reads = stage.isEnabled() && stage.readsWorkingImage();
+        }
+
+        CvPipeline getPipeline() {
+            return CvPipeline.this;
+        }
+
+        /**
+         * Wait for the stage at the given index, which must come before this one, to be processed.
+         * 
+         * @return false if it was skipped because processing was cancelled.
+         */
+        boolean await(int index) {
+            if (index < 0) {
+                return true;
+            }
+            CvStage dependency = run.stages.get(index);
+            if (!awaited.contains(dependency)) {
+                awaited.add(dependency);
+            }
+            if (index < run.fromIndex) {
+                return true;
+            }
+            StageTask task = run.tasks[index];
+            task.join();
+            return task.completed;
+        }
+
+        /**
+         * Get a copy of the working image as it is after the stage that writes it last before this
+         * one.
+         */
+        Mat copyWorkingImage() {
+            int source = run.imageSources[index];
+            if (source < 0) {
+                return null;
+            }
+            Result result;
+            synchronized (CvPipeline.this) {
+                result = results.get(run.stages.get(source));
+            }
+            return result == null || result.image == null ? null : result.image.clone();
+        }
+
+        @Override
+        protected void compute() {
+            for (String name : stage.getReferencedStageNames()) {
+                int dependency = run.stages.indexOf(run.getStage(name));
+                if (dependency < index && !await(dependency)) {
+                    return;
+                }
+            }
+            if (reads && !await(run.imageSources[index])) {
+                return;
+            }
+            if (run.isCancelled()) {
+                return;
+            }
+            input = reads ? copyWorkingImage() : null;
+
             // Process and time the stage and get the result.
+            StageTask previousTask = currentTask.get();
+            currentTask.set(this);
             long processingTimeNs = System.nanoTime();
+            long cpuTimeNs = getCpuTimeNs();
             Result result = null;
             try {
                 if (!stage.isEnabled()) {
                     throw new Exception("Stage not enabled.");
                 }
-                result = stage.process(this);
+                result = stage.process(CvPipeline.this);
             }
             catch (Exception e) {
                 result = new Result(null, e);
             }
+            finally {
+                currentTask.set(previousTask);
+            }
             processingTimeNs = System.nanoTime() - processingTimeNs;
+            cpuTimeNs = getCpuTimeNs() - cpuTimeNs;
+            if (Profiler.get().isEnabled()) {
+                Profiler.get().record("pipeline." + stage.getClass().getSimpleName(),
+                        processingTimeNs);
+            }
 
             Mat image = null;
             Object model = null;
@@ -198,27 +503,37 @@ public class CvPipeline {
                 model = result.model;
             }
 
-            // If the result image is null and there is a working image, replace the result image
-            // replace the result image with a clone of the working image.
+            // If the result image is null the working image is unchanged, or changed in place by
+            // a stage that reads it, and the result image is this stage's copy of it.
             if (image == null) {
-                if (workingImage != null) {
-                    image = workingImage.clone();
+                if (!reads) {
+                    if (!await(run.imageSources[index])) {
+                        return;
+                    }
+                    input = copyWorkingImage();
                 }
+                image = input;
             }
-            // If the result image is not null:
-            // Release the working image if the result image is different.
-            // Replace the working image with the result image.
-            // Clone the result image for storage.
-            else {
-                if (workingImage != null && workingImage != image) {
-                    workingImage.release();
-                }
-                workingImage = image;
-                image = image.clone();
+            // Otherwise the result image replaces this stage's copy of the working image.
+            else if (input != null && input != image) {
+                input.release();
+            }
+            input = null;
+
+            synchronized (CvPipeline.this) {
+                results.put(stage, new Result(image, model, processingTimeNs, cpuTimeNs));
+                dependencies.put(stage, awaited);
             }
+            completed = true;
+        }
+    }
 
-            results.put(stage, new Result(image, model, processingTimeNs));
+    private static long getCpuTimeNs() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isCurrentThreadCpuTimeSupported()) {
+            return 0;
         }
+        return threadMXBean.getCurrentThreadCpuTime();
     }
 
     /**
@@ -226,9 +541,10 @@ public class CvPipeline {
      * called when the pipeline is no longer needed. This is primarily to release retained native
      * resources from OpenCV.
      */
-    public void release() {
+    public synchronized void release() {
         if (workingImage != null) {
             workingImage.release();
+            workingImage = null;
         }
         for (Result result : results.values()) {
             if (result.image != null) {
@@ -236,6 +552,8 @@ public class CvPipeline {
             }
         }
         results.clear();
+        processedStages.clear();
+        dependencies.clear();
     }
 
     /**
@@ -257,7 +575,7 @@ public class CvPipeline {
      * @param s
      * @throws Exception
      */
-    public void fromXmlString(String s) throws Exception {
+    public synchronized void fromXmlString(String s) throws Exception {
         release();
         Serializer ser = Configuration.createSerializer();
         StringReader sr = new StringReader(s);
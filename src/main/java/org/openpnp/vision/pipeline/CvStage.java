@@ -7,6 +7,9 @@ import java.beans.EventSetDescriptor;
 import java.beans.Introspector;
 import java.beans.MethodDescriptor;
 import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.opencv.core.Mat;
 import org.simpleframework.xml.Attribute;
@@ -40,6 +43,57 @@ public abstract class CvStage {
      */
     public abstract Result process(CvPipeline pipeline) throws Exception;
 
+    /**
+     * Returns true if this stage reads the working image. Stages that return false are processed
+     * without waiting for the stages before them that write the working image, and get null from
+     * CvPipeline#getWorkingImage().
+     * 
+     * @return
+     */
+    public boolean readsWorkingImage() {
+        return true;
+    }
+
+    /**
+     * Returns true if this stage may change the working image, either in place or by returning a
+     * new image. Stages that return false must not modify the working image and must return a null
+     * image, so that the stages after them can be processed at the same time.
+     * 
+     * @return
+     */
+    public boolean writesWorkingImage() {
+        return true;
+    }
+
+    /**
+     * Get the names of the stages whose results this stage uses. By default these are the values
+     * of the String fields whose names end with "StageName", such as imageStageName or
+     * contoursStageName.
+     * 
+     * @return
+     */
+    public List<String> getReferencedStageNames() {
+        List<String> names = new ArrayList<>();
+        for (Class<?> cls = getClass(); cls != CvStage.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (field.getType() != String.class || !field.getName().endsWith("StageName")) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    String name = (String) field.get(this);
+                    if (name != null) {
+                        names.add(name);
+                    }
+                }
+                catch (Exception e) {
+                    // Not readable, so it can't be followed.
+                }
+            }
+        }
+        return names;
+    }
+
     public String getName() {
         return name;
     }
@@ -155,12 +209,26 @@ public abstract class CvStage {
     public static class Result {
         final public Mat image;
         final public Object model;
+        /**
+         * The wall clock time the stage took to process.
+         */
         final public long processingTimeNs;
-
-        public Result(Mat image, Object model, long processingTimeNs) {
+        /**
+         * The CPU time used by the thread that processed the stage, or 0 if it couldn't be
+         * measured. This is lower than the processing time when the stage waits, for instance on
+         * a camera, and may be higher when OpenCV uses more than one thread.
+         */
+        final public long cpuTimeNs;
+
+        public Result(Mat image, Object model, long processingTimeNs, long cpuTimeNs) {
             this.image = image;
             this.model = model;
             this.processingTimeNs = processingTimeNs;
+            this.cpuTimeNs = cpuTimeNs;
+        }
+
+        public Result(Mat image, Object model, long processingTimeNs) {
+            this(image, model, processingTimeNs, 0);
         }
 
         public Result(Mat image, Object model) {
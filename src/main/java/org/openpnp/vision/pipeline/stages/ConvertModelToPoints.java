@@ -27,6 +27,16 @@ public class ConvertModelToPoints extends CvStage {
         this.modelStageName = modelStageName;
     }
 
+    @Override
+    public boolean readsWorkingImage() {
+        return false;
+    }
+
+    @Override
+    public boolean writesWorkingImage() {
+        return false;
+    }
+
     @Override
     public Result process(CvPipeline pipeline) throws Exception {
         if (modelStageName == null) {
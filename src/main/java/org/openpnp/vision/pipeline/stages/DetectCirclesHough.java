@@ -94,6 +94,11 @@ public class DetectCirclesHough extends CvStage {
         this.param2 = param2;
     }
 
+    @Override
+    public boolean writesWorkingImage() {
+        return false;
+    }
+
     @Override
     public Result process(CvPipeline pipeline) throws Exception {
         Mat mat = pipeline.getWorkingImage();
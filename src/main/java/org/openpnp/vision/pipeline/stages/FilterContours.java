@@ -46,6 +46,16 @@ public class FilterContours extends CvStage {
         this.maxArea = maxArea;
     }
 
+    @Override
+    public boolean readsWorkingImage() {
+        return false;
+    }
+
+    @Override
+    public boolean writesWorkingImage() {
+        return false;
+    }
+
     @Override
     public Result process(CvPipeline pipeline) throws Exception {
         if (contoursStageName == null) {
@@ -20,6 +20,11 @@ public class ImageCapture extends CvStage {
         this.settleFirst = settleFirst;
     }
 
+    @Override
+    public boolean readsWorkingImage() {
+        return false;
+    }
+
     @Override
     public Result process(CvPipeline pipeline) throws Exception {
         Camera camera = pipeline.getCamera();
@@ -16,6 +16,11 @@ public class ImageRecall extends CvStage {
         this.imageStageName = imageStageName;
     }
 
+    @Override
+    public boolean readsWorkingImage() {
+        return false;
+    }
+
     @Override
     public Result process(CvPipeline pipeline) throws Exception {
         if (imageStageName == null) {
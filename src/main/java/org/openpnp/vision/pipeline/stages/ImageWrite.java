@@ -3,18 +3,23 @@ package org.openpnp.vision.pipeline.stages;
 import java.io.File;
 
 import org.opencv.highgui.Highgui;
+import org.openpnp.util.DebugImageWriter;
 import org.openpnp.vision.pipeline.CvPipeline;
 import org.openpnp.vision.pipeline.CvStage;
 import org.simpleframework.xml.Attribute;
 
 /**
  * Save the working image to the specified path. The format is chosen based on the filename's
- * extension.
+ * extension. If asynchronous is set the image is written in the background by the
+ * DebugImageWriter and the file may not exist yet when the next stage runs.
  */
 public class ImageWrite extends CvStage {
     @Attribute
     private File file = new File("");
 
+    @Attribute(required = false)
+    private boolean asynchronous = false;
+
     public File getFile() {
         return file;
     }
@@ -23,9 +28,27 @@ public class ImageWrite extends CvStage {
         this.file = file;
     }
 
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
+    public void setAsynchronous(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
+    @Override
+    public boolean writesWorkingImage() {
+        return false;
+    }
+
     @Override
     public Result process(CvPipeline pipeline) throws Exception {
-        Highgui.imwrite(file.getAbsolutePath(), pipeline.getWorkingImage());
+        if (asynchronous) {
+            DebugImageWriter.get().write(file, pipeline.getWorkingImage());
+        }
+        else {
+            Highgui.imwrite(file.getAbsolutePath(), pipeline.getWorkingImage());
+        }
         return null;
     }
 }
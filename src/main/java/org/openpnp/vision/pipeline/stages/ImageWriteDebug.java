@@ -1,9 +1,6 @@
 package org.openpnp.vision.pipeline.stages;
 
-import java.io.File;
-
-import org.opencv.highgui.Highgui;
-import org.openpnp.model.Configuration;
+import org.openpnp.util.DebugImageWriter;
 import org.openpnp.vision.pipeline.CvPipeline;
 import org.openpnp.vision.pipeline.CvStage;
 import org.simpleframework.xml.Attribute;
@@ -12,7 +9,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Save the working image as an image file in the debug directory using the specified prefix and
- * suffix. The suffix should be a file extension (including the period).
+ * suffix. The suffix should be a file extension (including the period). The image is written in
+ * the background by the DebugImageWriter, which may drop it if its queue is full.
  */
 public class ImageWriteDebug extends CvStage {
     private final static Logger logger = LoggerFactory.getLogger(ImageWriteDebug.class);
@@ -39,13 +37,17 @@ public class ImageWriteDebug extends CvStage {
         this.suffix = suffix;
     }
 
+    @Override
+    public boolean writesWorkingImage() {
+        return false;
+    }
+
     @Override
     public Result process(CvPipeline pipeline) throws Exception {
         if (!logger.isDebugEnabled()) {
             return null;
         }
-        File file = Configuration.get().createResourceFile(getClass(), prefix, suffix);
-        Highgui.imwrite(file.getAbsolutePath(), pipeline.getWorkingImage());
+        DebugImageWriter.get().write(getClass(), prefix, suffix, pipeline.getWorkingImage());
         return null;
     }
 }
@@ -40,6 +40,11 @@ public class MinAreaRect extends CvStage {
     }
     
     
+    @Override
+    public boolean writesWorkingImage() {
+        return false;
+    }
+
     @Override
     public Result process(CvPipeline pipeline) throws Exception {
         Mat mat = pipeline.getWorkingImage();
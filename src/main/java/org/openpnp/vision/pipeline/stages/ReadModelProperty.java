@@ -35,6 +35,16 @@ public class ReadModelProperty extends CvStage {
         this.propertyName = propertyName;
     }
 
+    @Override
+    public boolean readsWorkingImage() {
+        return false;
+    }
+
+    @Override
+    public boolean writesWorkingImage() {
+        return false;
+    }
+
     @Override
     public Result process(CvPipeline pipeline) throws Exception {
         if (modelStageName == null) {
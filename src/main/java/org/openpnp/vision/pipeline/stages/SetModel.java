@@ -14,6 +14,16 @@ public class SetModel extends CvStage {
         this.model = model;
     }
 
+    @Override
+    public boolean readsWorkingImage() {
+        return false;
+    }
+
+    @Override
+    public boolean writesWorkingImage() {
+        return false;
+    }
+
     @Override
     public Result process(CvPipeline pipeline) throws Exception {
         return new Result(null, model);
@@ -6,9 +6,13 @@ import java.awt.event.HierarchyListener;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.JPanel;
 import javax.swing.JSplitPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import org.openpnp.vision.pipeline.CvPipeline;
 import org.openpnp.vision.pipeline.CvStage;
@@ -55,6 +59,11 @@ import org.openpnp.vision.pipeline.stages.Threshold;
  * stage.
  * 
  * The core CvStage classes are automatically registered during startup.
+ * 
+ * The pipeline is processed on a background thread. Edits to a stage are collected for a short
+ * time and then only that stage and the ones after it are processed again, so tuning a property
+ * does not capture a new image or re-run the stages before it. A run that is made stale by a newer
+ * one is cancelled.
  */
 @SuppressWarnings("serial")
 public class CvPipelineEditor extends JPanel {
@@ -96,13 +105,34 @@ public class CvPipelineEditor extends JPanel {
 
     private final static Set<Class<? extends CvStage>> stageClasses;
 
+    /**
+     * How long to wait after the last edit before processing the pipeline.
+     */
+    private static final int PROCESS_DELAY = 200;
+
+    private static final ExecutorService processExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Pipeline Editor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final CvPipeline pipeline;
     private PipelinePanel pipelinePanel;
     private ResultsPanel resultsPanel;
+    private final Timer processTimer;
+
+    /**
+     * The index of the first stage that has changed since the last completed run.
+     */
+    private int changedIndex = Integer.MAX_VALUE;
+    private volatile int processGeneration;
 
     public CvPipelineEditor(CvPipeline pipeline) {
         this.pipeline = pipeline;
 
+        processTimer = new Timer(PROCESS_DELAY, e -> startProcessing());
+        processTimer.setRepeats(false);
+
         setLayout(new BorderLayout(0, 0));
 
         JSplitPane inputAndOutputSplitPane = new JSplitPane();
@@ -128,9 +158,51 @@ public class CvPipelineEditor extends JPanel {
         return pipeline;
     }
 
+    /**
+     * Process the entire pipeline, capturing a new image, and show the results when it's done.
+     */
     public void process() {
-        getPipeline().process();
-        resultsPanel.refresh();
+        processTimer.stop();
+        changedIndex = 0;
+        startProcessing();
+    }
+
+    /**
+     * Process the pipeline from the given stage onward once editing pauses, reusing the results of
+     * the stages before it.
+     * 
+     * @param stage
+     */
+    public void processFrom(CvStage stage) {
+        processFrom(Math.max(0, pipeline.getStages().indexOf(stage)));
+    }
+
+    /**
+     * Process the pipeline from the stage at the given index onward once editing pauses. Stages
+     * that were added, removed or moved are detected by the pipeline, so passing the number of
+     * stages processes only what those changes affect.
+     * 
+     * @param index
+     */
+    public void processFrom(int index) {
+        changedIndex = Math.min(changedIndex, index);
+        processTimer.restart();
+    }
+
+    private void startProcessing() {
+        int fromIndex = changedIndex;
+        int generation = ++processGeneration;
+        processExecutor.submit(() -> {
+            pipeline.process(fromIndex, () -> generation != processGeneration);
+            SwingUtilities.invokeLater(() -> {
+                if (generation != processGeneration) {
+                    // A newer run has started and includes this run's changes.
+                    return;
+                }
+                changedIndex = Integer.MAX_VALUE;
+                resultsPanel.refresh();
+            });
+        });
     }
 
     public void stageSelected(CvStage stage) {
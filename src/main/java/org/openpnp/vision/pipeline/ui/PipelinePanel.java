@@ -122,25 +122,18 @@ public class PipelinePanel extends JPanel {
             }
         });
 
-        // Listen for changes to the structure of the table (adding or removing rows) and process
-        // the pipeline to update the results.
+        // Listen for changes to the table and process the pipeline to update the results. An
+        // edited row is processed from that stage onward. When rows are added, removed or moved
+        // the pipeline works out which stages are affected.
         stagesTable.getModel().addTableModelListener(new TableModelListener() {
             @Override
             public void tableChanged(TableModelEvent e) {
-                editor.process();
-            }
-        });
-
-        // Listen for editing events in the stages table and process the pipeline to update the
-        // results.
-        stagesTable.addPropertyChangeListener(new PropertyChangeListener() {
-            @Override
-            public void propertyChange(PropertyChangeEvent e) {
-                if ("tableCellEditor".equals(e.getPropertyName())) {
-                    if (!propertySheetPanel.getTable().isEditing()) {
-                        // editing has ended for a cell, save the values
-                        editor.process();
-                    }
+                if (e.getType() == TableModelEvent.UPDATE && e.getFirstRow() >= 0
+                        && e.getLastRow() != Integer.MAX_VALUE) {
+                    editor.processFrom(e.getFirstRow());
+                }
+                else {
+                    editor.processFrom(stagesTableModel.getRowCount());
                 }
             }
         });
@@ -161,8 +154,9 @@ public class PipelinePanel extends JPanel {
                 if ("tableCellEditor".equals(e.getPropertyName())) {
                     if (!propertySheetPanel.getTable().isEditing()) {
                         // editing has ended for a cell, save the values
-                        propertySheetPanel.writeToObject(getSelectedStage());
-                        editor.process();
+                        CvStage stage = getSelectedStage();
+                        propertySheetPanel.writeToObject(stage);
+                        editor.processFrom(stage);
                     }
                 }
             }
@@ -210,7 +204,6 @@ public class PipelinePanel extends JPanel {
                 editor.getPipeline().add(stage);
                 stagesTableModel.refresh();
                 Helpers.selectLastTableRow(stagesTable);
-                editor.process();
             }
             catch (Exception e) {
                 MessageBoxes.errorBox(JOptionPane.getFrameForComponent(PipelinePanel.this), "Error",
@@ -231,7 +224,6 @@ public class PipelinePanel extends JPanel {
             CvStage stage = getSelectedStage();
             editor.getPipeline().remove(stage);
             stagesTableModel.refresh();
-            editor.process();
         }
     };
 
@@ -147,14 +147,20 @@ public class ResultsPanel extends JPanel {
         List<CvStage> stages = editor.getPipeline().getStages();
 
         Result result = null;
-        Mat image = null;
         Object model = null;
-        if (selectedStage != null) {
-            result = editor.getPipeline().getResult(selectedStage);
-            if (result != null) {
-                image = result.image;
-                model = result.model;
+        List<CvStage> criticalPath;
+        // Hold the pipeline while converting the image so it isn't released by a run in progress.
+        synchronized (editor.getPipeline()) {
+            criticalPath = editor.getPipeline().getCriticalPath();
+            Mat image = null;
+            if (selectedStage != null) {
+                result = editor.getPipeline().getResult(selectedStage);
+                if (result != null) {
+                    image = result.image;
+                    model = result.model;
+                }
             }
+            matView.setMat(image);
         }
 
         if (model instanceof List) {
@@ -170,10 +176,11 @@ public class ResultsPanel extends JPanel {
         else {
             modelTextPane.setText(model == null ? "" : model.toString());
         }
-        matView.setMat(image);
         resultStageNameLabel.setText(result == null || selectedStage == null ? ""
-                : (selectedStage.getName() + " (" + (result.processingTimeNs / 1000000.0)
-                        + " ms)"));
+                : String.format("%s (%.3f ms, CPU %.3f ms%s)", selectedStage.getName(),
+                        result.processingTimeNs / 1000000.0, result.cpuTimeNs / 1000000.0,
+                        criticalPath.contains(selectedStage) ? ", critical path" : ""));
+        resultStageNameLabel.setToolTipText(getCriticalPathText(criticalPath));
 
         if (selectedStage == null) {
             firstResultAction.setEnabled(false);
@@ -190,6 +197,25 @@ public class ResultsPanel extends JPanel {
         }
     }
 
+    /**
+     * Describe the stages that the last run of the pipeline had to wait for, one after another.
+     */
+    private String getCriticalPathText(List<CvStage> criticalPath) {
+        if (criticalPath.isEmpty()) {
+            return null;
+        }
+        String names = "";
+        long processingTimeNs = 0;
+        for (CvStage stage : criticalPath) {
+            Result result = editor.getPipeline().getResult(stage);
+            if (result != null) {
+                processingTimeNs += result.processingTimeNs;
+            }
+            names += (names.isEmpty() ? "" : " > ") + stage.getName();
+        }
+        return String.format("Critical path: %s (%.3f ms)", names, processingTimeNs / 1000000.0);
+    }
+
     public final Action firstResultAction = new AbstractAction() {
         {
             putValue(SMALL_ICON, Icons.navigateFirst);
@@ -70,6 +70,7 @@ public class StagesTableModel extends AbstractTableModel implements Reorderable
                 stage.setName(aValue.toString());
                 break;
         }
+        fireTableRowsUpdated(rowIndex, rowIndex);
     }
 
     @Override
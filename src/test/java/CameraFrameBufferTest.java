@@ -0,0 +1,121 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.CameraListener;
+import org.openpnp.machine.reference.camera.ImageCamera;
+import org.openpnp.model.Configuration;
+import org.openpnp.util.FrameRingBuffer;
+
+import com.google.common.io.Files;
+
+public class CameraFrameBufferTest {
+    @Test
+    public void testRingBuffer() throws Exception {
+        FrameRingBuffer buffer = new FrameRingBuffer(3);
+        Assert.assertNull(buffer.getLatest());
+        Assert.assertNull(buffer.awaitAfter(0, 10));
+
+        BufferedImage[] images = new BufferedImage[5];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            buffer.add(images[i], (i + 1) * 10);
+        }
+        // Capacity is 3, so frames 0 and 1 have been overwritten.
+        Assert.assertEquals(3, buffer.size());
+        Assert.assertSame(images[4], buffer.getLatest().image);
+        Assert.assertSame(images[2], buffer.getFirstAfter(0).image);
+        Assert.assertSame(images[3], buffer.getFirstAfter(30).image);
+        Assert.assertSame(images[4], buffer.getFirstAfter(45).image);
+        Assert.assertNull(buffer.getFirstAfter(50));
+    }
+
+    @Test
+    public void testAwaitAfterProducer() throws Exception {
+        FrameRingBuffer buffer = new FrameRingBuffer(2);
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        long t = System.nanoTime();
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            buffer.add(image, System.nanoTime());
+        });
+        producer.start();
+        FrameRingBuffer.Frame frame = buffer.awaitAfter(t, 2000);
+        producer.join();
+        Assert.assertNotNull(frame);
+        Assert.assertSame(image, frame.image);
+        Assert.assertTrue(frame.nanoTime - t > 0);
+    }
+
+    /**
+     * Runs an ImageCamera's grabber thread and checks that captureAfter() returns a frame that was
+     * published by the grabber after the requested time, and that captureLatest() returns the most
+     * recent published frame without a new read.
+     */
+    @Test
+    public void testImageCameraCaptureAfter() throws Exception {
+        File workingDirectory = Files.createTempDir();
+        workingDirectory = new File(workingDirectory, ".openpnp");
+        Configuration.initialize(workingDirectory);
+
+        RecordingImageCamera camera = new RecordingImageCamera();
+        camera.setSourceUri("classpath://samples/pnp-test/pnp-test.png");
+
+        // Without a grabber thread the camera falls back to a direct capture.
+        Assert.assertNotNull(camera.captureAfter(System.nanoTime()));
+        Assert.assertTrue(camera.published.isEmpty());
+
+        CameraListener listener = new CameraListener() {
+            @Override
+            public void frameReceived(BufferedImage img) {}
+        };
+        camera.startContinuousCapture(listener, 24);
+        try {
+            for (int i = 0; i < 5; i++) {
+                long t = System.nanoTime();
+                BufferedImage image = camera.captureAfter(t);
+                Assert.assertNotNull(image);
+                FrameRingBuffer.Frame frame = camera.find(image);
+                Assert.assertNotNull("frame was not served from the buffer", frame);
+                Assert.assertTrue("frame predates request", frame.nanoTime - t > 0);
+            }
+
+            BufferedImage latest = camera.captureLatest();
+            Assert.assertNotNull(camera.find(latest));
+        }
+        finally {
+            camera.stopContinuousCapture(listener);
+        }
+    }
+
+    public static class RecordingImageCamera extends ImageCamera {
+        final List<FrameRingBuffer.Frame> published =
+                Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        protected void publishFrame(BufferedImage img, long nanoTime) {
+            published.add(new FrameRingBuffer.Frame(img, nanoTime));
+            super.publishFrame(img, nanoTime);
+        }
+
+        FrameRingBuffer.Frame find(BufferedImage image) {
+            synchronized (published) {
+                for (FrameRingBuffer.Frame frame : published) {
+                    if (frame.image == image) {
+                        return frame;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferenceHead;
+import org.openpnp.machine.reference.ReferenceNozzle;
+import org.openpnp.machine.reference.ReferenceNozzleTip;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Package;
+import org.openpnp.model.Part;
+import org.openpnp.spi.base.CompatibilityMatrix;
+
+import com.google.common.io.Files;
+
+public class CompatibilityMatrixTest {
+    @Test
+    public void testInvalidation() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        Configuration.initialize(workingDirectory);
+
+        Package packageA = new Package("A");
+        Package packageB = new Package("B");
+        ReferenceNozzleTip tipA = new ReferenceNozzleTip();
+        tipA.setCompatiblePackages(Collections.singleton(packageA));
+        ReferenceNozzle nozzle = new ReferenceNozzle();
+        nozzle.addNozzleTip(tipA);
+        ReferenceHead head = new ReferenceHead() {
+            {
+                nozzles.add(nozzle);
+            }
+        };
+        Part part = new Part("P");
+        part.setPackage(packageB);
+
+        CompatibilityMatrix matrix = new CompatibilityMatrix(head);
+        Assert.assertFalse(matrix.canHandle(nozzle, part));
+
+        // A change of the part's package is picked up.
+        part.setPackage(packageA);
+        Assert.assertTrue(matrix.canHandle(nozzle, part));
+
+        // So is a change of the tip's compatible packages.
+        tipA.setCompatiblePackages(Collections.singleton(packageB));
+        Assert.assertFalse(matrix.canHandle(nozzle, part));
+
+        // And a tip added to the nozzle.
+        ReferenceNozzleTip tipAny = new ReferenceNozzleTip();
+        tipAny.setAllowIncompatiblePackages(true);
+        nozzle.addNozzleTip(tipAny);
+        Assert.assertTrue(matrix.canHandle(nozzle, part));
+        Assert.assertSame(tipAny, matrix.findNozzleTip(nozzle, part));
+
+        nozzle.removeNozzleTip(tipAny);
+        Assert.assertFalse(matrix.canHandle(nozzle, part));
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.openpnp.vision.pipeline.CvPipeline;
+import org.openpnp.vision.pipeline.CvStage;
+import org.openpnp.vision.pipeline.stages.ImageRecall;
+
+public class CvPipelineTest {
+    private final List<String> processed = new ArrayList<>();
+
+    /**
+     * Adds one to every pixel of the working image, or creates the image if there isn't one.
+     */
+    public class Increment extends CvStage {
+        @Override
+        public Result process(CvPipeline pipeline) throws Exception {
+            processed.add(getName());
+            Mat mat = pipeline.getWorkingImage();
+            if (mat == null) {
+                return new Result(new Mat(1, 1, CvType.CV_8U, new Scalar(1)));
+            }
+            Core.add(mat, new Scalar(1), mat);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the working image into its model without changing it.
+     */
+    public class Probe extends CvStage {
+        @Override
+        public boolean writesWorkingImage() {
+            return false;
+        }
+
+        @Override
+        public Result process(CvPipeline pipeline) throws Exception {
+            Thread.sleep(20);
+            return new Result(null, (int) pipeline.getWorkingImage().get(0, 0)[0]);
+        }
+    }
+
+    @Test
+    public void testBranches() throws Exception {
+        CvPipeline pipeline = new CvPipeline();
+        pipeline.add("a", new Increment());
+        pipeline.add("b", new Probe());
+        pipeline.add("c", new Increment());
+        pipeline.add("d", new Probe());
+        ImageRecall recall = new ImageRecall();
+        recall.setImageStageName("b");
+        pipeline.add("e", recall);
+        pipeline.add("f", new Probe());
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(pipeline.process(0, null));
+            Assert.assertEquals(1, pipeline.getResult("b").model);
+            Assert.assertEquals(1, value(pipeline, "b"));
+            Assert.assertEquals(2, pipeline.getResult("d").model);
+            Assert.assertEquals(1, value(pipeline, "e"));
+            Assert.assertEquals(1, pipeline.getResult("f").model);
+            Assert.assertEquals(1, (int) pipeline.getWorkingImage().get(0, 0)[0]);
+        }
+        Assert.assertEquals(Arrays.asList("a", "b", "e", "f"),
+                names(pipeline.getCriticalPath()));
+        pipeline.release();
+    }
+
+    @Test
+    public void testIncrementalProcessing() throws Exception {
+        CvPipeline pipeline = new CvPipeline();
+        for (String name : new String[] {"a", "b", "c", "d"}) {
+            pipeline.add(name, new Increment());
+        }
+
+        pipeline.process();
+        Assert.assertEquals(Arrays.asList("a", "b", "c", "d"), processed);
+        Assert.assertEquals(4, value(pipeline, "d"));
+
+        // Only the stages from the given one onward are processed, starting with the result image
+        // of the stage before it.
+        processed.clear();
+        Assert.assertTrue(pipeline.process(2, null));
+        Assert.assertEquals(Arrays.asList("c", "d"), processed);
+        Assert.assertEquals(4, value(pipeline, "d"));
+
+        // Removing a stage processes from where it was.
+        processed.clear();
+        pipeline.remove("b");
+        pipeline.process(pipeline.getStages().size(), null);
+        Assert.assertEquals(Arrays.asList("c", "d"), processed);
+        Assert.assertEquals(3, value(pipeline, "d"));
+        Assert.assertNull(pipeline.getResult("b"));
+
+        // A cancelled run keeps the results it has and the next run picks up from there.
+        processed.clear();
+        Assert.assertFalse(pipeline.process(1, () -> processed.size() == 1));
+        Assert.assertEquals(Arrays.asList("c"), processed);
+        Assert.assertNull(pipeline.getResult("d"));
+        processed.clear();
+        pipeline.process(3, null);
+        Assert.assertEquals(Arrays.asList("d"), processed);
+        Assert.assertEquals(3, value(pipeline, "d"));
+
+        pipeline.release();
+    }
+
+    private static List<String> names(List<CvStage> stages) {
+        List<String> names = new ArrayList<>();
+        for (CvStage stage : stages) {
+            names.add(stage.getName());
+        }
+        return names;
+    }
+
+    private static int value(CvPipeline pipeline, String stageName) {
+        return (int) pipeline.getResult(stageName).image.get(0, 0)[0];
+    }
+}
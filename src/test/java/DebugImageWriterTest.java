@@ -0,0 +1,35 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opencv.core.Mat;
+import org.openpnp.model.Configuration;
+import org.openpnp.util.DebugImageWriter;
+import org.openpnp.util.OpenCvUtils;
+
+import com.google.common.io.Files;
+
+public class DebugImageWriterTest {
+    @Test
+    public void testWrite() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        Configuration.initialize(workingDirectory);
+
+        Mat mat = OpenCvUtils.toMat(new BufferedImage(64, 48, BufferedImage.TYPE_3BYTE_BGR));
+        DebugImageWriter writer = DebugImageWriter.get();
+        long written = writer.getWrittenCount();
+        writer.write(DebugImageWriterTest.class, "test_", mat);
+        // The image is copied when it is queued, so the caller may release it right away.
+        mat.release();
+        writer.flush();
+
+        Assert.assertEquals(written + 1, writer.getWrittenCount());
+        File directory = Configuration.get().getResourceDirectory(DebugImageWriterTest.class);
+        File[] files = directory.listFiles();
+        Assert.assertEquals(1, files.length);
+        Assert.assertTrue(files[0].getName().startsWith("test_"));
+        Assert.assertTrue(files[0].getName().endsWith(writer.getFormat().getSuffix()));
+        Assert.assertTrue(files[0].length() > 0);
+    }
+}
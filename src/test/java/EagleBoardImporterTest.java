@@ -0,0 +1,90 @@
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.gui.importer.EagleBoardImporter;
+import org.openpnp.model.Board;
+import org.openpnp.model.BoardPad;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Pad;
+import org.openpnp.model.Placement;
+
+import com.google.common.io.Files;
+
+public class EagleBoardImporterTest {
+    private File workingDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        Configuration.initialize(workingDirectory);
+        workingDirectory.mkdirs();
+    }
+
+    @Test
+    public void testStreamingMatchesJaxb() throws Exception {
+        File file = new File(ClassLoader.getSystemResource("samples/eagle/eagle.brd").toURI());
+        compare(file);
+    }
+
+    /**
+     * Adds rotated and mirrored elements to the sample so that the pad transforms of the two
+     * readers are compared on both sides.
+     */
+    @Test
+    public void testStreamingMatchesJaxbRotatedAndMirrored() throws Exception {
+        File sample = new File(ClassLoader.getSystemResource("samples/eagle/eagle.brd").toURI());
+        String brd = Files.toString(sample, StandardCharsets.UTF_8);
+        String elements = "</elements>";
+        StringBuilder extra = new StringBuilder();
+        String[] rotations = {"R90", "R45", "MR0", "MR180", "MR270"};
+        for (int i = 0; i < rotations.length; i++) {
+            extra.append("<element name=\"R" + (i + 2)
+                    + "\" library=\"rcl\" package=\"R0805\" value=\"\" x=\"" + (10 + i * 2.54)
+                    + "\" y=\"5.08\" rot=\"" + rotations[i] + "\"/>\n");
+        }
+        brd = brd.replace(elements, extra + elements);
+        File file = new File(workingDirectory, "rotated.brd");
+        Files.write(brd, file, StandardCharsets.UTF_8);
+        compare(file);
+    }
+
+    private static void compare(File file) throws Exception {
+        Board jaxbBoard = new Board();
+        List<Placement> jaxb = EagleBoardImporter.parseFileWithJaxb(file, jaxbBoard, null, true);
+        Board streamingBoard = new Board();
+        List<Placement> streaming =
+                EagleBoardImporter.parseFileStreaming(file, streamingBoard, null, true);
+
+        Assert.assertFalse(jaxb.isEmpty());
+        Assert.assertEquals(jaxb.size(), streaming.size());
+        for (int i = 0; i < jaxb.size(); i++) {
+            Placement a = jaxb.get(i);
+            Placement b = streaming.get(i);
+            Assert.assertEquals(a.getId(), b.getId());
+            Assert.assertEquals(a.getLocation(), b.getLocation());
+            Assert.assertEquals(a.getSide(), b.getSide());
+            Assert.assertEquals(a.getPart().getId(), b.getPart().getId());
+        }
+
+        List<BoardPad> jaxbPads = jaxbBoard.getSolderPastePads();
+        List<BoardPad> streamingPads = streamingBoard.getSolderPastePads();
+        Assert.assertFalse(jaxbPads.isEmpty());
+        Assert.assertEquals(jaxbPads.size(), streamingPads.size());
+        for (int i = 0; i < jaxbPads.size(); i++) {
+            BoardPad a = jaxbPads.get(i);
+            BoardPad b = streamingPads.get(i);
+            Assert.assertEquals(a.getName(), b.getName());
+            Assert.assertEquals(a.getLocation(), b.getLocation());
+            Assert.assertEquals(a.getSide(), b.getSide());
+            Pad.RoundRectangle padA = (Pad.RoundRectangle) a.getPad();
+            Pad.RoundRectangle padB = (Pad.RoundRectangle) b.getPad();
+            Assert.assertEquals(padA.getWidth(), padB.getWidth(), 0);
+            Assert.assertEquals(padA.getHeight(), padB.getHeight(), 0);
+            Assert.assertEquals(padA.getRoundness(), padB.getRoundness(), 0);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferenceMachine;
+import org.openpnp.machine.reference.feeder.ReferenceTubeFeeder;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Part;
+import org.openpnp.spi.FeederIndex;
+import org.openpnp.spi.FeederIndex.Selection;
+
+import com.google.common.io.Files;
+
+public class FeederIndexTest {
+    @Test
+    public void testSelectionAndInvalidation() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        Configuration.initialize(workingDirectory);
+
+        ReferenceMachine machine = new ReferenceMachine();
+        Part partA = new Part("A");
+        Part partB = new Part("B");
+        ReferenceTubeFeeder a1 = createFeeder(machine, partA, true);
+        ReferenceTubeFeeder a2 = createFeeder(machine, partA, true);
+        ReferenceTubeFeeder a3 = createFeeder(machine, partA, false);
+        ReferenceTubeFeeder b1 = createFeeder(machine, partB, true);
+
+        FeederIndex index = machine.getFeederIndex();
+        Assert.assertEquals(2, index.getFeeders(partA).size());
+        Assert.assertSame(a1, index.select(partA, Selection.First, null));
+        Assert.assertSame(b1, index.select(partB, Selection.RoundRobin, null));
+
+        // Round robin alternates between the enabled feeders for the part.
+        Assert.assertSame(a1, index.select(partA, Selection.RoundRobin, null));
+        Assert.assertSame(a2, index.select(partA, Selection.RoundRobin, null));
+        Assert.assertSame(a1, index.select(partA, Selection.RoundRobin, null));
+
+        // Peeking does not move round robin on, used() does.
+        Assert.assertSame(a2, index.peek(partA, Selection.RoundRobin, null));
+        Assert.assertSame(a2, index.peek(partA, Selection.RoundRobin, null));
+        index.used(partA, a2);
+        Assert.assertSame(a1, index.peek(partA, Selection.RoundRobin, null));
+
+        // Enabling, disabling and changing parts are picked up without a rebuild request.
+        a3.setEnabled(true);
+        Assert.assertEquals(3, index.getFeeders(partA).size());
+        a1.setEnabled(false);
+        Assert.assertSame(a2, index.select(partA, Selection.First, null));
+        a2.setPart(partB);
+        Assert.assertEquals(2, index.getFeeders(partB).size());
+        Assert.assertSame(a3, index.select(partA, Selection.First, null));
+
+        // Removing the last feeder for a part leaves none.
+        machine.removeFeeder(a3);
+        Assert.assertFalse(index.hasFeeder(partA));
+        Assert.assertNull(index.select(partA, Selection.Nearest, null));
+    }
+
+    private static ReferenceTubeFeeder createFeeder(ReferenceMachine machine, Part part,
+            boolean enabled) throws Exception {
+        ReferenceTubeFeeder feeder = new ReferenceTubeFeeder();
+        feeder.setPart(part);
+        feeder.setEnabled(enabled);
+        machine.addFeeder(feeder);
+        return feeder;
+    }
+}
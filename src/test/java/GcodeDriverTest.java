@@ -0,0 +1,166 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferenceActuator;
+import org.openpnp.machine.reference.ReferenceNozzle;
+import org.openpnp.machine.reference.driver.GcodeDriver;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+import com.google.common.io.Files;
+
+public class GcodeDriverTest {
+    private static final long LATENCY = 200;
+
+    private ReferenceNozzle nozzle;
+
+    @Before
+    public void setUp() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        Configuration.initialize(workingDirectory);
+        nozzle = new ReferenceNozzle();
+        nozzle.setHeadOffsets(new Location(LengthUnit.Millimeters));
+    }
+
+    /**
+     * A primary and two sub-drivers that each take LATENCY to acknowledge a move. In parallel the
+     * moves overlap, so the whole move takes about one LATENCY instead of three.
+     */
+    @Test
+    public void testParallelSubDrivers() throws Exception {
+        LoopbackGcodeDriver primary = createDriver(null);
+        LoopbackGcodeDriver sub1 = createDriver(null);
+        LoopbackGcodeDriver sub2 = createDriver(null);
+        primary.getSubDrivers().add(sub1);
+        primary.getSubDrivers().add(sub2);
+
+        long sequential = timeMove(primary, 10);
+        Assert.assertTrue("sequential " + sequential, sequential >= 3 * LATENCY);
+
+        primary.setParallelSubDrivers(true);
+        long parallel = timeMove(primary, 20);
+        Assert.assertTrue("parallel " + parallel, parallel < 2 * LATENCY);
+
+        for (LoopbackGcodeDriver driver : Arrays.asList(primary, sub1, sub2)) {
+            Assert.assertEquals(2, driver.received.size());
+        }
+        primary.close();
+    }
+
+    @Test
+    public void testSkipSubDriversWithoutAxes() throws Exception {
+        LoopbackGcodeDriver primary = createDriver(null);
+        LoopbackGcodeDriver sub = createDriver(null);
+        // Give the sub-driver axes for some other nozzle only.
+        for (GcodeDriver.Axis axis : sub.getAxes()) {
+            axis.getHeadMountableIds().clear();
+            axis.getHeadMountableIds().add("some-other-nozzle");
+        }
+        primary.getSubDrivers().add(sub);
+        primary.setSkipSubDriversWithoutAxes(true);
+        primary.setParallelSubDrivers(true);
+
+        timeMove(primary, 10);
+        Assert.assertEquals(1, primary.received.size());
+        Assert.assertEquals(0, sub.received.size());
+        primary.close();
+    }
+
+    @Test
+    public void testErrorsAreAggregated() throws Exception {
+        LoopbackGcodeDriver primary = createDriver("primary failed");
+        LoopbackGcodeDriver sub1 = createDriver(null);
+        LoopbackGcodeDriver sub2 = createDriver("sub failed");
+        primary.getSubDrivers().add(sub1);
+        primary.getSubDrivers().add(sub2);
+        primary.setParallelSubDrivers(true);
+
+        try {
+            timeMove(primary, 10);
+            Assert.fail("Expected the move to fail");
+        }
+        catch (Exception e) {
+            Assert.assertEquals("primary failed", e.getMessage());
+            Assert.assertEquals(1, e.getSuppressed().length);
+            Assert.assertTrue(e.getSuppressed()[0].getMessage().endsWith("sub failed"));
+        }
+        // The healthy sub-driver still completed its move.
+        Assert.assertEquals(1, sub1.received.size());
+        primary.close();
+    }
+
+    /**
+     * The value is taken from the Value group of the response that matches the read regex.
+     * Without a read command the driver can't read the actuator.
+     */
+    @Test
+    public void testActuatorRead() throws Exception {
+        LoopbackGcodeDriver driver = new LoopbackGcodeDriver(null) {
+            @Override
+            protected List<String> sendCommand(String command, long timeout) throws Exception {
+                List<String> responses = super.sendCommand(command, timeout);
+                if ("M105".equals(command)) {
+                    responses.add(0, "T:-42.5 /0.0");
+                }
+                return responses;
+            }
+        };
+        driver.commit();
+        ReferenceActuator actuator = new ReferenceActuator();
+        Assert.assertNull(driver.actuatorRead(actuator));
+
+        driver.setCommand(null, GcodeDriver.CommandType.ACTUATOR_READ_COMMAND, "M105");
+        driver.setCommand(null, GcodeDriver.CommandType.ACTUATOR_READ_REGEX,
+                "T:(?<Value>-?\\d+\\.?\\d*) .*");
+        Assert.assertEquals("-42.5", driver.actuatorRead(actuator));
+        driver.close();
+    }
+
+    private long timeMove(GcodeDriver driver, double x) throws Exception {
+        long t = System.currentTimeMillis();
+        driver.moveTo(nozzle, new Location(LengthUnit.Millimeters, x, 0, 0, 0), 1.0);
+        return System.currentTimeMillis() - t;
+    }
+
+    private static LoopbackGcodeDriver createDriver(String error) {
+        LoopbackGcodeDriver driver = new LoopbackGcodeDriver(error);
+        driver.commit();
+        driver.setCommand(null, GcodeDriver.CommandType.MOVE_TO_COMMAND,
+                "G0 {X:X%.4f} {Y:Y%.4f} {Z:Z%.4f} {Rotation:E%.4f} F{FeedRate:%.0f}");
+        return driver;
+    }
+
+    /**
+     * A GcodeDriver whose controller is simulated in process. Each command is acknowledged with
+     * "ok" after LATENCY, or fails with the given error.
+     */
+    static class LoopbackGcodeDriver extends GcodeDriver {
+        final List<String> received = new ArrayList<>();
+        final String error;
+
+        LoopbackGcodeDriver(String error) {
+            this.error = error;
+        }
+
+        @Override
+        protected List<String> sendCommand(String command, long timeout) throws Exception {
+            if (command == null) {
+                return new ArrayList<>();
+            }
+            Thread.sleep(LATENCY);
+            if (error != null) {
+                throw new Exception(error);
+            }
+            synchronized (received) {
+                received.add(command);
+            }
+            return new ArrayList<>(Arrays.asList("ok"));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.JobJournal;
+
+public class JobJournalTest {
+    @Test
+    public void testWriteAndResume() throws Exception {
+        File file = File.createTempFile("job", ".journal");
+
+        JobJournal journal = new JobJournal(file, "a", false);
+        journal.write("Complete", 0, 1);
+        journal.write("Feeder", "F1", 12);
+        journal.close();
+        Assert.assertTrue(JobJournal.matches(file, "a"));
+        Assert.assertFalse(JobJournal.matches(file, "b"));
+
+        // Resuming appends to the records already there.
+        journal = new JobJournal(file, "a", true);
+        journal.write("Skipped", 0, 2);
+        journal.close();
+
+        // A record cut off by a crash is ignored.
+        Files.write(file.toPath(), "Complete\t0".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        List<String[]> records = JobJournal.read(file, "a");
+        Assert.assertEquals(3, records.size());
+        Assert.assertArrayEquals(new String[] {"Complete", "0", "1"}, records.get(0));
+        Assert.assertArrayEquals(new String[] {"Feeder", "F1", "12"}, records.get(1));
+        Assert.assertArrayEquals(new String[] {"Skipped", "0", "2"}, records.get(2));
+
+        // Starting over replaces the journal.
+        journal = new JobJournal(file, "b", false);
+        journal.close();
+        Assert.assertTrue(JobJournal.read(file, "b").isEmpty());
+        file.delete();
+    }
+
+    @Test
+    public void testResumeAfterTornWrite() throws Exception {
+        File file = File.createTempFile("job", ".journal");
+        file.deleteOnExit();
+
+        JobJournal journal = new JobJournal(file, "a", false);
+        journal.write("Complete", 0, 1);
+        journal.close();
+        Files.write(file.toPath(), "Complete\t0".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        // The torn record is dropped rather than glued onto the next one.
+        journal = new JobJournal(file, "a", true);
+        journal.write("Complete", 0, 2);
+        journal.close();
+        Files.write(file.toPath(), "Skip".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        journal = new JobJournal(file, "a", true);
+        journal.write("Complete", 0, 3);
+        journal.close();
+
+        List<String[]> records = JobJournal.read(file, "a");
+        Assert.assertEquals(3, records.size());
+        Assert.assertArrayEquals(new String[] {"Complete", "0", "1"}, records.get(0));
+        Assert.assertArrayEquals(new String[] {"Complete", "0", "2"}, records.get(1));
+        Assert.assertArrayEquals(new String[] {"Complete", "0", "3"}, records.get(2));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherJob() throws Exception {
+        File file = File.createTempFile("job", ".journal");
+        file.deleteOnExit();
+        JobJournal journal = new JobJournal(file, "a", false);
+        journal.close();
+        JobJournal.read(file, "b");
+    }
+}
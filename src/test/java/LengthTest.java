@@ -0,0 +1,32 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.model.Length;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+public class LengthTest {
+    @Test
+    public void testFeet() {
+        Assert.assertEquals(304.8, Length.toMillimeters(1, LengthUnit.Feet), 1e-9);
+        Assert.assertEquals(1, Length.fromMillimeters(304.8, LengthUnit.Feet), 1e-9);
+        Assert.assertEquals(2,
+                new Length(609.6, LengthUnit.Millimeters).convertToUnits(LengthUnit.Feet)
+                        .getValue(),
+                1e-9);
+        Assert.assertEquals(12, Length.convertToUnits(1, LengthUnit.Feet, LengthUnit.Inches),
+                1e-9);
+    }
+
+    /**
+     * Values that are already in the target units must not go through millimeters, which would
+     * change them slightly for inches.
+     */
+    @Test
+    public void testSameUnitsUnchanged() {
+        double value = 1.1;
+        Assert.assertTrue(
+                value == Length.convertToUnits(value, LengthUnit.Inches, LengthUnit.Inches));
+        Location location = new Location(LengthUnit.Inches, value, value, value, 0);
+        Assert.assertSame(location, location.convertToUnits(LengthUnit.Inches));
+    }
+}
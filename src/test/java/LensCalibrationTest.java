@@ -0,0 +1,163 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.CameraListener;
+import org.openpnp.machine.reference.camera.ImageCamera;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.vision.LensCalibration;
+
+import com.google.common.io.Files;
+
+public class LensCalibrationTest {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    /**
+     * Poses of the calibration card as rotations about x, y and z in degrees and an offset from
+     * the center of the view in mm. The second pose is a near duplicate of the first.
+     */
+    private static final double[][] POSES = {{0, 0, 0, 0, 0}, {0, 0, 0, 1, 0},
+            {20, 0, 0, -80, 0}, {-20, 0, 5, 80, 0}, {0, 20, -5, 0, -50}, {0, -20, 0, 0, 50},
+            {15, 15, 30, 60, 40}, {-15, 10, -20, -60, -40}, {10, -15, 60, 0, 20}};
+
+    /**
+     * Feeds recorded frames of a calibration card through an ImageCamera while it calibrates and
+     * checks that the calibration completes, near duplicate poses are skipped and frames keep
+     * arriving while the pattern is searched for and the calibration is computed.
+     */
+    @Test
+    public void testCalibrationFromImageCamera() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        Configuration.initialize(workingDirectory);
+        workingDirectory.mkdirs();
+
+        List<File> frames = new ArrayList<>();
+        for (int i = 0; i < POSES.length; i++) {
+            File file = new File(workingDirectory, "calibration-" + i + ".png");
+            ImageIO.write(renderPose(POSES[i]), "png", file);
+            frames.add(file);
+        }
+
+        ImageCamera camera = new ImageCamera();
+        camera.setSourceUri(frames.get(0).toURI().toString());
+        // Center the view on the source image.
+        Location unitsPerPixel = camera.getUnitsPerPixel();
+        camera.setHeadOffsets(new Location(LengthUnit.Inches, unitsPerPixel.getX() * WIDTH / 2,
+                unitsPerPixel.getY() * HEIGHT / 2, 0, 0));
+
+        AtomicInteger frameCount = new AtomicInteger();
+        CameraListener listener = new CameraListener() {
+            @Override
+            public void frameReceived(BufferedImage img) {
+                frameCount.incrementAndGet();
+            }
+        };
+        camera.startContinuousCapture(listener, 24);
+
+        CountDownLatch complete = new CountDownLatch(1);
+        camera.setCalibrationCountGoal(POSES.length - 2);
+        camera.startCalibration((progressCurrent, progressMax, finished) -> {
+            if (finished) {
+                complete.countDown();
+            }
+        });
+        LensCalibration lensCalibration = camera.getLensCalibration();
+        try {
+            long start = System.currentTimeMillis();
+            for (int i = 0; complete.getCount() > 0; i = (i + 1) % frames.size()) {
+                Assert.assertTrue("calibration did not complete",
+                        System.currentTimeMillis() - start < 60000);
+                camera.setSourceUri(frames.get(i).toURI().toString());
+                complete.await(1000, TimeUnit.MILLISECONDS);
+            }
+            long seconds = Math.max(1, (System.currentTimeMillis() - start) / 1000);
+
+            Assert.assertTrue(camera.getCalibration().isEnabled());
+            Assert.assertTrue(lensCalibration.getRejectedCount() > 0);
+            Assert.assertTrue("capture slowed down: " + frameCount.get() + " frames",
+                    frameCount.get() / seconds >= 5);
+        }
+        finally {
+            camera.cancelCalibration();
+            camera.stopContinuousCapture(listener);
+        }
+    }
+
+    /**
+     * Render the 4 x 11 asymmetric circles grid used by ReferenceCamera, with a 15mm spacing, as
+     * seen by a pinhole camera 700mm away.
+     */
+    private static BufferedImage renderPose(double[] pose) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(Color.white);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+        g.setColor(Color.black);
+
+        double spacing = 15;
+        double radius = spacing * 0.35;
+        double[][] r = rotation(Math.toRadians(pose[0]), Math.toRadians(pose[1]),
+                Math.toRadians(pose[2]));
+        for (int i = 0; i < 11; i++) {
+            for (int j = 0; j < 4; j++) {
+                double cx = (2 * j + i % 2) * spacing - 3.5 * spacing + pose[3];
+                double cy = i * spacing - 5 * spacing + pose[4];
+                Polygon circle = new Polygon();
+                for (int k = 0; k < 24; k++) {
+                    double a = 2 * Math.PI * k / 24;
+                    double[] p = project(r, cx + radius * Math.cos(a), cy + radius * Math.sin(a));
+                    circle.addPoint((int) Math.round(p[0]), (int) Math.round(p[1]));
+                }
+                g.fillPolygon(circle);
+            }
+        }
+        g.dispose();
+        return image;
+    }
+
+    private static double[] project(double[][] r, double x, double y) {
+        double f = 900;
+        double xc = r[0][0] * x + r[0][1] * y;
+        double yc = r[1][0] * x + r[1][1] * y;
+        double zc = r[2][0] * x + r[2][1] * y + 700;
+        return new double[] {f * xc / zc + WIDTH / 2, f * yc / zc + HEIGHT / 2};
+    }
+
+    private static double[][] rotation(double ax, double ay, double az) {
+        double[][] rx = {{1, 0, 0}, {0, Math.cos(ax), -Math.sin(ax)},
+                {0, Math.sin(ax), Math.cos(ax)}};
+        double[][] ry = {{Math.cos(ay), 0, Math.sin(ay)}, {0, 1, 0},
+                {-Math.sin(ay), 0, Math.cos(ay)}};
+        double[][] rz = {{Math.cos(az), -Math.sin(az), 0}, {Math.sin(az), Math.cos(az), 0},
+                {0, 0, 1}};
+        return multiply(rz, multiply(ry, rx));
+    }
+
+    private static double[][] multiply(double[][] a, double[][] b) {
+        double[][] c = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 3; k++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return c;
+    }
+}
@@ -0,0 +1,176 @@
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.CameraListener;
+import org.openpnp.machine.reference.camera.MjpegStream;
+import org.openpnp.machine.reference.camera.OnvifIPCamera;
+import org.openpnp.model.Configuration;
+
+import com.google.common.io.Files;
+import com.sun.net.httpserver.HttpServer;
+
+public class MjpegStreamTest {
+    private static final int FRAME_WIDTH = 64;
+    private static final int FRAME_HEIGHT = 48;
+
+    private HttpServer server;
+    private byte[] recording;
+
+    /**
+     * Serves a recorded MJPEG stream in a loop, the way an IP camera serves its live stream.
+     */
+    @Before
+    public void setUp() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            frames.add(createJpeg(i));
+        }
+        recording = record(frames, true);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/mjpeg", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type",
+                    "multipart/x-mixed-replace; boundary=frame");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                while (true) {
+                    out.write(recording);
+                    out.flush();
+                    Thread.sleep(50);
+                }
+            }
+            catch (Exception e) {
+                // The client hung up.
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testParser() throws Exception {
+        Random random = new Random(0);
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            byte[] frame = new byte[random.nextInt(400000)];
+            random.nextBytes(frame);
+            frames.add(frame);
+        }
+        for (boolean contentLength : new boolean[] {true, false}) {
+            // Without a Content-Length a part ends at the next boundary, so close the stream with
+            // one.
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(record(frames, contentLength));
+            out.write("--frame--\r\n".getBytes("US-ASCII"));
+            byte[] stream = out.toByteArray();
+            MjpegStream.Parser parser =
+                    new MjpegStream.Parser(new ChunkedInputStream(stream, random), "frame");
+            for (byte[] frame : frames) {
+                Assert.assertTrue(parser.readFrame());
+                byte[] read = Arrays.copyOfRange(parser.getBuffer(), parser.getFrameOffset(),
+                        parser.getFrameOffset() + parser.getFrameLength());
+                Assert.assertArrayEquals(frame, read);
+            }
+            Assert.assertFalse(parser.readFrame());
+        }
+    }
+
+    @Test
+    public void testCameraStreaming() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        Configuration.initialize(workingDirectory);
+
+        OnvifIPCamera camera = new OnvifIPCamera();
+        camera.setStreamUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/mjpeg");
+        CameraListener listener = new CameraListener() {
+            @Override
+            public void frameReceived(BufferedImage img) {}
+        };
+        camera.startContinuousCapture(listener, 30);
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (camera.getStream() == null || camera.getStream().getFramesDecoded() < 10) {
+                Assert.assertTrue("no frames decoded", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(camera.getStream().isConnected());
+            BufferedImage image = camera.captureAfter(System.nanoTime());
+            Assert.assertNotNull(image);
+            Assert.assertEquals(FRAME_WIDTH, image.getWidth());
+            Assert.assertEquals(FRAME_HEIGHT, image.getHeight());
+        }
+        finally {
+            camera.stopContinuousCapture(listener);
+            camera.close();
+        }
+    }
+
+    private static byte[] createJpeg(int index) throws Exception {
+        BufferedImage image =
+                new BufferedImage(FRAME_WIDTH, FRAME_HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        for (int x = 0; x < FRAME_WIDTH; x++) {
+            for (int y = 0; y < FRAME_HEIGHT; y++) {
+                image.setRGB(x, y, (index * 40) << 16 | x * 4 << 8 | y * 5);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] record(List<byte[]> frames, boolean contentLength) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] frame : frames) {
+            String headers = "--frame\r\nContent-Type: image/jpeg\r\n";
+            if (contentLength) {
+                headers += "Content-Length: " + frame.length + "\r\n";
+            }
+            out.write((headers + "\r\n").getBytes("US-ASCII"));
+            out.write(frame);
+            out.write("\r\n".getBytes("US-ASCII"));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns data in small reads of random length, as a network stream does.
+     */
+    static class ChunkedInputStream extends InputStream {
+        private final ByteArrayInputStream in;
+        private final Random random;
+
+        ChunkedInputStream(byte[] data, Random random) {
+            this.in = new ByteArrayInputStream(data);
+            this.random = random;
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, Math.min(len, 1 + random.nextInt(4096)));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferenceMultiHeadPnpJobProcessor;
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Job;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.spi.Head;
+import org.openpnp.spi.Machine;
+
+import com.google.common.io.Files;
+
+public class MultiHeadJobTest {
+    /**
+     * Runs the same job on the simulated two head machine with one head and then with both, and
+     * checks that both heads together place every part, each of them some, and that their cycles
+     * overlapped. Throughput isn't compared, since it depends on the load of the machine running
+     * the test.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTwoHeads() throws Exception {
+        File workingDirectory = Files.createTempDir();
+        workingDirectory = new File(workingDirectory, ".openpnp");
+
+        FileUtils.copyURLToFile(
+                ClassLoader.getSystemResource("config/MultiHeadJobTest/machine.xml"),
+                new File(workingDirectory, "machine.xml"));
+        FileUtils.copyURLToFile(
+                ClassLoader.getSystemResource("config/MultiHeadJobTest/packages.xml"),
+                new File(workingDirectory, "packages.xml"));
+        FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/MultiHeadJobTest/parts.xml"),
+                new File(workingDirectory, "parts.xml"));
+
+        Configuration.initialize(workingDirectory);
+        Configuration.get().load();
+
+        Machine machine = Configuration.get().getMachine();
+        ReferenceMultiHeadPnpJobProcessor jobProcessor =
+                (ReferenceMultiHeadPnpJobProcessor) machine.getPnpJobProcessor();
+        machine.setEnabled(true);
+
+        Head h1 = machine.getHead("H1");
+        Head h2 = machine.getHead("H2");
+
+        jobProcessor.setMaxHeads(1);
+        runJob(jobProcessor);
+        Assert.assertEquals(6, jobProcessor.getPlacedCount(h1));
+        Assert.assertEquals(1, jobProcessor.getMaxActiveCycles());
+
+        jobProcessor.setMaxHeads(0);
+        runJob(jobProcessor);
+        Assert.assertTrue(jobProcessor.getPlacedCount(h1) > 0);
+        Assert.assertTrue(jobProcessor.getPlacedCount(h2) > 0);
+        Assert.assertEquals(2, jobProcessor.getMaxActiveCycles());
+    }
+
+    private void runJob(ReferenceMultiHeadPnpJobProcessor jobProcessor) throws Exception {
+        Job job = createJob();
+        jobProcessor.initialize(job);
+        while (jobProcessor.next());
+        Assert.assertEquals(6, jobProcessor.getPlacedCount());
+    }
+
+    private Job createJob() {
+        Job job = new Job();
+        for (int i = 0; i < 2; i++) {
+            Board board = new Board();
+            board.setName("Board " + (i + 1));
+            for (int j = 0; j < 3; j++) {
+                board.addPlacement(BasicJobTest.createPlacement("R" + (j + 1), "R-0805-10K",
+                        10 + j * 20, 10, 0, 0, Side.Top));
+            }
+            BoardLocation boardLocation = new BoardLocation(board);
+            boardLocation.setLocation(new Location(LengthUnit.Millimeters, i * 150, 0, 0, 0));
+            boardLocation.setSide(Side.Top);
+            job.addBoardLocation(boardLocation);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,59 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.model.Length;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.MutableLocation;
+
+public class MutableLocationTest {
+    /**
+     * A Location that is read in and handed back out keeps its units and exact values, even where
+     * a round trip through millimeters would not.
+     */
+    @Test
+    public void testUnitsArePreserved() {
+        double x = 0.09;
+        double mm = Length.toMillimeters(x, LengthUnit.Inches);
+        Assert.assertNotEquals(x, Length.fromMillimeters(mm, LengthUnit.Inches), 0);
+
+        Location target = new Location(LengthUnit.Inches, x, 0.11, 0.17, 45);
+        MutableLocation location = new MutableLocation(target);
+        location.subtract(new Location(LengthUnit.Millimeters));
+        Assert.assertSame(LengthUnit.Inches, location.getUnits());
+        Assert.assertEquals(target, location.toLocation());
+        Assert.assertTrue(x == location.toLocation().getX());
+    }
+
+    /**
+     * Locations in other units are converted to the units of the MutableLocation, as with
+     * Location.add and subtract, and the rotation is left alone.
+     */
+    @Test
+    public void testArithmetic() {
+        MutableLocation location = new MutableLocation(LengthUnit.Millimeters, 10, 20, 30, 90);
+        location.add(new Location(LengthUnit.Inches, 1, 0, 0, 45));
+        location.subtract(new Location(LengthUnit.Centimeters, 0, 1, 2, 45));
+        Assert.assertEquals(35.4, location.getX(), 1e-9);
+        Assert.assertEquals(10, location.getY(), 1e-9);
+        Assert.assertEquals(10, location.getZ(), 1e-9);
+        Assert.assertEquals(90, location.getRotation(), 0);
+
+        Location inches = location.toLocation(LengthUnit.Inches);
+        Assert.assertSame(LengthUnit.Inches, inches.getUnits());
+        Assert.assertEquals(35.4 / 25.4, inches.getX(), 1e-9);
+        Assert.assertEquals(35.4 / 25.4, location.getX(LengthUnit.Inches), 1e-9);
+    }
+
+    @Test
+    public void testReplaceNaN() {
+        MutableLocation location = new MutableLocation(LengthUnit.Millimeters, Double.NaN, 2,
+                Double.NaN, Double.NaN);
+        Assert.assertTrue(location.hasNaN());
+        location.replaceNaN(new Location(LengthUnit.Inches, 1, 1, 2, 180));
+        Assert.assertFalse(location.hasNaN());
+        Assert.assertEquals(25.4, location.getX(), 1e-9);
+        Assert.assertEquals(2, location.getY(), 0);
+        Assert.assertEquals(50.8, location.getZ(), 1e-9);
+        Assert.assertEquals(180, location.getRotation(), 0);
+    }
+}
@@ -0,0 +1,57 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.camera.ImageCamera;
+import org.openpnp.machine.reference.vision.OpenCvVisionProvider;
+import org.openpnp.model.Configuration;
+import org.openpnp.util.ImageUtils;
+
+import com.google.common.io.Files;
+
+public class OpenCvVisionProviderTest {
+    /**
+     * A template read from a gray PNG is TYPE_BYTE_GRAY while the camera image is color. The
+     * template must be converted to the type of the area of interest before matching.
+     */
+    @Test
+    public void testGrayscaleTemplate() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        Configuration.initialize(workingDirectory);
+
+        BufferedImage image = new BufferedImage(200, 150, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.white);
+        g.fillRect(0, 0, 200, 150);
+        g.setColor(Color.black);
+        g.fillRect(120, 60, 20, 10);
+        g.fillRect(120, 70, 6, 12);
+        g.dispose();
+
+        BufferedImage template = ImageUtils.convertBufferedImage(
+                ImageUtils.crop(image, 110, 50, 40, 40, BufferedImage.TYPE_3BYTE_BGR),
+                BufferedImage.TYPE_BYTE_GRAY);
+        Assert.assertEquals(BufferedImage.TYPE_BYTE_GRAY, template.getType());
+
+        ImageCamera camera = new ImageCamera() {
+            @Override
+            public BufferedImage capture() {
+                return image;
+            }
+        };
+        OpenCvVisionProvider provider = new OpenCvVisionProvider();
+        provider.setCamera(camera);
+
+        Point[] matches = provider.locateTemplateMatches(50, 20, 140, 110, 0, 0, template);
+        Assert.assertEquals(1, matches.length);
+        Assert.assertEquals(new Point(110, 50), matches[0]);
+
+        // The cached template is used the second time.
+        matches = provider.locateTemplateMatches(50, 20, 140, 110, 0, 0, template);
+        Assert.assertEquals(new Point(110, 50), matches[0]);
+    }
+}
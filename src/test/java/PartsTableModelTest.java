@@ -0,0 +1,65 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.gui.tablemodel.PartsTableModel;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Part;
+
+import com.google.common.io.Files;
+
+public class PartsTableModelTest {
+    @Test
+    public void testFineGrainedEvents() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        Configuration.initialize(workingDirectory);
+        Configuration configuration = Configuration.get();
+        for (Part part : configuration.getParts()) {
+            configuration.removePart(part);
+        }
+        Part a = new Part("A");
+        Part b = new Part("B");
+        configuration.addPart(a);
+        configuration.addPart(b);
+
+        List<TableModelEvent> events = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            PartsTableModel model = new PartsTableModel();
+            model.addTableModelListener(e -> events.add(e));
+            Assert.assertEquals(2, model.getRowCount());
+
+            // Cell values are cached until the part changes.
+            Object height = model.getValueAt(1, 2);
+            Assert.assertSame(height, model.getValueAt(1, 2));
+            b.setName("Bee");
+            Assert.assertEquals("Bee", model.getValueAt(1, 1));
+            assertEvent(events.remove(0), TableModelEvent.UPDATE, 1, 1);
+
+            Part c = new Part("C");
+            configuration.addPart(c);
+            Assert.assertEquals(3, model.getRowCount());
+            assertEvent(events.remove(0), TableModelEvent.INSERT, 2, 2);
+
+            configuration.removePart(a);
+            Assert.assertEquals(2, model.getRowCount());
+            Assert.assertSame(b, model.getPart(0));
+            assertEvent(events.remove(0), TableModelEvent.DELETE, 0, 0);
+
+            // Rows after a delete still map to their parts.
+            c.setName("See");
+            assertEvent(events.remove(0), TableModelEvent.UPDATE, 1, 1);
+            Assert.assertTrue(events.isEmpty());
+        });
+    }
+
+    private static void assertEvent(TableModelEvent e, int type, int firstRow, int lastRow) {
+        Assert.assertEquals(type, e.getType());
+        Assert.assertEquals(firstRow, e.getFirstRow());
+        Assert.assertEquals(lastRow, e.getLastRow());
+    }
+}
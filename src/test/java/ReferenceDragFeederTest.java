@@ -0,0 +1,79 @@
+import java.io.File;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.feeder.ReferenceDragFeeder;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Length;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.spi.Head;
+import org.openpnp.spi.Machine;
+import org.openpnp.spi.Nozzle;
+
+import com.google.common.io.Files;
+
+public class ReferenceDragFeederTest {
+    /**
+     * Vision is skipped once the offsets have been stable for Skip After Stable Feeds feeds, run
+     * again after Verify Interval skipped feeds, and an offset outside the Stable Tolerance starts
+     * the count over.
+     */
+    @Test
+    public void testSkipStableVision() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        for (String name : new String[] {"machine.xml", "packages.xml", "parts.xml"}) {
+            FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/BasicJobTest/" + name),
+                    new File(workingDirectory, name));
+        }
+        Configuration.initialize(workingDirectory);
+        Configuration.get().load();
+        Machine machine = Configuration.get().getMachine();
+        machine.setEnabled(true);
+        Head head = machine.getHead("H1");
+        Nozzle nozzle = head.getNozzle("N1");
+
+        Location stable = new Location(LengthUnit.Millimeters, 0.1, 0.2, 0, 0);
+        Location nearby = new Location(LengthUnit.Millimeters, 0.12, 0.2, 0, 0);
+        Location moved = new Location(LengthUnit.Millimeters, 0.5, 0.2, 0, 0);
+        Queue<Location> offsets = new LinkedList<>();
+        // The first feed runs vision before and after the drag.
+        offsets.add(stable);
+        offsets.add(nearby);
+        // Second feed, the offsets are now stable for 2 feeds.
+        offsets.add(stable);
+        // Verification after 3 skipped feeds finds the tape moved.
+        offsets.add(moved);
+        // So the next feed runs vision again.
+        offsets.add(moved);
+
+        ReferenceDragFeeder feeder = new ReferenceDragFeeder() {
+            @Override
+            protected Location getVisionOffsets(Head head, Location pickLocation) {
+                return offsets.remove();
+            }
+        };
+        feeder.setActuatorName(head.getActuator("A1").getName());
+        feeder.setLocation(new Location(LengthUnit.Millimeters, 10, 10, 0, 0));
+        feeder.setFeedStartLocation(new Location(LengthUnit.Millimeters, 14, 10, 0, 0));
+        feeder.setFeedEndLocation(new Location(LengthUnit.Millimeters, 10, 10, 0, 0));
+        feeder.getVision().setEnabled(true);
+        feeder.getVision().setSkipAfterStableFeeds(2);
+        feeder.getVision().setVerifyInterval(3);
+        feeder.getVision().setStableTolerance(new Length(0.05, LengthUnit.Millimeters));
+
+        int[] remaining = {3, 2, 2, 2, 2, 1, 0};
+        for (int i = 0; i < remaining.length; i++) {
+            feeder.feed(nozzle);
+            Assert.assertEquals("vision runs left after feed " + (i + 1), remaining[i],
+                    offsets.size());
+        }
+        // The pick location uses the offsets found by the last vision run.
+        Location pickLocation = feeder.getPickLocation();
+        Assert.assertEquals(9.5, pickLocation.getX(), 1e-9);
+        Assert.assertEquals(9.8, pickLocation.getY(), 1e-9);
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferenceMachine;
+import org.openpnp.machine.reference.ReferenceNozzle;
+import org.openpnp.machine.reference.ReferenceNozzleTip;
+import org.openpnp.machine.reference.driver.NullDriver;
+import org.openpnp.machine.reference.driver.test.TestDriver;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Part;
+import org.openpnp.spi.Actuator;
+import org.openpnp.spi.Head;
+
+import com.google.common.io.Files;
+
+public class ReferenceNozzleTest {
+    private CountingDriver driver;
+    private ReferenceNozzle nozzle;
+    private ReferenceNozzleTip nozzleTip;
+    private Actuator vacuumSense;
+    private Part part;
+
+    @Before
+    public void setUp() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        for (String name : new String[] {"machine.xml", "packages.xml", "parts.xml"}) {
+            FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/BasicJobTest/" + name),
+                    new File(workingDirectory, name));
+        }
+        Configuration.initialize(workingDirectory);
+        Configuration.get().load();
+
+        // The NullDriver reads an actuator back as the last value it was actuated with, so the
+        // actuator stands in for the vacuum sensor.
+        ReferenceMachine machine = (ReferenceMachine) Configuration.get().getMachine();
+        driver = new CountingDriver();
+        driver.setFeedRateMmPerMinute(0);
+        ((TestDriver) machine.getDriver()).setDelegate(driver);
+        machine.setEnabled(true);
+
+        Head head = machine.getHead("H1");
+        nozzle = (ReferenceNozzle) head.getNozzle("N1");
+        nozzle.setPickDwellMilliseconds(0);
+        nozzleTip = (ReferenceNozzleTip) nozzle.getNozzleTip();
+        nozzleTip.setVacuumLevelPartOnLow(10);
+        nozzleTip.setVacuumLevelPartOnHigh(20);
+        nozzleTip.setPickRetryCount(2);
+        vacuumSense = head.getActuator("A1");
+        nozzle.setVacuumSenseActuatorName(vacuumSense.getName());
+        part = Configuration.get().getPart("R-0805-10K");
+    }
+
+    @Test
+    public void testPartOn() throws Exception {
+        vacuumSense.actuate(15.0);
+        nozzle.pick(part);
+        Assert.assertEquals(1, driver.picks);
+        Assert.assertEquals(0, driver.places);
+        Assert.assertSame(part, nozzle.getPart());
+    }
+
+    /**
+     * A pick that never reaches the vacuum level is retried in place Pick Retry Count times, then
+     * the vacuum is released and the nozzle is left empty.
+     */
+    @Test
+    public void testMissedPick() throws Exception {
+        vacuumSense.actuate(25.0);
+        try {
+            nozzle.pick(part);
+            Assert.fail("Pick should fail with the vacuum level out of range");
+        }
+        catch (Exception e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("vacuum level 25.0"));
+        }
+        Assert.assertEquals(3, driver.picks);
+        Assert.assertEquals(3, driver.places);
+        Assert.assertNull(nozzle.getPart());
+    }
+
+    /**
+     * A switch type sensor reads true or false, which count as 1 and 0.
+     */
+    @Test
+    public void testBooleanSensor() throws Exception {
+        nozzleTip.setVacuumLevelPartOnLow(0.5);
+        nozzleTip.setVacuumLevelPartOnHigh(1.5);
+        nozzleTip.setPickRetryCount(0);
+
+        vacuumSense.actuate(true);
+        nozzle.pick(part);
+        Assert.assertSame(part, nozzle.getPart());
+
+        vacuumSense.actuate(false);
+        try {
+            nozzle.pick(part);
+            Assert.fail("Pick should fail with the vacuum switch off");
+        }
+        catch (Exception e) {
+            Assert.assertNull(nozzle.getPart());
+        }
+        Assert.assertEquals(2, driver.picks);
+        Assert.assertEquals(1, driver.places);
+    }
+
+    /**
+     * The check is off unless the high threshold is above the low one.
+     */
+    @Test
+    public void testThresholdsIgnoredWhenHighNotAboveLow() throws Exception {
+        nozzleTip.setVacuumLevelPartOnLow(20);
+        nozzleTip.setVacuumLevelPartOnHigh(20);
+        vacuumSense.actuate(5.0);
+        nozzle.pick(part);
+        Assert.assertSame(part, nozzle.getPart());
+
+        nozzleTip.setVacuumLevelPartOnHigh(10);
+        nozzle.pick(part);
+        Assert.assertSame(part, nozzle.getPart());
+        Assert.assertEquals(2, driver.picks);
+        Assert.assertEquals(0, driver.places);
+    }
+
+    public static class CountingDriver extends NullDriver {
+        int picks;
+        int places;
+
+        @Override
+        public void pick(ReferenceNozzle nozzle) throws Exception {
+            super.pick(nozzle);
+            picks++;
+        }
+
+        @Override
+        public void place(ReferenceNozzle nozzle) throws Exception {
+            super.place(nozzle);
+            places++;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.ScriptRuntime;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Job;
+import org.openpnp.spi.JobProcessor;
+import org.openpnp.spi.Machine;
+
+import com.google.common.io.Files;
+
+public class ScriptRuntimeTest {
+    public static final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void testScriptsAreReloadedWhenChanged() throws Exception {
+        File workingDirectory = Files.createTempDir();
+        Configuration.initialize(workingDirectory);
+        ScriptRuntime runtime = new ScriptRuntime(new File(workingDirectory, "scripts"));
+
+        File script = new File(runtime.getScriptsDirectory(), "Value.js");
+        FileUtils.writeStringToFile(script, "value * 2", "UTF-8");
+        for (int i = 0; i < 3; i++) {
+            Object result = runtime.execute(script, Collections.singletonMap("value", i));
+            Assert.assertEquals(i * 2, ((Number) result).intValue());
+        }
+
+        FileUtils.writeStringToFile(script, "value * 3", "UTF-8");
+        runtime.invalidate(script);
+        Object result = runtime.execute(script, Collections.singletonMap("value", 2));
+        Assert.assertEquals(6, ((Number) result).intValue());
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        File workingDirectory = Files.createTempDir();
+        Configuration.initialize(workingDirectory);
+        ScriptRuntime runtime = new ScriptRuntime(new File(workingDirectory, "scripts"));
+
+        Assert.assertFalse(runtime.hasScripts("Test.Event"));
+        runtime.on("Test.Event", null);
+        Assert.assertEquals(0, runtime.getEventCount());
+
+        // Scripts on the same engine keep their globals between runs.
+        runtime.getEventsDirectory().mkdirs();
+        FileUtils.writeStringToFile(new File(runtime.getEventsDirectory(), "Test.Event.js"),
+                "if (typeof count == 'undefined') { count = 0; } counter.set(++count);", "UTF-8");
+        runtime.invalidate(null);
+        Assert.assertTrue(runtime.hasScripts("Test.Event"));
+        Assert.assertFalse(runtime.hasScripts("Other.Event"));
+
+        AtomicInteger counter = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            runtime.on("Test.Event", Collections.singletonMap("counter", counter));
+        }
+        Assert.assertEquals(100, counter.get());
+        Assert.assertEquals(100, runtime.getEventCount());
+    }
+
+    /**
+     * Every job processor fires Job.Starting, Job.Finished and Job.Error, not only the pick and
+     * place one.
+     */
+    @Test
+    public void testJobEvents() throws Exception {
+        File workingDirectory = new File(Files.createTempDir(), ".openpnp");
+        for (String name : new String[] {"machine.xml", "packages.xml", "parts.xml"}) {
+            FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/BasicJobTest/" + name),
+                    new File(workingDirectory, name));
+        }
+        Configuration.initialize(workingDirectory);
+        Configuration.get().load();
+        Machine machine = Configuration.get().getMachine();
+        machine.setEnabled(true);
+
+        ScriptRuntime runtime = Configuration.get().getScriptRuntime();
+        runtime.getEventsDirectory().mkdirs();
+        String record = "Java.type('ScriptRuntimeTest').events.add(";
+        FileUtils.writeStringToFile(new File(runtime.getEventsDirectory(), "Job.Starting.js"),
+                record + "'Starting ' + jobProcessor.getClass().getSimpleName());", "UTF-8");
+        FileUtils.writeStringToFile(new File(runtime.getEventsDirectory(), "Job.Finished.js"),
+                record + "'Finished ' + jobProcessor.getClass().getSimpleName());", "UTF-8");
+        FileUtils.writeStringToFile(new File(runtime.getEventsDirectory(), "Job.Error.js"),
+                record + "'Error ' + error.getMessage());", "UTF-8");
+        runtime.invalidate(null);
+        events.clear();
+
+        JobProcessor jobProcessor = machine.getPnpJobProcessor();
+        jobProcessor.initialize(new Job());
+        while (jobProcessor.next());
+        Assert.assertEquals(Arrays.asList("Starting ReferencePnpJobProcessor",
+                "Finished ReferencePnpJobProcessor"), events);
+
+        // The test machine has no paste dispenser, so the glue job fails its pre-flight.
+        events.clear();
+        jobProcessor = machine.getGlueDispenseJobProcessor();
+        jobProcessor.initialize(new Job());
+        try {
+            while (jobProcessor.next());
+            Assert.fail("Glue job should fail without a paste dispenser");
+        }
+        catch (Exception e) {
+            Assert.assertEquals(Collections.singletonList("Error " + e.getMessage()), events);
+        }
+    }
+}
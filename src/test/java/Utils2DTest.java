@@ -1,3 +1,6 @@
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 import org.openpnp.model.Board;
 import org.openpnp.model.Board.Side;
@@ -207,6 +210,56 @@ public class Utils2DTest {
         System.out.println("test" + ++i);
         check(loc1, place);
     }
+
+    /**
+     * Check that the cached BoardTransform and the batch projection give exactly the same results
+     * as the per placement calculation, including bottom side and mixed unit placements.
+     */
+    @Test
+    public void testBoardTransformMatchesCalculation() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            BoardLocation boardLocation = randomBoardLocation();
+            boardLocation.getBoard().setDimensions(
+                    new Location(LengthUnit.Millimeters, Math.random() * 100, 50, 0, 0));
+            List<Location> locations = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                Location location = randomLocation();
+                if (j % 4 == 3) {
+                    location = location.convertToUnits(LengthUnit.Inches);
+                }
+                locations.add(location);
+            }
+            Location[] batch = Utils2D.calculateBoardPlacementLocations(
+                    boardLocation.getPlacementTransform(), locations);
+            for (int j = 0; j < locations.size(); j++) {
+                Location expected = Utils2D.calculateBoardPlacementLocation(
+                        boardLocation.getLocation(), boardLocation.getSide(),
+                        boardLocation.getBoard().getDimensions().getX(), locations.get(j));
+                Location single = Utils2D.calculateBoardPlacementLocation(boardLocation,
+                        locations.get(j));
+                if (!expected.equals(single) || expected.getUnits() != single.getUnits()) {
+                    throw new Exception("single " + single + " != " + expected);
+                }
+                if (!expected.equals(batch[j]) || expected.getUnits() != batch[j].getUnits()) {
+                    throw new Exception("batch " + batch[j] + " != " + expected);
+                }
+            }
+        }
+
+        // The cached transform follows changes to the BoardLocation.
+        BoardLocation boardLocation = randomBoardLocation();
+        Location place = randomLocation();
+        boardLocation.setSide(Side.Top);
+        Location top = Utils2D.calculateBoardPlacementLocation(boardLocation, place);
+        boardLocation.setSide(Side.Bottom);
+        boardLocation.getBoard().setDimensions(new Location(LengthUnit.Millimeters, 80, 50, 0, 0));
+        Location bottom = Utils2D.calculateBoardPlacementLocation(boardLocation, place);
+        check(bottom, Utils2D.calculateBoardPlacementLocation(boardLocation.getLocation(),
+                Side.Bottom, 80, place));
+        if (top.equals(bottom)) {
+            throw new Exception("transform was not invalidated");
+        }
+    }
 }
 
 
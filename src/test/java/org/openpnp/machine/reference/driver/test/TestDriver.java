@@ -102,6 +102,12 @@ public class TestDriver implements ReferenceDriver {
         delegate.actuate(actuator, value);
     }
 
+    @Override
+    public String actuatorRead(ReferenceActuator actuator) throws Exception {
+        logger.debug("actuatorRead({})", actuator);
+        return delegate.actuatorRead(actuator);
+    }
+
     @Override
     public void dispense(ReferencePasteDispenser dispenser, Location startLocation,
             Location endLocation, long dispenseTimeMilliseconds) throws Exception {}